@@ -0,0 +1,247 @@
+package edu.ntnu.stud.transport;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+
+/**
+ * The BitmapIndex class keeps a bitmap of the train departures for every destination, train line
+ * and track of a train station, and a bitmap of the delayed train departures. Every registered
+ * train departure gets a dense ordinal, which is its bit in the bitmaps. The ordinal of a removed
+ * train departure is reused by the next train departure that is added, so the ordinals stay below
+ * the largest number of train departures the train station has had at once. A filter on several of
+ * these criteria is answered by combining the bitmaps: the values of one criterion with OR, and the
+ * criteria with AND.
+ *
+ * @author Johan Fredrik Wilvang
+ * @version 3.1.0
+ * @since 3.1.0
+ */
+
+final class BitmapIndex {
+
+  private TrainDeparture[] trains;
+  /** The ordinal of each indexed train departure, kept here since it belongs to this index. */
+  private final Map<TrainDeparture, Integer> ordinals;
+  private int[] freeOrdinals;
+  private int free;
+  private int nextOrdinal;
+  private DepartureBitmap all;
+  private DepartureBitmap delayed;
+  private final Map<Integer, DepartureBitmap> destinations;
+  private final Map<Integer, DepartureBitmap> trainLines;
+  private final Map<Integer, DepartureBitmap> tracks;
+
+  /**
+   * Creates an empty object of class BitmapIndex.
+   *
+   * @since 3.1.0
+   */
+  BitmapIndex() {
+    this.trains = new TrainDeparture[16];
+    this.ordinals = new IdentityHashMap<>();
+    this.freeOrdinals = new int[16];
+    this.free = 0;
+    this.nextOrdinal = 0;
+    this.all = new DepartureBitmap();
+    this.delayed = new DepartureBitmap();
+    this.destinations = new HashMap<>();
+    this.trainLines = new HashMap<>();
+    this.tracks = new HashMap<>();
+  }
+
+  /**
+   * Gives the train departure an ordinal, and adds it to the bitmaps of its destination, train
+   * line and track, and to the delayed train departures if it is delayed. A train departure that
+   * is already in the index is not added again.
+   *
+   * @param train The train departure to be indexed.
+   * @since 3.1.0
+   */
+  void add(TrainDeparture train) {
+    if (this.ordinals.containsKey(train)) {
+      return;
+    }
+    int ordinal;
+    if (this.free > 0) {
+      ordinal = this.freeOrdinals[--this.free];
+    } else {
+      ordinal = this.nextOrdinal++;
+      if (ordinal == this.trains.length) {
+        this.trains = Arrays.copyOf(this.trains, ordinal * 2);
+      }
+    }
+    this.ordinals.put(train, ordinal);
+    this.trains[ordinal] = train;
+    this.all.add(ordinal);
+    if (train.getMinutesDelay() > 0) {
+      this.delayed.add(ordinal);
+    }
+    this.destinations.computeIfAbsent(train.getDestinationId(), key -> new DepartureBitmap())
+        .add(ordinal);
+    this.trainLines.computeIfAbsent(train.getTrainLineId(), key -> new DepartureBitmap())
+        .add(ordinal);
+    this.tracks.computeIfAbsent(train.getTrackNumber(), key -> new DepartureBitmap())
+        .add(ordinal);
+  }
+
+  /**
+   * Removes the train departure from the bitmaps and frees its ordinal. The train departure must be
+   * removed before its destination, train line, track or delay is changed.
+   *
+   * @param train The train departure to be removed from the index.
+   * @since 3.1.0
+   */
+  void remove(TrainDeparture train) {
+    Integer ordinal = this.ordinals.remove(train);
+    if (ordinal == null) {
+      return;
+    }
+    this.trains[ordinal] = null;
+    this.all.remove(ordinal);
+    this.delayed.remove(ordinal);
+    removeFrom(this.destinations, train.getDestinationId(), ordinal);
+    removeFrom(this.trainLines, train.getTrainLineId(), ordinal);
+    removeFrom(this.tracks, train.getTrackNumber(), ordinal);
+    if (this.free == this.freeOrdinals.length) {
+      this.freeOrdinals = Arrays.copyOf(this.freeOrdinals, this.free * 2);
+    }
+    this.freeOrdinals[this.free++] = ordinal;
+  }
+
+  /**
+   * Returns the ordinal of the train departure in the index, or -1 if it is not in the index.
+   *
+   * @param train The train departure.
+   * @return The ordinal of the train departure, or -1.
+   * @since 3.1.0
+   */
+  int ordinalOf(TrainDeparture train) {
+    Integer ordinal = this.ordinals.get(train);
+    return ordinal == null ? -1 : ordinal;
+  }
+
+  /**
+   * Returns the train departure with the specified ordinal.
+   *
+   * @param ordinal The ordinal of the train departure.
+   * @return The train departure with the ordinal.
+   * @since 3.1.0
+   */
+  TrainDeparture train(int ordinal) {
+    return this.trains[ordinal];
+  }
+
+  /**
+   * Returns the bitmap of the train departures that meet the destination, train line, track and
+   * delay criteria of the query. The bitmaps of the destinations of the query are combined with OR,
+   * and so are the bitmaps of the train lines and the tracks. The criteria are then combined with
+   * AND. A train departure delayed more than a number of minutes is only known to be delayed, so
+   * that criterion must still be checked on the train departures of the bitmap. The bitmap can be
+   * one of the bitmaps of the index, and must not be changed.
+   *
+   * @param query The criteria of the search.
+   * @return The train departures that meet the criteria of the query.
+   * @since 3.1.0
+   */
+  DepartureBitmap select(DepartureQuery query) {
+    DepartureBitmap selected = null;
+    if (!query.getDestinations().isEmpty()) {
+      Set<Integer> ids = new LinkedHashSet<>();
+      for (String destination : query.getDestinations()) {
+        ids.add(SymbolTable.DESTINATIONS.find(destination));
+      }
+      selected = intersect(selected, union(this.destinations, ids));
+    }
+    if (!query.getTrainLines().isEmpty()) {
+      Set<Integer> ids = new LinkedHashSet<>();
+      for (String trainLine : query.getTrainLines()) {
+        ids.add(SymbolTable.TRAIN_LINES.find(trainLine));
+      }
+      selected = intersect(selected, union(this.trainLines, ids));
+    }
+    if (!query.getTrackNumbers().isEmpty()) {
+      selected = intersect(selected, union(this.tracks, query.getTrackNumbers()));
+    }
+    if (query.isNotDelayed()) {
+      selected = (selected == null ? this.all : selected).andNot(this.delayed);
+    } else if (query.getDelayedMoreThan() >= 0) {
+      selected = intersect(selected, this.delayed);
+    }
+    return selected == null ? this.all : selected;
+  }
+
+  /**
+   * Removes every train departure from the index and frees every ordinal.
+   *
+   * @since 3.1.0
+   */
+  void clear() {
+    Arrays.fill(this.trains, 0, this.nextOrdinal, null);
+    this.ordinals.clear();
+    this.free = 0;
+    this.nextOrdinal = 0;
+    this.all = new DepartureBitmap();
+    this.delayed = new DepartureBitmap();
+    this.destinations.clear();
+    this.trainLines.clear();
+    this.tracks.clear();
+  }
+
+  /**
+   * Returns the union of the bitmaps of the keys. A single bitmap is returned as it is, and must
+   * not be changed by the caller.
+   *
+   * @param bitmaps The bitmaps, mapped by their key.
+   * @param keys    The keys.
+   * @return The train departures with any of the keys.
+   * @since 3.1.0
+   */
+  private static DepartureBitmap union(Map<Integer, DepartureBitmap> bitmaps,
+      Collection<Integer> keys) {
+    DepartureBitmap union = null;
+    for (int key : keys) {
+      DepartureBitmap bitmap = bitmaps.get(key);
+      if (bitmap != null) {
+        union = union == null ? bitmap : union.or(bitmap);
+      }
+    }
+    return union == null ? new DepartureBitmap() : union;
+  }
+
+  /**
+   * Returns the intersection of the bitmaps, where <code>null</code> stands for every train
+   * departure.
+   *
+   * @param selected The train departures selected so far, or <code>null</code>.
+   * @param bitmap   The train departures that meet the next criterion.
+   * @return The train departures in both bitmaps.
+   * @since 3.1.0
+   */
+  private static DepartureBitmap intersect(DepartureBitmap selected, DepartureBitmap bitmap) {
+    return selected == null ? bitmap : selected.and(bitmap);
+  }
+
+  /**
+   * Removes the ordinal from the bitmap of the key, and removes the bitmap when it is empty.
+   *
+   * @param bitmaps The bitmaps, mapped by their key.
+   * @param key     The key of the bitmap.
+   * @param ordinal The ordinal of the train departure.
+   * @since 3.1.0
+   */
+  private static void removeFrom(Map<Integer, DepartureBitmap> bitmaps, int key, int ordinal) {
+    DepartureBitmap bitmap = bitmaps.get(key);
+    if (bitmap != null) {
+      bitmap.remove(ordinal);
+      if (bitmap.cardinality() == 0) {
+        bitmaps.remove(key);
+      }
+    }
+  }
+}
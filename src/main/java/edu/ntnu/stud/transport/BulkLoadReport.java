@@ -0,0 +1,138 @@
+package edu.ntnu.stud.transport;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * The BulkLoadReport class reports the result of adding many train departures to a train station
+ * at once. It counts the train departures that were added, and lists every train departure that was
+ * rejected, with its row in the input and the reason it was rejected.
+ *
+ * @author Johan Fredrik Wilvang
+ * @version 3.1.0
+ * @since 3.1.0
+ */
+
+public final class BulkLoadReport {
+
+  /**
+   * The reasons a train departure can be rejected.
+   */
+  public enum Reason {
+    /** The row did not contain a train departure. */
+    MISSING_DEPARTURE,
+    /** The train departure did not have a valid train number. */
+    INVALID_TRAIN_NUMBER,
+    /** The train departure was not after the station clock. */
+    ALREADY_DEPARTED,
+    /** An earlier row had the same train number. */
+    DUPLICATE_TRAIN_NUMBER,
+    /** The train number was already used by the train station or the network. */
+    TRAIN_NUMBER_IN_USE
+  }
+
+  /**
+   * A train departure that was rejected, with its row in the input and the reason.
+   */
+  public static final class Rejection {
+
+    private final int row;
+    private final TrainDeparture train;
+    private final Reason reason;
+
+    private Rejection(int row, TrainDeparture train, Reason reason) {
+      this.row = row;
+      this.train = train;
+      this.reason = reason;
+    }
+
+    /**
+     * Returns the row of the rejected train departure in the input, starting at 0.
+     *
+     * @return The row of the rejected train departure.
+     */
+    public int getRow() {
+      return this.row;
+    }
+
+    /**
+     * Returns the rejected train departure, or <code>null</code> if the row was empty.
+     *
+     * @return The rejected train departure.
+     */
+    public TrainDeparture getTrain() {
+      return this.train;
+    }
+
+    /**
+     * Returns the reason the train departure was rejected.
+     *
+     * @return The reason the train departure was rejected.
+     */
+    public Reason getReason() {
+      return this.reason;
+    }
+
+    @Override
+    public String toString() {
+      return "row " + this.row + ": " + this.reason;
+    }
+  }
+
+  private final List<Rejection> rejections;
+  private int accepted;
+
+  /**
+   * Creates an empty object of class BulkLoadReport.
+   *
+   * @since 3.1.0
+   */
+  BulkLoadReport() {
+    this.rejections = new ArrayList<>();
+    this.accepted = 0;
+  }
+
+  /**
+   * Returns the number of train departures that were added.
+   *
+   * @return The number of train departures that were added.
+   * @since 3.1.0
+   */
+  public int getAccepted() {
+    return this.accepted;
+  }
+
+  /**
+   * Returns the rejected train departures, in the order of their rows.
+   *
+   * @return The rejected train departures.
+   * @since 3.1.0
+   */
+  public List<Rejection> getRejections() {
+    return Collections.unmodifiableList(this.rejections);
+  }
+
+  /**
+   * Records that the train departure in the row was rejected.
+   *
+   * @param row    The row of the train departure.
+   * @param train  The rejected train departure.
+   * @param reason The reason the train departure was rejected.
+   * @since 3.1.0
+   */
+  void reject(int row, TrainDeparture train, Reason reason) {
+    this.rejections.add(new Rejection(row, train, reason));
+  }
+
+  /**
+   * Records the number of train departures that were added.
+   *
+   * @param accepted The number of train departures that were added.
+   * @since 3.1.0
+   */
+  void setAccepted(int accepted) {
+    this.accepted = accepted;
+  }
+}
@@ -0,0 +1,566 @@
+package edu.ntnu.stud.transport;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+
+
+/**
+ * The ColumnarDepartureStore class is a train register stored as parallel arrays of primitive
+ * integers, one array for each piece of information about the train departures, with the same
+ * operations as a train station. A row in the store is one train departure. The departure time
+ * and the delay are stored as minutes, and the destination and the train line are stored as their
+ * ids in the shared symbol tables of destinations and train lines, so the store does not hold any
+ * object per train departure. The rows are kept sorted by the real departure time and then the
+ * train number, so the remaining train departures are always the rows after the station clock,
+ * found by a binary search. Adding or removing a train departure moves the rows after it, changing
+ * a train departure moves the rows between its old and its new place, and a train number is found
+ * by scanning its column, so a change costs up to O(n) reads and moves of consecutive integers
+ * instead of the O(log n) steps of a train station. The train departures returned by the store are
+ * read-only copies made from the rows. The store is used alone, and does not take part in a network
+ * of train stations.
+ *
+ * @author Johan Fredrik Wilvang
+ * @version 3.1.0
+ * @since 3.1.0
+ */
+
+public final class ColumnarDepartureStore {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  private int[] departureMinutes;
+  private int[] delayMinutes;
+  private int[] trainNumbers;
+  private int[] trackNumbers;
+  private int[] destinationIds;
+  private int[] trainLineIds;
+  private int size;
+  private LocalTime stationClock;
+
+  /**
+   * Creates an empty object of class ColumnarDepartureStore. The station clock is set to 00:00.
+   *
+   * @since 3.1.0
+   */
+  public ColumnarDepartureStore() {
+    this.departureMinutes = new int[INITIAL_CAPACITY];
+    this.delayMinutes = new int[INITIAL_CAPACITY];
+    this.trainNumbers = new int[INITIAL_CAPACITY];
+    this.trackNumbers = new int[INITIAL_CAPACITY];
+    this.destinationIds = new int[INITIAL_CAPACITY];
+    this.trainLineIds = new int[INITIAL_CAPACITY];
+    this.size = 0;
+    this.stationClock = LocalTime.of(0, 0);
+  }
+
+  /**
+   * Returns a new store containing the train departures of the iterator, for example the train
+   * register of a train station. The train departures are added the same way as by
+   * addTrainDeparture.
+   *
+   * @param trainIterator The train departures to store.
+   * @return A store containing the train departures.
+   * @since 3.1.0
+   */
+  public static ColumnarDepartureStore of(Iterator<TrainDeparture> trainIterator) {
+    ColumnarDepartureStore store = new ColumnarDepartureStore();
+    while (trainIterator.hasNext()) {
+      store.addTrainDeparture(trainIterator.next());
+    }
+    return store;
+  }
+
+  /**
+   * Returns the number of train departures in the store, both remaining and departed.
+   *
+   * @return The number of train departures in the store.
+   * @since 3.1.0
+   */
+  public int size() {
+    return this.size;
+  }
+
+  /**
+   * Return the time displayed on the station clock.
+   *
+   * @return The time displayed on the station clock.
+   * @since 3.1.0
+   */
+  public LocalTime getStationClock() {
+    return this.stationClock;
+  }
+
+  /**
+   * Returns the amount of remaining trains in the store. The remaining train departures are the
+   * rows after the station clock, so the method only does a binary search.
+   *
+   * @return The amount of remaining trains in the store.
+   * @since 3.1.0
+   */
+  public int getNumberOfTrains() {
+    return this.size - firstRemainingRow();
+  }
+
+  /**
+   * Returns an iterator of read-only copies of all the train departures in the store, sorted by
+   * departure time.
+   *
+   * @return An iterator of the train departures in the store.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> getTrainRegister() {
+    List<TrainDeparture> trains = readOnly(0, this.size);
+    trains.sort(TrainStation.DEPARTURE_ORDER);
+    return trains.iterator();
+  }
+
+  /**
+   * Returns an iterator of read-only copies of the train departures that have departed this day,
+   * sorted by the real departure time.
+   *
+   * @return An iterator of the departed train departures.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> getDepartedTrains() {
+    return readOnly(0, firstRemainingRow()).iterator();
+  }
+
+  /**
+   * Returns <code>true</code> if the train number is not used by any train departure in the store.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @return <code>true</code> if the train number is unique, <code>false</code> otherwise.
+   * @since 3.1.0
+   */
+  public boolean isTrainNumberUnique(int trainNumber) {
+    return findRow(trainNumber) < 0;
+  }
+
+  /**
+   * Set the time displayed on the station clock. If the time is before the current time displayed
+   * on the station clock, the time will not be changed. No rows are moved, because the departed
+   * train departures are already the rows before the station clock.
+   *
+   * @param time The time displayed on the station clock.
+   * @since 3.1.0
+   */
+  public void setStationClock(String time) {
+    LocalTime newTime = LocalTime.parse(time);
+    if (newTime.isAfter(this.stationClock)) {
+      this.stationClock = newTime;
+    }
+  }
+
+  /**
+   * Resets the station clock to 00:00.
+   *
+   * @since 3.1.0
+   */
+  public void resetClock() {
+    this.stationClock = LocalTime.of(0, 0);
+  }
+
+  /**
+   * Adds a new train departure to the store. The train departure is added if the train number is
+   * above 0 and unique, and the departure time is after the station clock.
+   *
+   * @param departureTime The departure time of the train departure.
+   * @param trainNumber   The train number of the train departure.
+   * @param trainLine     The train line of the train departure.
+   * @param destination   The destination of the train departure.
+   * @since 3.1.0
+   */
+  public void addTrainDeparture(String departureTime, int trainNumber, String trainLine,
+      String destination) {
+    addTrainDeparture(new TrainDeparture(departureTime, trainNumber, trainLine, destination));
+  }
+
+  /**
+   * Adds the information of the train departure as a new row in the store. The train departure is
+   * added if the train number is above 0 and unique, and the departure time is after the station
+   * clock. Changing the train departure afterwards does not change the store.
+   *
+   * @param train The train departure to add.
+   * @since 3.1.0
+   */
+  public void addTrainDeparture(TrainDeparture train) {
+    if (train.getTrainNumber() > 0 && train.getDepartureTime().isAfter(this.stationClock)
+        && isTrainNumberUnique(train.getTrainNumber())) {
+      insert(train);
+    }
+  }
+
+  /**
+   * Removes the train departure with the specified train number from the store.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @since 3.1.0
+   */
+  public void removeTrainDeparture(int trainNumber) {
+    int row = findRow(trainNumber);
+    if (row >= 0) {
+      removeRow(row);
+    }
+  }
+
+  /**
+   * Search for the train departure with the specified train number. If the train number does not
+   * exist in the store, the method will return an empty iterator.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @return A read-only copy of the train departure with the specified train number as an
+   *     iterator.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> searchByTrainNumber(int trainNumber) {
+    int row = findRow(trainNumber);
+    if (row < 0) {
+      return Collections.emptyIterator();
+    }
+    return readOnly(row, row + 1).iterator();
+  }
+
+  /**
+   * Search for all train departures with the specified destination, ignoring case. The
+   * destination is looked up in the symbol table once, and the rows are found by comparing
+   * destination ids. The train departures are returned sorted by departure time.
+   *
+   * @param destination The destination of the train departures.
+   * @return Read-only copies of the train departures headed to the destination as an iterator.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> searchByDestination(String destination) {
+    int destinationId = SymbolTable.DESTINATIONS.find(destination);
+    if (destinationId == SymbolTable.UNKNOWN) {
+      return Collections.emptyIterator();
+    }
+    List<TrainDeparture> trains = new ArrayList<>();
+    for (int row = 0; row < this.size; row++) {
+      if (this.destinationIds[row] == destinationId) {
+        trains.add(new ReadOnlyTrainDeparture(trainAt(row)));
+      }
+    }
+    trains.sort(TrainStation.DEPARTURE_ORDER);
+    return trains.iterator();
+  }
+
+  /**
+   * Set a new track number for the train departure associated with specified train number. If the
+   * train number does not exist in the store, the track number will not be changed.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @param trackNumber The new specified track number.
+   * @since 3.1.0
+   */
+  public void setNewTrackNumber(int trainNumber, int trackNumber) {
+    edit(trainNumber, train -> train.setTrackNumber(trackNumber));
+  }
+
+  /**
+   * Set a new train number for the train departure associated with specified train number. If the
+   * new train number is not above 0 or already exists in the store, the train number will not be
+   * changed.
+   *
+   * @param trainNumber    The train number of the train departure.
+   * @param newTrainNumber The new train number of the train departure.
+   * @since 3.1.0
+   */
+  public void setNewTrainNumber(int trainNumber, int newTrainNumber) {
+    if (newTrainNumber > 0 && isTrainNumberUnique(newTrainNumber)) {
+      edit(trainNumber, train -> train.setTrainNumber(newTrainNumber));
+    }
+  }
+
+  /**
+   * Set a new end destination for the train departure associated with specified train number. If
+   * the train number does not exist in the store, the destination will not be changed.
+   *
+   * @param trainNumber    The train number of the train departure.
+   * @param newDestination The new destination of the train departure.
+   * @since 3.1.0
+   */
+  public void setNewDestination(int trainNumber, String newDestination) {
+    edit(trainNumber, train -> train.setDestination(newDestination));
+  }
+
+  /**
+   * Set a new departure time for the train departure associated with specified train number. If
+   * the train number does not exist in the store or the new departure time is before the current
+   * time displayed on the station clock, the departure time will not be changed.
+   *
+   * @param trainNumber      The train number of the train departure.
+   * @param newDepartureTime The new departure time of the train departure.
+   * @since 3.1.0
+   */
+  public void setNewDepartureTime(int trainNumber, String newDepartureTime) {
+    if (LocalTime.parse(newDepartureTime).isAfter(this.stationClock)) {
+      edit(trainNumber, train -> train.setDepartureTime(newDepartureTime));
+    }
+  }
+
+  /**
+   * Set a new train line for the train departure associated with specified train number. If the
+   * train number does not exist in the store, the train line will not be changed.
+   *
+   * @param trainNumber  The train number of the train departure.
+   * @param newTrainLine The new train line of the train departure.
+   * @since 3.1.0
+   */
+  public void setNewTrainLine(int trainNumber, String newTrainLine) {
+    edit(trainNumber, train -> train.setTrainLine(newTrainLine));
+  }
+
+  /**
+   * Set a new delay for the train departure associated with specified train number. The delay is
+   * normalized the same way as by TrainDeparture.setDelay, and the row is moved to its new place
+   * by the real departure time. If the train number does not exist in the store, the delay will
+   * not be changed.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @param newDelay    The specified amount of minutes delayed.
+   * @since 3.1.0
+   */
+  public void setNewDelay(int trainNumber, int newDelay) {
+    edit(trainNumber, train -> train.setDelay(newDelay));
+  }
+
+  /**
+   * Returns an iterator of read-only copies of the remaining train departures, sorted by the real
+   * departure time. A train departure delayed past midnight has not departed on this day.
+   *
+   * @return An iterator of the remaining train departures.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> hideDepartedTrains() {
+    return readOnly(firstRemainingRow(), this.size).iterator();
+  }
+
+  /**
+   * Returns an iterator of the next remaining train departures, sorted by the real departure time.
+   * At most the specified number of train departures is returned, and only their rows are read,
+   * so the query costs O(log n + k) for k train departures.
+   *
+   * @param numberOfTrains The largest number of train departures to return.
+   * @return An iterator of the next remaining train departures.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> nextDepartures(int numberOfTrains) {
+    int from = firstRemainingRow();
+    return readOnly(from, from + Math.min(Math.max(0, numberOfTrains), this.size - from))
+        .iterator();
+  }
+
+  /**
+   * Resets the store. The store will be empty after the method is called, and the columns keep
+   * their capacity.
+   *
+   * @since 3.1.0
+   */
+  public void emptyTrainRegister() {
+    this.size = 0;
+  }
+
+  /**
+   * Changes the train departure with the specified train number. The row is made into a train
+   * departure and changed, so every change is checked and normalized by the TrainDeparture class.
+   * The changed row is then written to its new place by the real departure time and the train
+   * number, and only the rows between its old and its new place are moved.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @param change      The change to make to the train departure.
+   * @since 3.1.0
+   */
+  private void edit(int trainNumber, Consumer<TrainDeparture> change) {
+    int row = findRow(trainNumber);
+    if (row >= 0) {
+      TrainDeparture train = trainAt(row);
+      change.accept(train);
+      int target = insertionRow(train.getRealDepartureMinutes(), train.getTrainNumber());
+      if (target > row) {
+        target--;
+        moveRows(row + 1, row, target - row);
+      } else {
+        moveRows(target, target + 1, row - target);
+      }
+      write(target, train);
+    }
+  }
+
+  /**
+   * Inserts the train departure as a new row at its place by the real departure time and the train
+   * number. The rows after it are moved one row down.
+   *
+   * @param train The train departure to insert.
+   * @since 3.1.0
+   */
+  private void insert(TrainDeparture train) {
+    if (this.size == this.trainNumbers.length) {
+      grow();
+    }
+    int row = insertionRow(train.getRealDepartureMinutes(), train.getTrainNumber());
+    moveRows(row, row + 1, this.size - row);
+    write(row, train);
+    this.size++;
+  }
+
+  /**
+   * Removes the specified row. The rows after it are moved one row up.
+   *
+   * @param row The row to remove.
+   * @since 3.1.0
+   */
+  private void removeRow(int row) {
+    moveRows(row + 1, row, this.size - row - 1);
+    this.size--;
+  }
+
+  /**
+   * Moves the specified number of rows from the first row to the target row in every column. The
+   * rows may overlap.
+   *
+   * @param from   The first row to move.
+   * @param to     The row the first row is moved to.
+   * @param length The number of rows to move.
+   * @since 3.1.0
+   */
+  private void moveRows(int from, int to, int length) {
+    System.arraycopy(this.departureMinutes, from, this.departureMinutes, to, length);
+    System.arraycopy(this.delayMinutes, from, this.delayMinutes, to, length);
+    System.arraycopy(this.trainNumbers, from, this.trainNumbers, to, length);
+    System.arraycopy(this.trackNumbers, from, this.trackNumbers, to, length);
+    System.arraycopy(this.destinationIds, from, this.destinationIds, to, length);
+    System.arraycopy(this.trainLineIds, from, this.trainLineIds, to, length);
+  }
+
+  /**
+   * Writes the information of the train departure to the specified row.
+   *
+   * @param row   The row to write to.
+   * @param train The train departure to write.
+   * @since 3.1.0
+   */
+  private void write(int row, TrainDeparture train) {
+    this.departureMinutes[row] = train.getDepartureMinutes();
+    this.delayMinutes[row] = train.getMinutesDelay();
+    this.trainNumbers[row] = train.getTrainNumber();
+    this.trackNumbers[row] = train.getTrackNumber();
+    this.destinationIds[row] = train.getDestinationId();
+    this.trainLineIds[row] = train.getTrainLineId();
+  }
+
+  /**
+   * Returns the row of the train departure with the specified train number, or -1 if the train
+   * number does not exist in the store. The train number column is scanned from the first row.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @return The row of the train departure, or -1.
+   * @since 3.1.0
+   */
+  private int findRow(int trainNumber) {
+    for (int row = 0; row < this.size; row++) {
+      if (this.trainNumbers[row] == trainNumber) {
+        return row;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the first row with a real departure time and train number after the specified ones,
+   * found by a binary search. A new row with the specified real departure time and train number is
+   * inserted at this row.
+   *
+   * @param realMinutes The real departure time in minutes after midnight.
+   * @param trainNumber The train number.
+   * @return The first row sorted after the real departure time and the train number.
+   * @since 3.1.0
+   */
+  private int insertionRow(int realMinutes, int trainNumber) {
+    int low = 0;
+    int high = this.size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      int middleMinutes = realMinutesAt(middle);
+      if (middleMinutes < realMinutes
+          || middleMinutes == realMinutes && this.trainNumbers[middle] < trainNumber) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the first row that has not departed by the station clock, or the size of the store if
+   * every train departure has departed. The row is found by a binary search.
+   *
+   * @return The first remaining row.
+   * @since 3.1.0
+   */
+  private int firstRemainingRow() {
+    return insertionRow(this.stationClock.getHour() * 60 + this.stationClock.getMinute() + 1, 0);
+  }
+
+  /**
+   * Returns the real departure time of the specified row, as minutes after midnight.
+   *
+   * @param row The row of the train departure.
+   * @return The real departure time in minutes after midnight.
+   * @since 3.1.0
+   */
+  private int realMinutesAt(int row) {
+    return this.departureMinutes[row] + this.delayMinutes[row];
+  }
+
+  /**
+   * Returns the train departure in the specified row, materialized as a new TrainDeparture object.
+   * The row is copied from the columns as it is, without parsing any string.
+   *
+   * @param row The row of the train departure.
+   * @return The train departure in the specified row.
+   * @since 3.1.0
+   */
+  private TrainDeparture trainAt(int row) {
+    return new TrainDeparture(this.departureMinutes[row], this.trainNumbers[row],
+        this.trainLineIds[row], this.destinationIds[row], this.delayMinutes[row],
+        this.trackNumbers[row]);
+  }
+
+  /**
+   * Returns read-only copies of the train departures in the rows from the first row, inclusive,
+   * to the last row, exclusive.
+   *
+   * @param from The first row, inclusive.
+   * @param to   The last row, exclusive.
+   * @return A list of read-only copies of the train departures.
+   * @since 3.1.0
+   */
+  private List<TrainDeparture> readOnly(int from, int to) {
+    List<TrainDeparture> trains = new ArrayList<>(to - from);
+    for (int row = from; row < to; row++) {
+      trains.add(new ReadOnlyTrainDeparture(trainAt(row)));
+    }
+    return trains;
+  }
+
+  /**
+   * Doubles the capacity of all the columns.
+   *
+   * @since 3.1.0
+   */
+  private void grow() {
+    int capacity = this.trainNumbers.length * 2;
+    this.departureMinutes = Arrays.copyOf(this.departureMinutes, capacity);
+    this.delayMinutes = Arrays.copyOf(this.delayMinutes, capacity);
+    this.trainNumbers = Arrays.copyOf(this.trainNumbers, capacity);
+    this.trackNumbers = Arrays.copyOf(this.trackNumbers, capacity);
+    this.destinationIds = Arrays.copyOf(this.destinationIds, capacity);
+    this.trainLineIds = Arrays.copyOf(this.trainLineIds, capacity);
+  }
+}
@@ -0,0 +1,640 @@
+package edu.ntnu.stud.transport;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+
+/**
+ * The ConcurrentTrainStation class is a train station that can be used by several dispatchers and
+ * automated feeds at the same time. It supports the core methods of the TrainStation class: adding,
+ * removing and editing train departures, the batch delay and track updates, the station clock,
+ * the search by train number and destination, and the train register with the remaining and
+ * departed train departures. The departure board, the prefix, spelling, train line and time window
+ * searches and search(DepartureQuery) are only in TrainStation. The train register and the indexes
+ * are concurrent sorted maps and hash maps, so reading from the train station never takes a lock.
+ * Changes are made one at a time behind a single writer lock. A registered train departure is a
+ * read-only copy and is never changed: an edit puts a changed copy into every index before the
+ * original is removed, so looking up a train number always finds the old or the new version. The
+ * readers hand out the registered read-only copies, which can be kept and shared without a copy of
+ * their own, because changing them throws an UnsupportedOperationException. An iterator is a copy
+ * made while writers may be working, so a train departure edited or moved by the station clock
+ * during the copy can be missing from it, or appear twice, once in its old version and once in its
+ * new.
+ *
+ * @author Johan Fredrik Wilvang
+ * @version 3.1.0
+ * @since 3.1.0
+ */
+
+public final class ConcurrentTrainStation {
+
+  private final ConcurrentSkipListMap<TrainDeparture, TrainDeparture> trainRegister;
+  private final Map<Integer, TrainDeparture> trainNumberIndex;
+  private final Map<Integer, ConcurrentSkipListMap<TrainDeparture, TrainDeparture>>
+      destinationIndex;
+  private final ConcurrentSkipListMap<TrainDeparture, TrainDeparture> remainingTrains;
+  private final ConcurrentSkipListMap<TrainDeparture, TrainDeparture> departedTrains;
+  private final ReentrantLock writeLock;
+  private final TrainNumberIndex networkIndex;
+  private volatile LocalTime stationClock;
+  private volatile int numberOfRemainingTrains;
+
+  /**
+   * Creates object of class ConcurrentTrainStation. The train register is sorted by departure time,
+   * then train number. The station clock is initially set to 00:00.
+   *
+   * @since 3.1.0
+   */
+  public ConcurrentTrainStation() {
+    this(null);
+  }
+
+  /**
+   * Creates object of class ConcurrentTrainStation that shares the train numbers with the other
+   * train stations of a network.
+   *
+   * @param networkIndex The train numbers of the network, or <code>null</code> if the train station
+   *                     is not part of a network.
+   * @since 3.1.0
+   */
+  public ConcurrentTrainStation(TrainNumberIndex networkIndex) {
+    this.networkIndex = networkIndex;
+    this.trainRegister = new ConcurrentSkipListMap<>(TrainStation.DEPARTURE_ORDER);
+    this.trainNumberIndex = new ConcurrentHashMap<>();
+    this.destinationIndex = new ConcurrentHashMap<>();
+    this.remainingTrains = new ConcurrentSkipListMap<>(TrainStation.REAL_DEPARTURE_ORDER);
+    this.departedTrains = new ConcurrentSkipListMap<>(TrainStation.REAL_DEPARTURE_ORDER);
+    this.writeLock = new ReentrantLock();
+    this.stationClock = LocalTime.of(0, 0);
+    this.numberOfRemainingTrains = 0;
+  }
+
+  /**
+   * Return the time displayed on the station clock.
+   *
+   * @return The time displayed on the station clock.
+   * @since 3.1.0
+   */
+  public LocalTime getStationClock() {
+    return this.stationClock;
+  }
+
+  /**
+   * Returns the amount of remaining trains in the train register. The amount is counted by the
+   * writers, so the method does not visit any train departures.
+   *
+   * @return The amount of remaining trains in the train register.
+   * @since 3.1.0
+   */
+  public int getNumberOfTrains() {
+    return this.numberOfRemainingTrains;
+  }
+
+  /**
+   * Returns an iterator of a copy of the train history of the day, sorted by departure time. The
+   * train departures are read-only. A train departure edited while the copy is made can be in it
+   * twice, in its old and its new version.
+   *
+   * @return An iterator of the train history of the day.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> getTrainRegister() {
+    return new ArrayList<>(this.trainRegister.values()).iterator();
+  }
+
+  /**
+   * Returns an iterator of the read-only train departures that have departed this day, sorted by
+   * the real departure time.
+   *
+   * @return An iterator of the departed train departures.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> getDepartedTrains() {
+    return new ArrayList<>(this.departedTrains.values()).iterator();
+  }
+
+  /**
+   * Returns an iterator of the read-only remaining train departures in the train register, sorted
+   * by the real departure time.
+   *
+   * @return An iterator of the remaining train departures in the train register.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> hideDepartedTrains() {
+    return new ArrayList<>(this.remainingTrains.values()).iterator();
+  }
+
+  /**
+   * Returns <code>true</code> if no train departure has the train number.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @return <code>true</code> if the train number is not used, <code>false</code> otherwise.
+   * @since 3.1.0
+   */
+  public boolean isTrainNumberUnique(int trainNumber) {
+    return !this.trainNumberIndex.containsKey(trainNumber)
+        && (this.networkIndex == null || !this.networkIndex.isClaimed(trainNumber));
+  }
+
+  /**
+   * Search for the train departure with the specified train number. If the train number does not
+   * exist in the train register, the method will return an empty iterator.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @return The read-only train departure with the specified train number as an iterator.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> searchByTrainNumber(int trainNumber) {
+    TrainDeparture train = this.trainNumberIndex.get(trainNumber);
+    if (train == null) {
+      return Collections.emptyIterator();
+    }
+    return List.of(train).iterator();
+  }
+
+  /**
+   * Search for all train departures with the specified destination, ignoring case, sorted by
+   * departure time. If there isn't any train departures headed to the destination, the method will
+   * return an empty iterator.
+   *
+   * @param destination The destination of the train departure.
+   * @return The read-only train departures with the specified destination as an iterator.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> searchByDestination(String destination) {
+    ConcurrentSkipListMap<TrainDeparture, TrainDeparture> trains =
+        this.destinationIndex.get(SymbolTable.DESTINATIONS.find(destination));
+    if (trains == null) {
+      return Collections.emptyIterator();
+    }
+    return new ArrayList<>(trains.values()).iterator();
+  }
+
+  /**
+   * Set the time displayed on the station clock. If the time is before the current time displayed
+   * on the station clock, the time will not be changed. The train departures that have departed by
+   * the new time are moved to the departed train departures. Each train departure is added to the
+   * departed train departures before it is removed from the remaining train departures, so readers
+   * always find it in one of them, and for a moment in both.
+   *
+   * @param time The time displayed on the station clock.
+   * @since 3.1.0
+   */
+  public void setStationClock(String time) {
+    LocalTime newTime = LocalTime.parse(time);
+    this.writeLock.lock();
+    try {
+      if (newTime.isAfter(this.stationClock)) {
+        this.stationClock = newTime;
+        int clockMinutes = newTime.getHour() * 60 + newTime.getMinute();
+        Map.Entry<TrainDeparture, TrainDeparture> first = this.remainingTrains.firstEntry();
+        while (first != null && first.getValue().getRealDepartureMinutes() <= clockMinutes) {
+          this.departedTrains.put(first.getValue(), first.getValue());
+          this.remainingTrains.remove(first.getKey());
+          this.numberOfRemainingTrains--;
+          first = this.remainingTrains.firstEntry();
+        }
+      }
+    } finally {
+      this.writeLock.unlock();
+    }
+  }
+
+  /**
+   * Resets the station clock to 00:00. The train departures that have not departed at 00:00 are
+   * moved back to the remaining train departures.
+   *
+   * @since 3.1.0
+   */
+  public void resetClock() {
+    this.writeLock.lock();
+    try {
+      this.stationClock = LocalTime.of(0, 0);
+      Map.Entry<TrainDeparture, TrainDeparture> last = this.departedTrains.lastEntry();
+      while (last != null && hasNotDeparted(last.getValue())) {
+        this.remainingTrains.put(last.getValue(), last.getValue());
+        this.departedTrains.remove(last.getKey());
+        this.numberOfRemainingTrains++;
+        last = this.departedTrains.lastEntry();
+      }
+    } finally {
+      this.writeLock.unlock();
+    }
+  }
+
+  /**
+   * Adds a new train departure to the train register. The train departure is added if the train
+   * number is above 0 and unique, and the departure time is after the station clock.
+   *
+   * @param departureTime The departure time of the train departure.
+   * @param trainNumber   The train number of the train departure.
+   * @param destination   The destination of the train departure.
+   * @param trainLine     The train line of the train departure.
+   * @since 3.1.0
+   */
+  public void addTrainDeparture(String departureTime, int trainNumber,
+      String destination, String trainLine) {
+    this.writeLock.lock();
+    try {
+      if (trainNumber > 0 && LocalTime.parse(departureTime).isAfter(this.stationClock)
+          && isTrainNumberUnique(trainNumber) && claim(trainNumber)) {
+        register(new ReadOnlyTrainDeparture(
+            new TrainDeparture(departureTime, trainNumber, destination, trainLine)));
+      }
+    } finally {
+      this.writeLock.unlock();
+    }
+  }
+
+  /**
+   * Adds a copy of the train departure to the train register if the train number is above 0 and
+   * unique, and the departure time is after the station clock. Later changes to the specified
+   * train departure do not change the train station.
+   *
+   * @param train The train departure to be added to the train register.
+   * @since 3.1.0
+   */
+  public void addTrainDeparture(TrainDeparture train) {
+    this.writeLock.lock();
+    try {
+      if (train.getTrainNumber() > 0 && train.getDepartureTime().isAfter(this.stationClock)
+          && isTrainNumberUnique(train.getTrainNumber()) && claim(train.getTrainNumber())) {
+        register(new ReadOnlyTrainDeparture(train));
+      }
+    } finally {
+      this.writeLock.unlock();
+    }
+  }
+
+  /**
+   * Removes the train departure with the specified train number from the train register.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @since 3.1.0
+   */
+  public void removeTrainDeparture(int trainNumber) {
+    this.writeLock.lock();
+    try {
+      TrainDeparture train = this.trainNumberIndex.get(trainNumber);
+      if (train != null) {
+        unregister(train);
+        release(trainNumber);
+      }
+    } finally {
+      this.writeLock.unlock();
+    }
+  }
+
+  /**
+   * Assigns a new track to the train departure with the specified train number.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @param trackNumber The new specified track number.
+   * @since 3.1.0
+   */
+  public void setNewTrackNumber(int trainNumber, int trackNumber) {
+    edit(trainNumber, edited -> edited.setTrackNumber(trackNumber));
+  }
+
+  /**
+   * Set a new train number for the train departure associated with specified train number. If the
+   * new train number already exists in the train register, the train number will not be changed.
+   *
+   * @param trainNumber    The train number of the train departure.
+   * @param newTrainNumber The new train number of the train departure.
+   * @since 3.1.0
+   */
+  public void setNewTrainNumber(int trainNumber, int newTrainNumber) {
+    this.writeLock.lock();
+    try {
+      if (newTrainNumber > 0 && this.trainNumberIndex.containsKey(trainNumber)
+          && isTrainNumberUnique(newTrainNumber) && claim(newTrainNumber)) {
+        edit(trainNumber, edited -> edited.setTrainNumber(newTrainNumber));
+        release(trainNumber);
+      }
+    } finally {
+      this.writeLock.unlock();
+    }
+  }
+
+  /**
+   * Set a new end destination for the train departure associated with specified train number.
+   *
+   * @param trainNumber    The train number of the train departure.
+   * @param newDestination The new destination of the train departure.
+   * @since 3.1.0
+   */
+  public void setNewDestination(int trainNumber, String newDestination) {
+    edit(trainNumber, edited -> edited.setDestination(newDestination));
+  }
+
+  /**
+   * Set a new departure time for the train departure associated with specified train number. If
+   * the new departure time is before the current time displayed on the station clock, the departure
+   * time will not be changed.
+   *
+   * @param trainNumber      The train number of the train departure.
+   * @param newDepartureTime The new departure time of the train departure.
+   * @since 3.1.0
+   */
+  public void setNewDepartureTime(int trainNumber, String newDepartureTime) {
+    this.writeLock.lock();
+    try {
+      if (LocalTime.parse(newDepartureTime).isAfter(this.stationClock)) {
+        edit(trainNumber, edited -> edited.setDepartureTime(newDepartureTime));
+      }
+    } finally {
+      this.writeLock.unlock();
+    }
+  }
+
+  /**
+   * Set a new train line for the train departure associated with specified train number.
+   *
+   * @param trainNumber  The train number of the train departure.
+   * @param newTrainLine The new train line of the train departure.
+   * @since 3.1.0
+   */
+  public void setNewTrainLine(int trainNumber, String newTrainLine) {
+    edit(trainNumber, edited -> edited.setTrainLine(newTrainLine));
+  }
+
+  /**
+   * Set a new delay for the train departure associated with specified train number.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @param newDelay    The specified amount of minutes delayed.
+   * @since 3.1.0
+   */
+  public void setNewDelay(int trainNumber, int newDelay) {
+    edit(trainNumber, edited -> edited.setDelay(newDelay));
+  }
+
+  /**
+   * Sets new delays for many train departures under one acquisition of the write lock. The delays
+   * are mapped by train number, and train numbers that do not exist are ignored.
+   *
+   * @param delays The new delays in minutes, mapped by train number.
+   * @return The number of train departures that were found and given a new delay.
+   * @since 3.1.0
+   */
+  public int setNewDelays(Map<Integer, Integer> delays) {
+    return editAll(delays, TrainDeparture::setDelay);
+  }
+
+  /**
+   * Assigns new tracks to many train departures under one acquisition of the write lock. The track
+   * numbers are mapped by train number, and train numbers that do not exist are ignored.
+   *
+   * @param trackNumbers The new track numbers, mapped by train number.
+   * @return The number of train departures that were found and assigned a new track.
+   * @since 3.1.0
+   */
+  public int setNewTrackNumbers(Map<Integer, Integer> trackNumbers) {
+    return editAll(trackNumbers, TrainDeparture::setTrackNumber);
+  }
+
+  /**
+   * Resets the train register. The train register will be empty after the method is called.
+   *
+   * @since 3.1.0
+   */
+  public void emptyTrainRegister() {
+    this.writeLock.lock();
+    try {
+      for (TrainDeparture train : this.trainRegister.values()) {
+        release(train.getTrainNumber());
+      }
+      this.trainRegister.clear();
+      this.trainNumberIndex.clear();
+      this.destinationIndex.clear();
+      this.remainingTrains.clear();
+      this.departedTrains.clear();
+      this.numberOfRemainingTrains = 0;
+    } finally {
+      this.writeLock.unlock();
+    }
+  }
+
+  /**
+   * Replaces the train departure with the specified train number by a changed copy, under the
+   * write lock.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @param change      The change to apply to the copy.
+   * @since 3.1.0
+   */
+  private void edit(int trainNumber, Consumer<TrainDeparture> change) {
+    this.writeLock.lock();
+    try {
+      apply(trainNumber, change);
+    } finally {
+      this.writeLock.unlock();
+    }
+  }
+
+  /**
+   * Applies a change to many train departures under one acquisition of the write lock. Each value
+   * is passed to the change of the train departure with its train number.
+   *
+   * @param values The values of the change, mapped by train number.
+   * @param change The change to apply to a copy of each train departure.
+   * @return The number of train departures that were found and changed.
+   * @since 3.1.0
+   */
+  private int editAll(Map<Integer, Integer> values, BiConsumer<TrainDeparture, Integer> change) {
+    this.writeLock.lock();
+    try {
+      int changed = 0;
+      for (Map.Entry<Integer, Integer> value : values.entrySet()) {
+        if (apply(value.getKey(), edited -> change.accept(edited, value.getValue()))) {
+          changed++;
+        }
+      }
+      return changed;
+    } finally {
+      this.writeLock.unlock();
+    }
+  }
+
+  /**
+   * Replaces the train departure with the specified train number by a changed read-only copy. The
+   * copy is put into the train register and the other indexes first, then into the train number
+   * index, and the original train departure is removed last, so a train departure found by its
+   * train number is always in every index. If the change does not move the train departure in a
+   * sorted map, the copy replaces the original in the same entry. The write lock must be held by
+   * the caller.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @param change      The change to apply to the copy.
+   * @return <code>true</code> if the train departure was found, <code>false</code> otherwise.
+   * @since 3.1.0
+   */
+  private boolean apply(int trainNumber, Consumer<TrainDeparture> change) {
+    TrainDeparture train = this.trainNumberIndex.get(trainNumber);
+    if (train == null) {
+      return false;
+    }
+    TrainDeparture changed = new TrainDeparture(train);
+    change.accept(changed);
+    TrainDeparture edited = new ReadOnlyTrainDeparture(changed);
+    ConcurrentSkipListMap<TrainDeparture, TrainDeparture> fromDestination =
+        this.destinationIndex.get(train.getDestinationId());
+    ConcurrentSkipListMap<TrainDeparture, TrainDeparture> toDestination = destinationOf(edited);
+    boolean wasRemaining = this.remainingTrains.containsKey(train);
+    boolean isRemaining = hasNotDeparted(edited);
+    ConcurrentSkipListMap<TrainDeparture, TrainDeparture> fromTimes =
+        wasRemaining ? this.remainingTrains : this.departedTrains;
+    ConcurrentSkipListMap<TrainDeparture, TrainDeparture> toTimes =
+        isRemaining ? this.remainingTrains : this.departedTrains;
+
+    this.trainRegister.put(edited, edited);
+    toDestination.put(edited, edited);
+    toTimes.put(edited, edited);
+    this.trainNumberIndex.put(edited.getTrainNumber(), edited);
+    if (edited.getTrainNumber() != train.getTrainNumber()) {
+      this.trainNumberIndex.remove(train.getTrainNumber());
+    }
+    removeReplaced(this.trainRegister, this.trainRegister, train, edited);
+    removeReplaced(fromDestination, toDestination, train, edited);
+    if (edited.getDestinationId() != train.getDestinationId()) {
+      removeEmptyDestination(train.getDestinationId());
+    }
+    removeReplaced(fromTimes, toTimes, train, edited);
+    this.numberOfRemainingTrains += (isRemaining ? 1 : 0) - (wasRemaining ? 1 : 0);
+    return true;
+  }
+
+  /**
+   * Claims the train number in the network index. A train station that is not part of a network
+   * always gets the train number.
+   *
+   * @param trainNumber The train number to claim.
+   * @return <code>true</code> if the train number was claimed, <code>false</code> otherwise.
+   * @since 3.1.0
+   */
+  private boolean claim(int trainNumber) {
+    return this.networkIndex == null || this.networkIndex.claim(trainNumber, this);
+  }
+
+  /**
+   * Releases the train number in the network index, so other train stations can use it.
+   *
+   * @param trainNumber The train number to release.
+   * @since 3.1.0
+   */
+  private void release(int trainNumber) {
+    if (this.networkIndex != null) {
+      this.networkIndex.release(trainNumber, this);
+    }
+  }
+
+  /**
+   * Removes the original train departure from the source map after the edited train departure has
+   * been put into the target map, unless the edited train departure took over its entry.
+   *
+   * @param source   The map holding the original train departure.
+   * @param target   The map the edited train departure was put into.
+   * @param train    The original train departure.
+   * @param edited   The edited copy of the train departure.
+   * @since 3.1.0
+   */
+  private static void removeReplaced(ConcurrentSkipListMap<TrainDeparture, TrainDeparture> source,
+      ConcurrentSkipListMap<TrainDeparture, TrainDeparture> target, TrainDeparture train,
+      TrainDeparture edited) {
+    if (source != target || source.comparator().compare(train, edited) != 0) {
+      source.remove(train);
+    }
+  }
+
+  /**
+   * Adds the train departure to the train register and all the indexes. The train number index is
+   * updated last, so a train departure found by its train number is in every index, the same order
+   * as an edit publishes its copy in.
+   *
+   * @param train The read-only train departure to be added.
+   * @since 3.1.0
+   */
+  private void register(TrainDeparture train) {
+    this.trainRegister.put(train, train);
+    destinationOf(train).put(train, train);
+    if (hasNotDeparted(train)) {
+      this.remainingTrains.put(train, train);
+      this.numberOfRemainingTrains++;
+    } else {
+      this.departedTrains.put(train, train);
+    }
+    this.trainNumberIndex.put(train.getTrainNumber(), train);
+  }
+
+  /**
+   * Removes the train departure from the train register and all the indexes. The train number
+   * index is updated first, so the train departure can no longer be found while it is removed.
+   *
+   * @param train The train departure to be removed.
+   * @since 3.1.0
+   */
+  private void unregister(TrainDeparture train) {
+    this.trainNumberIndex.remove(train.getTrainNumber());
+    this.trainRegister.remove(train);
+    ConcurrentSkipListMap<TrainDeparture, TrainDeparture> trains =
+        this.destinationIndex.get(train.getDestinationId());
+    if (trains != null) {
+      trains.remove(train);
+      removeEmptyDestination(train.getDestinationId());
+    }
+    if (this.remainingTrains.remove(train) != null) {
+      this.numberOfRemainingTrains--;
+    } else {
+      this.departedTrains.remove(train);
+    }
+  }
+
+  /**
+   * Returns the train departures headed to the destination of the train departure, creating the
+   * group if it does not exist.
+   *
+   * @param train The train departure.
+   * @return The train departures headed to the same destination.
+   * @since 3.1.0
+   */
+  private ConcurrentSkipListMap<TrainDeparture, TrainDeparture> destinationOf(
+      TrainDeparture train) {
+    return this.destinationIndex.computeIfAbsent(train.getDestinationId(),
+        key -> new ConcurrentSkipListMap<>(TrainStation.DEPARTURE_ORDER));
+  }
+
+  /**
+   * Removes the destination from the destination index when there are no more train departures
+   * headed to it.
+   *
+   * @param destinationId The id of the destination.
+   * @since 3.1.0
+   */
+  private void removeEmptyDestination(int destinationId) {
+    this.destinationIndex.computeIfPresent(destinationId,
+        (key, trains) -> trains.isEmpty() ? null : trains);
+  }
+
+  /**
+   * Returns <code>true</code> if the train departure has a real departure time after the station
+   * clock.
+   *
+   * @param train The train departure.
+   * @return <code>true</code> if the train has not departed, <code>false</code> otherwise.
+   * @since 3.1.0
+   */
+  private boolean hasNotDeparted(TrainDeparture train) {
+    LocalTime clock = this.stationClock;
+    return train.getRealDepartureMinutes() > clock.getHour() * 60 + clock.getMinute();
+  }
+}
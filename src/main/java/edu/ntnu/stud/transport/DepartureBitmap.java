@@ -0,0 +1,248 @@
+package edu.ntnu.stud.transport;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+
+/**
+ * The DepartureBitmap class is a compressed set of train departure ordinals. The ordinals are
+ * stored as bits in 64-bit words, and only the words that have a bit set are kept, sorted by their
+ * position. A destination, train line or track with few train departures therefore only uses a
+ * word for each of its train departures, however many train departures the train station has,
+ * while a common one uses one bit for each. Two bitmaps are combined with AND, OR and AND NOT by
+ * walking their words side by side, 64 train departures at a time.
+ *
+ * @author Johan Fredrik Wilvang
+ * @version 3.1.0
+ * @since 3.1.0
+ */
+
+final class DepartureBitmap {
+
+  private int[] keys;
+  private long[] words;
+  private int size;
+  private int cardinality;
+
+  /**
+   * Creates an empty object of class DepartureBitmap.
+   *
+   * @since 3.1.0
+   */
+  DepartureBitmap() {
+    this(new int[4], new long[4], 0, 0);
+  }
+
+  /**
+   * Creates object of class DepartureBitmap from words that are already sorted by their position.
+   *
+   * @param keys        The position of each word.
+   * @param words       The words, none of them 0.
+   * @param size        The number of words in use.
+   * @param cardinality The number of bits set.
+   * @since 3.1.0
+   */
+  private DepartureBitmap(int[] keys, long[] words, int size, int cardinality) {
+    this.keys = keys;
+    this.words = words;
+    this.size = size;
+    this.cardinality = cardinality;
+  }
+
+  /**
+   * Adds the ordinal to the bitmap.
+   *
+   * @param ordinal The ordinal of a train departure.
+   * @since 3.1.0
+   */
+  void add(int ordinal) {
+    int position = Arrays.binarySearch(this.keys, 0, this.size, ordinal >>> 6);
+    long bit = 1L << ordinal;
+    if (position >= 0) {
+      if ((this.words[position] & bit) == 0) {
+        this.words[position] |= bit;
+        this.cardinality++;
+      }
+      return;
+    }
+    position = -position - 1;
+    if (this.size == this.keys.length) {
+      this.keys = Arrays.copyOf(this.keys, this.size * 2);
+      this.words = Arrays.copyOf(this.words, this.size * 2);
+    }
+    System.arraycopy(this.keys, position, this.keys, position + 1, this.size - position);
+    System.arraycopy(this.words, position, this.words, position + 1, this.size - position);
+    this.keys[position] = ordinal >>> 6;
+    this.words[position] = bit;
+    this.size++;
+    this.cardinality++;
+  }
+
+  /**
+   * Removes the ordinal from the bitmap. A word without any bits left is removed.
+   *
+   * @param ordinal The ordinal of a train departure.
+   * @since 3.1.0
+   */
+  void remove(int ordinal) {
+    int position = Arrays.binarySearch(this.keys, 0, this.size, ordinal >>> 6);
+    long bit = 1L << ordinal;
+    if (position < 0 || (this.words[position] & bit) == 0) {
+      return;
+    }
+    this.words[position] &= ~bit;
+    this.cardinality--;
+    if (this.words[position] == 0) {
+      System.arraycopy(this.keys, position + 1, this.keys, position, this.size - position - 1);
+      System.arraycopy(this.words, position + 1, this.words, position, this.size - position - 1);
+      this.size--;
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if the ordinal is in the bitmap.
+   *
+   * @param ordinal The ordinal of a train departure.
+   * @return <code>true</code> if the ordinal is in the bitmap, <code>false</code> otherwise.
+   * @since 3.1.0
+   */
+  boolean contains(int ordinal) {
+    int position = Arrays.binarySearch(this.keys, 0, this.size, ordinal >>> 6);
+    return position >= 0 && (this.words[position] & (1L << ordinal)) != 0;
+  }
+
+  /**
+   * Returns the number of ordinals in the bitmap.
+   *
+   * @return The number of ordinals in the bitmap.
+   * @since 3.1.0
+   */
+  int cardinality() {
+    return this.cardinality;
+  }
+
+  /**
+   * Returns the number of 64-bit words the bitmap keeps.
+   *
+   * @return The number of words in use.
+   * @since 3.1.0
+   */
+  int words() {
+    return this.size;
+  }
+
+  /**
+   * Returns a new bitmap with the ordinals that are in both bitmaps.
+   *
+   * @param other The other bitmap.
+   * @return The intersection of the bitmaps.
+   * @since 3.1.0
+   */
+  DepartureBitmap and(DepartureBitmap other) {
+    int capacity = Math.max(1, Math.min(this.size, other.size));
+    int[] keys = new int[capacity];
+    long[] words = new long[capacity];
+    int size = 0;
+    int cardinality = 0;
+    int i = 0;
+    int j = 0;
+    while (i < this.size && j < other.size) {
+      if (this.keys[i] < other.keys[j]) {
+        i++;
+      } else if (this.keys[i] > other.keys[j]) {
+        j++;
+      } else {
+        long word = this.words[i] & other.words[j];
+        if (word != 0) {
+          keys[size] = this.keys[i];
+          words[size++] = word;
+          cardinality += Long.bitCount(word);
+        }
+        i++;
+        j++;
+      }
+    }
+    return new DepartureBitmap(keys, words, size, cardinality);
+  }
+
+  /**
+   * Returns a new bitmap with the ordinals that are in either bitmap.
+   *
+   * @param other The other bitmap.
+   * @return The union of the bitmaps.
+   * @since 3.1.0
+   */
+  DepartureBitmap or(DepartureBitmap other) {
+    int capacity = Math.max(1, this.size + other.size);
+    int[] keys = new int[capacity];
+    long[] words = new long[capacity];
+    int size = 0;
+    int cardinality = 0;
+    int i = 0;
+    int j = 0;
+    while (i < this.size || j < other.size) {
+      long word;
+      if (j == other.size || i < this.size && this.keys[i] < other.keys[j]) {
+        keys[size] = this.keys[i];
+        word = this.words[i++];
+      } else if (i == this.size || this.keys[i] > other.keys[j]) {
+        keys[size] = other.keys[j];
+        word = other.words[j++];
+      } else {
+        keys[size] = this.keys[i];
+        word = this.words[i++] | other.words[j++];
+      }
+      words[size++] = word;
+      cardinality += Long.bitCount(word);
+    }
+    return new DepartureBitmap(keys, words, size, cardinality);
+  }
+
+  /**
+   * Returns a new bitmap with the ordinals that are in this bitmap but not in the other.
+   *
+   * @param other The other bitmap.
+   * @return The difference of the bitmaps.
+   * @since 3.1.0
+   */
+  DepartureBitmap andNot(DepartureBitmap other) {
+    int capacity = Math.max(1, this.size);
+    int[] keys = new int[capacity];
+    long[] words = new long[capacity];
+    int size = 0;
+    int cardinality = 0;
+    int j = 0;
+    for (int i = 0; i < this.size; i++) {
+      while (j < other.size && other.keys[j] < this.keys[i]) {
+        j++;
+      }
+      long word = this.words[i];
+      if (j < other.size && other.keys[j] == this.keys[i]) {
+        word &= ~other.words[j];
+      }
+      if (word != 0) {
+        keys[size] = this.keys[i];
+        words[size++] = word;
+        cardinality += Long.bitCount(word);
+      }
+    }
+    return new DepartureBitmap(keys, words, size, cardinality);
+  }
+
+  /**
+   * Calls the action with every ordinal in the bitmap, in increasing order.
+   *
+   * @param action The action to call with each ordinal.
+   * @since 3.1.0
+   */
+  void forEach(IntConsumer action) {
+    for (int i = 0; i < this.size; i++) {
+      long word = this.words[i];
+      int base = this.keys[i] << 6;
+      while (word != 0) {
+        action.accept(base + Long.numberOfTrailingZeros(word));
+        word &= word - 1;
+      }
+    }
+  }
+}
@@ -0,0 +1,379 @@
+package edu.ntnu.stud.transport;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+
+/**
+ * The DepartureQuery class describes a search for the train departures that meet several criteria
+ * at once, for example the train departures headed to Oslo on line L4 that depart between 12:00 and
+ * 13:00 and are delayed more than 5 minutes. The criteria are added one at a time, and a criterion
+ * that is not added matches every train departure. A destination, train line or track can be added
+ * more than once, and then matches a train departure with any of them. A value that is added again,
+ * also in another case, is only kept once. The query is run by
+ * TrainStation.search(DepartureQuery), which looks up the candidates in the index of the most
+ * selective criterion and checks the other criteria on the candidates only.
+ *
+ * @author Johan Fredrik Wilvang
+ * @version 3.1.0
+ * @since 3.1.0
+ */
+
+public final class DepartureQuery {
+
+  private static final int ANY = -1;
+
+  private int trainNumber;
+  private final List<String> destinations;
+  private final List<String> trainLines;
+  private final List<Integer> trackNumbers;
+  private LocalTime departingFrom;
+  private LocalTime departingTo;
+  private int delayedMoreThan;
+  private boolean notDelayed;
+
+  /**
+   * Creates object of class DepartureQuery that matches every train departure.
+   *
+   * @since 3.1.0
+   */
+  public DepartureQuery() {
+    this.trainNumber = ANY;
+    this.destinations = new ArrayList<>();
+    this.trainLines = new ArrayList<>();
+    this.trackNumbers = new ArrayList<>();
+    this.departingFrom = null;
+    this.departingTo = null;
+    this.delayedMoreThan = ANY;
+    this.notDelayed = false;
+  }
+
+  /**
+   * Only matches the train departure with the specified train number.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @return This query.
+   * @throws IllegalArgumentException If the train number is not positive.
+   * @since 3.1.0
+   */
+  public DepartureQuery withTrainNumber(int trainNumber) {
+    if (trainNumber <= 0) {
+      throw new IllegalArgumentException("The train number must be positive.");
+    }
+    this.trainNumber = trainNumber;
+    return this;
+  }
+
+  /**
+   * Only matches the train departures headed to the specified destination, ignoring case, or to
+   * any of the destinations added before. A destination that is already added is not added again.
+   *
+   * @param destination The destination of the train departures.
+   * @return This query.
+   * @throws IllegalArgumentException If the destination is empty.
+   * @since 3.1.0
+   */
+  public DepartureQuery withDestination(String destination) {
+    if (destination == null || destination.isBlank()) {
+      throw new IllegalArgumentException("The destination must not be empty.");
+    }
+    if (this.destinations.stream().noneMatch(destination::equalsIgnoreCase)) {
+      this.destinations.add(destination);
+    }
+    return this;
+  }
+
+  /**
+   * Only matches the train departures on the specified train line, ignoring case, or on any of the
+   * train lines added before. A train line that is already added is not added again.
+   *
+   * @param trainLine The train line of the train departures.
+   * @return This query.
+   * @throws IllegalArgumentException If the train line is empty.
+   * @since 3.1.0
+   */
+  public DepartureQuery withTrainLine(String trainLine) {
+    if (trainLine == null || trainLine.isBlank()) {
+      throw new IllegalArgumentException("The train line must not be empty.");
+    }
+    if (this.trainLines.stream().noneMatch(trainLine::equalsIgnoreCase)) {
+      this.trainLines.add(trainLine);
+    }
+    return this;
+  }
+
+  /**
+   * Only matches the train departures assigned to the specified track, or to any of the tracks
+   * added before. A track that is already added is not added again.
+   *
+   * @param trackNumber The track number of the train departures.
+   * @return This query.
+   * @throws IllegalArgumentException If the track number is not positive.
+   * @since 3.1.0
+   */
+  public DepartureQuery withTrackNumber(int trackNumber) {
+    if (trackNumber <= 0) {
+      throw new IllegalArgumentException("The track number must be positive.");
+    }
+    if (!this.trackNumbers.contains(trackNumber)) {
+      this.trackNumbers.add(trackNumber);
+    }
+    return this;
+  }
+
+  /**
+   * Only matches the train departures with a departure time from and including the first time, to
+   * and including the second time. The delay is not taken into account.
+   *
+   * @param from The earliest departure time.
+   * @param to   The latest departure time.
+   * @return This query.
+   * @throws IllegalArgumentException If the earliest departure time is after the latest.
+   * @since 3.1.0
+   */
+  public DepartureQuery departingBetween(LocalTime from, LocalTime to) {
+    if (from.isAfter(to)) {
+      throw new IllegalArgumentException(
+          "The earliest departure time must not be after the latest departure time.");
+    }
+    this.departingFrom = from;
+    this.departingTo = to;
+    return this;
+  }
+
+  /**
+   * Only matches the train departures delayed more than the specified number of minutes.
+   *
+   * @param minutes The number of minutes the train departures must be delayed more than.
+   * @return This query.
+   * @throws IllegalArgumentException If the number of minutes is negative.
+   * @since 3.1.0
+   */
+  public DepartureQuery delayedMoreThan(int minutes) {
+    if (minutes < 0) {
+      throw new IllegalArgumentException("The delay must not be negative.");
+    }
+    this.delayedMoreThan = minutes;
+    return this;
+  }
+
+  /**
+   * Only matches the train departures that are not delayed.
+   *
+   * @return This query.
+   * @since 3.1.0
+   */
+  public DepartureQuery notDelayed() {
+    this.notDelayed = true;
+    return this;
+  }
+
+  /**
+   * Returns the train number to match, or a negative number if any train number matches.
+   *
+   * @return The train number to match.
+   * @since 3.1.0
+   */
+  int getTrainNumber() {
+    return this.trainNumber;
+  }
+
+  /**
+   * Returns the destinations to match, or an empty list if any destination matches.
+   *
+   * @return The destinations to match.
+   * @since 3.1.0
+   */
+  List<String> getDestinations() {
+    return this.destinations;
+  }
+
+  /**
+   * Returns the train lines to match, or an empty list if any train line matches.
+   *
+   * @return The train lines to match.
+   * @since 3.1.0
+   */
+  List<String> getTrainLines() {
+    return this.trainLines;
+  }
+
+  /**
+   * Returns the track numbers to match, or an empty list if any track number matches.
+   *
+   * @return The track numbers to match.
+   * @since 3.1.0
+   */
+  List<Integer> getTrackNumbers() {
+    return this.trackNumbers;
+  }
+
+  /**
+   * Returns the earliest departure time to match, or <code>null</code> if any departure time
+   * matches.
+   *
+   * @return The earliest departure time to match.
+   * @since 3.1.0
+   */
+  LocalTime getDepartingFrom() {
+    return this.departingFrom;
+  }
+
+  /**
+   * Returns the latest departure time to match, or <code>null</code> if any departure time
+   * matches.
+   *
+   * @return The latest departure time to match.
+   * @since 3.1.0
+   */
+  LocalTime getDepartingTo() {
+    return this.departingTo;
+  }
+
+  /**
+   * Returns the number of minutes the train departures must be delayed more than, or a negative
+   * number if any delay matches.
+   *
+   * @return The number of minutes the train departures must be delayed more than.
+   * @since 3.1.0
+   */
+  int getDelayedMoreThan() {
+    return this.delayedMoreThan;
+  }
+
+  /**
+   * Returns <code>true</code> if only train departures that are not delayed match.
+   *
+   * @return <code>true</code> if only train departures that are not delayed match.
+   * @since 3.1.0
+   */
+  boolean isNotDelayed() {
+    return this.notDelayed;
+  }
+
+  /**
+   * Returns the number of criteria that can be answered by the bitmap indexes: the destinations,
+   * the train lines, the tracks and the delay.
+   *
+   * @return The number of criteria answered by the bitmap indexes.
+   * @since 3.1.0
+   */
+  int countBitmapCriteria() {
+    int criteria = 0;
+    criteria += this.destinations.isEmpty() ? 0 : 1;
+    criteria += this.trainLines.isEmpty() ? 0 : 1;
+    criteria += this.trackNumbers.isEmpty() ? 0 : 1;
+    criteria += this.notDelayed || this.delayedMoreThan != ANY ? 1 : 0;
+    return criteria;
+  }
+
+  /**
+   * Returns a test of every criterion of the query. The destination and train line are looked up
+   * in the symbol tables once, so each train departure is tested by comparing whole numbers only.
+   *
+   * @return A test that accepts the train departures that match the query.
+   * @since 3.1.0
+   */
+  Predicate<TrainDeparture> toPredicate() {
+    Predicate<TrainDeparture> predicate = train -> true;
+    if (this.trainNumber != ANY) {
+      int number = this.trainNumber;
+      predicate = predicate.and(train -> train.getTrainNumber() == number);
+    }
+    if (!this.destinations.isEmpty()) {
+      int[] destinationIds = this.destinations.stream()
+          .mapToInt(SymbolTable.DESTINATIONS::find).toArray();
+      predicate = predicate.and(train -> contains(destinationIds, train.getDestinationId()));
+    }
+    if (!this.trainLines.isEmpty()) {
+      int[] trainLineIds = this.trainLines.stream()
+          .mapToInt(SymbolTable.TRAIN_LINES::find).toArray();
+      predicate = predicate.and(train -> contains(trainLineIds, train.getTrainLineId()));
+    }
+    if (!this.trackNumbers.isEmpty()) {
+      int[] tracks = this.trackNumbers.stream().mapToInt(Integer::intValue).toArray();
+      predicate = predicate.and(train -> contains(tracks, train.getTrackNumber()));
+    }
+    if (this.departingFrom != null) {
+      int from = this.departingFrom.getHour() * 60 + this.departingFrom.getMinute();
+      int to = this.departingTo.getHour() * 60 + this.departingTo.getMinute();
+      predicate = predicate.and(train -> train.getDepartureMinutes() >= from
+          && train.getDepartureMinutes() <= to);
+    }
+    if (this.delayedMoreThan != ANY) {
+      int minutes = this.delayedMoreThan;
+      predicate = predicate.and(train -> train.getMinutesDelay() > minutes);
+    }
+    if (this.notDelayed) {
+      predicate = predicate.and(train -> train.getMinutesDelay() == 0);
+    }
+    return predicate;
+  }
+
+  /**
+   * Returns a description of every criterion of the query, except the criterion answered by the
+   * specified index.
+   *
+   * @param index The index used to find the candidates.
+   * @return The criteria that are checked on the candidates.
+   * @since 3.1.0
+   */
+  List<String> describeFilters(QueryResult.Index index) {
+    boolean bitmap = index == QueryResult.Index.BITMAP;
+    List<String> filters = new ArrayList<>();
+    if (this.trainNumber != ANY && index != QueryResult.Index.TRAIN_NUMBER) {
+      filters.add("train number = " + this.trainNumber);
+    }
+    if (!this.destinations.isEmpty() && index != QueryResult.Index.DESTINATION && !bitmap) {
+      filters.add(describe("destination", this.destinations));
+    }
+    if (!this.trainLines.isEmpty() && index != QueryResult.Index.TRAIN_LINE && !bitmap) {
+      filters.add(describe("train line", this.trainLines));
+    }
+    if (!this.trackNumbers.isEmpty() && index != QueryResult.Index.TRACK && !bitmap) {
+      filters.add(describe("track", this.trackNumbers));
+    }
+    if (this.departingFrom != null && index != QueryResult.Index.DEPARTURE_TIME) {
+      filters.add("departure " + this.departingFrom + "-" + this.departingTo);
+    }
+    if (this.delayedMoreThan != ANY && !(bitmap && this.delayedMoreThan == 0)) {
+      filters.add("delay > " + this.delayedMoreThan + " min");
+    }
+    if (this.notDelayed && !bitmap) {
+      filters.add("not delayed");
+    }
+    return filters;
+  }
+
+  /**
+   * Returns a description of a criterion with one or more values, for example "track = 2" or
+   * "track in [2, 3]".
+   *
+   * @param criterion The name of the criterion.
+   * @param values    The values of the criterion.
+   * @return The description of the criterion.
+   * @since 3.1.0
+   */
+  private static String describe(String criterion, List<?> values) {
+    return values.size() == 1 ? criterion + " = " + values.get(0) : criterion + " in " + values;
+  }
+
+  /**
+   * Returns <code>true</code> if the value is one of the values.
+   *
+   * @param values The values.
+   * @param value  The value to look for.
+   * @return <code>true</code> if the value is one of the values.
+   * @since 3.1.0
+   */
+  private static boolean contains(int[] values, int value) {
+    for (int candidate : values) {
+      if (candidate == value) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
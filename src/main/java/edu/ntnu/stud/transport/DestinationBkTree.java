@@ -0,0 +1,241 @@
+package edu.ntnu.stud.transport;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.IntPredicate;
+
+
+/**
+ * The DestinationBkTree class finds the destinations that are spelled almost like a search, for
+ * example "Bergn" or "Trondhiem". The destinations are stored in lower case in a BK-tree, where
+ * every child is kept at the index of its edit distance to its parent. The edit distance is a
+ * metric, so a search within a distance of k only has to visit the children whose edge is within k
+ * of the distance between the search and the parent, and the rest of the tree is skipped. A node
+ * can not be taken out of a BK-tree without moving its children, so a removed destination is only
+ * marked as removed and still guides the searches. It is found again if it is added back, and the
+ * tree is rebuilt from the destinations it holds when the removed nodes outnumber them.
+ *
+ * @author Johan Fredrik Wilvang
+ * @version 3.1.0
+ * @since 3.1.0
+ */
+
+final class DestinationBkTree {
+
+  private Node root;
+  /** Every node of the tree by its destination id, including the removed ones. */
+  private final Map<Integer, Node> nodes;
+  private int size;
+
+  /**
+   * Creates an empty object of class DestinationBkTree.
+   *
+   * @since 3.1.0
+   */
+  DestinationBkTree() {
+    this.root = null;
+    this.nodes = new HashMap<>();
+    this.size = 0;
+  }
+
+  /**
+   * Adds the destination to the tree. A destination that is already in the tree is not added
+   * again, and a removed destination is marked as added at the node it already has.
+   *
+   * @param destinationId The id of the destination in the symbol table.
+   * @since 3.1.0
+   */
+  void add(int destinationId) {
+    Node existing = this.nodes.get(destinationId);
+    if (existing != null) {
+      if (existing.removed) {
+        existing.removed = false;
+        this.size++;
+      }
+      return;
+    }
+    Node added = new Node(destinationId);
+    this.nodes.put(destinationId, added);
+    this.size++;
+    if (this.root == null) {
+      this.root = added;
+      return;
+    }
+    Node node = this.root;
+    while (true) {
+      int distance = distance(added.key, node.key, new int[2 * (node.key.length + 1)]);
+      if (distance >= node.children.length) {
+        node.children = Arrays.copyOf(node.children, distance + 1);
+      }
+      if (node.children[distance] == null) {
+        node.children[distance] = added;
+        return;
+      }
+      node = node.children[distance];
+    }
+  }
+
+  /**
+   * Removes the destination from the tree, so it is no longer found by a search. The node of the
+   * destination is marked as removed. When the removed nodes outnumber the destinations in the
+   * tree, the tree is rebuilt from its destinations, so the searches do not slow down as
+   * destinations come and go.
+   *
+   * @param destinationId The id of the destination in the symbol table.
+   * @since 3.1.0
+   */
+  void remove(int destinationId) {
+    Node node = this.nodes.get(destinationId);
+    if (node == null || node.removed) {
+      return;
+    }
+    node.removed = true;
+    this.size--;
+    if (this.nodes.size() > 2 * this.size) {
+      List<Integer> destinations = new ArrayList<>(this.size);
+      for (Node kept : this.nodes.values()) {
+        if (!kept.removed) {
+          destinations.add(kept.destinationId);
+        }
+      }
+      clear();
+      for (int destination : destinations) {
+        add(destination);
+      }
+    }
+  }
+
+  /**
+   * Removes all the destinations from the tree.
+   *
+   * @since 3.1.0
+   */
+  void clear() {
+    this.root = null;
+    this.nodes.clear();
+    this.size = 0;
+  }
+
+  /**
+   * Returns the destinations within the maximum edit distance of the search, ignoring case, that
+   * are accepted by the filter. The destinations are sorted by their edit distance, then by name.
+   *
+   * @param search      The spelling to search for.
+   * @param maxDistance The largest number of inserted, removed or replaced letters.
+   * @param limit       The largest number of destinations to return.
+   * @param filter      The test a destination id must pass to be returned.
+   * @return The closest destinations.
+   * @since 3.1.0
+   */
+  List<String> search(String search, int maxDistance, int limit, IntPredicate filter) {
+    if (this.root == null || limit <= 0 || maxDistance < 0) {
+      return List.of();
+    }
+    char[] key = search.toLowerCase(Locale.ROOT).toCharArray();
+    int[] rows = new int[2 * (key.length + 1)];
+    List<int[]> matches = new ArrayList<>();
+    Deque<Node> pending = new ArrayDeque<>();
+    pending.push(this.root);
+    while (!pending.isEmpty()) {
+      Node node = pending.pop();
+      int distance = distance(node.key, key, rows);
+      if (distance <= maxDistance && !node.removed && filter.test(node.destinationId)) {
+        matches.add(new int[]{distance, node.destinationId});
+      }
+      int last = Math.min(distance + maxDistance, node.children.length - 1);
+      for (int edge = Math.max(0, distance - maxDistance); edge <= last; edge++) {
+        if (node.children[edge] != null) {
+          pending.push(node.children[edge]);
+        }
+      }
+    }
+    matches.sort(Comparator.<int[]>comparingInt(match -> match[0])
+        .thenComparing(match -> SymbolTable.DESTINATIONS.valueOf(match[1])));
+    List<String> closest = new ArrayList<>(Math.min(limit, matches.size()));
+    for (int[] match : matches.subList(0, Math.min(limit, matches.size()))) {
+      closest.add(SymbolTable.DESTINATIONS.valueOf(match[1]));
+    }
+    return closest;
+  }
+
+  /**
+   * Returns the number of destinations in the tree, not counting the removed destinations.
+   *
+   * @return The number of destinations in the tree.
+   * @since 3.1.0
+   */
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the Levenshtein edit distance between two strings, which is the smallest number of
+   * letters that must be inserted, removed or replaced to turn one string into the other.
+   *
+   * @param first  The first string.
+   * @param second The second string.
+   * @return The edit distance between the strings.
+   * @since 3.1.0
+   */
+  static int distance(String first, String second) {
+    return distance(first.toCharArray(), second.toCharArray(), new int[2 * (second.length() + 1)]);
+  }
+
+  /**
+   * Returns the Levenshtein edit distance between two strings, using two rows of the table kept by
+   * the caller, so a search does not allocate a new table for every destination it visits.
+   *
+   * @param first  The letters of the first string.
+   * @param second The letters of the second string.
+   * @param rows   Room for two rows of the table, at least twice the length of the second string
+   *               plus 2.
+   * @return The edit distance between the strings.
+   * @since 3.1.0
+   */
+  private static int distance(char[] first, char[] second, int[] rows) {
+    int width = second.length + 1;
+    int previous = 0;
+    int current = width;
+    for (int j = 0; j < width; j++) {
+      rows[j] = j;
+    }
+    for (int i = 1; i <= first.length; i++) {
+      rows[current] = i;
+      char letter = first[i - 1];
+      for (int j = 1; j < width; j++) {
+        int replace = rows[previous + j - 1] + (letter == second[j - 1] ? 0 : 1);
+        rows[current + j] =
+            Math.min(replace, Math.min(rows[previous + j], rows[current + j - 1]) + 1);
+      }
+      int swap = previous;
+      previous = current;
+      current = swap;
+    }
+    return rows[previous + second.length];
+  }
+
+  /**
+   * A node of the tree, holding one destination and its children, indexed by their edit distance.
+   */
+  private static final class Node {
+
+    private final int destinationId;
+    private final char[] key;
+    private Node[] children;
+    private boolean removed;
+
+    private Node(int destinationId) {
+      this.destinationId = destinationId;
+      this.key = SymbolTable.DESTINATIONS.valueOf(destinationId).toLowerCase(Locale.ROOT)
+          .toCharArray();
+      this.children = new Node[0];
+    }
+  }
+}
@@ -0,0 +1,192 @@
+package edu.ntnu.stud.transport;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+
+/**
+ * The DestinationTrie class is a prefix index over the destinations of the train departures in a
+ * train station. The destinations are stored in lower case, one character per level, so a prefix
+ * in any case finds every destination starting with it, including destinations with æ, ø and å.
+ * Every destination also counts its upcoming train departures, which is used to rank the
+ * destinations that match a prefix. The trie is changed incrementally by the train station as
+ * destinations appear and disappear, and as train departures become upcoming or depart.
+ *
+ * @author Johan Fredrik Wilvang
+ * @version 3.1.0
+ * @since 3.1.0
+ */
+
+final class DestinationTrie {
+
+  private static final Comparator<Node> RANKING =
+      Comparator.comparingInt((Node node) -> node.upcoming).reversed()
+          .thenComparing(node -> SymbolTable.DESTINATIONS.valueOf(node.destinationId));
+
+  private final Node root;
+  private final Map<Integer, Node> destinations;
+
+  /**
+   * Creates an empty object of class DestinationTrie.
+   *
+   * @since 3.1.0
+   */
+  DestinationTrie() {
+    this.root = new Node();
+    this.destinations = new HashMap<>();
+  }
+
+  /**
+   * Adds the destination to the trie, with no upcoming train departures. A destination that is
+   * already in the trie is not changed. The cost is proportional to the length of the destination.
+   *
+   * @param destinationId The id of the destination in the symbol table.
+   * @since 3.1.0
+   */
+  void add(int destinationId) {
+    if (this.destinations.containsKey(destinationId)) {
+      return;
+    }
+    Node node = this.root;
+    for (char letter : keyOf(destinationId).toCharArray()) {
+      node = node.children.computeIfAbsent(letter, key -> new Node());
+    }
+    node.destinationId = destinationId;
+    node.upcoming = 0;
+    this.destinations.put(destinationId, node);
+  }
+
+  /**
+   * Removes the destination from the trie, and the nodes that no longer lead to a destination.
+   *
+   * @param destinationId The id of the destination in the symbol table.
+   * @since 3.1.0
+   */
+  void remove(int destinationId) {
+    if (this.destinations.remove(destinationId) != null) {
+      remove(this.root, keyOf(destinationId), 0);
+    }
+  }
+
+  /**
+   * Changes the number of upcoming train departures to the destination. A destination that is not
+   * in the trie is ignored.
+   *
+   * @param destinationId The id of the destination in the symbol table.
+   * @param change        The change in the number of upcoming train departures.
+   * @since 3.1.0
+   */
+  void addUpcoming(int destinationId, int change) {
+    Node node = this.destinations.get(destinationId);
+    if (node != null) {
+      node.upcoming += change;
+    }
+  }
+
+  /**
+   * Returns the destinations starting with the prefix, ignoring case, ranked by their number of
+   * upcoming train departures and then by name. The prefix is found in time proportional to its
+   * length, and only the part of the trie below the prefix is visited.
+   *
+   * @param prefix The start of the destinations.
+   * @param limit  The largest number of destinations to return.
+   * @return The matching destinations, ranked by upcoming train departures.
+   * @since 3.1.0
+   */
+  List<String> complete(String prefix, int limit) {
+    if (limit <= 0) {
+      return List.of();
+    }
+    Node node = this.root;
+    for (char letter : prefix.toLowerCase(Locale.ROOT).toCharArray()) {
+      node = node.children.get(letter);
+      if (node == null) {
+        return List.of();
+      }
+    }
+    List<Node> matches = new ArrayList<>();
+    collect(node, matches);
+    matches.sort(RANKING);
+    List<String> ranked = new ArrayList<>(Math.min(limit, matches.size()));
+    for (Node match : matches.subList(0, Math.min(limit, matches.size()))) {
+      ranked.add(SymbolTable.DESTINATIONS.valueOf(match.destinationId));
+    }
+    return ranked;
+  }
+
+  /**
+   * Removes every destination from the trie.
+   *
+   * @since 3.1.0
+   */
+  void clear() {
+    this.root.children.clear();
+    this.destinations.clear();
+  }
+
+  /**
+   * Removes the destination below the node, and returns <code>true</code> if the node no longer
+   * leads to any destination and can be removed by its parent.
+   *
+   * @param node  The node of the trie.
+   * @param key   The destination in lower case.
+   * @param depth The depth of the node.
+   * @return <code>true</code> if the node can be removed.
+   * @since 3.1.0
+   */
+  private static boolean remove(Node node, String key, int depth) {
+    if (depth == key.length()) {
+      node.destinationId = Node.NONE;
+    } else {
+      Node child = node.children.get(key.charAt(depth));
+      if (child != null && remove(child, key, depth + 1)) {
+        node.children.remove(key.charAt(depth));
+      }
+    }
+    return node.destinationId == Node.NONE && node.children.isEmpty();
+  }
+
+  /**
+   * Adds every destination below the node to the matches.
+   *
+   * @param node    The node of the trie.
+   * @param matches The destinations found so far.
+   * @since 3.1.0
+   */
+  private static void collect(Node node, List<Node> matches) {
+    if (node.destinationId != Node.NONE) {
+      matches.add(node);
+    }
+    for (Node child : node.children.values()) {
+      collect(child, matches);
+    }
+  }
+
+  /**
+   * Returns the key of the destination in the trie, which is the destination in lower case.
+   *
+   * @param destinationId The id of the destination in the symbol table.
+   * @return The key of the destination.
+   * @since 3.1.0
+   */
+  private static String keyOf(int destinationId) {
+    return SymbolTable.DESTINATIONS.valueOf(destinationId).toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * A node of the trie. A node that ends a destination holds the id of the destination and its
+   * number of upcoming train departures.
+   */
+  private static final class Node {
+
+    private static final int NONE = -1;
+
+    private final Map<Character, Node> children = new HashMap<>(4);
+    private int destinationId = NONE;
+    private int upcoming;
+  }
+}
@@ -0,0 +1,302 @@
+package edu.ntnu.stud.transport;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+
+/**
+ * The PersistentDepartureTree class is an immutable tree of train departures sorted by departure
+ * time, then train number. Adding or removing a train departure does not change the tree, but
+ * returns a new tree. Only the nodes on the path to the changed train departure are copied, and
+ * the rest of the nodes are shared with the old tree, so a change costs O(log n) new nodes. The
+ * tree is a treap: the priority of a node is derived from the train number, which keeps the tree
+ * balanced without storing any balancing information. The train departures in the tree are
+ * ReadOnlyTrainDeparture copies, because a train departure is shared by every version of the tree
+ * that contains it.
+ *
+ * @author Johan Fredrik Wilvang
+ * @version 3.1.0
+ * @since 3.1.0
+ */
+
+final class PersistentDepartureTree implements Iterable<TrainDeparture> {
+
+  static final PersistentDepartureTree EMPTY = new PersistentDepartureTree(null);
+
+  private final Node root;
+
+  /**
+   * Creates object of class PersistentDepartureTree with the specified root.
+   *
+   * @param root The root of the tree, or <code>null</code> for an empty tree.
+   * @since 3.1.0
+   */
+  private PersistentDepartureTree(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * Returns a tree containing the train departures of the sorted list. The list must be sorted by
+   * departure time, then train number, without two train departures with the same departure time
+   * and train number. The tree is built in linear time, by keeping the right spine of the tree
+   * built so far on a stack.
+   *
+   * @param sorted The sorted train departures.
+   * @return A tree containing the train departures.
+   * @since 3.1.0
+   */
+  static PersistentDepartureTree fromSorted(List<TrainDeparture> sorted) {
+    int size = sorted.size();
+    if (size == 0) {
+      return EMPTY;
+    }
+    int[] priorities = new int[size];
+    int[] left = new int[size];
+    int[] right = new int[size];
+    int[] spine = new int[size];
+    int top = -1;
+    for (int i = 0; i < size; i++) {
+      priorities[i] = priority(sorted.get(i).getTrainNumber());
+      right[i] = -1;
+      int last = -1;
+      while (top >= 0 && priorities[spine[top]] < priorities[i]) {
+        last = spine[top--];
+      }
+      left[i] = last;
+      if (top >= 0) {
+        right[spine[top]] = i;
+      }
+      spine[++top] = i;
+    }
+    return new PersistentDepartureTree(build(sorted, left, right, spine[0]));
+  }
+
+  /**
+   * Returns the number of train departures in the tree.
+   *
+   * @return The number of train departures in the tree.
+   * @since 3.1.0
+   */
+  int size() {
+    return size(this.root);
+  }
+
+  /**
+   * Returns a tree containing the train departure. A train departure in the tree with the same
+   * departure time and train number is replaced.
+   *
+   * @param train The train departure to add.
+   * @return A tree containing the train departure.
+   * @since 3.1.0
+   */
+  PersistentDepartureTree with(TrainDeparture train) {
+    return new PersistentDepartureTree(put(this.root, train));
+  }
+
+  /**
+   * Returns a tree without the train departure with the same departure time and train number as
+   * the specified train departure. If there is no such train departure, this tree is returned.
+   *
+   * @param train The train departure to remove.
+   * @return A tree without the train departure.
+   * @since 3.1.0
+   */
+  PersistentDepartureTree without(TrainDeparture train) {
+    Node newRoot = remove(this.root, train);
+    return newRoot == this.root ? this : new PersistentDepartureTree(newRoot);
+  }
+
+  /**
+   * Returns an iterator of the train departures in the tree, sorted by departure time.
+   *
+   * @return An iterator of the train departures in the tree.
+   * @since 3.1.0
+   */
+  @Override
+  public Iterator<TrainDeparture> iterator() {
+    return new InOrderIterator(this.root);
+  }
+
+  /**
+   * Returns a copy of the path from the node to the position of the train departure, with the
+   * train departure added. The new node is rotated up while its priority is higher than the
+   * priority of its parent.
+   *
+   * @param node  The root of the subtree.
+   * @param train The train departure to add.
+   * @return The new root of the subtree.
+   * @since 3.1.0
+   */
+  private static Node put(Node node, TrainDeparture train) {
+    if (node == null) {
+      return new Node(train, null, null);
+    }
+    int order = TrainStation.DEPARTURE_ORDER.compare(train, node.train);
+    if (order == 0) {
+      return new Node(train, node.left, node.right);
+    }
+    if (order < 0) {
+      Node left = put(node.left, train);
+      if (left.priority > node.priority) {
+        return new Node(left.train, left.left, new Node(node.train, left.right, node.right));
+      }
+      return new Node(node.train, left, node.right);
+    }
+    Node right = put(node.right, train);
+    if (right.priority > node.priority) {
+      return new Node(right.train, new Node(node.train, node.left, right.left), right.right);
+    }
+    return new Node(node.train, node.left, right);
+  }
+
+  /**
+   * Returns a copy of the path from the node to the train departure, with the train departure
+   * removed. If the train departure is not in the subtree, the node itself is returned.
+   *
+   * @param node  The root of the subtree.
+   * @param train The train departure to remove.
+   * @return The new root of the subtree.
+   * @since 3.1.0
+   */
+  private static Node remove(Node node, TrainDeparture train) {
+    if (node == null) {
+      return null;
+    }
+    int order = TrainStation.DEPARTURE_ORDER.compare(train, node.train);
+    if (order < 0) {
+      Node left = remove(node.left, train);
+      return left == node.left ? node : new Node(node.train, left, node.right);
+    }
+    if (order > 0) {
+      Node right = remove(node.right, train);
+      return right == node.right ? node : new Node(node.train, node.left, right);
+    }
+    return merge(node.left, node.right);
+  }
+
+  /**
+   * Merges two subtrees, where every train departure in the first subtree comes before every train
+   * departure in the second subtree.
+   *
+   * @param first  The root of the first subtree.
+   * @param second The root of the second subtree.
+   * @return The root of the merged subtree.
+   * @since 3.1.0
+   */
+  private static Node merge(Node first, Node second) {
+    if (first == null) {
+      return second;
+    }
+    if (second == null) {
+      return first;
+    }
+    if (first.priority > second.priority) {
+      return new Node(first.train, first.left, merge(first.right, second));
+    }
+    return new Node(second.train, merge(first, second.left), second.right);
+  }
+
+  /**
+   * Creates the nodes of the subtree below the specified position of the sorted list, from the
+   * children found when the tree was built.
+   *
+   * @param sorted   The sorted train departures.
+   * @param left     The position of the left child of each position, or -1.
+   * @param right    The position of the right child of each position, or -1.
+   * @param position The position of the root of the subtree, or -1.
+   * @return The root of the subtree.
+   * @since 3.1.0
+   */
+  private static Node build(List<TrainDeparture> sorted, int[] left, int[] right, int position) {
+    if (position < 0) {
+      return null;
+    }
+    return new Node(sorted.get(position), build(sorted, left, right, left[position]),
+        build(sorted, left, right, right[position]));
+  }
+
+  /**
+   * Returns the priority of a node with the specified train number. The priority is a mix of the
+   * bits of the train number, so the same train number always gets the same priority, and the
+   * priorities of the train numbers look random.
+   *
+   * @param trainNumber The train number of the node.
+   * @return The priority of the node.
+   * @since 3.1.0
+   */
+  private static int priority(int trainNumber) {
+    int hash = trainNumber * 0x9E3779B9;
+    hash ^= hash >>> 15;
+    hash *= 0x85EBCA6B;
+    return hash ^ (hash >>> 13);
+  }
+
+  /**
+   * Returns the number of train departures in the subtree.
+   *
+   * @param node The root of the subtree.
+   * @return The number of train departures in the subtree.
+   * @since 3.1.0
+   */
+  private static int size(Node node) {
+    return node == null ? 0 : node.size;
+  }
+
+  /**
+   * A node in the tree, with the priority of its train number and the size of its subtree.
+   */
+  private static final class Node {
+
+    private final TrainDeparture train;
+    private final Node left;
+    private final Node right;
+    private final int priority;
+    private final int size;
+
+    private Node(TrainDeparture train, Node left, Node right) {
+      this.train = train;
+      this.left = left;
+      this.right = right;
+      this.priority = priority(train.getTrainNumber());
+      this.size = 1 + size(left) + size(right);
+    }
+  }
+
+  /**
+   * Iterates the nodes of a tree in order, keeping the path to the next node on a stack.
+   */
+  private static final class InOrderIterator implements Iterator<TrainDeparture> {
+
+    private final Deque<Node> path;
+
+    private InOrderIterator(Node root) {
+      this.path = new ArrayDeque<>();
+      pushLeft(root);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return !this.path.isEmpty();
+    }
+
+    @Override
+    public TrainDeparture next() {
+      if (this.path.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      Node node = this.path.pop();
+      pushLeft(node.right);
+      return node.train;
+    }
+
+    private void pushLeft(Node node) {
+      while (node != null) {
+        this.path.push(node);
+        node = node.left;
+      }
+    }
+  }
+}
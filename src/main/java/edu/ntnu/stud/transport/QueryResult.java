@@ -0,0 +1,121 @@
+package edu.ntnu.stud.transport;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+
+/**
+ * The QueryResult class holds the train departures found by a DepartureQuery, and the plan that was
+ * used to find them. The plan tells which index the candidates were taken from, how many candidates
+ * every usable index would have given, and which criteria were checked on the candidates. A slow
+ * query is one where even the best index gives many candidates, which the plan shows.
+ *
+ * @author Johan Fredrik Wilvang
+ * @version 3.1.0
+ * @since 3.1.0
+ */
+
+public final class QueryResult {
+
+  /**
+   * The indexes a query can take its candidates from, in the order they are preferred when they
+   * give the same number of candidates.
+   */
+  public enum Index {
+    /** The train number index, which gives at most one candidate. */
+    TRAIN_NUMBER,
+    /** The destination index. */
+    DESTINATION,
+    /** The line index. */
+    TRAIN_LINE,
+    /** The track index. */
+    TRACK,
+    /** The bitmap indexes of the destinations, train lines, tracks and delays, combined. */
+    BITMAP,
+    /** The train register, searched for a window of departure times. */
+    DEPARTURE_TIME,
+    /** The whole train register, when no criterion has an index. */
+    TRAIN_REGISTER
+  }
+
+  private final List<TrainDeparture> trains;
+  private final Index index;
+  private final Map<Index, Integer> candidates;
+  private final List<String> filters;
+
+  /**
+   * Creates object of class QueryResult.
+   *
+   * @param trains     The train departures that match the query.
+   * @param index      The index the candidates were taken from.
+   * @param candidates The number of candidates of every usable index.
+   * @param filters    The criteria checked on the candidates.
+   * @since 3.1.0
+   */
+  QueryResult(List<TrainDeparture> trains, Index index, Map<Index, Integer> candidates,
+      List<String> filters) {
+    this.trains = Collections.unmodifiableList(trains);
+    this.index = index;
+    this.candidates = Collections.unmodifiableMap(candidates);
+    this.filters = Collections.unmodifiableList(filters);
+  }
+
+  /**
+   * Returns the train departures that match the query, sorted by departure time.
+   *
+   * @return The train departures that match the query.
+   * @since 3.1.0
+   */
+  public List<TrainDeparture> getTrains() {
+    return this.trains;
+  }
+
+  /**
+   * Returns the index the candidates were taken from.
+   *
+   * @return The index the candidates were taken from.
+   * @since 3.1.0
+   */
+  public Index getIndex() {
+    return this.index;
+  }
+
+  /**
+   * Returns the number of candidates of every index that could answer a criterion of the query. The
+   * window of departure times is only counted until it is larger than the best other index, so its
+   * number can be lower than the size of the window.
+   *
+   * @return The number of candidates, mapped by index.
+   * @since 3.1.0
+   */
+  public Map<Index, Integer> getCandidates() {
+    return this.candidates;
+  }
+
+  /**
+   * Returns the criteria that were checked on every candidate.
+   *
+   * @return The criteria checked on the candidates.
+   * @since 3.1.0
+   */
+  public List<String> getFilters() {
+    return this.filters;
+  }
+
+  /**
+   * Returns the plan of the query, for example
+   * "DESTINATION 12 of {DESTINATION=12, TRAIN_LINE=40}, filter [delay > 5 min], 3 found".
+   *
+   * @return The plan of the query as a string.
+   * @since 3.1.0
+   */
+  @Override
+  public String toString() {
+    StringJoiner filters = new StringJoiner(", ", "[", "]");
+    this.filters.forEach(filters::add);
+    return this.index + " " + this.candidates.get(this.index) + " of " + this.candidates
+        + ", filter " + filters + ", " + this.trains.size() + " found";
+  }
+}
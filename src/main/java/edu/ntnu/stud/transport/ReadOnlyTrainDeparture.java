@@ -0,0 +1,102 @@
+package edu.ntnu.stud.transport;
+
+
+/**
+ * The ReadOnlyTrainDeparture class is a copy of a train departure that can not be changed. The
+ * snapshots of a train station hold their train departures as read-only copies, because a copy is
+ * shared by every snapshot that contains it, and the search methods of a train station return
+ * read-only copies, because the registered train departures are keys of its sorted structures.
+ * Every method that would change the train departure throws an UnsupportedOperationException. A
+ * changeable copy is made with the copy constructor of TrainDeparture.
+ *
+ * @author Johan Fredrik Wilvang
+ * @version 3.1.0
+ * @since 3.1.0
+ */
+
+final class ReadOnlyTrainDeparture extends TrainDeparture {
+
+  private static final String READ_ONLY = "A read-only train departure can not be changed.";
+
+  /**
+   * Creates a read-only copy of the specified train departure.
+   *
+   * @param train The train departure to copy.
+   * @since 3.1.0
+   */
+  ReadOnlyTrainDeparture(TrainDeparture train) {
+    super(train);
+  }
+
+  /**
+   * Throws an UnsupportedOperationException, because the train departure can not be changed.
+   *
+   * @param minutesDelay The specified number of minutes delayed.
+   * @throws UnsupportedOperationException Always.
+   * @since 3.1.0
+   */
+  @Override
+  public void setDelay(int minutesDelay) {
+    throw new UnsupportedOperationException(READ_ONLY);
+  }
+
+  /**
+   * Throws an UnsupportedOperationException, because the train departure can not be changed.
+   *
+   * @param departureTime The specified time of the departure.
+   * @throws UnsupportedOperationException Always.
+   * @since 3.1.0
+   */
+  @Override
+  public void setDepartureTime(String departureTime) {
+    throw new UnsupportedOperationException(READ_ONLY);
+  }
+
+  /**
+   * Throws an UnsupportedOperationException, because the train departure can not be changed.
+   *
+   * @param trainLine The new specified train line.
+   * @throws UnsupportedOperationException Always.
+   * @since 3.1.0
+   */
+  @Override
+  public void setTrainLine(String trainLine) {
+    throw new UnsupportedOperationException(READ_ONLY);
+  }
+
+  /**
+   * Throws an UnsupportedOperationException, because the train departure can not be changed.
+   *
+   * @param destination The new specified destination.
+   * @throws UnsupportedOperationException Always.
+   * @since 3.1.0
+   */
+  @Override
+  public void setDestination(String destination) {
+    throw new UnsupportedOperationException(READ_ONLY);
+  }
+
+  /**
+   * Throws an UnsupportedOperationException, because the train departure can not be changed.
+   *
+   * @param trainNumber The new specified train number.
+   * @throws UnsupportedOperationException Always.
+   * @since 3.1.0
+   */
+  @Override
+  public void setTrainNumber(int trainNumber) {
+    throw new UnsupportedOperationException(READ_ONLY);
+  }
+
+  /**
+   * Throws an UnsupportedOperationException, because the train departure can not be changed.
+   *
+   * @param trackNumber The new specified track number.
+   * @throws UnsupportedOperationException Always.
+   * @since 3.1.0
+   */
+  @Override
+  public void setTrackNumber(int trackNumber) {
+    throw new UnsupportedOperationException(READ_ONLY);
+  }
+}
@@ -0,0 +1,177 @@
+package edu.ntnu.stud.transport;
+
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+
+/**
+ * The RegisterSnapshot class is an immutable, versioned copy of the train register of a train
+ * station, together with the time displayed on the station clock when the snapshot was taken. The
+ * train station publishes a new snapshot after every change, and a reader such as a display board
+ * gets the current snapshot without taking any lock. A snapshot never changes after it has been
+ * published, so it can be iterated while the train station is changed. The train departures in a
+ * snapshot are read-only copies, shared with the other snapshots that contain them, and changing
+ * one throws an UnsupportedOperationException. A reader that needs to change a train departure
+ * makes its own copy with the copy constructor of TrainDeparture.
+ *
+ * @author Johan Fredrik Wilvang
+ * @version 3.1.0
+ * @since 3.1.0
+ */
+
+public final class RegisterSnapshot implements Iterable<TrainDeparture> {
+
+  private final long version;
+  private final LocalTime stationClock;
+  private final PersistentDepartureTree trains;
+
+  /**
+   * Creates object of class RegisterSnapshot.
+   *
+   * @param version      The version of the snapshot.
+   * @param stationClock The time displayed on the station clock.
+   * @param trains       The train departures of the train register.
+   * @since 3.1.0
+   */
+  RegisterSnapshot(long version, LocalTime stationClock, PersistentDepartureTree trains) {
+    this.version = version;
+    this.stationClock = stationClock;
+    this.trains = trains;
+  }
+
+  /**
+   * Returns the version of the snapshot. A snapshot published later by the same train station has
+   * a higher version.
+   *
+   * @return The version of the snapshot.
+   * @since 3.1.0
+   */
+  public long getVersion() {
+    return this.version;
+  }
+
+  /**
+   * Returns the time displayed on the station clock when the snapshot was taken.
+   *
+   * @return The time displayed on the station clock.
+   * @since 3.1.0
+   */
+  public LocalTime getStationClock() {
+    return this.stationClock;
+  }
+
+  /**
+   * Returns the number of train departures in the snapshot.
+   *
+   * @return The number of train departures in the snapshot.
+   * @since 3.1.0
+   */
+  public int size() {
+    return this.trains.size();
+  }
+
+  /**
+   * Returns an iterator of the train departures in the snapshot, sorted by departure time, then
+   * train number.
+   *
+   * @return An iterator of the train departures in the snapshot.
+   * @since 3.1.0
+   */
+  @Override
+  public Iterator<TrainDeparture> iterator() {
+    return this.trains.iterator();
+  }
+
+  /**
+   * Returns a spliterator of the train departures in the snapshot. The spliterator knows its exact
+   * size, and reports that the train departures are distinct, non-null and sorted by departure
+   * time and train number. Neither the snapshot nor its train departures can be changed, so the
+   * spliterator is immutable.
+   *
+   * @return A spliterator of the train departures in the snapshot.
+   * @since 3.1.0
+   */
+  @Override
+  public Spliterator<TrainDeparture> spliterator() {
+    return new SnapshotSpliterator(this.trains);
+  }
+
+  /**
+   * Returns a sequential stream of the train departures in the snapshot, sorted by departure time.
+   * The stream is lazy, so an existence check, a first match or a limit only walks the train
+   * departures it needs.
+   *
+   * @return A stream of the train departures in the snapshot.
+   * @since 3.1.0
+   */
+  public Stream<TrainDeparture> stream() {
+    return StreamSupport.stream(spliterator(), false);
+  }
+
+  /**
+   * Returns the train departures of the snapshot.
+   *
+   * @return The train departures of the snapshot.
+   * @since 3.1.0
+   */
+  PersistentDepartureTree getTrains() {
+    return this.trains;
+  }
+
+  /**
+   * A spliterator walking the tree of a snapshot in order. The tree is small enough to be walked
+   * by one thread, so the spliterator is never split.
+   */
+  private static final class SnapshotSpliterator implements Spliterator<TrainDeparture> {
+
+    private final Iterator<TrainDeparture> trains;
+    private long remaining;
+
+    private SnapshotSpliterator(PersistentDepartureTree trains) {
+      this.trains = trains.iterator();
+      this.remaining = trains.size();
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super TrainDeparture> action) {
+      if (this.remaining == 0) {
+        return false;
+      }
+      this.remaining--;
+      action.accept(this.trains.next());
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super TrainDeparture> action) {
+      this.remaining = 0;
+      this.trains.forEachRemaining(action);
+    }
+
+    @Override
+    public Spliterator<TrainDeparture> trySplit() {
+      return null;
+    }
+
+    @Override
+    public long estimateSize() {
+      return this.remaining;
+    }
+
+    @Override
+    public int characteristics() {
+      return Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.SIZED
+          | Spliterator.NONNULL | Spliterator.IMMUTABLE;
+    }
+
+    @Override
+    public Comparator<? super TrainDeparture> getComparator() {
+      return TrainStation.DEPARTURE_ORDER;
+    }
+  }
+}
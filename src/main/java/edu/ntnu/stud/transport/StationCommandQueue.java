@@ -0,0 +1,419 @@
+package edu.ntnu.stud.transport;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+
+/**
+ * The StationCommandQueue class serializes all changes to a train station through one writer
+ * thread, so the train station can be changed from many threads without any locks. A change is a
+ * command, which is written into a preallocated ring buffer by the thread that makes the change.
+ * The writer thread takes the commands from the ring buffer in batches and applies them to the
+ * train station in the order they were queued. The futures returned for the commands are completed
+ * in the same order by a completer thread, not by the writer thread, so a callback on a future can
+ * queue new commands, or wait for the ring buffer to free a slot, without stopping the writer
+ * thread. A callback must not wait for the future of a command queued after its own, because that
+ * future is completed by the same completer thread. A future is completed exceptionally if its
+ * command throws anything, including an error, and the writer thread goes on with the next command.
+ *
+ * <p>The ring buffer is a bounded multi-producer queue: each slot has a sequence number, and a
+ * producer claims a slot by moving the shared tail with a compare-and-set, fills the slot, and
+ * then publishes it by advancing its sequence number. When the ring buffer is full, the producer
+ * waits for the writer thread to free a slot. The writer thread is the only consumer, so it reads
+ * the slots in order without any atomic operations of its own, and parks when the ring buffer is
+ * empty. The train station must only be changed through the queue while the queue is running, and
+ * other threads should read it through its snapshots.
+ *
+ * @author Johan Fredrik Wilvang
+ * @version 3.1.0
+ * @since 3.1.0
+ */
+
+public final class StationCommandQueue implements AutoCloseable {
+
+  private static final int SPINS_BEFORE_PARKING = 100;
+
+  private final TrainStation station;
+  private final Slot[] slots;
+  private final AtomicLongArray sequences;
+  private final int mask;
+  private final AtomicLong tail;
+  private final Thread writer;
+  private final ExecutorService completer;
+  private volatile Thread completerThread;
+  private final CompletableFuture<?>[] batchFutures;
+  private final Throwable[] batchFailures;
+  private long head;
+  private volatile boolean waiting;
+  private volatile boolean running;
+
+  /**
+   * Creates object of class StationCommandQueue, and starts the writer thread. The capacity of the
+   * ring buffer is rounded up to a power of two.
+   *
+   * @param station  The train station changed by the commands.
+   * @param capacity The number of commands the ring buffer can hold.
+   * @since 3.1.0
+   */
+  public StationCommandQueue(TrainStation station, int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The capacity must be positive.");
+    }
+    int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1);
+    this.station = station;
+    this.slots = new Slot[size];
+    this.sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      this.slots[i] = new Slot();
+      this.sequences.set(i, i);
+    }
+    this.mask = size - 1;
+    this.tail = new AtomicLong();
+    this.batchFutures = new CompletableFuture<?>[size];
+    this.batchFailures = new Throwable[size];
+    this.head = 0;
+    this.running = true;
+    this.completer = Executors.newSingleThreadExecutor(task -> {
+      Thread thread = new Thread(task, "station-completer");
+      thread.setDaemon(true);
+      this.completerThread = thread;
+      return thread;
+    });
+    this.writer = new Thread(this::runWriter, "station-writer");
+    this.writer.setDaemon(true);
+    this.writer.start();
+  }
+
+  /**
+   * Returns the train station changed by the commands.
+   *
+   * @return The train station.
+   * @since 3.1.0
+   */
+  public TrainStation getStation() {
+    return this.station;
+  }
+
+  /**
+   * Queues a new train departure to be added to the train station.
+   *
+   * @param departureTime The departure time of the train departure.
+   * @param trainNumber   The train number of the train departure.
+   * @param destination   The destination of the train departure.
+   * @param trainLine     The train line of the train departure.
+   * @return A future completed when the command has been applied.
+   * @since 3.1.0
+   */
+  public CompletableFuture<Void> addTrainDeparture(String departureTime, int trainNumber,
+      String destination, String trainLine) {
+    return enqueue(Command.ADD, trainNumber, 0, departureTime, destination, trainLine, null);
+  }
+
+  /**
+   * Queues the removal of the train departure with the specified train number.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @return A future completed when the command has been applied.
+   * @since 3.1.0
+   */
+  public CompletableFuture<Void> removeTrainDeparture(int trainNumber) {
+    return enqueue(Command.REMOVE, trainNumber, 0, null, null, null, null);
+  }
+
+  /**
+   * Queues a new delay for the train departure with the specified train number.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @param newDelay    The specified amount of minutes delayed.
+   * @return A future completed when the command has been applied.
+   * @since 3.1.0
+   */
+  public CompletableFuture<Void> setNewDelay(int trainNumber, int newDelay) {
+    return enqueue(Command.DELAY, trainNumber, newDelay, null, null, null, null);
+  }
+
+  /**
+   * Queues a new track for the train departure with the specified train number.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @param trackNumber The new specified track number.
+   * @return A future completed when the command has been applied.
+   * @since 3.1.0
+   */
+  public CompletableFuture<Void> setNewTrackNumber(int trainNumber, int trackNumber) {
+    return enqueue(Command.TRACK, trainNumber, trackNumber, null, null, null, null);
+  }
+
+  /**
+   * Queues a new time for the station clock.
+   *
+   * @param time The time displayed on the station clock.
+   * @return A future completed when the command has been applied.
+   * @since 3.1.0
+   */
+  public CompletableFuture<Void> setStationClock(String time) {
+    return enqueue(Command.CLOCK, 0, 0, time, null, null, null);
+  }
+
+  /**
+   * Queues a change to the train station that has no command of its own. The change is applied by
+   * the writer thread like any other command.
+   *
+   * @param change The change to apply to the train station.
+   * @return A future completed when the change has been applied.
+   * @since 3.1.0
+   */
+  CompletableFuture<Void> submit(Consumer<TrainStation> change) {
+    return enqueue(Command.CHANGE, 0, 0, null, null, null, change);
+  }
+
+  /**
+   * Stops the queue. The commands already queued are applied before the writer thread stops, and
+   * no more commands can be queued. The method returns when the futures of the applied commands
+   * are completed, unless it is called from a callback on one of the futures.
+   *
+   * @since 3.1.0
+   */
+  @Override
+  public void close() {
+    this.running = false;
+    LockSupport.unpark(this.writer);
+    try {
+      this.writer.join();
+      this.completer.shutdown();
+      if (Thread.currentThread() != this.completerThread) {
+        this.completer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Claims a slot in the ring buffer, fills it with the command and publishes it to the writer
+   * thread. If the ring buffer is full, the method waits until the writer thread frees a slot.
+   *
+   * @param command     The command to queue.
+   * @param trainNumber The train number the command applies to.
+   * @param value       The delay or track number of the command.
+   * @param text        The departure time or station clock of the command.
+   * @param destination The destination of a new train departure.
+   * @param trainLine   The train line of a new train departure.
+   * @param change      The change applied by a command without a command of its own.
+   * @return A future completed when the command has been applied.
+   * @throws IllegalStateException If the queue has been closed.
+   * @since 3.1.0
+   */
+  private CompletableFuture<Void> enqueue(Command command, int trainNumber, int value,
+      String text, String destination, String trainLine, Consumer<TrainStation> change) {
+    CompletableFuture<Void> completion = new CompletableFuture<>();
+    long position;
+    int spins = 0;
+    while (true) {
+      if (!this.running) {
+        throw new IllegalStateException("The command queue has been closed.");
+      }
+      position = this.tail.get();
+      long difference = this.sequences.get((int) position & this.mask) - position;
+      if (difference == 0) {
+        if (this.tail.compareAndSet(position, position + 1)) {
+          break;
+        }
+      } else if (difference < 0) {
+        if (++spins < SPINS_BEFORE_PARKING) {
+          Thread.onSpinWait();
+        } else {
+          Thread.yield();
+        }
+      }
+    }
+    int index = (int) position & this.mask;
+    Slot slot = this.slots[index];
+    slot.command = command;
+    slot.trainNumber = trainNumber;
+    slot.value = value;
+    slot.text = text;
+    slot.destination = destination;
+    slot.trainLine = trainLine;
+    slot.change = change;
+    slot.completion = completion;
+    this.sequences.set(index, position + 1);
+    if (this.waiting) {
+      LockSupport.unpark(this.writer);
+    }
+    if (!this.running) {
+      rejectIfNotApplied(position, completion);
+    }
+    return completion;
+  }
+
+  /**
+   * Completes the future exceptionally if the queue was closed before the writer thread reached the
+   * command at the specified position. The method waits for the writer thread to stop, so the
+   * position the writer thread stopped at is known.
+   *
+   * @param position   The position of the command in the ring buffer.
+   * @param completion The future of the command.
+   * @since 3.1.0
+   */
+  private void rejectIfNotApplied(long position, CompletableFuture<Void> completion) {
+    try {
+      this.writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return;
+    }
+    if (this.head <= position) {
+      completion.completeExceptionally(
+          new IllegalStateException("The command queue has been closed."));
+    }
+  }
+
+  /**
+   * Runs the writer thread. The writer thread applies the published commands in batches, and parks
+   * when there are no commands. It stops when the queue is closed and every command is applied.
+   *
+   * @since 3.1.0
+   */
+  private void runWriter() {
+    int idleSpins = 0;
+    while (true) {
+      int applied = applyBatch();
+      if (applied > 0) {
+        idleSpins = 0;
+      } else if (!this.running && this.tail.get() == this.head) {
+        return;
+      } else if (++idleSpins < SPINS_BEFORE_PARKING) {
+        Thread.onSpinWait();
+      } else {
+        this.waiting = true;
+        if (!isPublished(this.head) && this.running) {
+          LockSupport.park(this);
+        }
+        this.waiting = false;
+      }
+    }
+  }
+
+  /**
+   * Applies every command that has been published, up to the capacity of the ring buffer, and then
+   * hands their futures to the completer thread. The writer thread never runs the callbacks of the
+   * futures, so a callback that waits for a free slot in the ring buffer can not stop it.
+   *
+   * @return The number of commands applied.
+   * @since 3.1.0
+   */
+  private int applyBatch() {
+    int count = 0;
+    while (count < this.slots.length && isPublished(this.head)) {
+      int index = (int) this.head & this.mask;
+      Slot slot = this.slots[index];
+      this.batchFutures[count] = slot.completion;
+      this.batchFailures[count] = apply(slot);
+      slot.clear();
+      this.sequences.set(index, this.head + this.slots.length);
+      this.head++;
+      count++;
+    }
+    if (count > 0) {
+      CompletableFuture<?>[] futures = Arrays.copyOf(this.batchFutures, count);
+      Throwable[] failures = Arrays.copyOf(this.batchFailures, count);
+      Arrays.fill(this.batchFutures, 0, count, null);
+      Arrays.fill(this.batchFailures, 0, count, null);
+      this.completer.execute(() -> complete(futures, failures));
+    }
+    return count;
+  }
+
+  /**
+   * Completes the futures of a batch in the order the commands were applied. A future whose command
+   * failed is completed exceptionally with the failure.
+   *
+   * @param futures  The futures of the commands.
+   * @param failures The failure of each command, or <code>null</code> if it succeeded.
+   * @since 3.1.0
+   */
+  private static void complete(CompletableFuture<?>[] futures, Throwable[] failures) {
+    for (int i = 0; i < futures.length; i++) {
+      if (failures[i] == null) {
+        futures[i].complete(null);
+      } else {
+        futures[i].completeExceptionally(failures[i]);
+      }
+    }
+  }
+
+  /**
+   * Returns <code>true</code> if the slot at the specified position has been published.
+   *
+   * @param position The position in the ring buffer.
+   * @return <code>true</code> if the slot has been published, <code>false</code> otherwise.
+   * @since 3.1.0
+   */
+  private boolean isPublished(long position) {
+    return this.sequences.get((int) position & this.mask) == position + 1;
+  }
+
+  /**
+   * Applies the command in the slot to the train station. Anything thrown by the command, including
+   * an error, is caught and returned, so the writer thread keeps applying the next commands.
+   *
+   * @param slot The slot holding the command.
+   * @return The throwable thrown by the command, or <code>null</code> if it succeeded.
+   * @since 3.1.0
+   */
+  private Throwable apply(Slot slot) {
+    try {
+      switch (slot.command) {
+        case ADD -> this.station.addTrainDeparture(slot.text, slot.trainNumber, slot.destination,
+            slot.trainLine);
+        case REMOVE -> this.station.removeTrainDeparture(slot.trainNumber);
+        case DELAY -> this.station.setNewDelay(slot.trainNumber, slot.value);
+        case TRACK -> this.station.setNewTrackNumber(slot.trainNumber, slot.value);
+        case CLOCK -> this.station.setStationClock(slot.text);
+        case CHANGE -> slot.change.accept(this.station);
+        default -> throw new IllegalStateException("Unknown command " + slot.command);
+      }
+      return null;
+    } catch (Throwable failure) {
+      return failure;
+    }
+  }
+
+  /**
+   * The commands that can be queued.
+   */
+  private enum Command {
+    ADD, REMOVE, DELAY, TRACK, CLOCK, CHANGE
+  }
+
+  /**
+   * A slot in the ring buffer. The slots are created once and reused for every command.
+   */
+  private static final class Slot {
+
+    private Command command;
+    private int trainNumber;
+    private int value;
+    private String text;
+    private String destination;
+    private String trainLine;
+    private Consumer<TrainStation> change;
+    private CompletableFuture<Void> completion;
+
+    private void clear() {
+      this.text = null;
+      this.destination = null;
+      this.trainLine = null;
+      this.change = null;
+      this.completion = null;
+    }
+  }
+}
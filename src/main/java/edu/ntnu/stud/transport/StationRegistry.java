@@ -0,0 +1,262 @@
+package edu.ntnu.stud.transport;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+
+/**
+ * The StationRegistry class manages the named train stations of a regional network. The train
+ * stations are partitioned into shards by their name, and every shard is owned by one worker
+ * thread. A train station is only ever used by the worker thread of its shard, so the train
+ * stations need no locks, and operations on train stations in different shards run in parallel.
+ * Every operation is queued to the worker thread of the shard and returns a future. A query over
+ * the whole network is sent to every shard, and the results of the shards are merged when they are
+ * all done. The train departures returned by the registry are copies, so they can be read on any
+ * thread. All the train stations share one TrainNumberIndex, so a train number is only used once
+ * in the whole network.
+ *
+ * @author Johan Fredrik Wilvang
+ * @version 3.1.0
+ * @since 3.1.0
+ */
+
+public final class StationRegistry implements AutoCloseable {
+
+  private final ExecutorService[] workers;
+  private final List<Map<String, TrainStation>> shards;
+  private final TrainNumberIndex trainNumberIndex;
+
+  /**
+   * Creates object of class StationRegistry with one shard for each available processor.
+   *
+   * @since 3.1.0
+   */
+  public StationRegistry() {
+    this(Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * Creates object of class StationRegistry with the specified number of shards.
+   *
+   * @param numberOfShards The number of shards and worker threads.
+   * @since 3.1.0
+   */
+  public StationRegistry(int numberOfShards) {
+    if (numberOfShards <= 0) {
+      throw new IllegalArgumentException("The number of shards must be positive.");
+    }
+    this.trainNumberIndex = new TrainNumberIndex();
+    this.workers = new ExecutorService[numberOfShards];
+    this.shards = new ArrayList<>(numberOfShards);
+    for (int shard = 0; shard < numberOfShards; shard++) {
+      String threadName = "station-shard-" + shard;
+      this.workers[shard] = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, threadName);
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.shards.add(new HashMap<>());
+    }
+  }
+
+  /**
+   * Returns the number of shards.
+   *
+   * @return The number of shards.
+   * @since 3.1.0
+   */
+  public int getNumberOfShards() {
+    return this.workers.length;
+  }
+
+  /**
+   * Returns the train numbers used in the network.
+   *
+   * @return The train numbers used in the network.
+   * @since 3.1.0
+   */
+  public TrainNumberIndex getTrainNumberIndex() {
+    return this.trainNumberIndex;
+  }
+
+  /**
+   * Adds a new, empty train station with the specified name. The future is completed with
+   * <code>false</code> if a train station with the name already exists.
+   *
+   * @param name The name of the train station.
+   * @return A future completed with <code>true</code> if the train station was added.
+   * @since 3.1.0
+   */
+  public CompletableFuture<Boolean> addStation(String name) {
+    int shard = shardOf(name);
+    return CompletableFuture.supplyAsync(() -> this.shards.get(shard)
+        .putIfAbsent(name, new TrainStation(this.trainNumberIndex)) == null, this.workers[shard]);
+  }
+
+  /**
+   * Removes the train station with the specified name, and releases its train numbers. The future
+   * is completed with <code>false</code> if there is no train station with the name.
+   *
+   * @param name The name of the train station.
+   * @return A future completed with <code>true</code> if the train station was removed.
+   * @since 3.1.0
+   */
+  public CompletableFuture<Boolean> removeStation(String name) {
+    int shard = shardOf(name);
+    return CompletableFuture.supplyAsync(() -> {
+      TrainStation station = this.shards.get(shard).remove(name);
+      if (station == null) {
+        return false;
+      }
+      station.emptyTrainRegister();
+      return true;
+    }, this.workers[shard]);
+  }
+
+  /**
+   * Runs the operation on the train station with the specified name, on the worker thread of its
+   * shard. The operation must not keep the train station or its train departures after it returns.
+   * If there is no train station with the name, the future is completed exceptionally with an
+   * IllegalArgumentException.
+   *
+   * @param name      The name of the train station.
+   * @param operation The operation to run on the train station.
+   * @param <T>       The type of the result of the operation.
+   * @return A future completed with the result of the operation.
+   * @since 3.1.0
+   */
+  public <T> CompletableFuture<T> submit(String name, Function<TrainStation, T> operation) {
+    int shard = shardOf(name);
+    return CompletableFuture.supplyAsync(() -> {
+      TrainStation station = this.shards.get(shard).get(name);
+      if (station == null) {
+        throw new IllegalArgumentException("There is no train station named " + name + ".");
+      }
+      return operation.apply(station);
+    }, this.workers[shard]);
+  }
+
+  /**
+   * Returns the number of train stations in the network.
+   *
+   * @return A future completed with the number of train stations.
+   * @since 3.1.0
+   */
+  public CompletableFuture<Integer> getNumberOfStations() {
+    return forEachShard(Map::size, 0, Integer::sum);
+  }
+
+  /**
+   * Sets the station clock of every train station in the network. A train station with a station
+   * clock after the specified time keeps its station clock.
+   *
+   * @param time The time displayed on the station clocks.
+   * @return A future completed when every station clock has been set.
+   * @since 3.1.0
+   */
+  public CompletableFuture<Void> setNetworkClock(String time) {
+    LocalTime.parse(time);
+    return forEachShard(stations -> {
+      for (TrainStation station : stations.values()) {
+        station.setStationClock(time);
+      }
+      return null;
+    }, null, (first, second) -> null);
+  }
+
+  /**
+   * Search the whole network for the train departures headed to the specified destination, ignoring
+   * case, that depart within the specified number of minutes after the station clock of their
+   * train station. The real departure time is used, so a delayed train departure is found by when
+   * it will actually depart. Each train station looks up the window of its remaining train
+   * departures from its station clock, so a shard does not copy or filter every train departure
+   * headed to the destination. The result maps the name of each train station with such train
+   * departures to copies of the train departures, sorted by departure time. The train stations are
+   * sorted by name.
+   *
+   * @param destination The destination of the train departures.
+   * @param minutes     The number of minutes after the station clock.
+   * @return A future completed with the train departures of each train station.
+   * @since 3.1.0
+   */
+  public CompletableFuture<Map<String, List<TrainDeparture>>> searchNetworkByDestination(
+      String destination, int minutes) {
+    return forEachShard(stations -> {
+      Map<String, List<TrainDeparture>> found = new TreeMap<>();
+      for (Map.Entry<String, TrainStation> entry : stations.entrySet()) {
+        List<TrainDeparture> trains = new ArrayList<>();
+        Iterator<TrainDeparture> iterator =
+            entry.getValue().searchDeparturesWithin(destination, minutes);
+        while (iterator.hasNext()) {
+          trains.add(new TrainDeparture(iterator.next()));
+        }
+        if (!trains.isEmpty()) {
+          trains.sort(TrainStation.DEPARTURE_ORDER);
+          found.put(entry.getKey(), trains);
+        }
+      }
+      return found;
+    }, new TreeMap<>(), (merged, found) -> {
+      merged.putAll(found);
+      return merged;
+    });
+  }
+
+  /**
+   * Stops the worker threads. The operations already queued are run before the worker threads
+   * stop.
+   *
+   * @since 3.1.0
+   */
+  @Override
+  public void close() {
+    for (ExecutorService worker : this.workers) {
+      worker.shutdown();
+    }
+  }
+
+  /**
+   * Runs the operation on the train stations of every shard, each on the worker thread of its
+   * shard, and merges the results in the order of the shards.
+   *
+   * @param operation The operation to run on the train stations of a shard.
+   * @param identity  The result when there are no shards.
+   * @param merger    The function that merges the results of two shards.
+   * @param <T>       The type of the result.
+   * @return A future completed with the merged result.
+   * @since 3.1.0
+   */
+  private <T> CompletableFuture<T> forEachShard(Function<Map<String, TrainStation>, T> operation,
+      T identity, BinaryOperator<T> merger) {
+    CompletableFuture<T> result = CompletableFuture.completedFuture(identity);
+    for (int shard = 0; shard < this.workers.length; shard++) {
+      Map<String, TrainStation> stations = this.shards.get(shard);
+      CompletableFuture<T> partial =
+          CompletableFuture.supplyAsync(() -> operation.apply(stations), this.workers[shard]);
+      result = result.thenCombine(partial, merger);
+    }
+    return result;
+  }
+
+  /**
+   * Returns the shard of the train station with the specified name.
+   *
+   * @param name The name of the train station.
+   * @return The index of the shard.
+   * @since 3.1.0
+   */
+  private int shardOf(String name) {
+    int hash = name.hashCode() * 0x9E3779B9;
+    return Math.floorMod(hash ^ (hash >>> 16), this.workers.length);
+  }
+}
@@ -0,0 +1,154 @@
+package edu.ntnu.stud.transport;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+
+/**
+ * The SymbolTable class stores each distinct value, such as a destination or a train line, only
+ * once, and gives every value a small integer id. Only the normalized values are kept, so the
+ * symbol table grows with the number of distinct values and not with the spellings it is asked
+ * about. Looking up a value that is already normalized does not create any new strings. Two values
+ * with the same normalized form get the same id, which means that comparing the ids is the same as
+ * comparing the normalized values. The symbol table can be shared by all the train stations, and is
+ * safe to use from multiple threads. Looking up a known value does not block.
+ *
+ * @author Johan Fredrik Wilvang
+ * @version 3.1.0
+ * @since 3.1.0
+ */
+
+public final class SymbolTable {
+
+  /**
+   * The destinations of the train departures. A destination is normalized so that the first letter
+   * is capitalized and the rest of the letters are lower case. The value "INVALID", used for a
+   * missing destination, is kept as it is, and a destination spelled "invalid" in any case gets the
+   * same id, just as the destinations were compared ignoring case before they had ids.
+   */
+  public static final SymbolTable DESTINATIONS = new SymbolTable(
+      destination -> destination.toUpperCase().charAt(0) + destination.toLowerCase().substring(1),
+      "INVALID");
+
+  /**
+   * The train lines of the train departures. A train line is normalized to upper case.
+   */
+  public static final SymbolTable TRAIN_LINES = new SymbolTable(String::toUpperCase, "INVALID");
+
+  /**
+   * The id returned when a value is not in the symbol table.
+   */
+  public static final int UNKNOWN = -1;
+
+  private final UnaryOperator<String> normalizer;
+  private final Map<String, Integer> ids;
+  private volatile String[] values;
+  private int size;
+
+  /**
+   * Creates object of class SymbolTable. The values are normalized with the specified normalizer.
+   * The reserved values are added to the symbol table as they are, without being normalized, and
+   * their normalized forms are given the same ids.
+   *
+   * @param normalizer The function used to normalize new values.
+   * @param reserved   The values added to the symbol table without being normalized.
+   * @since 3.1.0
+   */
+  public SymbolTable(UnaryOperator<String> normalizer, String... reserved) {
+    this.normalizer = normalizer;
+    this.ids = new ConcurrentHashMap<>();
+    this.values = new String[Math.max(16, reserved.length)];
+    this.size = 0;
+    for (String value : reserved) {
+      this.values[this.size] = value;
+      this.ids.put(value, this.size);
+      this.ids.putIfAbsent(normalizer.apply(value), this.size);
+      this.size++;
+    }
+  }
+
+  /**
+   * Returns the id of the value, and adds the value to the symbol table if it is not already there.
+   * A value that is not already normalized is normalized before it is looked up.
+   *
+   * @param value The value to look up.
+   * @return The id of the value.
+   * @since 3.1.0
+   */
+  public int idOf(String value) {
+    Integer id = this.ids.get(value);
+    if (id != null) {
+      return id;
+    }
+    String normalized = this.normalizer.apply(value);
+    id = this.ids.get(normalized);
+    if (id != null) {
+      return id;
+    }
+    return intern(normalized);
+  }
+
+  /**
+   * Returns the id of the value, or UNKNOWN if the value is not in the symbol table. Unlike
+   * idOf(String), the method never adds the value to the symbol table.
+   *
+   * @param value The value to look up.
+   * @return The id of the value, or UNKNOWN.
+   * @since 3.1.0
+   */
+  public int find(String value) {
+    if (value == null || value.isEmpty()) {
+      return UNKNOWN;
+    }
+    Integer id = this.ids.get(value);
+    if (id == null) {
+      id = this.ids.get(this.normalizer.apply(value));
+    }
+    return id != null ? id : UNKNOWN;
+  }
+
+  /**
+   * Returns the normalized value with the specified id.
+   *
+   * @param id The id of the value.
+   * @return The normalized value.
+   * @since 3.1.0
+   */
+  public String valueOf(int id) {
+    return this.values[id];
+  }
+
+  /**
+   * Returns the number of distinct values in the symbol table.
+   *
+   * @return The number of distinct values.
+   * @since 3.1.0
+   */
+  public synchronized int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the id of the normalized value, adding it to the symbol table if it is new. Only the
+   * normalized value is stored, never the spelling it was normalized from.
+   *
+   * @param normalized The normalized value to add.
+   * @return The id of the value.
+   * @since 3.1.0
+   */
+  private synchronized int intern(String normalized) {
+    Integer id = this.ids.get(normalized);
+    if (id == null) {
+      if (this.size == this.values.length) {
+        this.values = Arrays.copyOf(this.values, this.size * 2);
+      }
+      id = this.size;
+      this.values[id] = normalized;
+      this.size++;
+      this.ids.put(normalized, id);
+    }
+    return id;
+  }
+}
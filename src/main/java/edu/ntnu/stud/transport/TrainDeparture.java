@@ -8,8 +8,11 @@ import java.time.format.DateTimeFormatter;
  * The TrainDeparture class represent a train departure from a train station. The train departure
  * contains information about the train's departure time, delay, destination, train line, train
  * number and track number. The train departure time is represented as a digital clock. The train
- * departure time and delay is an object form the LocalTime class. The real departure time is
- * incremented in proportion to the delay.
+ * departure time is an object form the LocalTime class. The delay and the real departure time are
+ * kept as whole minutes, and are only turned into a digital clock or a string when they are
+ * displayed. The real departure time is incremented in proportion to the delay. The destination
+ * and train line are stored as ids in the shared symbol tables, so each distinct destination and
+ * train line is only stored once.
  *
  * @author Johan Fredrik Wilvang
  * @version 3.0.5
@@ -18,18 +21,22 @@ import java.time.format.DateTimeFormatter;
 
 public class TrainDeparture {
 
+  private static final int MINUTES_PER_DAY = 1440;
+
   private LocalTime departureTime;
+  private int departureMinutes;
   private int trainNumber;
-  private String trainLine;
-  private String destination;
-  private LocalTime delay;
+  private int trainLineId;
+  private int destinationId;
+  private int delayMinutes;
+  private int realDepartureMinutes;
   private int trackNumber;
 
   /**
    * Creates object of class TrainDeparture. The object contains information about the train's
    * departure time, delay, destination, train line, train number and track number. The departure
    * time, train number, train line and destination are required fields specified by the parameters.
-   * The delay and track number is initially set to 00:00 and -1.
+   * The delay and track number is initially set to 0 minutes and -1.
    *
    * @param departureTime The specified time of the departure.
    * @param trainNumber   The specified train number.
@@ -43,10 +50,74 @@ public class TrainDeparture {
     this.setTrainNumber(trainNumber);
     this.setTrainLine(trainLine);
     this.setDestination(destination);
-    this.delay = LocalTime.of(0, 0);
+    this.setDelay(0);
+    this.trackNumber = -1;
+  }
+
+  /**
+   * Creates a train departure that is only used to search sorted sets of train departures. The
+   * train departure departs at the specified minute of the day, and for real at the specified real
+   * minute. Unlike the public constructor, the train number is kept as it is, so -1 and
+   * Integer.MAX_VALUE can be used to sort before or after every other train number, and no time
+   * string is parsed.
+   *
+   * @param departureMinutes     The departure time in minutes after midnight, below 1440.
+   * @param realDepartureMinutes The real departure time in minutes after midnight.
+   * @param trainNumber          The train number.
+   * @since 3.1.0
+   */
+  TrainDeparture(int departureMinutes, int realDepartureMinutes, int trainNumber) {
+    this.departureTime = LocalTime.of(departureMinutes / 60, departureMinutes % 60);
+    this.departureMinutes = departureMinutes;
+    this.trainNumber = trainNumber;
+    this.trainLineId = SymbolTable.TRAIN_LINES.idOf("INVALID");
+    this.destinationId = SymbolTable.DESTINATIONS.idOf("INVALID");
+    this.delayMinutes = realDepartureMinutes - departureMinutes;
+    this.realDepartureMinutes = realDepartureMinutes;
     this.trackNumber = -1;
   }
 
+  /**
+   * Creates a train departure from information that is already checked and encoded, for example a
+   * row of a ColumnarDepartureStore. No time string is parsed and no symbol table is searched.
+   *
+   * @param departureMinutes The departure time in minutes after midnight, below 1440.
+   * @param trainNumber      The train number.
+   * @param trainLineId      The id of the train line in the shared symbol table.
+   * @param destinationId    The id of the destination in the shared symbol table.
+   * @param delayMinutes     The delay in minutes.
+   * @param trackNumber      The track number.
+   * @since 3.1.0
+   */
+  TrainDeparture(int departureMinutes, int trainNumber, int trainLineId, int destinationId,
+      int delayMinutes, int trackNumber) {
+    this.departureTime = LocalTime.of(departureMinutes / 60, departureMinutes % 60);
+    this.departureMinutes = departureMinutes;
+    this.setTrainNumber(trainNumber);
+    this.trainLineId = trainLineId;
+    this.destinationId = destinationId;
+    this.setDelay(delayMinutes);
+    this.setTrackNumber(trackNumber);
+  }
+
+  /**
+   * Creates a copy of the specified train departure. Changing the copy does not change the
+   * original train departure.
+   *
+   * @param train The train departure to copy.
+   * @since 3.1.0
+   */
+  public TrainDeparture(TrainDeparture train) {
+    this.departureTime = train.departureTime;
+    this.departureMinutes = train.departureMinutes;
+    this.trainNumber = train.trainNumber;
+    this.trainLineId = train.trainLineId;
+    this.destinationId = train.destinationId;
+    this.delayMinutes = train.delayMinutes;
+    this.realDepartureMinutes = train.realDepartureMinutes;
+    this.trackNumber = train.trackNumber;
+  }
+
   /**
    * Return the train's current delay as a string containing the hours and minutes delayed. If the
    * delay is less than one hour, the string only contains the minutes delayed.
@@ -55,11 +126,12 @@ public class TrainDeparture {
    * @since 2.4.0
    */
   public String getDelay() {
-    String delayTime = this.delay.getHour() + "h " + this.delay.getMinute() + "min";
-    if (this.delay.getHour() == 0) {
-      delayTime = this.delay.getMinute() + "min";
+    int hours = this.delayMinutes / 60;
+    int minutes = this.delayMinutes % 60;
+    if (hours == 0) {
+      return minutes + "min";
     }
-    return delayTime;
+    return hours + "h " + minutes + "min";
   }
 
   /**
@@ -69,7 +141,7 @@ public class TrainDeparture {
    * @since 2.2.0
    */
   public int getMinutesDelay() {
-    return this.delay.getMinute() + this.delay.getHour() * 60;
+    return this.delayMinutes;
   }
 
   /**
@@ -82,15 +154,37 @@ public class TrainDeparture {
     return this.departureTime;
   }
 
+  /**
+   * Return the train's departure time as minutes after midnight.
+   *
+   * @return The departure time in minutes after midnight.
+   * @since 3.1.0
+   */
+  public int getDepartureMinutes() {
+    return this.departureMinutes;
+  }
+
   /**
    * Return the train's real departure time. The real departure time is the planned departure time
-   * incremented with the delay.
+   * incremented with the delay. The digital clock is created when the method is called.
    *
    * @return The real departure time as a digital clock.
    * @since 2.1.0
    */
   public LocalTime getRealDepartureTime() {
-    return this.departureTime.plusMinutes(getMinutesDelay());
+    return LocalTime.ofSecondOfDay((this.realDepartureMinutes % MINUTES_PER_DAY) * 60L);
+  }
+
+  /**
+   * Return the train's real departure time as minutes after midnight. Unlike the real departure
+   * time, the minutes are not wrapped around midnight, so a train delayed into the next day
+   * departs after every train departing on this day.
+   *
+   * @return The real departure time in minutes after midnight.
+   * @since 3.1.0
+   */
+  public int getRealDepartureMinutes() {
+    return this.realDepartureMinutes;
   }
 
   /**
@@ -100,7 +194,17 @@ public class TrainDeparture {
    * @since 1.2.0
    */
   public String getTrainLine() {
-    return this.trainLine;
+    return SymbolTable.TRAIN_LINES.valueOf(this.trainLineId);
+  }
+
+  /**
+   * Return the id of the train line in the shared symbol table of train lines.
+   *
+   * @return The id of the train line.
+   * @since 3.1.0
+   */
+  public int getTrainLineId() {
+    return this.trainLineId;
   }
 
   /**
@@ -120,7 +224,18 @@ public class TrainDeparture {
    * @since 1.2.0
    */
   public String getDestination() {
-    return this.destination;
+    return SymbolTable.DESTINATIONS.valueOf(this.destinationId);
+  }
+
+  /**
+   * Return the id of the destination in the shared symbol table of destinations. Two train
+   * departures have the same destination, ignoring case, if they have the same destination id.
+   *
+   * @return The id of the destination.
+   * @since 3.1.0
+   */
+  public int getDestinationId() {
+    return this.destinationId;
   }
 
   /**
@@ -135,16 +250,27 @@ public class TrainDeparture {
 
   /**
    * Increment the train's delay with a specified number of minutes delayed. If the specified number
-   * of minutes delayed is less than or equal to zero, the delay is set to zero.
+   * of minutes delayed is less than or equal to zero, the delay is set to zero. A delay is less
+   * than a day, so whole days are left out of the delay.
    *
    * @param minutesDelay The specified number of minutes delayed.
    * @since 2.1.1
    */
   public void setDelay(int minutesDelay) {
-    this.delay = LocalTime.of(0, 0);
-    if (minutesDelay > 0) {
-      this.delay = this.delay.plusMinutes(minutesDelay);
-    }
+    this.delayMinutes = normalizeDelay(minutesDelay);
+    this.realDepartureMinutes = this.departureMinutes + this.delayMinutes;
+  }
+
+  /**
+   * Returns the delay a train departure gets for the specified number of minutes delayed. A
+   * negative number of minutes is no delay, and whole days are left out of the delay.
+   *
+   * @param minutesDelay The specified number of minutes delayed.
+   * @return The delay in minutes, from 0 to 1439.
+   * @since 3.1.0
+   */
+  static int normalizeDelay(int minutesDelay) {
+    return minutesDelay > 0 ? minutesDelay % MINUTES_PER_DAY : 0;
   }
 
   /**
@@ -162,37 +288,40 @@ public class TrainDeparture {
     } else {
       this.departureTime = LocalTime.of(0, 0);
     }
+    this.departureMinutes = this.departureTime.getHour() * 60 + this.departureTime.getMinute();
+    this.realDepartureMinutes = this.departureMinutes + this.delayMinutes;
   }
 
   /**
-   * Set train line to the new specified train line. If the specified train line is equal to
-   * <code>null</code>, the train line is set to "INVALID".
+   * Set train line to the new specified train line. The train line is converted to upper case by
+   * the symbol table. If the specified train line is equal to <code>null</code>, the train line is
+   * set to "INVALID".
    *
    * @param trainLine The new specified train line.
    * @since 1.2.0
    */
   public void setTrainLine(String trainLine) {
     if (trainLine != null) {
-      this.trainLine = trainLine.toUpperCase();
+      this.trainLineId = SymbolTable.TRAIN_LINES.idOf(trainLine);
     } else {
-      this.trainLine = "INVALID";
+      this.trainLineId = SymbolTable.TRAIN_LINES.idOf("INVALID");
     }
   }
 
   /**
-   * Set the train's destination to a new specified destination. The destination is formatted so
-   * that the first letter is capitalized and the rest of the letters are lower case. If the
-   * specified destination is equal to <code>null</code>, the destination is set to "INVALID".
+   * Set the train's destination to a new specified destination. The destination is formatted by
+   * the symbol table so that the first letter is capitalized and the rest of the letters are lower
+   * case. If the specified destination is equal to <code>null</code>, the destination is set to
+   * "INVALID".
    *
    * @param destination The new specified destination.
    * @since 2.1.1
    */
   public void setDestination(String destination) {
     if (destination != null) {
-      this.destination = destination.toUpperCase().charAt(0)
-          + destination.toLowerCase().substring(1);
+      this.destinationId = SymbolTable.DESTINATIONS.idOf(destination);
     } else {
-      this.destination = "INVALID";
+      this.destinationId = SymbolTable.DESTINATIONS.idOf("INVALID");
     }
   }
 
@@ -0,0 +1,261 @@
+package edu.ntnu.stud.transport;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * The TrainNumberIndex class keeps the train numbers used by all the train stations of a network,
+ * so a train number is only used once per day in the whole network. A train station claims a train
+ * number before it uses it, and releases the train number when the train departure is removed or
+ * renumbered. A claim is atomic, so two train stations can never claim the same train number, even
+ * from different threads. Each train number remembers the train station that claimed it, and only
+ * that train station can release it.
+ *
+ * <p>The index can have a Bloom filter in front of the claimed train numbers. The Bloom filter
+ * answers most questions about train numbers that have never been claimed without looking in the
+ * index. A train number that is released stays in the Bloom filter, so the Bloom filter can only
+ * give false positives, which are then answered by the index. Once as many train numbers have been
+ * released as the Bloom filter is sized for, it is rebuilt from the claimed train numbers, so a
+ * long-running network does not fill the Bloom filter with train numbers that are no longer used.
+ * While the Bloom filter is rebuilt, every question is answered by the index.
+ *
+ * @author Johan Fredrik Wilvang
+ * @version 3.1.0
+ * @since 3.1.0
+ */
+
+public final class TrainNumberIndex {
+
+  private static final int BITS_PER_TRAIN_NUMBER = 10;
+  private static final int HASHES = 3;
+
+  private final Map<Integer, Object> owners;
+  private final int bloomMask;
+  private final int releasesBeforeRebuild;
+  private final AtomicInteger releases;
+  private final AtomicInteger rebuilds;
+  private volatile AtomicLongArray bloomFilter;
+
+  /**
+   * Creates an empty object of class TrainNumberIndex without a Bloom filter.
+   *
+   * @since 3.1.0
+   */
+  public TrainNumberIndex() {
+    this.owners = new ConcurrentHashMap<>();
+    this.bloomMask = 0;
+    this.releasesBeforeRebuild = 0;
+    this.releases = new AtomicInteger();
+    this.rebuilds = new AtomicInteger();
+    this.bloomFilter = null;
+  }
+
+  /**
+   * Creates an empty object of class TrainNumberIndex with a Bloom filter sized for the expected
+   * number of train numbers in a day.
+   *
+   * @param expectedTrainNumbers The expected number of train numbers in a day.
+   * @since 3.1.0
+   */
+  public TrainNumberIndex(int expectedTrainNumbers) {
+    if (expectedTrainNumbers <= 0) {
+      throw new IllegalArgumentException("The expected number of train numbers must be above 0.");
+    }
+    long bits = Long.highestOneBit(
+        Math.max(64L, (long) expectedTrainNumbers * BITS_PER_TRAIN_NUMBER) * 2 - 1);
+    this.owners = new ConcurrentHashMap<>(expectedTrainNumbers);
+    this.bloomMask = (int) (bits - 1);
+    this.releasesBeforeRebuild = expectedTrainNumbers;
+    this.releases = new AtomicInteger();
+    this.rebuilds = new AtomicInteger();
+    this.bloomFilter = new AtomicLongArray((int) (bits / 64));
+  }
+
+  /**
+   * Returns <code>true</code> if the train number has been claimed by a train station.
+   *
+   * @param trainNumber The train number.
+   * @return <code>true</code> if the train number is claimed, <code>false</code> otherwise.
+   * @since 3.1.0
+   */
+  public boolean isClaimed(int trainNumber) {
+    int rebuild = this.rebuilds.get();
+    AtomicLongArray filter = this.bloomFilter;
+    if (filter != null && rebuild % 2 == 0 && !mightContain(filter, trainNumber)
+        && this.rebuilds.get() == rebuild) {
+      return false;
+    }
+    return this.owners.containsKey(trainNumber);
+  }
+
+  /**
+   * Claims the train number for the owner. The claim fails if the train number is already claimed,
+   * also if it is claimed by the same owner.
+   *
+   * @param trainNumber The train number to claim.
+   * @param owner       The train station claiming the train number.
+   * @return <code>true</code> if the train number was claimed, <code>false</code> otherwise.
+   * @since 3.1.0
+   */
+  public boolean claim(int trainNumber, Object owner) {
+    AtomicLongArray filter = this.bloomFilter;
+    if (filter != null) {
+      addToBloomFilter(filter, trainNumber);
+    }
+    boolean claimed = this.owners.putIfAbsent(trainNumber, owner) == null;
+    if (claimed && filter != null && filter != this.bloomFilter) {
+      addToBloomFilter(this.bloomFilter, trainNumber);
+    }
+    return claimed;
+  }
+
+  /**
+   * Releases the train number if it is claimed by the owner. The Bloom filter is rebuilt when as
+   * many train numbers have been released as it is sized for.
+   *
+   * @param trainNumber The train number to release.
+   * @param owner       The train station that claimed the train number.
+   * @return <code>true</code> if the train number was released, <code>false</code> otherwise.
+   * @since 3.1.0
+   */
+  public boolean release(int trainNumber, Object owner) {
+    boolean released = this.owners.remove(trainNumber, owner);
+    if (released && this.bloomFilter != null
+        && this.releases.incrementAndGet() >= this.releasesBeforeRebuild) {
+      rebuildBloomFilter();
+    }
+    return released;
+  }
+
+  /**
+   * Returns the number of claimed train numbers.
+   *
+   * @return The number of claimed train numbers.
+   * @since 3.1.0
+   */
+  public int size() {
+    return this.owners.size();
+  }
+
+  /**
+   * Releases every train number and empties the Bloom filter, for example upon a new day. The
+   * method must not be called while train numbers are being claimed.
+   *
+   * @since 3.1.0
+   */
+  public void clear() {
+    this.owners.clear();
+    this.releases.set(0);
+    AtomicLongArray filter = this.bloomFilter;
+    if (filter != null) {
+      for (int word = 0; word < filter.length(); word++) {
+        filter.set(word, 0L);
+      }
+    }
+  }
+
+  /**
+   * Returns the number of bits set in the Bloom filter, or 0 if the index has no Bloom filter.
+   *
+   * @return The number of bits set in the Bloom filter.
+   * @since 3.1.0
+   */
+  int bloomFilterBitCount() {
+    AtomicLongArray filter = this.bloomFilter;
+    int bits = 0;
+    for (int word = 0; filter != null && word < filter.length(); word++) {
+      bits += Long.bitCount(filter.get(word));
+    }
+    return bits;
+  }
+
+  /**
+   * Replaces the Bloom filter with an empty one, and adds every claimed train number to it. The
+   * rebuild count is odd while the Bloom filter is rebuilt, so the Bloom filter is not asked until
+   * it is complete. A claim that reads the old Bloom filter adds its train number to the new one
+   * after it is claimed, so a claim is never lost.
+   *
+   * @since 3.1.0
+   */
+  private synchronized void rebuildBloomFilter() {
+    if (this.releases.get() < this.releasesBeforeRebuild) {
+      return;
+    }
+    this.releases.set(0);
+    this.rebuilds.incrementAndGet();
+    AtomicLongArray filter = new AtomicLongArray(this.bloomFilter.length());
+    this.bloomFilter = filter;
+    for (int trainNumber : this.owners.keySet()) {
+      addToBloomFilter(filter, trainNumber);
+    }
+    this.rebuilds.incrementAndGet();
+  }
+
+  /**
+   * Returns <code>false</code> if the train number has never been added to the Bloom filter.
+   *
+   * @param filter      The Bloom filter.
+   * @param trainNumber The train number.
+   * @return <code>false</code> if the train number is not in the Bloom filter.
+   * @since 3.1.0
+   */
+  private boolean mightContain(AtomicLongArray filter, int trainNumber) {
+    int first = firstHash(trainNumber);
+    int step = secondHash(trainNumber);
+    for (int i = 0; i < HASHES; i++) {
+      int bit = (first + i * step) & this.bloomMask;
+      if ((filter.get(bit >>> 6) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Sets the bits of the train number in the Bloom filter. The bits are set before the train
+   * number is claimed, so a train number in the index is always in the Bloom filter.
+   *
+   * @param filter      The Bloom filter.
+   * @param trainNumber The train number.
+   * @since 3.1.0
+   */
+  private void addToBloomFilter(AtomicLongArray filter, int trainNumber) {
+    int first = firstHash(trainNumber);
+    int step = secondHash(trainNumber);
+    for (int i = 0; i < HASHES; i++) {
+      int bit = (first + i * step) & this.bloomMask;
+      long mask = 1L << bit;
+      if ((filter.get(bit >>> 6) & mask) == 0) {
+        filter.getAndAccumulate(bit >>> 6, mask, (word, bits) -> word | bits);
+      }
+    }
+  }
+
+  /**
+   * Returns the first hash of the train number used by the Bloom filter.
+   *
+   * @param trainNumber The train number.
+   * @return The first hash of the train number.
+   * @since 3.1.0
+   */
+  private static int firstHash(int trainNumber) {
+    int hash = trainNumber * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+
+  /**
+   * Returns the second hash of the train number used by the Bloom filter. The hash is odd, so the
+   * bits of a train number are spread over the whole Bloom filter.
+   *
+   * @param trainNumber The train number.
+   * @return The second hash of the train number.
+   * @since 3.1.0
+   */
+  private static int secondHash(int trainNumber) {
+    int hash = trainNumber * 0x85EBCA6B;
+    return (hash ^ (hash >>> 13)) | 1;
+  }
+}
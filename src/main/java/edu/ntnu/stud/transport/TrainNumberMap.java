@@ -0,0 +1,198 @@
+package edu.ntnu.stud.transport;
+
+import java.util.Arrays;
+
+
+/**
+ * The TrainNumberMap class maps train numbers to train departures. The map uses open addressing
+ * with linear probing over two parallel arrays, one holding the train numbers as primitive integers
+ * and one holding the train departures. The train numbers are therefore never boxed, and no entry
+ * objects are created for the mappings. Removed mappings are cleared by shifting the following
+ * entries back, so the map never fills up with deleted slots. The train number 0 is never used by a
+ * train departure, and marks an empty slot.
+ *
+ * @author Johan Fredrik Wilvang
+ * @version 3.1.0
+ * @since 3.1.0
+ */
+
+final class TrainNumberMap {
+
+  private static final int EMPTY = 0;
+  private static final int INITIAL_CAPACITY = 16;
+
+  private int[] trainNumbers;
+  private TrainDeparture[] trains;
+  private int size;
+
+  /**
+   * Creates an empty object of class TrainNumberMap.
+   *
+   * @since 3.1.0
+   */
+  TrainNumberMap() {
+    this.trainNumbers = new int[INITIAL_CAPACITY];
+    this.trains = new TrainDeparture[INITIAL_CAPACITY];
+    this.size = 0;
+  }
+
+  /**
+   * Returns the number of train departures in the map.
+   *
+   * @return The number of train departures in the map.
+   * @since 3.1.0
+   */
+  int size() {
+    return this.size;
+  }
+
+  /**
+   * Returns the train departure mapped to the specified train number, or <code>null</code> if the
+   * train number is not in the map.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @return The train departure with the specified train number, or <code>null</code>.
+   * @since 3.1.0
+   */
+  TrainDeparture get(int trainNumber) {
+    if (trainNumber == EMPTY) {
+      return null;
+    }
+    int mask = this.trainNumbers.length - 1;
+    int slot = hash(trainNumber) & mask;
+    while (this.trainNumbers[slot] != EMPTY) {
+      if (this.trainNumbers[slot] == trainNumber) {
+        return this.trains[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return null;
+  }
+
+  /**
+   * Returns <code>true</code> if the specified train number is in the map.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @return <code>true</code> if the train number is in the map, <code>false</code> otherwise.
+   * @since 3.1.0
+   */
+  boolean containsKey(int trainNumber) {
+    return get(trainNumber) != null;
+  }
+
+  /**
+   * Maps the specified train number to the train departure. An existing mapping for the train
+   * number is replaced.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @param train       The train departure.
+   * @since 3.1.0
+   */
+  void put(int trainNumber, TrainDeparture train) {
+    if (trainNumber == EMPTY) {
+      throw new IllegalArgumentException("The train number 0 can not be mapped.");
+    }
+    if ((this.size + 1) * 4 > this.trainNumbers.length * 3) {
+      resize(this.trainNumbers.length * 2);
+    }
+    int mask = this.trainNumbers.length - 1;
+    int slot = hash(trainNumber) & mask;
+    while (this.trainNumbers[slot] != EMPTY) {
+      if (this.trainNumbers[slot] == trainNumber) {
+        this.trains[slot] = train;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+    this.trainNumbers[slot] = trainNumber;
+    this.trains[slot] = train;
+    this.size++;
+  }
+
+  /**
+   * Removes the mapping for the specified train number, and returns the train departure that was
+   * mapped to it. The entries following the removed entry are shifted back, so that every entry can
+   * still be reached from its home slot.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @return The removed train departure, or <code>null</code> if the train number was not mapped.
+   * @since 3.1.0
+   */
+  TrainDeparture remove(int trainNumber) {
+    if (trainNumber == EMPTY) {
+      return null;
+    }
+    int mask = this.trainNumbers.length - 1;
+    int slot = hash(trainNumber) & mask;
+    while (this.trainNumbers[slot] != trainNumber) {
+      if (this.trainNumbers[slot] == EMPTY) {
+        return null;
+      }
+      slot = (slot + 1) & mask;
+    }
+    TrainDeparture removed = this.trains[slot];
+    int next = (slot + 1) & mask;
+    while (this.trainNumbers[next] != EMPTY) {
+      int home = hash(this.trainNumbers[next]) & mask;
+      if (((next - home) & mask) >= ((next - slot) & mask)) {
+        this.trainNumbers[slot] = this.trainNumbers[next];
+        this.trains[slot] = this.trains[next];
+        slot = next;
+      }
+      next = (next + 1) & mask;
+    }
+    this.trainNumbers[slot] = EMPTY;
+    this.trains[slot] = null;
+    this.size--;
+    return removed;
+  }
+
+  /**
+   * Removes all the mappings from the map.
+   *
+   * @since 3.1.0
+   */
+  void clear() {
+    Arrays.fill(this.trainNumbers, EMPTY);
+    Arrays.fill(this.trains, null);
+    this.size = 0;
+  }
+
+  /**
+   * Moves all the mappings into new arrays with the specified capacity. The capacity is always a
+   * power of two.
+   *
+   * @param capacity The new capacity of the map.
+   * @since 3.1.0
+   */
+  private void resize(int capacity) {
+    int[] oldTrainNumbers = this.trainNumbers;
+    TrainDeparture[] oldTrains = this.trains;
+    this.trainNumbers = new int[capacity];
+    this.trains = new TrainDeparture[capacity];
+    int mask = capacity - 1;
+    for (int i = 0; i < oldTrainNumbers.length; i++) {
+      if (oldTrainNumbers[i] != EMPTY) {
+        int slot = hash(oldTrainNumbers[i]) & mask;
+        while (this.trainNumbers[slot] != EMPTY) {
+          slot = (slot + 1) & mask;
+        }
+        this.trainNumbers[slot] = oldTrainNumbers[i];
+        this.trains[slot] = oldTrains[i];
+      }
+    }
+  }
+
+  /**
+   * Spreads the bits of the train number, so that consecutive train numbers do not end up in long
+   * runs of neighbouring slots.
+   *
+   * @param trainNumber The train number to hash.
+   * @return The hash of the train number.
+   * @since 3.1.0
+   */
+  private static int hash(int trainNumber) {
+    int hash = trainNumber * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+}
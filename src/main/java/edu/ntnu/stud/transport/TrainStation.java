@@ -1,22 +1,40 @@
 package edu.ntnu.stud.transport;
 
 import java.time.LocalTime;
+import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.Spliterator;
 import java.util.TreeSet;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 
 /**
  * The TrainStation class contains a register of the trains departing from the train station. The
  * register is sorted by the departure time, using a TreeSet. The train departures will not be shown
  * in the register after the train has departed. The train register can be navigated using the
- * search methods. The search methods can search for a train number or destination. The train
- * station can also assign a track to a selected train departure. The train station has a station
- * clock that displays the current time at the station. The station clock is represented as a
- * digital clock. The register will be reset upon a new day. The same train number can not be used
- * for multiple train departures on the same day.
+ * search methods. The search methods can search for a train number, destination, train line or
+ * departure time, or for several of them at once. The train station can also assign a track to a
+ * selected train departure. The train station has a station clock that displays the current time at
+ * the station. The station clock is represented as a digital clock. The register will be reset upon
+ * a new day. The same train number can not be used for multiple train departures on the same day.
+ * The train station keeps its own copies of the train departures, and hands out read-only copies,
+ * so a train departure can only be changed through the train station.
  *
  * @author Johan Fredrik Wilvang
  * @version 3.0.5
@@ -25,21 +43,78 @@ import java.util.stream.Collectors;
 
 public final class TrainStation {
 
+  static final Comparator<TrainDeparture> DEPARTURE_ORDER =
+      Comparator.comparingInt(TrainDeparture::getDepartureMinutes)
+          .thenComparingInt(TrainDeparture::getTrainNumber);
+  static final Comparator<TrainDeparture> REAL_DEPARTURE_ORDER =
+      Comparator.comparingInt(TrainDeparture::getRealDepartureMinutes)
+          .thenComparingInt(TrainDeparture::getTrainNumber);
+  private static final int BULK_REBUILD_FACTOR = 8;
+  private static final int MINUTES_PER_DAY = 1440;
+
   private final TreeSet<TrainDeparture> trainRegister;
+  /** The train departures by train number, so one train departure is found without a search. */
+  private final TrainNumberMap trainNumberIndex;
+  /** The train departures by the id of their destination, so case is ignored. */
+  private final Map<Integer, TreeSet<TrainDeparture>> destinationIndex;
+  /** The train departures by the id of their train line. */
+  private final Map<Integer, TreeSet<TrainDeparture>> lineIndex;
+  /** The train departures by track number. */
+  private final Map<Integer, TreeSet<TrainDeparture>> trackIndex;
+  /** The bitmaps of the destinations, train lines, tracks and delays, combined by queries. */
+  private final BitmapIndex bitmapIndex;
+  /** The train departures that have not departed, moved out as the station clock moves. */
+  private final TreeSet<TrainDeparture> remainingTrains;
+  /** The train departures that have departed, sorted like the remaining train departures. */
+  private final TreeSet<TrainDeparture> departedTrains;
+  private final DestinationTrie destinationTrie;
+  private final DestinationBkTree destinationTree;
+  /** The train numbers of the network, or <code>null</code> if the station is on its own. */
+  private final TrainNumberIndex networkIndex;
   private LocalTime stationClock;
+  /** The train departures of the next snapshot, sharing unchanged nodes with the last one. */
+  private PersistentDepartureTree snapshotTrains;
+  /** The last published snapshot, read by other threads without a lock. */
+  private volatile RegisterSnapshot snapshot;
 
   /**
    * Creates object of class TrainStation. The object contains a register and a station clock. The
    * register is sorted by departure time, then train number if multiple departures have the same
    * departure time. The register will reset upon a new day. The station clock is initially set to
-   * 00:00.
+   * 00:00. The train number index, the destination index, the line index, the track index, the
+   * bitmap index, the remaining train departures and the departed train departures are kept in step
+   * with the register. The first snapshot of the register is empty.
    *
    * @since 2.4.0
    */
   public TrainStation() {
+    this(null);
+  }
+
+  /**
+   * Creates object of class TrainStation that shares the train numbers with the other train
+   * stations of a network. The train station claims a train number in the network index before it
+   * is used, and releases it when the train departure is removed or renumbered.
+   *
+   * @param networkIndex The train numbers of the network, or <code>null</code> if the train station
+   *                     is not part of a network.
+   * @since 3.1.0
+   */
+  public TrainStation(TrainNumberIndex networkIndex) {
+    this.networkIndex = networkIndex;
+    this.trainRegister = new TreeSet<>(DEPARTURE_ORDER);
+    this.trainNumberIndex = new TrainNumberMap();
+    this.destinationIndex = new HashMap<>();
+    this.lineIndex = new HashMap<>();
+    this.trackIndex = new HashMap<>();
+    this.bitmapIndex = new BitmapIndex();
+    this.remainingTrains = new TreeSet<>(REAL_DEPARTURE_ORDER);
+    this.departedTrains = new TreeSet<>(REAL_DEPARTURE_ORDER);
+    this.destinationTrie = new DestinationTrie();
+    this.destinationTree = new DestinationBkTree();
+    this.snapshotTrains = PersistentDepartureTree.EMPTY;
+    this.snapshot = new RegisterSnapshot(0, LocalTime.of(0, 0), this.snapshotTrains);
     resetClock();
-    this.trainRegister = new TreeSet<>(Comparator.comparing(TrainDeparture::getDepartureTime)
-        .thenComparing(TrainDeparture::getTrainNumber));
   }
 
   /**
@@ -53,34 +128,91 @@ public final class TrainStation {
   }
 
   /**
-   * Returns the total amount of trains in the train register.
+   * Returns the amount of remaining trains in the train register. The remaining train departures
+   * are kept apart from the departed train departures, so the method does not visit any train
+   * departures.
    *
-   * @return The total amount of trains in the train register.
+   * @return The amount of remaining trains in the train register.
    * @since 2.4.0
    */
   public int getNumberOfTrains() {
-    Iterator<TrainDeparture> trainIterator = hideDepartedTrains();
-    int i = 0;
-    while (trainIterator.hasNext()) {
-      trainIterator.next();
-      i++;
-    }
-    return i;
+    return this.remainingTrains.size();
   }
 
   /**
-   * Returns an iterator of a list containing the train history of the day.
+   * Returns an iterator of a list containing the train history of the day. The iterator reads the
+   * current snapshot of the register, so it is not affected by later changes to the train station.
+   * The train departures are read-only copies, and can not be changed.
    *
    * @return An iterator of the train history of the day.
    * @since 2.4.0
    */
   public Iterator<TrainDeparture> getTrainRegister() {
-    return trainRegister.iterator();
+    return this.snapshot.iterator();
+  }
+
+  /**
+   * Returns the current snapshot of the register. The snapshot and its train departures are
+   * immutable, and can be read from any thread without a lock while the train station is changed.
+   *
+   * @return The current snapshot of the register.
+   * @since 3.1.0
+   */
+  public RegisterSnapshot getSnapshot() {
+    return this.snapshot;
+  }
+
+  /**
+   * Returns an iterator of the train departures that have departed this day, sorted by the real
+   * departure time.
+   *
+   * @return An iterator of the departed train departures.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> getDepartedTrains() {
+    return readOnly(this.departedTrains).iterator();
+  }
+
+  /**
+   * Returns a lazy stream of the train departures in the current snapshot of the register, sorted
+   * by departure time. The stream reads the snapshot, so it is not affected by later changes to
+   * the train station.
+   *
+   * @return A stream of the train departures in the train register.
+   * @since 3.1.0
+   */
+  public Stream<TrainDeparture> streamTrainRegister() {
+    return this.snapshot.stream();
+  }
+
+  /**
+   * Returns a lazy stream of read-only copies of the remaining train departures, sorted by the
+   * real departure time. The stream is a view of the train station and is sized, sorted and
+   * distinct, so an existence check, a first match or a limit only reads and copies the train
+   * departures it needs. The stream must be consumed before the train station is changed.
+   *
+   * @return A stream of the remaining train departures.
+   * @since 3.1.0
+   */
+  public Stream<TrainDeparture> streamRemainingTrains() {
+    return readOnly(this.remainingTrains.spliterator());
+  }
+
+  /**
+   * Returns a lazy stream of read-only copies of the departed train departures, sorted by the real
+   * departure time. The stream must be consumed before the train station is changed.
+   *
+   * @return A stream of the departed train departures.
+   * @since 3.1.0
+   */
+  public Stream<TrainDeparture> streamDepartedTrains() {
+    return readOnly(this.departedTrains.spliterator());
   }
 
   /**
    * Returns <code>true</code> if the train number is unique for each train departure. If the train
-   * number is not unique, the method will return <code>false</code>.
+   * number is not unique, the method will return <code>false</code>. If the train station is part
+   * of a network, the train number must also be unused in the rest of the network.
    *
    * @param trainNumber The train number of the train departure.
    * @return <code>true</code> if the train number is unique for each train departure.
@@ -88,37 +220,51 @@ public final class TrainStation {
    * @since 3.0.0
    */
   public boolean isTrainNumberUnique(int trainNumber) {
-    return this.trainRegister.stream()
-        .noneMatch(train -> train.getTrainNumber() == trainNumber);
+    return !this.trainNumberIndex.containsKey(trainNumber)
+        && (this.networkIndex == null || !this.networkIndex.isClaimed(trainNumber));
   }
 
   /**
    * Set the time displayed on the station clock. The time is an object form the LocalTime class. If
    * the time is before the current time displayed on the station clock, the time will not be
-   * hanged.
+   * hanged. The train departures that have departed by the new time are moved from the remaining
+   * train departures to the departed train departures, in one pass from the earliest remaining
+   * train departure.
    *
    * @param time The time displayed on the station clock.
    * @since 2.2.2
    */
   public void setStationClock(String time) {
-    if (LocalTime.parse(time).isAfter(this.stationClock)) {
-      this.stationClock = LocalTime.parse(time);
+    LocalTime newTime = LocalTime.parse(time);
+    if (newTime.isAfter(this.stationClock)) {
+      this.stationClock = newTime;
+      while (!this.remainingTrains.isEmpty() && !hasNotDeparted(this.remainingTrains.first())) {
+        TrainDeparture departed = this.remainingTrains.pollFirst();
+        this.destinationTrie.addUpcoming(departed.getDestinationId(), -1);
+        this.departedTrains.add(departed);
+      }
+      publish();
     }
   }
 
   /**
-   * Resets the station clock to 00:00.
+   * Resets the station clock to 00:00. The train departures that have not departed at 00:00 are
+   * moved back to the remaining train departures.
    *
    * @since 2.4.0
    */
   public void resetClock() {
     this.stationClock = LocalTime.of(0, 0);
+    while (!this.departedTrains.isEmpty() && hasNotDeparted(this.departedTrains.last())) {
+      addRemaining(this.departedTrains.pollLast());
+    }
+    publish();
   }
 
   /**
    * Adds a new train departure to the train register. The train departure is added to the train
-   * register if the train number is unique. If the train number is already existing, the train
-   * departure will not be added to the train register.
+   * register if the train number is above 0 and unique. If the train number is already existing,
+   * the train departure will not be added to the train register.
    *
    * @param departureTime The departure time of the train departure.
    * @param trainNumber   The train number of the train departure.
@@ -128,25 +274,538 @@ public final class TrainStation {
    */
   public void addTrainDeparture(String departureTime, int trainNumber,
       String destination, String trainLine) {
-    if (trainNumber != -1 && LocalTime.parse(departureTime).isAfter(this.stationClock)
-        && isTrainNumberUnique(trainNumber)) {
-      this.trainRegister.add(
-          new TrainDeparture(departureTime, trainNumber, destination, trainLine));
+    if (trainNumber > 0 && LocalTime.parse(departureTime).isAfter(this.stationClock)
+        && isTrainNumberUnique(trainNumber) && claim(trainNumber)) {
+      register(new TrainDeparture(departureTime, trainNumber, destination, trainLine));
+      publish();
     }
   }
 
   /**
    * Adds a new train departure to the train register. The train departure is added to the train
-   * register if the train number is unique. If the train number is already existing, the train
-   * departure will not be added to the train register.
+   * register if the train number is above 0 and unique, and the departure time is after the station
+   * clock. If the train number is already existing, the train departure will not be added to the
+   * train register. The train station registers a copy of the train departure, so changing the
+   * train departure afterwards does not change the train station.
    *
    * @param train The train departure to be added to the train register.
    * @since 3.0.0
    */
   public void addTrainDeparture(TrainDeparture train) {
-    if (isTrainNumberUnique(train.getTrainNumber())) {
-      this.trainRegister.add(train);
+    if (train.getTrainNumber() > 0 && train.getDepartureTime().isAfter(this.stationClock)
+        && isTrainNumberUnique(train.getTrainNumber()) && claim(train.getTrainNumber())) {
+      register(new TrainDeparture(train));
+      publish();
+    }
+  }
+
+  /**
+   * Adds many train departures to the train register at once, for example the timetable of a day.
+   * Every train departure is checked in one pass: it must have a valid train number, depart after
+   * the station clock, and have a train number that is not used by an earlier row, the train
+   * station or the network. The train departures that fail a check are not added, and are listed
+   * in the returned report with the reason. The accepted train departures are sorted, unless they
+   * already are, and then inserted into the sorted structures in bulk. An empty structure is built
+   * from the sorted train departures in linear time, and a structure that is small compared to the
+   * new train departures is merged with them and rebuilt in linear time. Only one snapshot is
+   * published for the whole load. The train station registers copies of the accepted train
+   * departures.
+   *
+   * @param trains The train departures to be added to the train register.
+   * @return A report of the train departures that were added and rejected.
+   * @since 3.1.0
+   */
+  public BulkLoadReport addTrainDepartures(Collection<TrainDeparture> trains) {
+    BulkLoadReport report = new BulkLoadReport();
+    List<TrainDeparture> accepted = new ArrayList<>(trains.size());
+    TrainNumberMap rowsByTrainNumber = new TrainNumberMap();
+    boolean sorted = true;
+    int row = 0;
+    for (TrainDeparture train : trains) {
+      BulkLoadReport.Reason reason = validate(train, rowsByTrainNumber);
+      if (reason != null) {
+        report.reject(row, train, reason);
+      } else {
+        rowsByTrainNumber.put(train.getTrainNumber(), train);
+        sorted = sorted && (accepted.isEmpty()
+            || DEPARTURE_ORDER.compare(accepted.get(accepted.size() - 1), train) < 0);
+        accepted.add(new TrainDeparture(train));
+      }
+      row++;
+    }
+    if (accepted.isEmpty()) {
+      return report;
+    }
+    if (!sorted) {
+      accepted.sort(DEPARTURE_ORDER);
+    }
+
+    Map<Integer, List<TrainDeparture>> byDestination = new HashMap<>();
+    Map<Integer, List<TrainDeparture>> byLine = new HashMap<>();
+    Map<Integer, List<TrainDeparture>> byTrack = new HashMap<>();
+    for (TrainDeparture train : accepted) {
+      this.trainNumberIndex.put(train.getTrainNumber(), train);
+      this.bitmapIndex.add(train);
+      byDestination.computeIfAbsent(train.getDestinationId(), key -> new ArrayList<>()).add(train);
+      byLine.computeIfAbsent(train.getTrainLineId(), key -> new ArrayList<>()).add(train);
+      byTrack.computeIfAbsent(train.getTrackNumber(), key -> new ArrayList<>()).add(train);
+    }
+    bulkInsert(this.trainRegister, accepted);
+    for (Map.Entry<Integer, List<TrainDeparture>> destination : byDestination.entrySet()) {
+      this.destinationTrie.add(destination.getKey());
+      this.destinationTree.add(destination.getKey());
+      this.destinationTrie.addUpcoming(destination.getKey(), destination.getValue().size());
+      bulkInsert(this.destinationIndex.computeIfAbsent(destination.getKey(),
+          key -> new TreeSet<>(DEPARTURE_ORDER)), destination.getValue());
+    }
+    for (Map.Entry<Integer, List<TrainDeparture>> line : byLine.entrySet()) {
+      bulkInsert(this.lineIndex.computeIfAbsent(line.getKey(),
+          key -> new TreeSet<>(DEPARTURE_ORDER)), line.getValue());
+    }
+    for (Map.Entry<Integer, List<TrainDeparture>> track : byTrack.entrySet()) {
+      bulkInsert(this.trackIndex.computeIfAbsent(track.getKey(),
+          key -> new TreeSet<>(DEPARTURE_ORDER)), track.getValue());
+    }
+    List<TrainDeparture> byRealDeparture = new ArrayList<>(accepted);
+    byRealDeparture.sort(REAL_DEPARTURE_ORDER);
+    bulkInsert(this.remainingTrains, byRealDeparture);
+
+    if (this.snapshotTrains.size() == 0) {
+      List<TrainDeparture> copies = new ArrayList<>(accepted.size());
+      for (TrainDeparture train : accepted) {
+        copies.add(new ReadOnlyTrainDeparture(train));
+      }
+      this.snapshotTrains = PersistentDepartureTree.fromSorted(copies);
+    } else {
+      for (TrainDeparture train : accepted) {
+        this.snapshotTrains = this.snapshotTrains.with(new ReadOnlyTrainDeparture(train));
+      }
+    }
+    report.setAccepted(accepted.size());
+    publish();
+    return report;
+  }
+
+  /**
+   * Checks a train departure of a bulk load, and claims its train number if it is accepted. The
+   * accepted train departures depart after the station clock, so they have not departed.
+   *
+   * @param train             The train departure to check.
+   * @param rowsByTrainNumber The train departures accepted from earlier rows.
+   * @return The reason the train departure is rejected, or <code>null</code> if it is accepted.
+   * @since 3.1.0
+   */
+  private BulkLoadReport.Reason validate(TrainDeparture train, TrainNumberMap rowsByTrainNumber) {
+    if (train == null) {
+      return BulkLoadReport.Reason.MISSING_DEPARTURE;
+    }
+    int trainNumber = train.getTrainNumber();
+    if (trainNumber <= 0) {
+      return BulkLoadReport.Reason.INVALID_TRAIN_NUMBER;
+    }
+    if (train.getDepartureMinutes() <= clockMinutes()) {
+      return BulkLoadReport.Reason.ALREADY_DEPARTED;
+    }
+    if (rowsByTrainNumber.containsKey(trainNumber)) {
+      return BulkLoadReport.Reason.DUPLICATE_TRAIN_NUMBER;
+    }
+    if (!isTrainNumberUnique(trainNumber) || !claim(trainNumber)) {
+      return BulkLoadReport.Reason.TRAIN_NUMBER_IN_USE;
+    }
+    return null;
+  }
+
+  /**
+   * Inserts the sorted train departures into a sorted set with the same order. If the set is large
+   * compared to the train departures, they are inserted one by one. Otherwise the set is merged
+   * with the train departures and rebuilt, which the TreeSet does in linear time when it is given a
+   * SortedSet with the same comparator.
+   *
+   * @param set    The sorted set.
+   * @param sorted The train departures, sorted by the comparator of the set.
+   * @since 3.1.0
+   */
+  private static void bulkInsert(TreeSet<TrainDeparture> set, List<TrainDeparture> sorted) {
+    if (set.size() > sorted.size() * BULK_REBUILD_FACTOR) {
+      set.addAll(sorted);
+      return;
+    }
+    Comparator<? super TrainDeparture> order = set.comparator();
+    List<TrainDeparture> merged = sorted;
+    if (!set.isEmpty()) {
+      merged = new ArrayList<>(set.size() + sorted.size());
+      Iterator<TrainDeparture> existing = set.iterator();
+      TrainDeparture next = existing.next();
+      for (TrainDeparture train : sorted) {
+        while (next != null && order.compare(next, train) < 0) {
+          merged.add(next);
+          next = existing.hasNext() ? existing.next() : null;
+        }
+        merged.add(train);
+      }
+      while (next != null) {
+        merged.add(next);
+        next = existing.hasNext() ? existing.next() : null;
+      }
+      set.clear();
+    }
+    set.addAll(new SortedListView(merged, order));
+  }
+
+  /**
+   * Adds the train departure to the train register and all the indexes.
+   *
+   * @param train The train departure to be added.
+   * @since 3.1.0
+   */
+  private void register(TrainDeparture train) {
+    this.trainRegister.add(train);
+    this.trainNumberIndex.put(train.getTrainNumber(), train);
+    this.snapshotTrains = this.snapshotTrains.with(new ReadOnlyTrainDeparture(train));
+    index(train);
+  }
+
+  /**
+   * Removes the train departure from the train register and all the indexes. The train departure
+   * is found in the sorted structures by its current information, so it must be removed before any
+   * of that information is changed.
+   *
+   * @param train The train departure to be removed.
+   * @since 3.1.0
+   */
+  private void unregister(TrainDeparture train) {
+    this.trainRegister.remove(train);
+    this.trainNumberIndex.remove(train.getTrainNumber());
+    this.snapshotTrains = this.snapshotTrains.without(train);
+    unindex(train);
+  }
+
+  /**
+   * Claims the train number in the network index. A train station that is not part of a network
+   * always gets the train number.
+   *
+   * @param trainNumber The train number to claim.
+   * @return <code>true</code> if the train number was claimed, <code>false</code> otherwise.
+   * @since 3.1.0
+   */
+  private boolean claim(int trainNumber) {
+    return this.networkIndex == null || this.networkIndex.claim(trainNumber, this);
+  }
+
+  /**
+   * Releases the train number in the network index, so other train stations can use it.
+   *
+   * @param trainNumber The train number to release.
+   * @since 3.1.0
+   */
+  private void release(int trainNumber) {
+    if (this.networkIndex != null) {
+      this.networkIndex.release(trainNumber, this);
+    }
+  }
+
+  /**
+   * Publishes a new snapshot of the register if the register or the station clock has changed
+   * since the last snapshot. The new snapshot shares every unchanged part of the previous snapshot.
+   *
+   * @since 3.1.0
+   */
+  private void publish() {
+    RegisterSnapshot current = this.snapshot;
+    if (current.getTrains() != this.snapshotTrains
+        || !current.getStationClock().equals(this.stationClock)) {
+      this.snapshot = new RegisterSnapshot(current.getVersion() + 1, this.stationClock,
+          this.snapshotTrains);
+    }
+  }
+
+  /**
+   * Returns a view of the train departures in the sorted set that are in the time window. The set
+   * is either sorted by departure time or by real departure time, and the window is measured in
+   * the same time. If the window is empty, an empty set is returned.
+   *
+   * @param trains        The sorted train departures.
+   * @param from          The start of the window in minutes after midnight.
+   * @param fromInclusive <code>true</code> if the start of the window is included.
+   * @param to            The end of the window in minutes after midnight.
+   * @param toInclusive   <code>true</code> if the end of the window is included.
+   * @return A view of the train departures in the window.
+   * @since 3.1.0
+   */
+  private static NavigableSet<TrainDeparture> window(TreeSet<TrainDeparture> trains, int from,
+      boolean fromInclusive, int to, boolean toInclusive) {
+    TrainDeparture low = probe(from, fromInclusive ? -1 : Integer.MAX_VALUE);
+    TrainDeparture high = probe(to, toInclusive ? Integer.MAX_VALUE : -1);
+    if (trains.comparator().compare(low, high) > 0) {
+      return Collections.emptyNavigableSet();
+    }
+    return trains.subSet(low, true, high, true);
+  }
+
+  /**
+   * Returns a train departure that is only used to search the sorted sets. The train departure
+   * departs at the specified minute of the day, or at 23:59 with a delay for a later minute, so
+   * both its departure time and its real departure time are the specified minute. A minute after
+   * the latest real departure time a train departure can have is moved back to that time.
+   * A train number of -1 sorts before every train departing at the same time, and a train number
+   * of Integer.MAX_VALUE sorts after them.
+   *
+   * @param minutes     The departure time in minutes after midnight.
+   * @param trainNumber The train number of the train departure.
+   * @return A train departure used to search the sorted sets.
+   * @since 3.1.0
+   */
+  private static TrainDeparture probe(int minutes, int trainNumber) {
+    return new TrainDeparture(Math.min(minutes, MINUTES_PER_DAY - 1),
+        Math.min(minutes, 2 * MINUTES_PER_DAY - 2), trainNumber);
+  }
+
+  /**
+   * Returns the time as minutes after midnight.
+   *
+   * @param time The time.
+   * @return The time in minutes after midnight.
+   * @since 3.1.0
+   */
+  private static int minutesOf(LocalTime time) {
+    return time.getHour() * 60 + time.getMinute();
+  }
+
+  /**
+   * Returns <code>true</code> if the train departure has a real departure time after the station
+   * clock.
+   *
+   * @param train The train departure.
+   * @return <code>true</code> if the train has not departed, <code>false</code> otherwise.
+   * @since 3.1.0
+   */
+  private boolean hasNotDeparted(TrainDeparture train) {
+    return train.getRealDepartureMinutes() > clockMinutes();
+  }
+
+  /**
+   * Returns the time displayed on the station clock as minutes after midnight.
+   *
+   * @return The station clock in minutes after midnight.
+   * @since 3.1.0
+   */
+  private int clockMinutes() {
+    return minutesOf(this.stationClock);
+  }
+
+  /**
+   * Re-keys the train departure. The train departure is detached from the train register and all
+   * the indexes, changed, and then inserted again at its new position. Changing the departure time,
+   * destination or train number of a registered train departure in any other way would leave the
+   * train departure at the wrong position in the sorted structures, where it can no longer be found
+   * or removed. A delay is changed by redelay, which only moves the train departure in the
+   * structures that depend on the real departure time. Each step costs O(log n).
+   *
+   * @param train  The registered train departure to be changed.
+   * @param change The change to apply to the train departure.
+   * @since 3.1.0
+   */
+  private void rekey(TrainDeparture train, Consumer<TrainDeparture> change) {
+    unregister(train);
+    change.accept(train);
+    register(train);
+    publish();
+  }
+
+  /**
+   * Adds the train departure to the indexes that are sorted or grouped by the information of the
+   * train departure.
+   *
+   * @param train The train departure to be indexed.
+   * @since 3.1.0
+   */
+  private void index(TrainDeparture train) {
+    indexDestination(train);
+    addToIndex(this.lineIndex, train.getTrainLineId(), train);
+    addToIndex(this.trackIndex, train.getTrackNumber(), train);
+    this.bitmapIndex.add(train);
+    if (hasNotDeparted(train)) {
+      addRemaining(train);
+    } else {
+      this.departedTrains.add(train);
+    }
+  }
+
+  /**
+   * Removes the train departure from the indexes that are sorted or grouped by the information of
+   * the train departure. The train departure is removed from the remaining train departures before
+   * the destination index, so its destination is still in the prefix index when it is counted.
+   *
+   * @param train The train departure to be removed from the indexes.
+   * @since 3.1.0
+   */
+  private void unindex(TrainDeparture train) {
+    if (!removeRemaining(train)) {
+      this.departedTrains.remove(train);
+    }
+    unindexDestination(train);
+    removeFromIndex(this.lineIndex, train.getTrainLineId(), train);
+    removeFromIndex(this.trackIndex, train.getTrackNumber(), train);
+    this.bitmapIndex.remove(train);
+  }
+
+  /**
+   * Adds the train departure to the remaining train departures, and counts it as upcoming for its
+   * destination in the prefix index.
+   *
+   * @param train The train departure that has not departed.
+   * @since 3.1.0
+   */
+  private void addRemaining(TrainDeparture train) {
+    if (this.remainingTrains.add(train)) {
+      this.destinationTrie.addUpcoming(train.getDestinationId(), 1);
+    }
+  }
+
+  /**
+   * Removes the train departure from the remaining train departures, and no longer counts it as
+   * upcoming for its destination in the prefix index.
+   *
+   * @param train The train departure to be removed.
+   * @return <code>true</code> if the train departure was remaining, <code>false</code> otherwise.
+   * @since 3.1.0
+   */
+  private boolean removeRemaining(TrainDeparture train) {
+    if (this.remainingTrains.remove(train)) {
+      this.destinationTrie.addUpcoming(train.getDestinationId(), -1);
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Adds the train departure to the destination index. The destination index is keyed by the id of
+   * the destination in the shared symbol table, so destinations that only differ in case share the
+   * same key. A new destination is added to the prefix index and the spelling index. The train
+   * departures with the same destination are sorted in the same order as the train register.
+   *
+   * @param train The train departure to be indexed.
+   * @since 3.1.0
+   */
+  private void indexDestination(TrainDeparture train) {
+    this.destinationIndex.computeIfAbsent(train.getDestinationId(), key -> {
+      this.destinationTrie.add(key);
+      this.destinationTree.add(key);
+      return new TreeSet<>(DEPARTURE_ORDER);
+    }).add(train);
+  }
+
+  /**
+   * Removes the train departure from the destination index. The destination is removed from the
+   * index, the prefix index and the spelling index when there are no more train departures headed
+   * to it. The train departure must be removed
+   * before its destination, departure time or train number is changed.
+   *
+   * @param train The train departure to be removed from the index.
+   * @since 3.1.0
+   */
+  private void unindexDestination(TrainDeparture train) {
+    TreeSet<TrainDeparture> trains = this.destinationIndex.get(train.getDestinationId());
+    if (trains != null) {
+      trains.remove(train);
+      if (trains.isEmpty()) {
+        this.destinationIndex.remove(train.getDestinationId());
+        this.destinationTrie.remove(train.getDestinationId());
+        this.destinationTree.remove(train.getDestinationId());
+      }
+    }
+  }
+
+  /**
+   * Adds the train departure to an index that groups the train departures by a key, such as the
+   * line index keyed by the id of the train line in the shared symbol table, or the track index
+   * keyed by the track number. The train departures with the same key are sorted in the same order
+   * as the train register.
+   *
+   * @param index The index.
+   * @param key   The key of the train departure in the index.
+   * @param train The train departure to be indexed.
+   * @since 3.1.0
+   */
+  private static void addToIndex(Map<Integer, TreeSet<TrainDeparture>> index, int key,
+      TrainDeparture train) {
+    index.computeIfAbsent(key, absent -> new TreeSet<>(DEPARTURE_ORDER)).add(train);
+  }
+
+  /**
+   * Removes the train departure from an index that groups the train departures by a key. The key
+   * is removed from the index when there are no more train departures with it. The train departure
+   * must be removed before its key, departure time or train number is changed.
+   *
+   * @param index The index.
+   * @param key   The key of the train departure in the index.
+   * @param train The train departure to be removed from the index.
+   * @since 3.1.0
+   */
+  private static void removeFromIndex(Map<Integer, TreeSet<TrainDeparture>> index, int key,
+      TrainDeparture train) {
+    TreeSet<TrainDeparture> trains = index.get(key);
+    if (trains != null) {
+      trains.remove(train);
+      if (trains.isEmpty()) {
+        index.remove(key);
+      }
+    }
+  }
+
+  /**
+   * Returns read-only copies of the train departures, in the same order. The train departures of
+   * the train station are keys of its sorted structures, so they are never handed out.
+   *
+   * @param trains The registered train departures.
+   * @return Read-only copies of the train departures.
+   * @since 3.1.0
+   */
+  private static List<TrainDeparture> readOnly(Collection<TrainDeparture> trains) {
+    List<TrainDeparture> copies = new ArrayList<>(trains.size());
+    for (TrainDeparture train : trains) {
+      copies.add(new ReadOnlyTrainDeparture(train));
     }
+    return copies;
+  }
+
+  /**
+   * Returns a lazy stream of read-only copies of the train departures of a spliterator. A train
+   * departure is only copied when the stream reaches it, and the stream keeps the size, order and
+   * comparator of the spliterator.
+   *
+   * @param trains A spliterator of the registered train departures.
+   * @return A stream of read-only copies of the train departures.
+   * @since 3.1.0
+   */
+  private static Stream<TrainDeparture> readOnly(Spliterator<TrainDeparture> trains) {
+    return StreamSupport.stream(new ReadOnlySpliterator(trains), false);
+  }
+
+  /**
+   * Returns the train departure with the specified train number, looked up in the train number
+   * index. If the train number does not exist in the train register, the method will return
+   * <code>null</code>.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @return The train departure with the specified train number, or <code>null</code>.
+   * @since 3.1.0
+   */
+  private TrainDeparture findTrain(int trainNumber) {
+    return this.trainNumberIndex.get(trainNumber);
+  }
+
+  /**
+   * Returns the ordinal of the train departure with the specified train number in the bitmap
+   * index, or -1 if the train number does not exist in the train register.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @return The ordinal of the train departure, or -1.
+   * @since 3.1.0
+   */
+  int getOrdinal(int trainNumber) {
+    TrainDeparture train = findTrain(trainNumber);
+    return train == null ? -1 : this.bitmapIndex.ordinalOf(train);
   }
 
   /**
@@ -156,39 +815,377 @@ public final class TrainStation {
    * @since 2.2.1
    */
   public void removeTrainDeparture(int trainNumber) {
-    Iterator<TrainDeparture> iterator = searchByTrainNumber(trainNumber);
-    if (iterator.hasNext()) {
-      TrainDeparture train = iterator.next();
-      trainRegister.remove(train);
+    TrainDeparture train = findTrain(trainNumber);
+    if (train != null) {
+      unregister(train);
+      release(trainNumber);
+      publish();
     }
   }
 
   /**
    * Search for the train departure with the specified train number. If the train number does not
-   * exist in the train register, the method will return <code>null</code>.
+   * exist in the train register, the method will return an empty iterator.
    *
    * @param trainNumber The train number of the train departure.
    * @return The train departure with the specified train number as an iterator.
    * @since 1.6.0
    */
   public Iterator<TrainDeparture> searchByTrainNumber(int trainNumber) {
-    return this.trainRegister.stream()
-        .filter(train -> train.getTrainNumber() == trainNumber)
-        .collect(Collectors.toCollection(ArrayList::new)).iterator();
+    TrainDeparture train = findTrain(trainNumber);
+    if (train == null) {
+      return Collections.emptyIterator();
+    }
+    return List.<TrainDeparture>of(new ReadOnlyTrainDeparture(train)).iterator();
+  }
+
+  /**
+   * Returns a stream of a read-only copy of the train departure with the specified train number,
+   * which is empty if the train number does not exist in the train register. The train departure is
+   * looked up in the train number index.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @return A stream of at most one train departure.
+   * @since 3.1.0
+   */
+  public Stream<TrainDeparture> streamByTrainNumber(int trainNumber) {
+    return Stream.ofNullable(findTrain(trainNumber)).map(ReadOnlyTrainDeparture::new);
   }
 
   /**
-   * Search for all train departures with the specified destination. If there isn't any train
-   * departures headed to the destination, the method will return <code>null</code>.
+   * Search for all train departures with the specified destination, ignoring case. The train
+   * departures are looked up in the destination index and returned sorted by departure time. If
+   * there isn't any train departures headed to the destination, the method will return an empty
+   * iterator.
    *
    * @param destination The destination of the train departure.
    * @return The train departures with the specified destination as an iterator.
    * @since 1.6.0
    */
   public Iterator<TrainDeparture> searchByDestination(String destination) {
-    return this.trainRegister.stream()
-        .filter(train -> train.getDestination().equalsIgnoreCase(destination))
-        .collect(Collectors.toCollection(ArrayList::new)).iterator();
+    TreeSet<TrainDeparture> trains =
+        this.destinationIndex.get(SymbolTable.DESTINATIONS.find(destination));
+    if (trains == null) {
+      return Collections.emptyIterator();
+    }
+    return readOnly(trains).iterator();
+  }
+
+  /**
+   * Returns a lazy stream of read-only copies of the train departures with the specified
+   * destination, ignoring case, sorted by departure time. The stream is a view of the destination
+   * index and is sized, sorted and distinct. The stream must be consumed before the train station
+   * is changed.
+   *
+   * @param destination The destination of the train departures.
+   * @return A stream of the train departures with the specified destination.
+   * @since 3.1.0
+   */
+  public Stream<TrainDeparture> streamByDestination(String destination) {
+    TreeSet<TrainDeparture> trains =
+        this.destinationIndex.get(SymbolTable.DESTINATIONS.find(destination));
+    return trains == null ? Stream.empty() : readOnly(trains.spliterator());
+  }
+
+  /**
+   * Search for all train departures on the specified train line, ignoring case, sorted by departure
+   * time. The train departures are found in the line index, so the search does not scan the train
+   * register. If there isn't any train departures on the train line, the method will return an
+   * empty iterator.
+   *
+   * @param trainLine The train line of the train departures.
+   * @return The train departures on the specified train line as an iterator.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> searchByTrainLine(String trainLine) {
+    TreeSet<TrainDeparture> trains = this.lineIndex.get(SymbolTable.TRAIN_LINES.find(trainLine));
+    if (trains == null) {
+      return Collections.emptyIterator();
+    }
+    return readOnly(trains).iterator();
+  }
+
+  /**
+   * Returns a lazy stream of read-only copies of the train departures on the specified train line,
+   * ignoring case, sorted by departure time. The stream is a view of the line index and is sized,
+   * sorted and distinct. The stream must be consumed before the train station is changed.
+   *
+   * @param trainLine The train line of the train departures.
+   * @return A stream of the train departures on the specified train line.
+   * @since 3.1.0
+   */
+  public Stream<TrainDeparture> streamByTrainLine(String trainLine) {
+    TreeSet<TrainDeparture> trains = this.lineIndex.get(SymbolTable.TRAIN_LINES.find(trainLine));
+    return trains == null ? Stream.empty() : readOnly(trains.spliterator());
+  }
+
+  /**
+   * Search for the train departures that match every criterion of the query, sorted by departure
+   * time. The candidates are taken from the index of the most selective criterion: the train number
+   * index, the destination index, the line index, the track index or the window of departure times
+   * in the train register. The number of candidates of each index is known without visiting them,
+   * except for the window of departure times, which is only counted until it is larger than the
+   * best other index. A query with two or more of the destination, train line, track and delay
+   * criteria also combines their bitmaps, and uses the result if it has fewer candidates. The
+   * other criteria are checked on the candidates only. A query without any indexed criterion
+   * checks every train departure in the train register. The result holds read-only copies of the
+   * train departures found, and the plan that was used, so a slow query can be explained.
+   *
+   * @param query The criteria of the search.
+   * @return The train departures that match the query, and the plan used to find them.
+   * @since 3.1.0
+   */
+  public QueryResult search(DepartureQuery query) {
+    Map<QueryResult.Index, List<Collection<TrainDeparture>>> indexes =
+        new EnumMap<>(QueryResult.Index.class);
+    if (query.getTrainNumber() > 0) {
+      TrainDeparture train = findTrain(query.getTrainNumber());
+      indexes.put(QueryResult.Index.TRAIN_NUMBER,
+          List.of(train == null ? List.of() : List.of(train)));
+    }
+    if (!query.getDestinations().isEmpty()) {
+      Set<Integer> ids = new LinkedHashSet<>();
+      for (String destination : query.getDestinations()) {
+        ids.add(SymbolTable.DESTINATIONS.find(destination));
+      }
+      indexes.put(QueryResult.Index.DESTINATION, indexed(this.destinationIndex, ids));
+    }
+    if (!query.getTrainLines().isEmpty()) {
+      Set<Integer> ids = new LinkedHashSet<>();
+      for (String trainLine : query.getTrainLines()) {
+        ids.add(SymbolTable.TRAIN_LINES.find(trainLine));
+      }
+      indexes.put(QueryResult.Index.TRAIN_LINE, indexed(this.lineIndex, ids));
+    }
+    if (!query.getTrackNumbers().isEmpty()) {
+      indexes.put(QueryResult.Index.TRACK,
+          indexed(this.trackIndex, new LinkedHashSet<>(query.getTrackNumbers())));
+    }
+
+    Map<QueryResult.Index, Integer> candidates = new EnumMap<>(QueryResult.Index.class);
+    QueryResult.Index best = QueryResult.Index.TRAIN_REGISTER;
+    int fewest = this.trainRegister.size();
+    for (Map.Entry<QueryResult.Index, List<Collection<TrainDeparture>>> index
+        : indexes.entrySet()) {
+      int size = 0;
+      for (Collection<TrainDeparture> trains : index.getValue()) {
+        size += trains.size();
+      }
+      candidates.put(index.getKey(), size);
+      if (size < fewest) {
+        best = index.getKey();
+        fewest = size;
+      }
+    }
+    DepartureBitmap bitmap = null;
+    if (query.countBitmapCriteria() >= 2) {
+      bitmap = this.bitmapIndex.select(query);
+      candidates.put(QueryResult.Index.BITMAP, bitmap.cardinality());
+      if (bitmap.cardinality() < fewest) {
+        best = QueryResult.Index.BITMAP;
+        fewest = bitmap.cardinality();
+      }
+    }
+    if (query.getDepartingFrom() != null) {
+      NavigableSet<TrainDeparture> window = window(this.trainRegister,
+          minutesOf(query.getDepartingFrom()), true, minutesOf(query.getDepartingTo()), true);
+      int counted = 0;
+      Iterator<TrainDeparture> trains = window.iterator();
+      while (counted <= fewest && trains.hasNext()) {
+        trains.next();
+        counted++;
+      }
+      candidates.put(QueryResult.Index.DEPARTURE_TIME, counted);
+      indexes.put(QueryResult.Index.DEPARTURE_TIME, List.of(window));
+      if (counted < fewest) {
+        best = QueryResult.Index.DEPARTURE_TIME;
+      }
+    }
+    if (best == QueryResult.Index.TRAIN_REGISTER) {
+      candidates.put(best, fewest);
+      indexes.put(best, List.of(this.trainRegister));
+    }
+
+    Predicate<TrainDeparture> predicate = query.toPredicate();
+    List<TrainDeparture> found = new ArrayList<>();
+    if (best == QueryResult.Index.BITMAP) {
+      bitmap.forEach(ordinal -> {
+        TrainDeparture train = this.bitmapIndex.train(ordinal);
+        if (predicate.test(train)) {
+          found.add(train);
+        }
+      });
+      found.sort(DEPARTURE_ORDER);
+    } else {
+      for (Collection<TrainDeparture> trains : indexes.get(best)) {
+        for (TrainDeparture train : trains) {
+          if (predicate.test(train)) {
+            found.add(train);
+          }
+        }
+      }
+      if (indexes.get(best).size() > 1) {
+        found.sort(DEPARTURE_ORDER);
+      }
+    }
+    return new QueryResult(readOnly(found), best, candidates, query.describeFilters(best));
+  }
+
+  /**
+   * Returns the train departures with the specified key in an index that groups the train
+   * departures by a key, or an empty set if there are none.
+   *
+   * @param index The index.
+   * @param key   The key of the train departures.
+   * @return The train departures with the key.
+   * @since 3.1.0
+   */
+  private static Collection<TrainDeparture> indexed(Map<Integer, TreeSet<TrainDeparture>> index,
+      int key) {
+    TreeSet<TrainDeparture> trains = index.get(key);
+    return trains == null ? Collections.emptySet() : trains;
+  }
+
+  /**
+   * Returns the train departures of each of the specified keys in an index that groups the train
+   * departures by a key. The keys are distinct, so no train departure is returned twice.
+   *
+   * @param index The index.
+   * @param keys  The distinct keys of the train departures.
+   * @return The train departures of each key.
+   * @since 3.1.0
+   */
+  private static List<Collection<TrainDeparture>> indexed(
+      Map<Integer, TreeSet<TrainDeparture>> index, Set<Integer> keys) {
+    List<Collection<TrainDeparture>> trains = new ArrayList<>(keys.size());
+    for (int key : keys) {
+      trains.add(indexed(index, key));
+    }
+    return trains;
+  }
+
+  /**
+   * Search for the destinations starting with the specified prefix, ignoring case, for example to
+   * complete a destination the user has started typing. The destinations are ranked by their number
+   * of upcoming train departures, then by name. The destinations are kept in a prefix index that is
+   * updated as train departures change, so the search costs time proportional to the length of the
+   * prefix and the number of matching destinations, not the number of train departures.
+   *
+   * @param prefix The start of the destinations.
+   * @param limit  The largest number of destinations to return.
+   * @return The matching destinations, ranked by upcoming train departures.
+   * @since 3.1.0
+   */
+  public List<String> searchDestinationsByPrefix(String prefix, int limit) {
+    return this.destinationTrie.complete(prefix, limit);
+  }
+
+  /**
+   * Search for the destinations that are spelled almost like the specified destination, ignoring
+   * case, for example when the user has misspelled a destination. A destination is found if it can
+   * be reached by inserting, removing or replacing at most the specified number of letters, and
+   * the train station has train departures headed to it. The destinations are sorted by the number
+   * of letters that differ, then by name. The destinations are kept in a BK-tree, so most of the
+   * destinations are never compared with the search. A destination is removed from the BK-tree
+   * with its last train departure, so the BK-tree only holds the destinations of the train station.
+   *
+   * @param destination The misspelled destination.
+   * @param maxDistance The largest number of letters that may differ.
+   * @param limit       The largest number of destinations to return.
+   * @return The closest destinations.
+   * @since 3.1.0
+   */
+  public List<String> searchDestinationsBySpelling(String destination, int maxDistance,
+      int limit) {
+    return this.destinationTree.search(destination, maxDistance, limit, destinationId -> true);
+  }
+
+  /**
+   * Search for the train departures with a departure time in the specified time window, sorted by
+   * departure time. Each bound can be inclusive or exclusive. The delay is not taken into account.
+   * The window is found in the sorted train register, so the search costs O(log n + k) for k
+   * train departures in the window. If the window is empty, the method returns an empty iterator.
+   *
+   * @param from          The start of the time window.
+   * @param fromInclusive <code>true</code> if the start of the window is included.
+   * @param to            The end of the time window.
+   * @param toInclusive   <code>true</code> if the end of the window is included.
+   * @return The train departures in the time window as an iterator.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> searchByDepartureTime(LocalTime from, boolean fromInclusive,
+      LocalTime to, boolean toInclusive) {
+    return readOnly(window(this.trainRegister, minutesOf(from), fromInclusive, minutesOf(to),
+        toInclusive)).iterator();
+  }
+
+  /**
+   * Search for the train departures with a real departure time in the specified time window,
+   * sorted by real departure time. Each bound can be inclusive or exclusive. A train departure
+   * delayed past midnight departs the next day, and is never in the window. Both departed and
+   * remaining train departures are found. The departed train departures all depart before the
+   * remaining ones, so the window is taken from each of them in turn, and the search costs
+   * O(log n + k) for k train departures in the window.
+   *
+   * @param from          The start of the time window.
+   * @param fromInclusive <code>true</code> if the start of the window is included.
+   * @param to            The end of the time window.
+   * @param toInclusive   <code>true</code> if the end of the window is included.
+   * @return The train departures in the time window as an iterator.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> searchByRealDepartureTime(LocalTime from, boolean fromInclusive,
+      LocalTime to, boolean toInclusive) {
+    List<TrainDeparture> trains = readOnly(window(this.departedTrains, minutesOf(from),
+        fromInclusive, minutesOf(to), toInclusive));
+    trains.addAll(readOnly(window(this.remainingTrains, minutesOf(from), fromInclusive,
+        minutesOf(to), toInclusive)));
+    return trains.iterator();
+  }
+
+  /**
+   * Search for the remaining train departures that depart within the specified number of minutes
+   * after the station clock, sorted by real departure time. A train departure delayed past
+   * midnight is found if it departs within the minutes. The search costs O(log n + k) for k train
+   * departures found.
+   *
+   * @param minutes The number of minutes after the station clock.
+   * @return The train departures departing within the minutes as an iterator.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> searchDeparturesWithin(int minutes) {
+    if (minutes <= 0) {
+      return Collections.emptyIterator();
+    }
+    int clock = clockMinutes();
+    return readOnly(window(this.remainingTrains, clock, false, clock + minutes, true)).iterator();
+  }
+
+  /**
+   * Search for the remaining train departures headed to the specified destination, ignoring case,
+   * that depart within the specified number of minutes after the station clock, sorted by real
+   * departure time. The train departures are taken from the same window of the remaining train
+   * departures as searchDeparturesWithin(int), and only their destination ids are compared, so the
+   * search costs O(log n + k) for k train departures in the window.
+   *
+   * @param destination The destination of the train departures.
+   * @param minutes     The number of minutes after the station clock.
+   * @return The train departures to the destination departing within the minutes as an iterator.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> searchDeparturesWithin(String destination, int minutes) {
+    int destinationId = SymbolTable.DESTINATIONS.find(destination);
+    if (minutes <= 0 || !this.destinationIndex.containsKey(destinationId)) {
+      return Collections.emptyIterator();
+    }
+    int clock = clockMinutes();
+    List<TrainDeparture> trains = new ArrayList<>();
+    for (TrainDeparture train : window(this.remainingTrains, clock, false, clock + minutes, true)) {
+      if (train.getDestinationId() == destinationId) {
+        trains.add(new ReadOnlyTrainDeparture(train));
+      }
+    }
+    return trains.iterator();
   }
 
   /**
@@ -201,9 +1198,15 @@ public final class TrainStation {
    * @since 2.2.0
    */
   public void setNewTrackNumber(int trainNumber, int trackNumber) {
-    Iterator<TrainDeparture> trainIterator = searchByTrainNumber(trainNumber);
-    if (trainIterator.hasNext()) {
-      trainIterator.next().setTrackNumber(trackNumber);
+    TrainDeparture train = findTrain(trainNumber);
+    if (train != null) {
+      removeFromIndex(this.trackIndex, train.getTrackNumber(), train);
+      this.bitmapIndex.remove(train);
+      train.setTrackNumber(trackNumber);
+      addToIndex(this.trackIndex, train.getTrackNumber(), train);
+      this.bitmapIndex.add(train);
+      this.snapshotTrains = this.snapshotTrains.with(new ReadOnlyTrainDeparture(train));
+      publish();
     }
   }
 
@@ -217,9 +1220,11 @@ public final class TrainStation {
    * @since 2.2.1
    */
   public void setNewTrainNumber(int trainNumber, int newTrainNumber) {
-    Iterator<TrainDeparture> trainIterator = searchByTrainNumber(trainNumber);
-    if (trainIterator.hasNext() && isTrainNumberUnique(newTrainNumber) && newTrainNumber > 0) {
-      trainIterator.next().setTrainNumber(newTrainNumber);
+    TrainDeparture train = findTrain(trainNumber);
+    if (train != null && newTrainNumber > 0 && isTrainNumberUnique(newTrainNumber)
+        && claim(newTrainNumber)) {
+      rekey(train, edited -> edited.setTrainNumber(newTrainNumber));
+      release(trainNumber);
     }
   }
 
@@ -232,9 +1237,9 @@ public final class TrainStation {
    * @since 2.2.0
    */
   public void setNewDestination(int trainNumber, String newDestination) {
-    Iterator<TrainDeparture> trainIterator = searchByTrainNumber(trainNumber);
-    if (trainIterator.hasNext()) {
-      trainIterator.next().setDestination(newDestination);
+    TrainDeparture train = findTrain(trainNumber);
+    if (train != null) {
+      rekey(train, edited -> edited.setDestination(newDestination));
     }
   }
 
@@ -248,9 +1253,9 @@ public final class TrainStation {
    * @since 2.2.0
    */
   public void setNewDepartureTime(int trainNumber, String newDepartureTime) {
-    Iterator<TrainDeparture> trainIterator = searchByTrainNumber(trainNumber);
-    if (trainIterator.hasNext() && LocalTime.parse(newDepartureTime).isAfter(this.stationClock)) {
-      trainIterator.next().setDepartureTime(newDepartureTime);
+    TrainDeparture train = findTrain(trainNumber);
+    if (train != null && LocalTime.parse(newDepartureTime).isAfter(this.stationClock)) {
+      rekey(train, edited -> edited.setDepartureTime(newDepartureTime));
     }
   }
 
@@ -263,51 +1268,294 @@ public final class TrainStation {
    * @since 2.2.0
    */
   public void setNewTrainLine(int trainNumber, String newTrainLine) {
-    Iterator<TrainDeparture> trainIterator = searchByTrainNumber(trainNumber);
-    if (trainIterator.hasNext()) {
-      trainIterator.next().setTrainLine(newTrainLine);
+    TrainDeparture train = findTrain(trainNumber);
+    if (train != null) {
+      removeFromIndex(this.lineIndex, train.getTrainLineId(), train);
+      this.bitmapIndex.remove(train);
+      train.setTrainLine(newTrainLine);
+      addToIndex(this.lineIndex, train.getTrainLineId(), train);
+      this.bitmapIndex.add(train);
+      this.snapshotTrains = this.snapshotTrains.with(new ReadOnlyTrainDeparture(train));
+      publish();
     }
   }
 
   /**
    * Set a new delay for the train departure associated with specified train number. The delay is
    * set by the number of minutes delayed. If the train number does not exist in the train register,
-   * the delay will not be changed.
+   * the delay will not be changed. A delay does not change the position of a train departure in the
+   * train register or the destination index, so only the remaining and departed train departures
+   * and the bitmap index are updated.
    *
    * @param trainNumber The train number of the train departure.
    * @param newDelay    The specified amount of minutes delayed.
    * @since 2.2.0
    */
   public void setNewDelay(int trainNumber, int newDelay) {
-    Iterator<TrainDeparture> trainIterator = searchByTrainNumber(trainNumber);
-    if (trainIterator.hasNext()) {
-      trainIterator.next().setDelay(newDelay);
+    TrainDeparture train = findTrain(trainNumber);
+    if (train != null) {
+      redelay(train, newDelay);
+      publish();
+    }
+  }
+
+  /**
+   * Sets new delays for many train departures at once, for example a burst from a delay feed. The
+   * delays are mapped by the train numbers of the train departures, and train numbers that do not
+   * exist in the train register are ignored. Each train departure is delayed the same way as by
+   * setNewDelay, but only one snapshot is published for the whole batch.
+   *
+   * @param delays The new delays in minutes, mapped by train number.
+   * @return The number of train departures that were found and given a new delay.
+   * @since 3.1.0
+   */
+  public int setNewDelays(Map<Integer, Integer> delays) {
+    int delayed = 0;
+    for (Map.Entry<Integer, Integer> delay : delays.entrySet()) {
+      TrainDeparture train = findTrain(delay.getKey());
+      if (train != null) {
+        redelay(train, delay.getValue());
+        delayed++;
+      }
     }
+    publish();
+    return delayed;
   }
 
   /**
-   * Returns an iterator of the remaining train departures in the train register. The train
-   * departures that have already departed will not be shown.
+   * Sets a new delay for the registered train departure. A delay only changes the real departure
+   * time, so the train departure is taken out of the structures sorted or filtered by the real
+   * departure time, the remaining or departed train departures and the bitmap index, changed, and
+   * put back. The changed train departure is added to the next snapshot, which is not published.
+   *
+   * @param train   The registered train departure.
+   * @param minutes The specified amount of minutes delayed.
+   * @since 3.1.0
+   */
+  private void redelay(TrainDeparture train, int minutes) {
+    if (!removeRemaining(train)) {
+      this.departedTrains.remove(train);
+    }
+    this.bitmapIndex.remove(train);
+    train.setDelay(minutes);
+    this.bitmapIndex.add(train);
+    if (hasNotDeparted(train)) {
+      addRemaining(train);
+    } else {
+      this.departedTrains.add(train);
+    }
+    this.snapshotTrains = this.snapshotTrains.with(new ReadOnlyTrainDeparture(train));
+  }
+
+  /**
+   * Assigns new tracks to many train departures at once. The track numbers are mapped by the train
+   * numbers of the train departures, and train numbers that do not exist in the train register are
+   * ignored. Only one snapshot is published for the whole batch.
+   *
+   * @param trackNumbers The new track numbers, mapped by train number.
+   * @return The number of train departures that were found and assigned a new track.
+   * @since 3.1.0
+   */
+  public int setNewTrackNumbers(Map<Integer, Integer> trackNumbers) {
+    int assigned = 0;
+    for (Map.Entry<Integer, Integer> trackNumber : trackNumbers.entrySet()) {
+      TrainDeparture train = findTrain(trackNumber.getKey());
+      if (train != null) {
+        removeFromIndex(this.trackIndex, train.getTrackNumber(), train);
+        this.bitmapIndex.remove(train);
+        train.setTrackNumber(trackNumber.getValue());
+        addToIndex(this.trackIndex, train.getTrackNumber(), train);
+        this.bitmapIndex.add(train);
+        this.snapshotTrains = this.snapshotTrains.with(new ReadOnlyTrainDeparture(train));
+        assigned++;
+      }
+    }
+    publish();
+    return assigned;
+  }
+
+  /**
+   * Returns an iterator of the remaining train departures in the train register, sorted by the real
+   * departure time. The train departures that have already departed will not be shown. A train
+   * departure delayed past midnight has not departed on this day.
    *
    * @return An iterator of the remaining train departures in the train register.
    * @since 3.0.0
    */
   public Iterator<TrainDeparture> hideDepartedTrains() {
-    var remainingTrains = this.trainRegister.stream()
-        .filter(train -> (train.getDepartureTime().isBefore(train.getRealDepartureTime())
-            || train.getDepartureTime().equals(train.getRealDepartureTime()))
-            && train.getRealDepartureTime().isAfter(this.stationClock)
-            || train.getDepartureTime().isAfter(train.getRealDepartureTime()));
+    return readOnly(this.remainingTrains).iterator();
+  }
 
-    return remainingTrains.collect(Collectors.toCollection(ArrayList::new)).iterator();
+  /**
+   * Returns an iterator of the next remaining train departures, sorted by the real departure time.
+   * At most the specified number of train departures is returned, so a departure board only reads
+   * the train departures it can show. The query costs O(log n + k) for k train departures, no
+   * matter how many train departures remain this day.
+   *
+   * @param numberOfTrains The largest number of train departures to return.
+   * @return An iterator of the next remaining train departures.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> nextDepartures(int numberOfTrains) {
+    List<TrainDeparture> trains = new ArrayList<>(Math.max(0, numberOfTrains));
+    Iterator<TrainDeparture> remaining = this.remainingTrains.iterator();
+    while (trains.size() < numberOfTrains && remaining.hasNext()) {
+      trains.add(new ReadOnlyTrainDeparture(remaining.next()));
+    }
+    return trains.iterator();
   }
 
   /**
-   * Resets the train register. The train register will be empty after the method is called.
+   * Resets the train register. The train register will be empty after the method is called, and
+   * the train numbers are released in the network.
    *
    * @since 3.0.0
    */
   public void emptyTrainRegister() {
+    for (TrainDeparture train : this.trainRegister) {
+      release(train.getTrainNumber());
+    }
     this.trainRegister.clear();
+    this.trainNumberIndex.clear();
+    this.destinationIndex.clear();
+    this.lineIndex.clear();
+    this.trackIndex.clear();
+    this.bitmapIndex.clear();
+    this.destinationTrie.clear();
+    this.destinationTree.clear();
+    this.remainingTrains.clear();
+    this.departedTrains.clear();
+    this.snapshotTrains = PersistentDepartureTree.EMPTY;
+    publish();
+  }
+
+  /**
+   * A spliterator that hands out read-only copies of the train departures of another spliterator.
+   * A copy sorts like its train departure and is a new object, so the characteristics and the
+   * comparator of the other spliterator still hold.
+   */
+  private static final class ReadOnlySpliterator implements Spliterator<TrainDeparture> {
+
+    private final Spliterator<TrainDeparture> trains;
+
+    private ReadOnlySpliterator(Spliterator<TrainDeparture> trains) {
+      this.trains = trains;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super TrainDeparture> action) {
+      return this.trains.tryAdvance(train -> action.accept(new ReadOnlyTrainDeparture(train)));
+    }
+
+    @Override
+    public Spliterator<TrainDeparture> trySplit() {
+      Spliterator<TrainDeparture> split = this.trains.trySplit();
+      return split == null ? null : new ReadOnlySpliterator(split);
+    }
+
+    @Override
+    public long estimateSize() {
+      return this.trains.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+      return this.trains.characteristics();
+    }
+
+    @Override
+    public Comparator<? super TrainDeparture> getComparator() {
+      return this.trains.getComparator();
+    }
+  }
+
+  /**
+   * A read-only view of a sorted list as a SortedSet. A TreeSet builds itself from the view in
+   * linear time. The view finds a train departure, and the bounds of its subsets, by a binary
+   * search in the list, and a subset is a view of a part of the same list. A bound outside a subset
+   * is moved to the nearest end of the subset instead of being rejected.
+   */
+  static final class SortedListView extends AbstractSet<TrainDeparture>
+      implements SortedSet<TrainDeparture> {
+
+    private final List<TrainDeparture> sorted;
+    private final Comparator<? super TrainDeparture> order;
+
+    SortedListView(List<TrainDeparture> sorted, Comparator<? super TrainDeparture> order) {
+      this.sorted = sorted;
+      this.order = order;
+    }
+
+    @Override
+    public Iterator<TrainDeparture> iterator() {
+      return Collections.unmodifiableList(this.sorted).iterator();
+    }
+
+    @Override
+    public int size() {
+      return this.sorted.size();
+    }
+
+    @Override
+    public boolean contains(Object train) {
+      return train instanceof TrainDeparture
+          && Collections.binarySearch(this.sorted, (TrainDeparture) train, this.order) >= 0;
+    }
+
+    @Override
+    public Comparator<? super TrainDeparture> comparator() {
+      return this.order;
+    }
+
+    @Override
+    public TrainDeparture first() {
+      if (this.sorted.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      return this.sorted.get(0);
+    }
+
+    @Override
+    public TrainDeparture last() {
+      if (this.sorted.isEmpty()) {
+        throw new NoSuchElementException();
+      }
+      return this.sorted.get(this.sorted.size() - 1);
+    }
+
+    @Override
+    public SortedSet<TrainDeparture> subSet(TrainDeparture from, TrainDeparture to) {
+      if (this.order.compare(from, to) > 0) {
+        throw new IllegalArgumentException("The first train departure is after the last.");
+      }
+      return view(indexOf(from), indexOf(to));
+    }
+
+    @Override
+    public SortedSet<TrainDeparture> headSet(TrainDeparture to) {
+      return view(0, indexOf(to));
+    }
+
+    @Override
+    public SortedSet<TrainDeparture> tailSet(TrainDeparture from) {
+      return view(indexOf(from), this.sorted.size());
+    }
+
+    /**
+     * Returns the index of the first train departure that is not before the specified train
+     * departure, found by a binary search.
+     */
+    private int indexOf(TrainDeparture train) {
+      int index = Collections.binarySearch(this.sorted, train, this.order);
+      return index >= 0 ? index : -index - 1;
+    }
+
+    /**
+     * Returns a view of the train departures from the first index, inclusive, to the last index,
+     * exclusive.
+     */
+    private SortedListView view(int from, int to) {
+      return new SortedListView(this.sorted.subList(from, to), this.order);
+    }
   }
 }
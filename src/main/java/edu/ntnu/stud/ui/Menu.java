@@ -88,14 +88,15 @@ public class Menu {
 
   /**
    * Displays the menu for train information. The user can choose to display the train information
-   * table or the train history. If the train history is empty, the method will display an error
-   * message and prompt the user if they want to add a new train departure.
+   * table, the train history or the departure board. If the train history is empty, the method will
+   * display an error message and prompt the user if they want to add a new train departure.
    */
   private void informationTableMenu() {
     if (dispatcher.getTrainHistory().hasNext()) {
       switch (dispatcher.selectInformationOption(message)) {
         case Selection.DISPLAY_TABLE -> displayTable();
         case Selection.DISPLAY_HISTORY -> displayHistory();
+        case Selection.DISPLAY_BOARD -> displayBoard();
         case Selection.RETURN_MAIN_MENU -> message.returnToMainMenu();
         default -> {
           message.errorMessage(ErrorResponse.INVALID_OPTION);
@@ -115,7 +116,7 @@ public class Menu {
    * @since 2.4.0
    */
   private void displayTable() {
-    if (dispatcher.getTrainRegister().hasNext()) {
+    if (dispatcher.hasRemainingTrains()) {
       message.printTrainInformationTable(this.dispatcher.displayClock(),
           dispatcher.getTrainRegister());
       dispatcher.pressToContinue(message);
@@ -125,6 +126,23 @@ public class Menu {
     }
   }
 
+  /**
+   * Displays the departure board with the next train departures to the user. If there are no
+   * remaining train departures, the method will display an error message and prompt the user an
+   * option to add a new train departure.
+   *
+   * @since 3.1.0
+   */
+  private void displayBoard() {
+    if (dispatcher.hasRemainingTrains()) {
+      message.printDepartureBoard(dispatcher.displayClock(), dispatcher.getDepartureBoard());
+      dispatcher.pressToContinue(message);
+
+    } else if (dispatcher.askEmptyRegister(message)) {
+      addTrainSubMenu();
+    }
+  }
+
   /**
    * Displays the train history to the user.
    *
@@ -145,14 +163,14 @@ public class Menu {
    * @since 2.3.0
    */
   private boolean isInformationTableEmpty() {
-    if (dispatcher.getTrainRegister().hasNext()) {
+    if (dispatcher.hasRemainingTrains()) {
       message.printTrainInformationTable(this.dispatcher.displayClock(),
           dispatcher.getTrainRegister());
 
     } else if (dispatcher.askEmptyRegister(message)) {
       addTrainSubMenu();
     }
-    return dispatcher.getTrainRegister().hasNext();
+    return dispatcher.hasRemainingTrains();
   }
 
   /**
@@ -200,7 +218,7 @@ public class Menu {
    * @since 2.4.0
    */
   private void removeTrainMenu() {
-    if (dispatcher.getTrainRegister().hasNext()) {
+    if (dispatcher.hasRemainingTrains()) {
       message.removeTrainDepartureOption();
 
       if (dispatcher.askToContinue(message)) {
@@ -341,6 +359,7 @@ public class Menu {
       switch (dispatcher.selectSearchOption(message)) {
         case Selection.SEARCH_TRAIN_NUMBER -> searchByTrainNumberMenu();
         case Selection.SEARCH_DESTINATION -> searchByDestinationMenu();
+        case Selection.SEARCH_TRAIN_LINE -> searchByTrainLineMenu();
         case Selection.RETURN_MAIN_MENU -> message.returnToMainMenu();
         default -> {
           message.errorMessage(ErrorResponse.INVALID_OPTION);
@@ -399,6 +418,26 @@ public class Menu {
     }
   }
 
+  /**
+   * Displays the train history to the user. The method prompts the user to enter the train line of
+   * the train departures to display. If there are no train departures on the train line, the user
+   * will be prompted to try a new train line.
+   *
+   * @since 3.1.0
+   */
+  private void searchByTrainLineMenu() {
+    message.printTrainInformationTable(dispatcher.displayClock(), dispatcher.getTrainHistory());
+    Iterator<TrainDeparture> onTrainLine = dispatcher.searchByTrainLine(message);
+
+    if (onTrainLine.hasNext()) {
+      message.printSelectedTrain(dispatcher.displayClock(), onTrainLine);
+      dispatcher.pressToContinue(message);
+
+    } else if (dispatcher.askAgainEmptyIterator(message)) {
+      searchByTrainLineMenu();
+    }
+  }
+
   /**
    * Displays the menu for updating the clock to the user. The method prompts the user to enter the
    * new time for the application. The train departures that has departed will not be shown in the
@@ -4,6 +4,7 @@ import edu.ntnu.stud.transport.TrainDeparture;
 import edu.ntnu.stud.util.ErrorResponse;
 import java.time.LocalTime;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * The Print class is used to print message output to the console. The class contains methods to
@@ -18,6 +19,7 @@ import java.util.Iterator;
 
 public class Print {
 
+  public static final int BOARD_ROWS = 10;
   private final ConsoleColor color;
   private final Object[] trainInformationHeader;
   private static final String TABLE_FORMAT = "%-20s %-20s %-20s %-20s %-20s %-20s%n";
@@ -254,6 +256,8 @@ public class Print {
         + ConsoleColor.ANSI_BLUE + " by train number");
     color.printWhite("[2]" + color.printBlueBold(SEARCH)
         + ConsoleColor.ANSI_BLUE + " by destination");
+    color.printWhite("[3]" + color.printBlueBold(SEARCH)
+        + ConsoleColor.ANSI_BLUE + " by train line");
     color.printWhite("[9]" + color.printBlueBold(RETURN)
         + ConsoleColor.ANSI_BLUE + MAIN_MENU);
     printSeparator();
@@ -300,6 +304,8 @@ public class Print {
         + ConsoleColor.ANSI_BLUE + " information table");
     color.printWhite("[2]" + color.printBlueBold(" Display")
         + ConsoleColor.ANSI_BLUE + " today's train history");
+    color.printWhite("[3]" + color.printBlueBold(" Display")
+        + ConsoleColor.ANSI_BLUE + " departure board");
     color.printWhite("[9]" + color.printBlueBold(RETURN)
         + ConsoleColor.ANSI_BLUE + MAIN_MENU);
     printSeparator();
@@ -390,6 +396,20 @@ public class Print {
     printTable(stationClock, trainIterator);
   }
 
+  /**
+   * Prints the departure board with the next train departures. The board has room for BOARD_ROWS
+   * train departures, so the train iterator should contain no more than that.
+   *
+   * @param stationClock  The clock containing the current time of the station.
+   * @param trainIterator The train iterator containing the next train departures.
+   * @since 3.1.0
+   */
+  public void printDepartureBoard(LocalTime stationClock, Iterator<TrainDeparture> trainIterator) {
+    printSeparator();
+    color.printBlueBackground(color.printWhiteBold(" Departure Board "));
+    printTable(stationClock, trainIterator);
+  }
+
   /**
    * Prints the selected train departures.
    *
@@ -528,6 +548,34 @@ public class Print {
     color.printCyan("The train numbers are unique for this day ::");
   }
 
+  /**
+   * Prints the destinations starting with the text the user searched for, and which of them is
+   * shown. The first destination is the one with the most upcoming train departures.
+   *
+   * @param prefix       The text the user searched for.
+   * @param destinations The matching destinations, ranked by upcoming train departures.
+   * @since 3.1.0
+   */
+  public void printDestinationMatches(String prefix, List<String> destinations) {
+    color.printCyan("Destinations starting with '" + prefix + "' :: "
+        + String.join(", ", destinations));
+    color.printCyan("Showing " + color.printCyanBold(destinations.get(0)));
+  }
+
+  /**
+   * Prints the destinations spelled almost like the text the user searched for, and which of them
+   * is shown. The first destination is the closest one.
+   *
+   * @param search       The text the user searched for.
+   * @param destinations The closest destinations.
+   * @since 3.1.0
+   */
+  public void printSimilarDestinations(String search, List<String> destinations) {
+    color.printCyan("No destination named '" + search + "'. Did you mean :: "
+        + String.join(", ", destinations));
+    color.printCyan("Showing " + color.printCyanBold(destinations.get(0)));
+  }
+
   /**
    * Prompts the user to enter the destination they want to search for.
    *
@@ -539,6 +587,17 @@ public class Print {
     color.printCyan("The destination must be a sequence of characters ::");
   }
 
+  /**
+   * Prompts the user to enter the train line they want to search for.
+   *
+   * @since 3.1.0
+   */
+  public void inputSearchTrainLine() {
+    color.printCyan(PLEASE_ENTER + color.printCyanBold("the train line")
+        + ConsoleColor.ANSI_CYAN + " you want to search for");
+    color.printCyan("A train line could be (RE12, L2, F3, etc.) ::");
+  }
+
   /**
    * Asks the user if they want to add a new train departure.
    *
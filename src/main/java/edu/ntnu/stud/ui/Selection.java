@@ -25,6 +25,7 @@ public class Selection {
   // search menu options
   public static final int SEARCH_TRAIN_NUMBER = 1;
   public static final int SEARCH_DESTINATION = 2;
+  public static final int SEARCH_TRAIN_LINE = 3;
   public static final int RETURN_MAIN_MENU = 9;
   // edit menu options
   public static final int SET_DEPARTURE_TIME = 1;
@@ -36,6 +37,7 @@ public class Selection {
   // train information menu
   public static final int DISPLAY_TABLE = 1;
   public static final int DISPLAY_HISTORY = 2;
+  public static final int DISPLAY_BOARD = 3;
 
   private Selection() {
   }
@@ -6,6 +6,7 @@ import edu.ntnu.stud.util.ErrorResponse;
 import edu.ntnu.stud.util.InputValidator;
 import java.time.LocalTime;
 import java.util.Iterator;
+import java.util.List;
 
 
 /**
@@ -22,6 +23,8 @@ import java.util.Iterator;
 
 public class TrainDispatcher {
 
+  private static final int DESTINATION_MATCHES = 5;
+  private static final int MAX_SPELLING_DISTANCE = 2;
   private final InputValidator handler;
   private final TrainStation station;
 
@@ -242,13 +245,47 @@ public class TrainDispatcher {
   /**
    * Searches for all train departures with the specified destination The method prompts the user to
    * enter the destination of the train departure. The method will return an iterator containing all
-   * train departures with the specified destination.
+   * train departures with the specified destination. If no destination matches the input exactly,
+   * the input is used as the start of a destination, the matching destinations are shown to the
+   * user, and the train departures of the destination with the most upcoming train departures are
+   * returned. If no destination starts with the input either, the input is treated as a misspelled
+   * destination, and the train departures of the closest destination are returned.
    *
    * @return An iterator containing all train departures with the specified destination.
    * @since 2.3.0
    */
   public Iterator<TrainDeparture> searchByDestination(Print message) {
-    return this.station.searchByDestination(handler.inputSearchDestination(message));
+    String destination = handler.inputSearchDestination(message);
+    Iterator<TrainDeparture> trains = this.station.searchByDestination(destination);
+    if (trains.hasNext()) {
+      return trains;
+    }
+    List<String> matches = this.station.searchDestinationsByPrefix(destination,
+        DESTINATION_MATCHES);
+    if (!matches.isEmpty()) {
+      message.printDestinationMatches(destination, matches);
+      return this.station.searchByDestination(matches.get(0));
+    }
+    matches = this.station.searchDestinationsBySpelling(destination, MAX_SPELLING_DISTANCE,
+        DESTINATION_MATCHES);
+    if (!matches.isEmpty()) {
+      message.printSimilarDestinations(destination, matches);
+      return this.station.searchByDestination(matches.get(0));
+    }
+    return trains;
+  }
+
+  /**
+   * Searches for all train departures on the specified train line. The method prompts the user to
+   * enter the train line, and returns an iterator containing all train departures on the train
+   * line, sorted by departure time.
+   *
+   * @param message The object of class Print used to print messages to the console.
+   * @return An iterator containing all train departures on the specified train line.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> searchByTrainLine(Print message) {
+    return this.station.searchByTrainLine(handler.inputSearchTrainLine(message));
   }
 
   /**
@@ -420,9 +457,45 @@ public class TrainDispatcher {
     return this.station.getTrainRegister();
   }
 
+  /**
+   * Returns an iterator containing the next remaining train departures, sorted by the real
+   * departure time. The iterator contains no more train departures than the departure board can
+   * show.
+   *
+   * @return An iterator containing the next remaining train departures.
+   * @since 3.1.0
+   */
+  public Iterator<TrainDeparture> getDepartureBoard() {
+    return this.station.nextDepartures(Print.BOARD_ROWS);
+  }
+
+  /**
+   * Returns <code>true</code> if there are remaining train departures in the train register. The
+   * check stops at the first remaining train departure instead of copying all of them.
+   *
+   * @return <code>true</code> if there are remaining train departures, <code>false</code>
+   *     otherwise.
+   * @since 3.1.0
+   */
+  public boolean hasRemainingTrains() {
+    return this.station.streamRemainingTrains().findAny().isPresent();
+  }
+
+  /**
+   * Returns <code>true</code> if the train number exists in the train register.
+   *
+   * @param trainNumber The train number of the train departure.
+   * @return <code>true</code> if the train number exists, <code>false</code> otherwise.
+   * @since 3.1.0
+   */
+  private boolean isRegistered(int trainNumber) {
+    return this.station.streamByTrainNumber(trainNumber).findAny().isPresent();
+  }
+
   /**
    * Sets the departure time of the selected train departure. The departure time is represented as a
-   * string. If no train departure is selected, the method will return an empty iterator.
+   * string. The train station moves the train departure to its new position in the train register.
+   * If no train departure is selected, the method will return an empty iterator.
    *
    * @param message     The object of class Print used to print messages to the console.
    * @param trainNumber The train number of the train departure.
@@ -430,12 +503,8 @@ public class TrainDispatcher {
    * @since 3.0.0
    */
   public Iterator<TrainDeparture> setDepartureTime(Print message, int trainNumber) {
-    Iterator<TrainDeparture> iterator = searchByTrainNumber(trainNumber);
-    if (iterator.hasNext()) {
-      TrainDeparture train = iterator.next();
+    if (isRegistered(trainNumber)) {
       station.setNewDepartureTime(trainNumber, handler.inputDepartureTime(message, station));
-      station.removeTrainDeparture(train.getTrainNumber());
-      station.addTrainDeparture(train);
     }
     return searchByTrainNumber(trainNumber);
   }
@@ -452,7 +521,7 @@ public class TrainDispatcher {
    */
   public Iterator<TrainDeparture> setTrainNumber(Print message, int trainNumber) {
     int newTrainNumber = handler.inputTrainNumber(message, station);
-    if (searchByTrainNumber(trainNumber).hasNext() && station.isTrainNumberUnique(newTrainNumber)) {
+    if (isRegistered(trainNumber) && station.isTrainNumberUnique(newTrainNumber)) {
       station.setNewTrainNumber(trainNumber, newTrainNumber);
     } else {
       newTrainNumber = trainNumber;
@@ -471,7 +540,7 @@ public class TrainDispatcher {
    * @since 2.2.0
    */
   public Iterator<TrainDeparture> setTrainLine(Print message, int trainNumber) {
-    if (searchByTrainNumber(trainNumber).hasNext()) {
+    if (isRegistered(trainNumber)) {
       station.setNewTrainLine(trainNumber, handler.inputTrainLine(message));
     }
     return searchByTrainNumber(trainNumber);
@@ -487,7 +556,7 @@ public class TrainDispatcher {
    * @since 2.2.0
    */
   public Iterator<TrainDeparture> setDestination(Print message, int trainNumber) {
-    if (searchByTrainNumber(trainNumber).hasNext()) {
+    if (isRegistered(trainNumber)) {
       message.inputDestination();
       station.setNewDestination(trainNumber, handler.inputDestination(message));
     }
@@ -504,7 +573,7 @@ public class TrainDispatcher {
    * @since 2.2.0
    */
   public Iterator<TrainDeparture> setDelay(Print message, int trainNumber) {
-    if (searchByTrainNumber(trainNumber).hasNext()) {
+    if (isRegistered(trainNumber)) {
       station.setNewDelay(trainNumber, handler.inputDelay(message));
     }
     return searchByTrainNumber(trainNumber);
@@ -519,7 +588,7 @@ public class TrainDispatcher {
    * @return An iterator containing the edited train departure.
    */
   public Iterator<TrainDeparture> setTrackNumber(Print message, int trainNumber) {
-    if (searchByTrainNumber(trainNumber).hasNext()) {
+    if (isRegistered(trainNumber)) {
       station.setNewTrackNumber(trainNumber, handler.inputTrackNumber(message));
     }
     return searchByTrainNumber(trainNumber);
@@ -534,7 +603,7 @@ public class TrainDispatcher {
    * @since 2.4.0
    */
   public void removeTrainDeparture(int trainNumber) {
-    if (searchByTrainNumber(trainNumber).hasNext()) {
+    if (isRegistered(trainNumber)) {
       station.removeTrainDeparture(trainNumber);
     }
   }
@@ -331,6 +331,32 @@ public class InputValidator {
    */
   public String inputTrainLine(Print print) {
     print.inputTrainLine();
+    return validateTrainLine(print);
+  }
+
+  /**
+   * The user is prompted to enter a train line to search for. The input is validated to make sure
+   * the format is correct. The user will be prompted to enter a new train line until the input is
+   * correct. The method returns the validated train line.
+   *
+   * @param print An object of the Print class.
+   * @return The validated train line.
+   * @since 3.1.0
+   */
+  public String inputSearchTrainLine(Print print) {
+    print.inputSearchTrainLine();
+    return validateTrainLine(print);
+  }
+
+  /**
+   * Reads train lines from the user until one is valid, and returns it. An invalid train line is
+   * reported to the user before the next one is read.
+   *
+   * @param print An object of the Print class.
+   * @return The validated train line.
+   * @since 3.1.0
+   */
+  private String validateTrainLine(Print print) {
     correctInput = false;
     while (!correctInput) {
       response = inputReader.nextLine();
@@ -0,0 +1,121 @@
+package edu.ntnu.stud.transport;
+
+import java.util.Iterator;
+
+
+/*
+ * This class is used to benchmark the ColumnarDepartureStore class against the TrainStation class.
+ * The benchmark is not a unit test and is not run by Maven. It prints the memory footprint per
+ * train departure, the throughput of the departure board scans, and the throughput of the changes
+ * made by a delay feed.
+ */
+
+public class ColumnarDepartureStoreBenchmark {
+
+  private static final int DEPARTURES = 200_000;
+  private static final int SCANS = 20;
+  private static final int DELAYS = 20_000;
+
+  private static long blackHole;
+
+  private ColumnarDepartureStoreBenchmark() {
+  }
+
+  /*
+   * Runs the benchmarks and prints the results to the console.
+   */
+  public static void main(String[] args) {
+    long before = usedMemory();
+    TrainStation station = TrainStationBenchmark.populate(new TrainStation(), DEPARTURES);
+    report("TrainStation", usedMemory() - before);
+
+    before = usedMemory();
+    ColumnarDepartureStore store = ColumnarDepartureStore.of(station.getTrainRegister());
+    report("ColumnarDepartureStore", usedMemory() - before);
+
+    station.setStationClock("12:00");
+    store.setStationClock("12:00");
+    TrainStationBenchmark.measure("TrainStation, count remaining trains", SCANS, () -> {
+      for (int scan = 0; scan < SCANS; scan++) {
+        blackHole += station.getNumberOfTrains();
+      }
+    });
+    TrainStationBenchmark.measure("columnar, count remaining trains", SCANS, () -> {
+      for (int scan = 0; scan < SCANS; scan++) {
+        blackHole += store.getNumberOfTrains();
+      }
+    });
+    TrainStationBenchmark.measure("TrainStation, next 20 departures", SCANS, () -> {
+      for (int scan = 0; scan < SCANS; scan++) {
+        blackHole += count(station.nextDepartures(20));
+      }
+    });
+    TrainStationBenchmark.measure("columnar, next 20 departures", SCANS, () -> {
+      for (int scan = 0; scan < SCANS; scan++) {
+        blackHole += count(store.nextDepartures(20));
+      }
+    });
+    TrainStationBenchmark.measure("TrainStation, all remaining trains", DEPARTURES * SCANS, () -> {
+      for (int scan = 0; scan < SCANS; scan++) {
+        blackHole += count(station.hideDepartedTrains());
+      }
+    });
+    TrainStationBenchmark.measure("columnar, all remaining trains", DEPARTURES * SCANS, () -> {
+      for (int scan = 0; scan < SCANS; scan++) {
+        blackHole += count(store.hideDepartedTrains());
+      }
+    });
+    TrainStationBenchmark.measure("TrainStation, destination", DEPARTURES * SCANS, () -> {
+      for (int scan = 0; scan < SCANS; scan++) {
+        blackHole += count(station.searchByDestination("bergen"));
+      }
+    });
+    TrainStationBenchmark.measure("columnar, destination", DEPARTURES * SCANS, () -> {
+      for (int scan = 0; scan < SCANS; scan++) {
+        blackHole += count(store.searchByDestination("bergen"));
+      }
+    });
+    TrainStationBenchmark.measure("TrainStation, setNewDelay", DELAYS, () -> {
+      for (int delay = 0; delay < DELAYS; delay++) {
+        station.setNewDelay(1 + delay * 7 % DEPARTURES, delay % 30);
+      }
+    });
+    TrainStationBenchmark.measure("columnar, setNewDelay", DELAYS, () -> {
+      for (int delay = 0; delay < DELAYS; delay++) {
+        store.setNewDelay(1 + delay * 7 % DEPARTURES, delay % 30);
+      }
+    });
+    System.out.println("(ignore) " + blackHole + station.getNumberOfTrains() + store.size());
+  }
+
+  /*
+   * Returns the number of train departures of the iterator.
+   */
+  private static int count(Iterator<TrainDeparture> trains) {
+    int count = 0;
+    while (trains.hasNext()) {
+      trains.next();
+      count++;
+    }
+    return count;
+  }
+
+  /*
+   * Prints the retained memory per train departure in bytes.
+   */
+  private static void report(String label, long bytes) {
+    System.out.printf("%-45s %12.1f bytes/departure%n", label + " memory",
+        (double) bytes / DEPARTURES);
+  }
+
+  /*
+   * Returns the memory used by the heap after a garbage collection.
+   */
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,239 @@
+package edu.ntnu.stud.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ * This class is used to test the ColumnarDepartureStore class.
+ */
+
+class ColumnarDepartureStoreTest {
+
+  private ColumnarDepartureStore columnarDepartureStoreTest;
+
+  /*
+   * This method is used to set up the test environment before each test.
+   */
+  @BeforeEach
+  void setUp() {
+    columnarDepartureStoreTest = new ColumnarDepartureStore();
+    columnarDepartureStoreTest.addTrainDeparture("11:00", 13, "L2", "Oslo");
+    columnarDepartureStoreTest.addTrainDeparture("12:30", 424, "F3", "Trondheim");
+    columnarDepartureStoreTest.addTrainDeparture("14:00", 65, "RE11", "Bergen");
+    columnarDepartureStoreTest.setNewDelay(13, 45);
+    columnarDepartureStoreTest.setNewTrackNumber(424, 3);
+  }
+
+  /*
+   * Positive test for the searchByTrainNumber method. Checks if a row is materialized with the
+   * same information as the added train departure.
+   */
+  @Test
+  void searchByTrainNumberPositiveTest() {
+    TrainDeparture train = columnarDepartureStoreTest.searchByTrainNumber(13).next();
+    assertEquals(13, train.getTrainNumber(), "The train number was wrong");
+    assertEquals(LocalTime.parse("11:45"), train.getRealDepartureTime(),
+        "The real departure time was wrong");
+    assertEquals("Oslo", train.getDestination(), "The destination was wrong");
+    assertEquals("L2", train.getTrainLine(), "The train line was wrong");
+    assertEquals(3, columnarDepartureStoreTest.searchByTrainNumber(424).next().getTrackNumber(),
+        "The track number was wrong");
+  }
+
+  /*
+   * Negative test for the searchByTrainNumber method. Checks if a train number that does not exist
+   * returns no train departure, and if the returned train departures can not be changed.
+   */
+  @Test
+  void searchByTrainNumberNegativeTest() {
+    assertFalse(columnarDepartureStoreTest.searchByTrainNumber(999).hasNext(),
+        "A train number that does not exist was found");
+    TrainDeparture train = columnarDepartureStoreTest.searchByTrainNumber(13).next();
+    assertThrows(UnsupportedOperationException.class, () -> train.setDelay(0),
+        "A train departure of the store was changed");
+  }
+
+  /*
+   * Negative test for the addTrainDeparture method. Checks if a train departure with an invalid or
+   * used train number, or departing before the station clock, is not added.
+   */
+  @Test
+  void addTrainDepartureNegativeTest() {
+    columnarDepartureStoreTest.setStationClock("10:00");
+    columnarDepartureStoreTest.addTrainDeparture("12:00", 0, "L1", "Hamar");
+    columnarDepartureStoreTest.addTrainDeparture("12:00", 13, "L1", "Hamar");
+    columnarDepartureStoreTest.addTrainDeparture("09:00", 7, "L1", "Hamar");
+    assertEquals(3, columnarDepartureStoreTest.size(), "An invalid train departure was added");
+    assertFalse(columnarDepartureStoreTest.searchByDestination("Hamar").hasNext(),
+        "An invalid train departure was added");
+  }
+
+  /*
+   * Positive test for the hideDepartedTrains and setStationClock methods. Checks if the remaining
+   * train departures are sorted by the real departure time, and if the departed train departures
+   * are split off by the station clock and moved back when the clock is reset.
+   */
+  @Test
+  void setStationClockPositiveTest() {
+    columnarDepartureStoreTest.setNewDelay(424, 120);
+    assertEquals(List.of(13, 65, 424),
+        trainNumbers(columnarDepartureStoreTest.hideDepartedTrains()),
+        "The remaining trains were not sorted by the real departure time");
+    columnarDepartureStoreTest.setStationClock("14:00");
+    assertEquals(1, columnarDepartureStoreTest.getNumberOfTrains(),
+        "The remaining trains were counted wrong");
+    assertEquals(List.of(13, 65), trainNumbers(columnarDepartureStoreTest.getDepartedTrains()),
+        "The departed trains were wrong");
+    columnarDepartureStoreTest.setStationClock("12:00");
+    assertEquals(LocalTime.parse("14:00"), columnarDepartureStoreTest.getStationClock(),
+        "The station clock was moved back");
+    columnarDepartureStoreTest.resetClock();
+    assertEquals(3, columnarDepartureStoreTest.getNumberOfTrains(),
+        "The trains were not moved back when the clock was reset");
+  }
+
+  /*
+   * Positive test for the nextDepartures method. Checks if at most the specified number of
+   * remaining train departures is returned.
+   */
+  @Test
+  void nextDeparturesPositiveTest() {
+    columnarDepartureStoreTest.setStationClock("12:00");
+    assertEquals(List.of(424), trainNumbers(columnarDepartureStoreTest.nextDepartures(1)),
+        "The next departure was wrong");
+    assertEquals(List.of(424, 65), trainNumbers(columnarDepartureStoreTest.nextDepartures(5)),
+        "More train departures than remaining were returned");
+    assertFalse(columnarDepartureStoreTest.nextDepartures(-1).hasNext(),
+        "A negative number of train departures was returned");
+  }
+
+  /*
+   * Positive test for the getTrainRegister method. Checks if the train departures are sorted by
+   * departure time, not by the real departure time.
+   */
+  @Test
+  void getTrainRegisterPositiveTest() {
+    columnarDepartureStoreTest.setNewDelay(13, 200);
+    assertEquals(List.of(13, 424, 65), trainNumbers(columnarDepartureStoreTest.getTrainRegister()),
+        "The train register was not sorted by departure time");
+  }
+
+  /*
+   * Positive test for the removeTrainDeparture and setNewTrainNumber methods. Checks if a removed
+   * train departure is gone, and if a train number is only changed to an unused one.
+   */
+  @Test
+  void removeTrainDeparturePositiveTest() {
+    columnarDepartureStoreTest.removeTrainDeparture(424);
+    columnarDepartureStoreTest.removeTrainDeparture(999);
+    assertEquals(List.of(13, 65), trainNumbers(columnarDepartureStoreTest.hideDepartedTrains()),
+        "The train departure was not removed");
+    columnarDepartureStoreTest.setNewTrainNumber(13, 65);
+    columnarDepartureStoreTest.setNewTrainNumber(65, 7);
+    assertEquals(List.of(13, 7), trainNumbers(columnarDepartureStoreTest.hideDepartedTrains()),
+        "The train numbers were changed wrong");
+  }
+
+  /*
+   * Positive test for the searchByDestination, setNewDestination and setNewTrainLine methods.
+   * Checks if the destination is found ignoring case, if an unknown destination returns no train
+   * departures, and if the changed columns are found.
+   */
+  @Test
+  void searchByDestinationPositiveTest() {
+    assertEquals(List.of(65),
+        trainNumbers(columnarDepartureStoreTest.searchByDestination("BERGEN")),
+        "The train departures headed to Bergen were wrong");
+    assertFalse(columnarDepartureStoreTest.searchByDestination("Voss").hasNext(),
+        "An unknown destination returned train departures");
+    columnarDepartureStoreTest.setNewDestination(13, "bergen");
+    columnarDepartureStoreTest.setNewTrainLine(13, "r10");
+    assertEquals(List.of(13, 65),
+        trainNumbers(columnarDepartureStoreTest.searchByDestination("Bergen")),
+        "The new destination was not found");
+    assertEquals("R10", columnarDepartureStoreTest.searchByTrainNumber(13).next().getTrainLine(),
+        "The train line was not changed");
+  }
+
+  /*
+   * Negative test for the setNewDelay method. Checks if a negative delay and a delay of more than a
+   * day are normalized the same way as by TrainDeparture.
+   */
+  @Test
+  void setNewDelayNegativeTest() {
+    columnarDepartureStoreTest.setNewDelay(13, -30);
+    assertEquals(0, columnarDepartureStoreTest.searchByTrainNumber(13).next().getMinutesDelay(),
+        "A negative delay was stored");
+    columnarDepartureStoreTest.setNewDelay(424, 1440 + 60);
+    TrainDeparture train = new TrainDeparture("12:30", 424, "F3", "Trondheim");
+    train.setDelay(1440 + 60);
+    assertEquals(train.getRealDepartureMinutes(),
+        columnarDepartureStoreTest.searchByTrainNumber(424).next().getRealDepartureMinutes(),
+        "The delay was not normalized like TrainDeparture.setDelay");
+    columnarDepartureStoreTest.setStationClock("13:45");
+    assertEquals(List.of(65), trainNumbers(columnarDepartureStoreTest.hideDepartedTrains()),
+        "The remaining trains did not agree with the normalized delays");
+  }
+
+  /*
+   * Positive test for the ColumnarDepartureStore class. Makes the same random changes to a store
+   * and a train station, and checks that they always show the same remaining train departures.
+   */
+  @Test
+  void randomChangesPositiveTest() {
+    Random random = new Random(8);
+    ColumnarDepartureStore store = new ColumnarDepartureStore();
+    TrainStation station = new TrainStation();
+    for (int change = 0; change < 2000; change++) {
+      int trainNumber = 1 + random.nextInt(200);
+      switch (random.nextInt(5)) {
+        case 0, 1 -> {
+          String time = TrainStationBenchmark.time(1 + random.nextInt(1439));
+          store.addTrainDeparture(time, trainNumber, "L1", "Oslo");
+          station.addTrainDeparture(time, trainNumber, "L1", "Oslo");
+        }
+        case 2 -> {
+          store.removeTrainDeparture(trainNumber);
+          station.removeTrainDeparture(trainNumber);
+        }
+        case 3 -> {
+          int delay = random.nextInt(300);
+          store.setNewDelay(trainNumber, delay);
+          station.setNewDelay(trainNumber, delay);
+        }
+        default -> {
+          String time = TrainStationBenchmark.time(random.nextInt(1440));
+          store.setStationClock(time);
+          station.setStationClock(time);
+        }
+      }
+      if (change % 500 == 499) {
+        store.resetClock();
+        station.resetClock();
+      }
+    }
+    assertEquals(trainNumbers(station.hideDepartedTrains()),
+        trainNumbers(store.hideDepartedTrains()), "The remaining trains did not agree");
+    assertEquals(trainNumbers(station.getDepartedTrains()),
+        trainNumbers(store.getDepartedTrains()), "The departed trains did not agree");
+    assertEquals(trainNumbers(station.getTrainRegister()),
+        trainNumbers(store.getTrainRegister()), "The train registers did not agree");
+  }
+
+  /*
+   * Returns the train numbers of the train departures in the order of the iterator.
+   */
+  private static List<Integer> trainNumbers(Iterator<TrainDeparture> trains) {
+    List<Integer> trainNumbers = new ArrayList<>();
+    trains.forEachRemaining(train -> trainNumbers.add(train.getTrainNumber()));
+    return trainNumbers;
+  }
+}
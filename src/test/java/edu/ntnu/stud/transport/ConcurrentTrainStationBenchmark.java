@@ -0,0 +1,107 @@
+package edu.ntnu.stud.transport;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/*
+ * This class is used to benchmark the throughput of the ConcurrentTrainStation class against a
+ * TrainStation guarded by one lock, for 1 to N threads. Each thread runs a mix of nine lookups to
+ * one delay change. The benchmark is not a unit test and is not run by Maven. It prints the total
+ * number of operations per second for each number of threads.
+ */
+
+public class ConcurrentTrainStationBenchmark {
+
+  private static final int REGISTER_SIZE = 10_000;
+  private static final long RUN_MILLIS = 1_000;
+  private static final int WRITE_EVERY = 10;
+
+  private static volatile long blackHole;
+
+  private ConcurrentTrainStationBenchmark() {
+  }
+
+  /*
+   * Runs the benchmarks and prints the results to the console. The number of threads doubles up
+   * to twice the number of available processors.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    int maxThreads = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+    System.out.println("== Throughput, 90% lookups, 10% delay changes, n=" + REGISTER_SIZE
+        + ", " + Runtime.getRuntime().availableProcessors() + " processors ==");
+
+    ConcurrentTrainStation concurrentStation = new ConcurrentTrainStation();
+    TrainStation lockedStation = new TrainStation();
+    for (int trainNumber = 1; trainNumber <= REGISTER_SIZE; trainNumber++) {
+      String time = TrainStationBenchmark.time(1 + trainNumber % 1439);
+      concurrentStation.addTrainDeparture(time, trainNumber, "L1", "Oslo");
+      lockedStation.addTrainDeparture(time, trainNumber, "L1", "Oslo");
+    }
+
+    for (int threads = 1; threads <= maxThreads; threads *= 2) {
+      double concurrent = run(threads, (trainNumber, write) -> {
+        if (write) {
+          concurrentStation.setNewDelay(trainNumber, trainNumber % 60);
+        } else {
+          blackHole += concurrentStation.searchByTrainNumber(trainNumber).next().getTrackNumber();
+        }
+      });
+      double locked = run(threads, (trainNumber, write) -> {
+        synchronized (lockedStation) {
+          if (write) {
+            lockedStation.setNewDelay(trainNumber, trainNumber % 60);
+          } else {
+            blackHole += lockedStation.searchByTrainNumber(trainNumber).next().getTrackNumber();
+          }
+        }
+      });
+      System.out.printf("threads=%-3d ConcurrentTrainStation %8.2f Mops/s   "
+          + "locked TrainStation %8.2f Mops/s%n", threads, concurrent, locked);
+    }
+  }
+
+  /*
+   * An operation on a train station, either a lookup or a delay change.
+   */
+  private interface Operation {
+    void run(int trainNumber, boolean write);
+  }
+
+  /*
+   * Runs the operation on the specified number of threads for a fixed time, and returns the total
+   * number of operations per second in millions. The first half of the time is a warm-up.
+   */
+  private static double run(int threads, Operation operation) throws InterruptedException {
+    AtomicBoolean measuring = new AtomicBoolean(false);
+    AtomicBoolean running = new AtomicBoolean(true);
+    LongAdder operations = new LongAdder();
+    CountDownLatch done = new CountDownLatch(threads);
+    for (int thread = 0; thread < threads; thread++) {
+      Thread worker = new Thread(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long count = 0;
+        long measured = 0;
+        while (running.get()) {
+          operation.run(1 + random.nextInt(REGISTER_SIZE), count++ % WRITE_EVERY == 0);
+          if (measuring.get()) {
+            measured++;
+          }
+        }
+        operations.add(measured);
+        done.countDown();
+      });
+      worker.start();
+    }
+    Thread.sleep(RUN_MILLIS / 2);
+    measuring.set(true);
+    long start = System.nanoTime();
+    Thread.sleep(RUN_MILLIS);
+    running.set(false);
+    long elapsed = System.nanoTime() - start;
+    done.await();
+    return operations.sum() / (elapsed / 1e9) / 1e6;
+  }
+}
@@ -0,0 +1,223 @@
+package edu.ntnu.stud.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ * This class is used to test the ConcurrentTrainStation class.
+ */
+
+class ConcurrentTrainStationTest {
+
+  private ConcurrentTrainStation concurrentStationTest;
+
+  /*
+   * This method is used to set up the test environment before each test.
+   */
+  @BeforeEach
+  void setUp() {
+    concurrentStationTest = new ConcurrentTrainStation();
+    concurrentStationTest.setStationClock("10:00");
+    concurrentStationTest.addTrainDeparture("11:00", 13, "L2", "Oslo");
+    concurrentStationTest.addTrainDeparture("12:30", 424, "F3", "Trondheim");
+    concurrentStationTest.addTrainDeparture("14:00", 65, "RE11", "Bergen");
+    concurrentStationTest.addTrainDeparture("11:00", 65, "RE11", "Bergen");
+  }
+
+  /*
+   * Positive test for the setNewDelay method. Checks if an edit replaces the train departure by a
+   * changed copy, and leaves the train departure held by a reader unchanged.
+   */
+  @Test
+  void setNewDelayPositiveTest() {
+    TrainDeparture before = concurrentStationTest.searchByTrainNumber(13).next();
+    concurrentStationTest.setNewDelay(13, 150);
+    TrainDeparture after = concurrentStationTest.searchByTrainNumber(13).next();
+    assertEquals(0, before.getMinutesDelay(), "The train departure held by a reader was changed");
+    assertEquals(150, after.getMinutesDelay(), "The delay was not changed");
+    assertEquals(424, concurrentStationTest.hideDepartedTrains().next().getTrainNumber(),
+        "The delayed train was not moved in the remaining trains");
+  }
+
+  /*
+   * Negative test for the readers of the train station. Checks if the train departures they return
+   * can not be changed, so the keys of the sorted maps stay where they are.
+   */
+  @Test
+  void searchedTrainsReadOnlyNegativeTest() {
+    List<TrainDeparture> returned = new ArrayList<>();
+    returned.add(concurrentStationTest.searchByTrainNumber(13).next());
+    returned.add(concurrentStationTest.searchByDestination("Trondheim").next());
+    concurrentStationTest.getTrainRegister().forEachRemaining(returned::add);
+    concurrentStationTest.hideDepartedTrains().forEachRemaining(returned::add);
+    for (TrainDeparture train : returned) {
+      assertThrows(UnsupportedOperationException.class, () -> train.setDelay(300),
+          "A train departure of the train station was changed");
+      assertThrows(UnsupportedOperationException.class, () -> train.setDepartureTime("23:00"),
+          "A train departure of the train station was changed");
+    }
+    concurrentStationTest.setNewDelay(424, 10);
+    assertThrows(UnsupportedOperationException.class,
+        () -> concurrentStationTest.searchByTrainNumber(424).next().setTrainNumber(5),
+        "An edited train departure of the train station was changed");
+    assertEquals(3, concurrentStationTest.getNumberOfTrains(), "The remaining trains were changed");
+  }
+
+  /*
+   * Positive test for the setNewDelays and setNewTrackNumbers methods. Checks if every change of a
+   * batch is applied and train numbers that do not exist are ignored.
+   */
+  @Test
+  void batchUpdatePositiveTest() {
+    assertEquals(2, concurrentStationTest.setNewDelays(Map.of(13, 150, 424, 10, 999, 5)),
+        "The wrong number of train departures was delayed");
+    assertEquals(1, concurrentStationTest.setNewTrackNumbers(Map.of(65, 3, 999, 1)),
+        "The wrong number of train departures was assigned a track");
+    Iterator<TrainDeparture> remaining = concurrentStationTest.hideDepartedTrains();
+    assertEquals(424, remaining.next().getTrainNumber(), "The first remaining train was wrong");
+    assertEquals(13, remaining.next().getTrainNumber(), "The delayed train was not moved");
+    assertEquals(3, concurrentStationTest.searchByTrainNumber(65).next().getTrackNumber(),
+        "The track was not assigned");
+  }
+
+  /*
+   * Positive test for the setNewDestination method. Checks if the train departure is moved between
+   * the destinations in the destination index.
+   */
+  @Test
+  void setNewDestinationPositiveTest() {
+    concurrentStationTest.setNewDestination(13, "bergen");
+    assertFalse(concurrentStationTest.searchByDestination("Oslo").hasNext(),
+        "The train departure was still headed to Oslo");
+    assertEquals(13, concurrentStationTest.searchByDestination("Bergen").next().getTrainNumber(),
+        "The train departure was not headed to Bergen");
+  }
+
+  /*
+   * Positive test for the setStationClock method. Checks if the departed train departures are moved
+   * out of the remaining train departures, and back again when the clock is reset.
+   */
+  @Test
+  void setStationClockPositiveTest() {
+    concurrentStationTest.setStationClock("13:00");
+    assertEquals(1, concurrentStationTest.getNumberOfTrains(), "The remaining trains were wrong");
+    assertEquals(13, concurrentStationTest.getDepartedTrains().next().getTrainNumber(),
+        "The departed trains were wrong");
+    concurrentStationTest.resetClock();
+    assertEquals(3, concurrentStationTest.getNumberOfTrains(),
+        "The trains were not moved back when the clock was reset");
+  }
+
+  /*
+   * Negative test for the setNewTrainNumber method. Checks if a train number already in use is not
+   * given to another train departure.
+   */
+  @Test
+  void setNewTrainNumberNegativeTest() {
+    concurrentStationTest.setNewTrainNumber(13, 424);
+    assertEquals("Oslo", concurrentStationTest.searchByTrainNumber(13).next().getDestination(),
+        "The train departure was renumbered to a train number in use");
+    assertEquals(3, concurrentStationTest.getNumberOfTrains(), "The register was changed");
+  }
+
+  /*
+   * Negative test for the addTrainDeparture method. Checks if a train departure object with an
+   * invalid train number, or departing before the station clock, does not claim its train number
+   * in the network.
+   */
+  @Test
+  void addInvalidTrainDepartureNegativeTest() {
+    TrainNumberIndex network = new TrainNumberIndex(100);
+    ConcurrentTrainStation station = new ConcurrentTrainStation(network);
+    station.setStationClock("12:00");
+    station.addTrainDeparture(new TrainDeparture("13:00", 0, "L1", "Oslo"));
+    station.addTrainDeparture(new TrainDeparture("11:00", 9, "L1", "Oslo"));
+    assertEquals(0, network.size(), "A rejected train departure claimed its train number");
+    assertEquals(0, station.getNumberOfTrains(), "A rejected train departure was added");
+    assertFalse(station.getDepartedTrains().hasNext(), "A rejected train departure was added");
+  }
+
+  /*
+   * Positive test for the concurrent use of the train station. Several writers add, edit and remove
+   * train departures while readers look up the train departures that are never removed. The readers
+   * must always find them, and the register and the indexes must agree afterwards.
+   */
+  @Test
+  void concurrentReadersAndWritersPositiveTest() throws Exception {
+    ConcurrentTrainStation station = new ConcurrentTrainStation();
+    for (int trainNumber = 1; trainNumber <= 500; trainNumber++) {
+      station.addTrainDeparture(TrainStationBenchmark.time(trainNumber), trainNumber, "L1", "Oslo");
+    }
+    AtomicBoolean running = new AtomicBoolean(true);
+    ExecutorService executor = Executors.newFixedThreadPool(6);
+    List<Future<?>> writers = new ArrayList<>();
+    List<Future<?>> readers = new ArrayList<>();
+    for (int writer = 0; writer < 3; writer++) {
+      int seed = writer;
+      writers.add(executor.submit(() -> {
+        Random random = new Random(seed);
+        for (int edit = 0; edit < 20_000; edit++) {
+          int trainNumber = 1 + random.nextInt(500);
+          station.setNewDelay(trainNumber, random.nextInt(120));
+          station.setNewTrackNumber(trainNumber, 1 + random.nextInt(10));
+          station.setNewDestination(trainNumber, random.nextBoolean() ? "Oslo" : "Bergen");
+          int extra = 1_000 + random.nextInt(100);
+          station.addTrainDeparture(TrainStationBenchmark.time(1 + random.nextInt(1400)), extra,
+              "F2", "Hamar");
+          station.removeTrainDeparture(extra);
+        }
+      }));
+    }
+    for (int reader = 0; reader < 3; reader++) {
+      readers.add(executor.submit(() -> {
+        int lookups = 0;
+        while (running.get()) {
+          int trainNumber = 1 + lookups % 500;
+          assertTrue(station.searchByTrainNumber(trainNumber).hasNext(),
+              "A reader did not find train " + trainNumber);
+          lookups++;
+        }
+      }));
+    }
+    for (Future<?> writer : writers) {
+      writer.get();
+    }
+    running.set(false);
+    for (Future<?> reader : readers) {
+      reader.get();
+    }
+    executor.shutdown();
+
+    int registered = 0;
+    Iterator<TrainDeparture> register = station.getTrainRegister();
+    while (register.hasNext()) {
+      TrainDeparture train = register.next();
+      assertSame(train, station.searchByTrainNumber(train.getTrainNumber()).next(),
+          "The register and the train number index disagree");
+      registered++;
+    }
+    int destinations = 0;
+    for (String destination : new String[] {"Oslo", "Bergen", "Hamar"}) {
+      Iterator<TrainDeparture> trains = station.searchByDestination(destination);
+      while (trains.hasNext()) {
+        assertEquals(destination, trains.next().getDestination(), "The destination was wrong");
+        destinations++;
+      }
+    }
+    assertEquals(500, registered, "The register lost or kept train departures");
+    assertEquals(500, destinations, "The destination index lost or kept train departures");
+    assertEquals(500, station.getNumberOfTrains(), "The remaining trains were counted wrong");
+  }
+}
@@ -0,0 +1,107 @@
+package edu.ntnu.stud.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ * This class is used to test the DepartureBitmap class.
+ */
+
+class DepartureBitmapTest {
+
+  /*
+   * Positive test for the add, remove and contains methods. Checks if the ordinals are found, and
+   * if a word is dropped when its last ordinal is removed.
+   */
+  @Test
+  void addRemovePositiveTest() {
+    DepartureBitmap bitmap = new DepartureBitmap();
+    bitmap.add(3);
+    bitmap.add(70_000);
+    bitmap.add(3);
+    assertTrue(bitmap.contains(3) && bitmap.contains(70_000), "An added ordinal was not found");
+    assertEquals(2, bitmap.cardinality(), "An ordinal added twice was counted twice");
+    assertEquals(2, bitmap.words(), "Far apart ordinals did not get a word each");
+    bitmap.remove(70_000);
+    assertFalse(bitmap.contains(70_000), "A removed ordinal was found");
+    assertEquals(1, bitmap.words(), "An empty word was kept");
+  }
+
+  /*
+   * Negative test for the remove and contains methods. Checks if ordinals that were never added are
+   * not found, and can be removed without changing the bitmap.
+   */
+  @Test
+  void addRemoveNegativeTest() {
+    DepartureBitmap bitmap = new DepartureBitmap();
+    assertFalse(bitmap.contains(0), "An empty bitmap contained an ordinal");
+    bitmap.add(64);
+    bitmap.remove(65);
+    bitmap.remove(1_000);
+    assertEquals(1, bitmap.cardinality(), "Removing a missing ordinal changed the bitmap");
+    assertEquals(0, bitmap.and(new DepartureBitmap()).cardinality(),
+        "The intersection with an empty bitmap was not empty");
+  }
+
+  /*
+   * Stress test for the and, or and andNot methods. Compares random bitmaps with BitSet.
+   */
+  @Test
+  void combineMatchesBitSetTest() {
+    Random random = new Random(42);
+    for (int round = 0; round < 200; round++) {
+      BitSet firstExpected = new BitSet();
+      BitSet secondExpected = new BitSet();
+      DepartureBitmap first = randomBitmap(random, firstExpected);
+      DepartureBitmap second = randomBitmap(random, secondExpected);
+
+      BitSet and = (BitSet) firstExpected.clone();
+      and.and(secondExpected);
+      assertBitmapEquals(and, first.and(second));
+      BitSet or = (BitSet) firstExpected.clone();
+      or.or(secondExpected);
+      assertBitmapEquals(or, first.or(second));
+      BitSet andNot = (BitSet) firstExpected.clone();
+      andNot.andNot(secondExpected);
+      assertBitmapEquals(andNot, first.andNot(second));
+      assertBitmapEquals(firstExpected, first);
+    }
+  }
+
+  /*
+   * Returns a bitmap of random ordinals, some of them removed again, and records them in the
+   * BitSet.
+   */
+  private static DepartureBitmap randomBitmap(Random random, BitSet expected) {
+    DepartureBitmap bitmap = new DepartureBitmap();
+    int range = 1 + random.nextInt(5_000);
+    int operations = random.nextInt(300);
+    for (int i = 0; i < operations; i++) {
+      int ordinal = random.nextInt(range);
+      if (random.nextInt(4) == 0) {
+        bitmap.remove(ordinal);
+        expected.clear(ordinal);
+      } else {
+        bitmap.add(ordinal);
+        expected.set(ordinal);
+      }
+    }
+    return bitmap;
+  }
+
+  /*
+   * Checks that the bitmap has the same ordinals as the BitSet, in increasing order.
+   */
+  private static void assertBitmapEquals(BitSet expected, DepartureBitmap actual) {
+    List<Integer> ordinals = new ArrayList<>();
+    actual.forEach(ordinals::add);
+    assertEquals(expected.stream().boxed().toList(), ordinals, "The bitmap had the wrong ordinals");
+    assertEquals(expected.cardinality(), actual.cardinality(), "The bitmap had the wrong count");
+  }
+}
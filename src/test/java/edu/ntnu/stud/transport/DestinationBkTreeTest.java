@@ -0,0 +1,170 @@
+package edu.ntnu.stud.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ * This class is used to test the DestinationBkTree class.
+ */
+
+class DestinationBkTreeTest {
+
+  /*
+   * Positive test for the search method. Checks if misspelled destinations find the closest
+   * destinations, sorted by edit distance and name, ignoring case.
+   */
+  @Test
+  void searchPositiveTest() {
+    DestinationBkTree tree = treeOf("Bergen", "Trondheim", "Oslo", "Bodø", "Berg", "Ås");
+    assertEquals(List.of("Berg", "Bergen"), tree.search("bergn", 2, 5, id -> true),
+        "The closest destinations were not found");
+    assertEquals(List.of("Trondheim"), tree.search("Trondhiem", 2, 5, id -> true),
+        "The swapped letters were not found");
+    assertEquals(List.of("Ås"), tree.search("ÅS", 0, 5, id -> true),
+        "The exact destination with å was not found");
+    assertEquals(List.of("Berg"), tree.search("bergn", 2, 1, id -> true),
+        "The limit was not applied");
+  }
+
+  /*
+   * Negative test for the search method. Checks if destinations that are too far away or rejected
+   * by the filter are not found.
+   */
+  @Test
+  void searchNegativeTest() {
+    DestinationBkTree tree = treeOf("Bergen", "Oslo");
+    assertTrue(tree.search("Stavanger", 2, 5, id -> true).isEmpty(),
+        "A destination too far away was found");
+    int bergen = SymbolTable.DESTINATIONS.idOf("Bergen");
+    assertTrue(tree.search("Bergn", 2, 5, id -> id != bergen).isEmpty(),
+        "A destination rejected by the filter was found");
+    assertTrue(new DestinationBkTree().search("Oslo", 2, 5, id -> true).isEmpty(),
+        "An empty tree found a destination");
+  }
+
+  /*
+   * Stress test for the search method. Compares the tree with comparing the search to every
+   * destination, for random destinations and searches.
+   */
+  @Test
+  void searchMatchesLinearScanTest() {
+    Random random = new Random(42);
+    List<String> destinations = new ArrayList<>();
+    DestinationBkTree tree = new DestinationBkTree();
+    for (int i = 0; i < 500; i++) {
+      String destination = randomName(random);
+      destinations.add(destination);
+      tree.add(SymbolTable.DESTINATIONS.idOf(destination));
+    }
+    for (int i = 0; i < 200; i++) {
+      String search = randomName(random);
+      List<String> expected = new ArrayList<>();
+      for (String destination : destinations) {
+        String normalized = SymbolTable.DESTINATIONS.valueOf(
+            SymbolTable.DESTINATIONS.idOf(destination));
+        if (DestinationBkTree.distance(search.toLowerCase(), normalized.toLowerCase()) <= 2
+            && !expected.contains(normalized)) {
+          expected.add(normalized);
+        }
+      }
+      assertEquals(expected.size(), tree.search(search, 2, Integer.MAX_VALUE, id -> true).size(),
+          "The tree missed destinations close to " + search);
+    }
+  }
+
+  /*
+   * Positive test for the remove and clear methods. Checks if a removed destination is no longer
+   * found, if it is found again when it is added back, and if a cleared tree is empty.
+   */
+  @Test
+  void removePositiveTest() {
+    DestinationBkTree tree = treeOf("Bergen", "Berg", "Oslo");
+    tree.remove(SymbolTable.DESTINATIONS.idOf("Bergen"));
+    assertEquals(List.of("Berg"), tree.search("bergn", 2, 5, id -> true),
+        "A removed destination was found");
+    assertEquals(2, tree.size(), "The removed destination was counted");
+    tree.add(SymbolTable.DESTINATIONS.idOf("Bergen"));
+    assertEquals(List.of("Berg", "Bergen"), tree.search("bergn", 2, 5, id -> true),
+        "A destination added back was not found");
+    tree.clear();
+    assertEquals(0, tree.size(), "The cleared tree was not empty");
+    assertTrue(tree.search("Oslo", 2, 5, id -> true).isEmpty(),
+        "The cleared tree found a destination");
+  }
+
+  /*
+   * Stress test for the remove method. Removes and adds back random destinations, so the tree is
+   * rebuilt several times, and compares the tree with comparing the search to every destination
+   * still in the tree.
+   */
+  @Test
+  void removeMatchesLinearScanTest() {
+    Random random = new Random(7);
+    List<String> names = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      names.add(SymbolTable.DESTINATIONS.valueOf(
+          SymbolTable.DESTINATIONS.idOf(randomName(random))));
+    }
+    List<String> kept = new ArrayList<>();
+    DestinationBkTree tree = new DestinationBkTree();
+    for (int i = 0; i < 2000; i++) {
+      String name = names.get(random.nextInt(names.size()));
+      if (random.nextInt(3) == 0) {
+        tree.remove(SymbolTable.DESTINATIONS.idOf(name));
+        kept.remove(name);
+      } else {
+        tree.add(SymbolTable.DESTINATIONS.idOf(name));
+        if (!kept.contains(name)) {
+          kept.add(name);
+        }
+      }
+    }
+    assertEquals(kept.size(), tree.size(), "The tree counted the wrong destinations");
+    for (int i = 0; i < 100; i++) {
+      String search = randomName(random);
+      long expected = kept.stream().filter(name ->
+          DestinationBkTree.distance(search.toLowerCase(), name.toLowerCase()) <= 2).count();
+      assertEquals(expected, tree.search(search, 2, Integer.MAX_VALUE, id -> true).size(),
+          "The tree found the wrong destinations close to " + search);
+    }
+  }
+
+  /*
+   * Positive test for the distance method. Checks the edit distance of known pairs.
+   */
+  @Test
+  void distancePositiveTest() {
+    assertEquals(0, DestinationBkTree.distance("oslo", "oslo"), "Equal strings had a distance");
+    assertEquals(1, DestinationBkTree.distance("bergn", "bergen"), "An insert was not counted");
+    assertEquals(2, DestinationBkTree.distance("trondhiem", "trondheim"), "A swap was not 2");
+    assertEquals(4, DestinationBkTree.distance("", "bodø"), "The empty string was wrong");
+  }
+
+  /*
+   * Returns a random name of 3 to 6 letters from a small alphabet, so many names are close.
+   */
+  private static String randomName(Random random) {
+    StringBuilder name = new StringBuilder("Q");
+    int length = 2 + random.nextInt(4);
+    for (int i = 0; i < length; i++) {
+      name.append("abcæøå".charAt(random.nextInt(6)));
+    }
+    return name.toString();
+  }
+
+  /*
+   * Returns a tree containing the specified destinations.
+   */
+  private static DestinationBkTree treeOf(String... destinations) {
+    DestinationBkTree tree = new DestinationBkTree();
+    for (String destination : destinations) {
+      tree.add(SymbolTable.DESTINATIONS.idOf(destination));
+    }
+    return tree;
+  }
+}
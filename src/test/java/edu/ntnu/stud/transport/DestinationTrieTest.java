@@ -0,0 +1,70 @@
+package edu.ntnu.stud.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ * This class is used to test the DestinationTrie class.
+ */
+
+class DestinationTrieTest {
+
+  /*
+   * Positive test for the complete method. Checks if the destinations starting with a prefix are
+   * found in any case, including æ, ø and å, and ranked by upcoming train departures and name.
+   */
+  @Test
+  void completePositiveTest() {
+    DestinationTrie trie = trieOf("Bergen", "Berkåk", "Bodø", "Ålesund", "Bø");
+    trie.addUpcoming(SymbolTable.DESTINATIONS.idOf("Berkåk"), 3);
+    trie.addUpcoming(SymbolTable.DESTINATIONS.idOf("Bergen"), 1);
+    assertEquals(List.of("Berkåk", "Bergen"), trie.complete("bEr", 10),
+        "The destinations were not ranked by upcoming train departures");
+    assertEquals(List.of("Berkåk", "Bergen", "Bodø", "Bø"), trie.complete("b", 10),
+        "Not every destination starting with B was found");
+    assertEquals(List.of("Bø"), trie.complete("BØ", 10), "The destination with ø was not found");
+    assertEquals(List.of("Ålesund"), trie.complete("å", 10), "The destination with å not found");
+    assertEquals(List.of("Berkåk"), trie.complete("ber", 1), "The limit was not applied");
+  }
+
+  /*
+   * Negative test for the complete method. Checks if a prefix without destinations and a limit of
+   * zero return no destinations.
+   */
+  @Test
+  void completeNegativeTest() {
+    DestinationTrie trie = trieOf("Bergen", "Oslo");
+    assertTrue(trie.complete("Bx", 10).isEmpty(), "A prefix without destinations matched");
+    assertTrue(trie.complete("Bergenx", 10).isEmpty(), "A longer prefix matched");
+    assertTrue(trie.complete("b", 0).isEmpty(), "A limit of zero returned destinations");
+  }
+
+  /*
+   * Positive test for the remove method. Checks if a removed destination is no longer found, while
+   * a destination sharing its prefix is kept.
+   */
+  @Test
+  void removePositiveTest() {
+    DestinationTrie trie = trieOf("Bergen", "Berg");
+    trie.remove(SymbolTable.DESTINATIONS.idOf("Bergen"));
+    assertEquals(List.of("Berg"), trie.complete("ber", 10), "The wrong destination was removed");
+    trie.remove(SymbolTable.DESTINATIONS.idOf("Berg"));
+    assertTrue(trie.complete("", 10).isEmpty(), "The trie was not empty");
+    trie.add(SymbolTable.DESTINATIONS.idOf("Berg"));
+    assertEquals(List.of("Berg"), trie.complete("b", 10), "The destination was not added again");
+  }
+
+  /*
+   * Returns a trie containing the specified destinations.
+   */
+  private static DestinationTrie trieOf(String... destinations) {
+    DestinationTrie trie = new DestinationTrie();
+    for (String destination : destinations) {
+      trie.add(SymbolTable.DESTINATIONS.idOf(destination));
+    }
+    return trie;
+  }
+}
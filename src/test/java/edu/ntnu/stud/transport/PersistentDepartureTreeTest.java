@@ -0,0 +1,124 @@
+package edu.ntnu.stud.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ * This class is used to test the PersistentDepartureTree class.
+ */
+
+class PersistentDepartureTreeTest {
+
+  /*
+   * Positive test for the with method. Checks if adding a train departure returns a new tree and
+   * leaves the old tree unchanged.
+   */
+  @Test
+  void withPositiveTest() {
+    PersistentDepartureTree empty = PersistentDepartureTree.EMPTY;
+    PersistentDepartureTree one = empty.with(new TrainDeparture("12:00", 1, "L1", "Oslo"));
+    PersistentDepartureTree two = one.with(new TrainDeparture("11:00", 2, "L1", "Oslo"));
+    assertEquals(0, empty.size(), "The empty tree was changed");
+    assertEquals(1, one.size(), "The first tree was changed");
+    assertEquals(2, two.iterator().next().getTrainNumber(), "The tree was not sorted");
+  }
+
+  /*
+   * Positive test for the with method. Checks if a train departure with the same departure time and
+   * train number replaces the one in the tree.
+   */
+  @Test
+  void withReplacePositiveTest() {
+    TrainDeparture train = new TrainDeparture("12:00", 1, "L1", "Oslo");
+    PersistentDepartureTree tree = PersistentDepartureTree.EMPTY.with(train);
+    TrainDeparture moved = new TrainDeparture(train);
+    moved.setTrackNumber(3);
+    PersistentDepartureTree replaced = tree.with(moved);
+    assertEquals(1, replaced.size(), "The train departure was added twice");
+    assertEquals(3, replaced.iterator().next().getTrackNumber(), "The train was not replaced");
+    assertEquals(-1, tree.iterator().next().getTrackNumber(), "The old tree was changed");
+  }
+
+  /*
+   * Negative test for the without method. Checks if removing a train departure that is not in the
+   * tree returns the same tree.
+   */
+  @Test
+  void withoutNegativeTest() {
+    PersistentDepartureTree tree =
+        PersistentDepartureTree.EMPTY.with(new TrainDeparture("12:00", 1, "L1", "Oslo"));
+    assertSame(tree, tree.without(new TrainDeparture("12:00", 2, "L1", "Oslo")),
+        "Removing a missing train departure created a new tree");
+  }
+
+  /*
+   * Positive test for the fromSorted method. Checks if a tree built from sorted train departures
+   * can be read and changed like a tree built one train departure at a time.
+   */
+  @Test
+  void fromSortedPositiveTest() {
+    List<TrainDeparture> sorted = new ArrayList<>();
+    for (int trainNumber = 1; trainNumber <= 1_000; trainNumber++) {
+      sorted.add(new TrainDeparture(TrainStationBenchmark.time(1 + trainNumber / 3), trainNumber,
+          "L1", "Oslo"));
+    }
+    PersistentDepartureTree tree = PersistentDepartureTree.fromSorted(sorted);
+    PersistentDepartureTree changed = tree.without(sorted.get(500)).with(sorted.get(500));
+    for (PersistentDepartureTree version : List.of(tree, changed)) {
+      assertEquals(sorted.size(), version.size(), "The tree had the wrong size");
+      Iterator<TrainDeparture> trains = version.iterator();
+      for (TrainDeparture train : sorted) {
+        assertSame(train, trains.next(), "The tree was not sorted");
+      }
+    }
+    assertSame(PersistentDepartureTree.EMPTY, PersistentDepartureTree.fromSorted(List.of()),
+        "An empty list did not give the empty tree");
+  }
+
+  /*
+   * Stress test for the with and without methods. Applies random changes and compares every
+   * version of the tree with a TreeSet, including the versions that were changed later.
+   */
+  @Test
+  void randomChangesKeepVersionsTest() {
+    Random random = new Random(42);
+    TreeSet<TrainDeparture> expected = new TreeSet<>(TrainStation.DEPARTURE_ORDER);
+    PersistentDepartureTree tree = PersistentDepartureTree.EMPTY;
+    List<PersistentDepartureTree> versions = new ArrayList<>();
+    List<List<TrainDeparture>> expectedVersions = new ArrayList<>();
+    for (int change = 0; change < 20_000; change++) {
+      TrainDeparture train = new TrainDeparture(TrainStationBenchmark.time(random.nextInt(60)),
+          1 + random.nextInt(500), "L1", "Oslo");
+      if (random.nextInt(3) == 0) {
+        expected.remove(train);
+        tree = tree.without(train);
+      } else {
+        expected.remove(train);
+        expected.add(train);
+        tree = tree.with(train);
+      }
+      if (change % 1_000 == 0) {
+        versions.add(tree);
+        expectedVersions.add(new ArrayList<>(expected));
+      }
+    }
+    versions.add(tree);
+    expectedVersions.add(new ArrayList<>(expected));
+    for (int version = 0; version < versions.size(); version++) {
+      Iterator<TrainDeparture> trains = versions.get(version).iterator();
+      for (TrainDeparture train : expectedVersions.get(version)) {
+        assertSame(train, trains.next(), "Version " + version + " was wrong");
+      }
+      assertFalse(trains.hasNext(), "Version " + version + " had too many train departures");
+      assertEquals(expectedVersions.get(version).size(), versions.get(version).size(),
+          "Version " + version + " had the wrong size");
+    }
+  }
+}
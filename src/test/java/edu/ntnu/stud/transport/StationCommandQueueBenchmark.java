@@ -0,0 +1,124 @@
+package edu.ntnu.stud.transport;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/*
+ * This class is used to benchmark the StationCommandQueue class under load from several producer
+ * threads, against producers calling a TrainStation guarded by one lock. Each producer queues a
+ * fixed number of delay and track changes, either as fast as it can, which keeps the ring buffer
+ * full, or waiting for each command to complete before queuing the next. The benchmark is not a
+ * unit test and is not run by Maven. It prints the commands per second and the percentiles of the
+ * time from queuing a command to its completion.
+ */
+
+public class StationCommandQueueBenchmark {
+
+  private static final int REGISTER_SIZE = 10_000;
+  private static final int COMMANDS_PER_PRODUCER = 200_000;
+  private static final int CAPACITY = 4_096;
+  private static final int SATURATED = 0;
+  private static final int ROUND_TRIP = 1;
+  private static final int LOCKED = 2;
+
+  private StationCommandQueueBenchmark() {
+  }
+
+  /*
+   * Runs the benchmarks and prints the results to the console.
+   */
+  public static void main(String[] args) throws Exception {
+    System.out.println("== Command queue, " + Runtime.getRuntime().availableProcessors()
+        + " processors, n=" + REGISTER_SIZE + " ==");
+    for (int producers = 1; producers <= 8; producers *= 2) {
+      run(producers, SATURATED);
+      report("queue, saturated", producers, run(producers, SATURATED));
+      run(producers, ROUND_TRIP);
+      report("queue, round trip", producers, run(producers, ROUND_TRIP));
+      run(producers, LOCKED);
+      report("locked station", producers, run(producers, LOCKED));
+    }
+  }
+
+  /*
+   * Runs the producers, and returns the latencies of all the commands in nanoseconds with the
+   * elapsed time in the last element.
+   */
+  private static long[] run(int producers, int mode) throws Exception {
+    TrainStation station = TrainStationBenchmark.populate(new TrainStation(), REGISTER_SIZE);
+    StationCommandQueue queue = new StationCommandQueue(station, CAPACITY);
+    long[] latencies = new long[producers * COMMANDS_PER_PRODUCER + 1];
+    CountDownLatch start = new CountDownLatch(1);
+    CountDownLatch done = new CountDownLatch(producers);
+    for (int producer = 0; producer < producers; producer++) {
+      int offset = producer * COMMANDS_PER_PRODUCER;
+      new Thread(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        CompletableFuture<Void> last = null;
+        try {
+          start.await();
+          for (int i = 0; i < COMMANDS_PER_PRODUCER; i++) {
+            int trainNumber = 1 + random.nextInt(REGISTER_SIZE);
+            int slot = offset + i;
+            long queuedAt = System.nanoTime();
+            if (mode != LOCKED) {
+              CompletableFuture<Void> completion = i % 2 == 0
+                  ? queue.setNewDelay(trainNumber, i % 60)
+                  : queue.setNewTrackNumber(trainNumber, 1 + i % 10);
+              last = completion.whenComplete(
+                  (result, failure) -> latencies[slot] = System.nanoTime() - queuedAt);
+              if (mode == ROUND_TRIP) {
+                last.join();
+              }
+            } else {
+              synchronized (station) {
+                if (i % 2 == 0) {
+                  station.setNewDelay(trainNumber, i % 60);
+                } else {
+                  station.setNewTrackNumber(trainNumber, 1 + i % 10);
+                }
+              }
+              latencies[slot] = System.nanoTime() - queuedAt;
+            }
+          }
+          if (last != null) {
+            last.join();
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+        done.countDown();
+      }).start();
+    }
+    long begin = System.nanoTime();
+    start.countDown();
+    done.await();
+    latencies[latencies.length - 1] = System.nanoTime() - begin;
+    queue.close();
+    return latencies;
+  }
+
+  /*
+   * Prints the commands per second and the latency percentiles of a run.
+   */
+  private static void report(String label, int producers, long[] result) {
+    long elapsed = result[result.length - 1];
+    long[] latencies = Arrays.copyOf(result, result.length - 1);
+    Arrays.sort(latencies);
+    System.out.printf("%-18s producers=%d %9.0f commands/s  p50=%7.1f us  p99=%8.1f us"
+            + "  p99.9=%8.1f us%n", label, producers, latencies.length / (elapsed / 1e9),
+        percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999));
+  }
+
+  /*
+   * Returns the specified percentile of the sorted latencies in microseconds.
+   */
+  private static double percentile(long[] sortedLatencies, double percentile) {
+    int index = (int) Math.min(sortedLatencies.length - 1,
+        Math.round(percentile * (sortedLatencies.length - 1)));
+    return sortedLatencies[index] / 1e3;
+  }
+}
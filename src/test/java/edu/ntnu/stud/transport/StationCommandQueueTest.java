@@ -0,0 +1,176 @@
+package edu.ntnu.stud.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ * This class is used to test the StationCommandQueue class.
+ */
+
+class StationCommandQueueTest {
+
+  private StationCommandQueue commandQueueTest;
+
+  /*
+   * This method is used to set up the test environment before each test. The ring buffer is small,
+   * so the tests wrap around it and fill it up.
+   */
+  @BeforeEach
+  void setUp() {
+    commandQueueTest = new StationCommandQueue(new TrainStation(), 8);
+  }
+
+  /*
+   * This method is used to stop the writer thread after each test.
+   */
+  @AfterEach
+  void tearDown() {
+    commandQueueTest.close();
+  }
+
+  /*
+   * Positive test for the queued commands. Checks if the commands are applied in the order they
+   * were queued, and if the futures are completed after the commands are applied.
+   */
+  @Test
+  void commandsPositiveTest() throws Exception {
+    commandQueueTest.addTrainDeparture("12:00", 1, "L1", "Oslo");
+    commandQueueTest.setNewDelay(1, 15);
+    commandQueueTest.setNewTrackNumber(1, 3);
+    commandQueueTest.setStationClock("12:10").get();
+    TrainDeparture train = commandQueueTest.getStation().getSnapshot().iterator().next();
+    assertEquals(15, train.getMinutesDelay(), "The delay was not applied");
+    assertEquals(3, train.getTrackNumber(), "The track was not applied");
+    assertEquals(1, commandQueueTest.getStation().getSnapshot().size(), "The train was lost");
+    commandQueueTest.removeTrainDeparture(1).get();
+    assertEquals(0, commandQueueTest.getStation().getSnapshot().size(),
+        "The train was not removed");
+  }
+
+  /*
+   * Negative test for the queued commands. Checks if a command that fails completes its future
+   * exceptionally, and if the queue keeps applying the next commands.
+   */
+  @Test
+  void commandsNegativeTest() throws Exception {
+    CompletableFuture<Void> failed = commandQueueTest.setStationClock("25:00");
+    commandQueueTest.addTrainDeparture("12:00", 1, "L1", "Oslo").get();
+    assertThrows(ExecutionException.class, failed::get, "The invalid clock did not fail");
+    assertEquals(1, commandQueueTest.getStation().getSnapshot().size(),
+        "The queue stopped after a failed command");
+  }
+
+  /*
+   * Negative test for the queued commands. Checks if a command that throws an error, not only an
+   * exception, completes its future exceptionally with the error, and if the queue keeps applying
+   * the next commands.
+   */
+  @Test
+  void commandErrorNegativeTest() throws Exception {
+    CompletableFuture<Void> failed = commandQueueTest.submit(station -> {
+      throw new AssertionError("The command failed.");
+    });
+    commandQueueTest.addTrainDeparture("12:00", 1, "L1", "Oslo").get();
+    ExecutionException thrown = assertThrows(ExecutionException.class, failed::get,
+        "The command that threw an error did not fail");
+    assertInstanceOf(AssertionError.class, thrown.getCause(), "The error was not passed on");
+    assertEquals(1, commandQueueTest.getStation().getSnapshot().size(),
+        "The queue stopped after a command threw an error");
+  }
+
+  /*
+   * Positive test for the callbacks on the futures. The writer thread is held up by a command
+   * while the other seven slots of the ring buffer are filled, and a callback on the future of the
+   * command then queues more commands than the ring buffer can hold. The callback must not run on
+   * the writer thread, so the writer thread keeps freeing slots and every command is applied.
+   */
+  @Test
+  void callbackQueuesCommandsPositiveTest() throws Exception {
+    commandQueueTest.addTrainDeparture("12:00", 1, "L1", "Oslo").get();
+    CountDownLatch release = new CountDownLatch(1);
+    CompletableFuture<Void> held = commandQueueTest.submit(station -> {
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    List<String> callbackThreads = new ArrayList<>();
+    CompletableFuture<CompletableFuture<Void>> callback = held.thenApply(applied -> {
+      callbackThreads.add(Thread.currentThread().getName());
+      CompletableFuture<Void> last = null;
+      for (int delay = 1; delay <= 50; delay++) {
+        last = commandQueueTest.setNewDelay(1, delay);
+      }
+      return last;
+    });
+    for (int track = 1; track <= 7; track++) {
+      commandQueueTest.setNewTrackNumber(1, track);
+    }
+    release.countDown();
+    callback.get(10, TimeUnit.SECONDS).get(10, TimeUnit.SECONDS);
+    assertNotEquals(List.of("station-writer"), callbackThreads,
+        "The callback ran on the writer thread");
+    TrainDeparture train = commandQueueTest.getStation().getSnapshot().iterator().next();
+    assertEquals(50, train.getMinutesDelay(), "The commands of the callback were not applied");
+    assertEquals(7, train.getTrackNumber(), "The commands queued while held were not applied");
+  }
+
+  /*
+   * Negative test for the close method. Checks if no more commands can be queued after the queue
+   * is closed, and if the commands queued before are applied.
+   */
+  @Test
+  void closeNegativeTest() {
+    CompletableFuture<Void> queued = commandQueueTest.addTrainDeparture("12:00", 1, "L1", "Oslo");
+    commandQueueTest.close();
+    assertTrue(queued.isDone() && !queued.isCompletedExceptionally(),
+        "A command queued before closing was not applied");
+    assertThrows(IllegalStateException.class, () -> commandQueueTest.setNewDelay(1, 5),
+        "A command was queued after closing");
+  }
+
+  /*
+   * Positive test for several producers. Four threads queue delay changes for their own train
+   * departures through the small ring buffer, and every command must be applied.
+   */
+  @Test
+  void multipleProducersPositiveTest() throws Exception {
+    for (int trainNumber = 1; trainNumber <= 4; trainNumber++) {
+      commandQueueTest.addTrainDeparture("12:00", trainNumber, "L1", "Oslo");
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<CompletableFuture<Void>>> producers = new ArrayList<>();
+    for (int producer = 1; producer <= 4; producer++) {
+      int trainNumber = producer;
+      producers.add(executor.submit(() -> {
+        CompletableFuture<Void> last = null;
+        for (int delay = 1; delay <= 10_000; delay++) {
+          last = commandQueueTest.setNewDelay(trainNumber, delay % 1000);
+        }
+        return last;
+      }));
+    }
+    for (Future<CompletableFuture<Void>> producer : producers) {
+      producer.get().get();
+    }
+    executor.shutdown();
+    for (TrainDeparture train : commandQueueTest.getStation().getSnapshot()) {
+      assertEquals(0, train.getMinutesDelay(),
+          "The commands of train " + train.getTrainNumber() + " were applied out of order");
+    }
+  }
+}
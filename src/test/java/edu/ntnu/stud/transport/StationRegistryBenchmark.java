@@ -0,0 +1,95 @@
+package edu.ntnu.stud.transport;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/*
+ * This class is used to benchmark the StationRegistry class with a network of thousands of train
+ * stations, for a growing number of shards. The benchmark is not a unit test and is not run by
+ * Maven. It prints the throughput of delay changes spread over the train stations, and the average
+ * time of a network query for departures to one destination in the next 30 minutes.
+ */
+
+public class StationRegistryBenchmark {
+
+  private static final int STATIONS = 2_000;
+  private static final int DEPARTURES_PER_STATION = 100;
+  private static final int OPERATIONS = 400_000;
+  private static final int QUERIES = 50;
+
+  private StationRegistryBenchmark() {
+  }
+
+  /*
+   * Runs the benchmarks and prints the results to the console.
+   */
+  public static void main(String[] args) {
+    int processors = Runtime.getRuntime().availableProcessors();
+    System.out.println("== Station registry, " + STATIONS + " stations x "
+        + DEPARTURES_PER_STATION + " departures, " + processors + " processors ==");
+    for (int shards = 1; shards <= Math.max(4, processors); shards *= 2) {
+      try (StationRegistry registry = populate(shards)) {
+        runOperations(registry);
+        long start = System.nanoTime();
+        runOperations(registry);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        long found = 0;
+        for (int query = 0; query < QUERIES; query++) {
+          found += registry.searchNetworkByDestination("Oslo", 30).join().size();
+        }
+        start = System.nanoTime();
+        for (int query = 0; query < QUERIES; query++) {
+          found += registry.searchNetworkByDestination("Oslo", 30).join().size();
+        }
+        double queryMillis = (System.nanoTime() - start) / 1e6 / QUERIES;
+        System.out.printf("shards=%-3d %10.0f delay changes/s   network query %7.2f ms"
+            + "   (%d stations matched)%n", shards, OPERATIONS / seconds, queryMillis,
+            found / (2 * QUERIES));
+      }
+    }
+  }
+
+  /*
+   * Creates a registry with the specified number of shards, filled with the train stations of the
+   * network. Every train station has its station clock set to 12:00.
+   */
+  private static StationRegistry populate(int shards) {
+    StationRegistry registry = new StationRegistry(shards);
+    CompletableFuture<?> last = null;
+    for (int station = 0; station < STATIONS; station++) {
+      String name = "Station " + station;
+      int offset = station;
+      registry.addStation(name);
+      last = registry.submit(name, trainStation -> {
+        for (int train = 1; train <= DEPARTURES_PER_STATION; train++) {
+          trainStation.addTrainDeparture(TrainStationBenchmark.time(1 + (train * 14 + offset)
+              % 1439), train, "R10", train % 5 == 0 ? "Oslo" : "Hamar");
+        }
+        trainStation.setStationClock("12:00");
+        return null;
+      });
+    }
+    registry.setNetworkClock("12:00").join();
+    last.join();
+    return registry;
+  }
+
+  /*
+   * Queues delay changes to random train stations and waits for all of them to complete.
+   */
+  private static void runOperations(StationRegistry registry) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    CompletableFuture<?>[] pending = new CompletableFuture<?>[OPERATIONS];
+    for (int i = 0; i < OPERATIONS; i++) {
+      int train = 1 + random.nextInt(DEPARTURES_PER_STATION);
+      int delay = random.nextInt(30);
+      pending[i] = registry.submit("Station " + random.nextInt(STATIONS), station -> {
+        station.setNewDelay(train, delay);
+        return null;
+      });
+    }
+    CompletableFuture.allOf(pending).join();
+  }
+}
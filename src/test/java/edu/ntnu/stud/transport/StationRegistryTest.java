@@ -0,0 +1,140 @@
+package edu.ntnu.stud.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ * This class is used to test the StationRegistry class.
+ */
+
+class StationRegistryTest {
+
+  private StationRegistry stationRegistryTest;
+
+  /*
+   * This method is used to set up the test environment before each test. Three train stations
+   * have train departures to Oslo at different times.
+   */
+  @BeforeEach
+  void setUp() {
+    stationRegistryTest = new StationRegistry(4);
+    for (String name : new String[] {"Hamar", "Lillehammer", "Gjøvik"}) {
+      stationRegistryTest.addStation(name).join();
+    }
+    stationRegistryTest.submit("Hamar", station -> {
+      station.setStationClock("10:00");
+      station.addTrainDeparture("10:20", 1, "R10", "Oslo");
+      station.addTrainDeparture("11:00", 2, "R10", "Oslo");
+      return null;
+    }).join();
+    stationRegistryTest.submit("Lillehammer", station -> {
+      station.setStationClock("10:00");
+      station.addTrainDeparture("09:50", 3, "R10", "Oslo");
+      station.addTrainDeparture("10:10", 4, "R10", "Trondheim");
+      return null;
+    }).join();
+    stationRegistryTest.submit("Gjøvik", station -> {
+      station.setStationClock("10:00");
+      station.addTrainDeparture("10:05", 5, "R30", "Oslo");
+      station.setNewDelay(5, 60);
+      return null;
+    }).join();
+  }
+
+  /*
+   * This method is used to stop the worker threads after each test.
+   */
+  @AfterEach
+  void tearDown() {
+    stationRegistryTest.close();
+  }
+
+  /*
+   * Positive test for the searchNetworkByDestination method. Checks if only the train departures
+   * to the destination within the time window of each train station are found.
+   */
+  @Test
+  void searchNetworkByDestinationPositiveTest() {
+    Map<String, List<TrainDeparture>> found =
+        stationRegistryTest.searchNetworkByDestination("oslo", 30).join();
+    assertEquals(List.of("Hamar"), new ArrayList<>(found.keySet()),
+        "The wrong train stations were found");
+    assertEquals(1, found.get("Hamar").get(0).getTrainNumber(), "The wrong train was found");
+    assertEquals(1, found.get("Hamar").size(), "A train outside the time window was found");
+  }
+
+  /*
+   * Negative test for the searchNetworkByDestination method. Checks if a destination without any
+   * train departures gives an empty result.
+   */
+  @Test
+  void searchNetworkByDestinationNegativeTest() {
+    assertTrue(stationRegistryTest.searchNetworkByDestination("Bergen", 1440).join().isEmpty(),
+        "Train departures to Bergen were found");
+  }
+
+  /*
+   * Positive test for the addStation and removeStation methods. Checks if the number of train
+   * stations is counted over all the shards.
+   */
+  @Test
+  void addStationPositiveTest() {
+    assertFalse(stationRegistryTest.addStation("Hamar").join(), "A station was added twice");
+    assertTrue(stationRegistryTest.removeStation("Gjøvik").join(), "The station was not removed");
+    assertEquals(2, stationRegistryTest.getNumberOfStations().join(),
+        "The number of stations was wrong");
+  }
+
+  /*
+   * Negative test for the train number index of the network. Checks if a train number used at one
+   * train station can not be used at another train station in the network.
+   */
+  @Test
+  void networkTrainNumberNegativeTest() {
+    stationRegistryTest.submit("Lillehammer", station -> {
+      station.addTrainDeparture("12:00", 1, "R10", "Oslo");
+      return null;
+    }).join();
+    assertFalse(stationRegistryTest.submit("Lillehammer", station -> station
+        .searchByTrainNumber(1).hasNext()).join(), "The train number was used at two stations");
+    stationRegistryTest.removeStation("Hamar").join();
+    assertFalse(stationRegistryTest.getTrainNumberIndex().isClaimed(1),
+        "The train numbers of the removed station were not released");
+  }
+
+  /*
+   * Negative test for the submit method. Checks if an operation on a train station that does not
+   * exist fails.
+   */
+  @Test
+  void submitNegativeTest() {
+    CompletableFuture<Integer> result = stationRegistryTest.submit("Narvik",
+        TrainStation::getNumberOfTrains);
+    ExecutionException exception = assertThrows(ExecutionException.class, result::get,
+        "An operation on a missing station did not fail");
+    assertInstanceOf(IllegalArgumentException.class, exception.getCause(),
+        "The operation failed with the wrong exception");
+  }
+
+  /*
+   * Positive test for the setNetworkClock method. Checks if the station clock of every train
+   * station is set, and the departed trains are hidden.
+   */
+  @Test
+  void setNetworkClockPositiveTest() {
+    stationRegistryTest.setNetworkClock("10:30").join();
+    assertEquals(1, stationRegistryTest.submit("Hamar", TrainStation::getNumberOfTrains).join(),
+        "The station clock of Hamar was not set");
+    assertEquals(0, stationRegistryTest.submit("Lillehammer", TrainStation::getNumberOfTrains)
+        .join(), "The station clock of Lillehammer was not set");
+  }
+}
@@ -0,0 +1,120 @@
+package edu.ntnu.stud.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ * This class is used to test the SymbolTable class.
+ */
+
+class SymbolTableTest {
+
+  private SymbolTable symbolTableTest;
+
+  /*
+   * This method is used to set up the test environment before each test.
+   */
+  @BeforeEach
+  void setUp() {
+    symbolTableTest = new SymbolTable(String::toUpperCase, "INVALID");
+  }
+
+  /*
+   * Positive test for the idOf method. Checks if different spellings of the same value get the same
+   * id, and if the value is stored in its normalized form.
+   */
+  @Test
+  void idOfPositiveTest() {
+    int id = symbolTableTest.idOf("l2");
+    assertEquals(id, symbolTableTest.idOf("L2"), "The spellings of L2 got different ids");
+    assertEquals("L2", symbolTableTest.valueOf(id), "The value was not normalized");
+    assertEquals(2, symbolTableTest.size(), "The value was stored more than once");
+  }
+
+  /*
+   * Negative test for the find method. Checks if an unknown value is not added to the symbol table.
+   */
+  @Test
+  void findNegativeTest() {
+    assertEquals(SymbolTable.UNKNOWN, symbolTableTest.find("F3"), "An unknown value was found");
+    assertEquals(SymbolTable.UNKNOWN, symbolTableTest.find(null), "The value null was found");
+    assertEquals(1, symbolTableTest.size(), "The find method added a value");
+  }
+
+  /*
+   * Positive test for the find method. Checks if a reserved value is found without being
+   * normalized, and if a new spelling of a known value is found.
+   */
+  @Test
+  void findPositiveTest() {
+    assertEquals(0, symbolTableTest.find("INVALID"), "The reserved value was not found");
+    int id = symbolTableTest.idOf("RE11");
+    assertEquals(id, symbolTableTest.find("re11"), "The new spelling was not found");
+  }
+
+  /*
+   * Positive test for the idOf method. Checks if threads adding the same values at the same time
+   * get the same ids.
+   */
+  @Test
+  void idOfConcurrentPositiveTest() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<int[]>> results = new ArrayList<>();
+    for (int thread = 0; thread < 8; thread++) {
+      results.add(executor.submit(() -> {
+        int[] ids = new int[1_000];
+        for (int value = 0; value < ids.length; value++) {
+          ids[value] = symbolTableTest.idOf("line" + value);
+        }
+        return ids;
+      }));
+    }
+    int[] expected = results.get(0).get();
+    for (Future<int[]> result : results) {
+      assertArrayEquals(expected, result.get(), "The threads got different ids");
+    }
+    executor.shutdown();
+    assertEquals(1_001, symbolTableTest.size(), "A value was stored more than once");
+  }
+
+  /*
+   * Negative test for the idOf method. Checks if looking up many spellings of the same value does
+   * not grow the symbol table, so arbitrary input can not fill it.
+   */
+  @Test
+  void idOfSpellingsNegativeTest() {
+    SymbolTable table = new SymbolTable(String::toUpperCase);
+    int id = table.idOf("RE11");
+    for (String spelling : new String[]{"re11", "Re11", "rE11", "re11"}) {
+      assertEquals(id, table.idOf(spelling), "A spelling of RE11 got a new id");
+    }
+    assertEquals(1, table.size(), "A spelling was stored as a new value");
+  }
+
+  /*
+   * Positive test for the reserved value of the destinations. Checks if a destination spelled
+   * "invalid" in any case gets the same id as a missing destination, as it did when destinations
+   * were compared ignoring case.
+   */
+  @Test
+  void reservedValuePositiveTest() {
+    int missing = SymbolTable.DESTINATIONS.idOf("INVALID");
+    assertEquals(missing, SymbolTable.DESTINATIONS.idOf("invalid"),
+        "The lower case spelling got its own id");
+    assertEquals(missing, SymbolTable.DESTINATIONS.find("Invalid"),
+        "The normalized spelling was not found");
+    TrainStation station = new TrainStation();
+    station.addTrainDeparture("12:00", 1, "L1", null);
+    station.addTrainDeparture("13:00", 2, "L1", "invalid");
+    assertEquals(2, station.streamByDestination("invalid").count(),
+        "The missing and the typed destination were not found together");
+  }
+}
@@ -98,4 +98,18 @@ class TrainDepartureTest {
     assertEquals("Oslo", trainDepartureTest.getDestination(),
         "The destination was not changed to Oslo");
   }
-}
\ No newline at end of file
+
+  /*
+   * Positive test for the copy constructor. Checks if the copy has the same information, and if
+   * changing the copy leaves the original train departure unchanged.
+   */
+  @Test
+  void copyPositiveTest() {
+    trainDepartureTest.setDelay(30);
+    TrainDeparture copy = new TrainDeparture(trainDepartureTest);
+    assertEquals(trainDepartureTest.getRealDepartureTime(), copy.getRealDepartureTime(),
+        "The copy had a different real departure time");
+    copy.setDelay(5);
+    assertEquals(30, trainDepartureTest.getMinutesDelay(), "The original train was changed");
+  }
+}
@@ -0,0 +1,52 @@
+package edu.ntnu.stud.transport;
+
+import java.util.Random;
+
+
+/*
+ * This class is used to benchmark the TrainNumberIndex class with and without the Bloom filter.
+ * The benchmark is not a unit test and is not run by Maven. It prints the average time to check a
+ * train number that is not claimed, which is the common case when a train departure is added, and
+ * the average time to claim and release a train number.
+ */
+
+public class TrainNumberIndexBenchmark {
+
+  private static final int CLAIMED = 200_000;
+  private static final int CHECKS = 2_000_000;
+
+  private static long blackHole;
+
+  private TrainNumberIndexBenchmark() {
+  }
+
+  /*
+   * Runs the benchmarks and prints the results to the console.
+   */
+  public static void main(String[] args) {
+    System.out.println("== Network train number index, " + CLAIMED + " claimed ==");
+    int[] unclaimed = new Random(3).ints(CHECKS, CLAIMED + 1, Integer.MAX_VALUE).toArray();
+    Object station = new Object();
+    TrainNumberIndex[] indexes = {new TrainNumberIndex(), new TrainNumberIndex(CLAIMED)};
+    String[] labels = {" (no Bloom filter)", " (Bloom filter)"};
+    for (int variant = 0; variant < indexes.length; variant++) {
+      TrainNumberIndex index = indexes[variant];
+      String label = labels[variant];
+      for (int trainNumber = 1; trainNumber <= CLAIMED; trainNumber++) {
+        index.claim(trainNumber, station);
+      }
+      TrainStationBenchmark.measure("check unclaimed" + label, CHECKS, () -> {
+        for (int trainNumber : unclaimed) {
+          blackHole += index.isClaimed(trainNumber) ? 1 : 0;
+        }
+      });
+      TrainStationBenchmark.measure("claim + release" + label, CHECKS / 10, () -> {
+        for (int i = 0; i < CHECKS / 10; i++) {
+          index.claim(unclaimed[i], station);
+          index.release(unclaimed[i], station);
+        }
+      });
+    }
+    System.out.println("(ignore) " + blackHole);
+  }
+}
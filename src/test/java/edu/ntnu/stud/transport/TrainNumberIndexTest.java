@@ -0,0 +1,122 @@
+package edu.ntnu.stud.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ * This class is used to test the TrainNumberIndex class.
+ */
+
+class TrainNumberIndexTest {
+
+  private TrainNumberIndex trainNumberIndexTest;
+  private final Object firstStation = new Object();
+  private final Object secondStation = new Object();
+
+  /*
+   * This method is used to set up the test environment before each test.
+   */
+  @BeforeEach
+  void setUp() {
+    trainNumberIndexTest = new TrainNumberIndex(1_000);
+  }
+
+  /*
+   * Positive test for the claim method. Checks if a claimed train number is claimed, and can not be
+   * claimed by another train station.
+   */
+  @Test
+  void claimPositiveTest() {
+    assertTrue(trainNumberIndexTest.claim(13, firstStation), "The train number was not claimed");
+    assertTrue(trainNumberIndexTest.isClaimed(13), "The claimed train number was not found");
+    assertFalse(trainNumberIndexTest.claim(13, secondStation),
+        "The train number was claimed twice");
+  }
+
+  /*
+   * Negative test for the release method. Checks if only the train station that claimed a train
+   * number can release it.
+   */
+  @Test
+  void releaseNegativeTest() {
+    trainNumberIndexTest.claim(13, firstStation);
+    assertFalse(trainNumberIndexTest.release(13, secondStation),
+        "Another train station released the train number");
+    assertTrue(trainNumberIndexTest.release(13, firstStation), "The train number was not released");
+    assertFalse(trainNumberIndexTest.isClaimed(13), "The released train number was still claimed");
+  }
+
+  /*
+   * Positive test for the Bloom filter. Checks if every claimed train number is found through the
+   * Bloom filter, and if most of the train numbers never claimed are not.
+   */
+  @Test
+  void bloomFilterPositiveTest() {
+    for (int trainNumber = 1; trainNumber <= 1_000; trainNumber++) {
+      trainNumberIndexTest.claim(trainNumber * 7, firstStation);
+    }
+    for (int trainNumber = 1; trainNumber <= 1_000; trainNumber++) {
+      assertTrue(trainNumberIndexTest.isClaimed(trainNumber * 7),
+          "The claimed train number " + trainNumber * 7 + " was not found");
+    }
+    trainNumberIndexTest.clear();
+    assertEquals(0, trainNumberIndexTest.size(), "The index was not cleared");
+    assertFalse(trainNumberIndexTest.isClaimed(7), "A cleared train number was still claimed");
+  }
+
+  /*
+   * Positive test for rebuilding the Bloom filter. Claims and releases many more train numbers
+   * than the Bloom filter is sized for, and checks if the Bloom filter only keeps the bits of the
+   * train numbers that are still claimed, and if every answer is still right.
+   */
+  @Test
+  void bloomFilterRebuildPositiveTest() {
+    TrainNumberIndex index = new TrainNumberIndex(16);
+    index.claim(3, firstStation);
+    index.claim(5, firstStation);
+    for (int trainNumber = 100; trainNumber < 10_000; trainNumber++) {
+      index.claim(trainNumber, secondStation);
+      index.release(trainNumber, secondStation);
+    }
+    assertTrue(index.bloomFilterBitCount() <= 3 * (2 + 16),
+        "The Bloom filter kept the bits of released train numbers");
+    assertTrue(index.isClaimed(3), "A claimed train number was lost in the rebuild");
+    assertTrue(index.isClaimed(5), "A claimed train number was lost in the rebuild");
+    assertFalse(index.isClaimed(9_999), "A released train number was still claimed");
+    assertEquals(2, index.size(), "The index had the wrong size");
+  }
+
+  /*
+   * Positive test for concurrent claims. Four threads claim the same train numbers, and every train
+   * number must be claimed by exactly one of them.
+   */
+  @Test
+  void concurrentClaimPositiveTest() throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<Integer>> claims = new ArrayList<>();
+    for (int thread = 0; thread < 4; thread++) {
+      Object owner = new Object();
+      claims.add(executor.submit(() -> {
+        int claimed = 0;
+        for (int trainNumber = 1; trainNumber <= 20_000; trainNumber++) {
+          claimed += trainNumberIndexTest.claim(trainNumber, owner) ? 1 : 0;
+        }
+        return claimed;
+      }));
+    }
+    int claimed = 0;
+    for (Future<Integer> claim : claims) {
+      claimed += claim.get();
+    }
+    executor.shutdown();
+    assertEquals(20_000, claimed, "A train number was claimed more than once");
+  }
+}
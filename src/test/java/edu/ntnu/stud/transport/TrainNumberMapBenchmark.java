@@ -0,0 +1,89 @@
+package edu.ntnu.stud.transport;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+
+/*
+ * This class is used to benchmark the TrainNumberMap class against the boxed collections from the
+ * JDK. The benchmark is not a unit test and is not run by Maven. It prints the retained memory per
+ * entry and the average lookup latency.
+ */
+
+public class TrainNumberMapBenchmark {
+
+  private static final int ENTRIES = 1_000_000;
+  private static final int LOOKUPS = 5_000_000;
+
+  private static long blackHole;
+
+  private TrainNumberMapBenchmark() {
+  }
+
+  /*
+   * Runs the benchmarks and prints the results to the console.
+   */
+  public static void main(String[] args) {
+    TrainDeparture train = new TrainDeparture("12:00", 1, "L2", "Oslo");
+    int[] keys = new Random(7).ints(LOOKUPS, 1, ENTRIES + 1).toArray();
+
+    long before = usedMemory();
+    TrainNumberMap primitiveMap = new TrainNumberMap();
+    for (int trainNumber = 1; trainNumber <= ENTRIES; trainNumber++) {
+      primitiveMap.put(trainNumber, train);
+    }
+    report("TrainNumberMap", usedMemory() - before);
+    TrainStationBenchmark.measure("TrainNumberMap lookup", LOOKUPS, () -> {
+      for (int key : keys) {
+        blackHole += primitiveMap.get(key).getTrackNumber();
+      }
+    });
+
+    before = usedMemory();
+    Map<Integer, TrainDeparture> hashMap = new HashMap<>();
+    for (int trainNumber = 1; trainNumber <= ENTRIES; trainNumber++) {
+      hashMap.put(trainNumber, train);
+    }
+    report("HashMap<Integer, TrainDeparture>", usedMemory() - before);
+    TrainStationBenchmark.measure("HashMap<Integer, TrainDeparture> lookup", LOOKUPS, () -> {
+      for (int key : keys) {
+        blackHole += hashMap.get(key).getTrackNumber();
+      }
+    });
+
+    before = usedMemory();
+    Map<Integer, TrainDeparture> treeMap = new TreeMap<>();
+    for (int trainNumber = 1; trainNumber <= ENTRIES; trainNumber++) {
+      treeMap.put(trainNumber, train);
+    }
+    report("TreeMap<Integer, TrainDeparture>", usedMemory() - before);
+    TrainStationBenchmark.measure("TreeMap<Integer, TrainDeparture> lookup", LOOKUPS, () -> {
+      for (int key : keys) {
+        blackHole += treeMap.get(key).getTrackNumber();
+      }
+    });
+
+    System.out.println("(ignore) " + blackHole + primitiveMap.size() + hashMap.size()
+        + treeMap.size());
+  }
+
+  /*
+   * Prints the retained memory per entry in bytes.
+   */
+  private static void report(String label, long bytes) {
+    System.out.printf("%-45s %12.1f bytes/entry%n", label + " memory", (double) bytes / ENTRIES);
+  }
+
+  /*
+   * Returns the memory used by the heap after a garbage collection.
+   */
+  private static long usedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+}
@@ -0,0 +1,84 @@
+package edu.ntnu.stud.transport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/*
+ * This class is used to test the TrainNumberMap class.
+ */
+
+class TrainNumberMapTest {
+
+  private TrainNumberMap trainNumberMapTest;
+  private TrainDeparture train;
+
+  /*
+   * This method is used to set up the test environment before each test.
+   */
+  @BeforeEach
+  void setUp() {
+    trainNumberMapTest = new TrainNumberMap();
+    train = new TrainDeparture("12:00", 13, "L2", "Oslo");
+    trainNumberMapTest.put(13, train);
+  }
+
+  /*
+   * Positive test for the get method. Checks if the mapped train departure is returned.
+   */
+  @Test
+  void getPositiveTest() {
+    assertSame(train, trainNumberMapTest.get(13),
+        "The train departure mapped to 13 was not returned");
+  }
+
+  /*
+   * Negative test for the get method. Checks if unknown and empty train numbers return null.
+   */
+  @Test
+  void getNegativeTest() {
+    assertNull(trainNumberMapTest.get(14), "An unknown train number returned a train departure");
+    assertNull(trainNumberMapTest.get(0), "The train number 0 returned a train departure");
+  }
+
+  /*
+   * Positive test for the remove method. Checks if the mapping is removed and the size updated.
+   */
+  @Test
+  void removePositiveTest() {
+    assertSame(train, trainNumberMapTest.remove(13), "The removed train departure was wrong");
+    assertFalse(trainNumberMapTest.containsKey(13), "The train number 13 was not removed");
+    assertEquals(0, trainNumberMapTest.size(), "The size was not updated");
+  }
+
+  /*
+   * Positive test for the put and remove methods. Checks random puts and removes against a
+   * HashMap, so that collisions, resizing and back shifting of entries are covered.
+   */
+  @Test
+  void randomOperationsPositiveTest() {
+    Map<Integer, TrainDeparture> expected = new HashMap<>();
+    expected.put(13, train);
+    Random random = new Random(42);
+    for (int i = 0; i < 100_000; i++) {
+      int trainNumber = 1 + random.nextInt(2_000);
+      if (random.nextBoolean()) {
+        trainNumberMapTest.put(trainNumber, train);
+        expected.put(trainNumber, train);
+      } else {
+        assertEquals(expected.remove(trainNumber), trainNumberMapTest.remove(trainNumber),
+            "The removed train departure did not match");
+      }
+    }
+    assertEquals(expected.size(), trainNumberMapTest.size(), "The size did not match");
+    for (int trainNumber = 1; trainNumber <= 2_000; trainNumber++) {
+      assertEquals(expected.containsKey(trainNumber), trainNumberMapTest.containsKey(trainNumber),
+          "The map did not match for train number " + trainNumber);
+    }
+  }
+}
@@ -0,0 +1,693 @@
+package edu.ntnu.stud.transport;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+
+/*
+ * This class is used to benchmark the TrainStation class. The benchmark is not a unit test and is
+ * not run by Maven. It can be run from the test classpath with the main method, and prints the
+ * average time per operation for growing register sizes.
+ */
+
+public class TrainStationBenchmark {
+
+  private static final int[] REGISTER_SIZES = {1_000, 10_000, 50_000};
+  private static final String[] DESTINATIONS = {"Oslo", "Bergen", "Trondheim", "Stavanger",
+      "Bodø", "Ålesund", "Voss", "Ås", "Drammen", "Hamar"};
+  private static final String[] TRAIN_LINES = {"L1", "L2", "R10", "RE11", "F2", "F3"};
+  private static final int WARM_UP_ROUNDS = 3;
+
+  private static long blackHole;
+
+  private TrainStationBenchmark() {
+  }
+
+  /*
+   * Runs the benchmarks and prints the results to the console.
+   */
+  public static void main(String[] args) {
+    lookupBenchmark();
+    destinationSearchBenchmark();
+    remainingTrainsBenchmark();
+    departedPredicateBenchmark();
+    snapshotBenchmark();
+    bulkLoadBenchmark();
+    batchUpdateBenchmark();
+    existenceCheckBenchmark();
+    timeWindowBenchmark();
+    departureBoardBenchmark();
+    prefixSearchBenchmark();
+    spellingSearchBenchmark();
+    lineSearchBenchmark();
+    queryBenchmark();
+    bitmapQueryBenchmark();
+    System.out.println("(ignore) " + blackHole);
+  }
+
+  /*
+   * Fills the station with the specified number of train departures, spread over the day. The
+   * train numbers are 1 to size.
+   */
+  static TrainStation populate(TrainStation station, int size) {
+    for (int trainNumber = 1; trainNumber <= size; trainNumber++) {
+      station.addTrainDeparture(time(1 + trainNumber % 1439), trainNumber,
+          TRAIN_LINES[trainNumber % TRAIN_LINES.length],
+          DESTINATIONS[trainNumber % DESTINATIONS.length]);
+    }
+    return station;
+  }
+
+  /*
+   * Returns the minute of the day as a string in the format (HH:mm).
+   */
+  static String time(int minuteOfDay) {
+    return String.format("%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+  }
+
+  /*
+   * Runs the operation the specified number of times after a warm-up, and prints the average time
+   * per operation in nanoseconds.
+   */
+  static void measure(String label, int operations, Runnable operation) {
+    for (int round = 0; round < WARM_UP_ROUNDS; round++) {
+      operation.run();
+    }
+    long start = System.nanoTime();
+    operation.run();
+    long elapsed = System.nanoTime() - start;
+    System.out.printf("%-45s %12.1f ns/op%n", label, (double) elapsed / operations);
+  }
+
+  /*
+   * Compares looking up a train number through the train number index with a linear search through
+   * the register, which is how the station used to find a train departure.
+   */
+  private static void lookupBenchmark() {
+    System.out.println("== Train number lookup ==");
+    for (int size : REGISTER_SIZES) {
+      TrainStation station = populate(new TrainStation(), size);
+      int[] keys = new Random(size).ints(10_000, 1, size + 1).toArray();
+
+      measure("indexed lookup, n=" + size, keys.length, () -> {
+        for (int key : keys) {
+          blackHole += station.searchByTrainNumber(key).next().getTrackNumber();
+          blackHole += station.isTrainNumberUnique(key) ? 1 : 0;
+        }
+      });
+      int[] scanKeys = Arrays.copyOf(keys, 200);
+      measure("linear scan lookup, n=" + size, scanKeys.length, () -> {
+        for (int key : scanKeys) {
+          Iterator<TrainDeparture> iterator = station.getTrainRegister();
+          while (iterator.hasNext()) {
+            TrainDeparture train = iterator.next();
+            if (train.getTrainNumber() == key) {
+              blackHole += train.getTrackNumber();
+              break;
+            }
+          }
+        }
+      });
+    }
+  }
+
+  /*
+   * Compares searching by destination through the destination index with filtering the whole
+   * register, which is how the station used to search by destination.
+   */
+  private static void destinationSearchBenchmark() {
+    System.out.println("== Search by destination ==");
+    for (int size : REGISTER_SIZES) {
+      TrainStation station = populate(new TrainStation(), size);
+      station.addTrainDeparture("23:59", size + 1, "L1", "Rare");
+
+      measure("indexed search (1 match), n=" + size, 10_000, () -> {
+        for (int i = 0; i < 10_000; i++) {
+          blackHole += station.searchByDestination("rare").next().getTrainNumber();
+        }
+      });
+      measure("register filter (1 match), n=" + size, 200, () -> {
+        for (int i = 0; i < 200; i++) {
+          Iterator<TrainDeparture> iterator = station.getTrainRegister();
+          while (iterator.hasNext()) {
+            TrainDeparture train = iterator.next();
+            if (train.getDestination().equalsIgnoreCase("rare")) {
+              blackHole += train.getTrainNumber();
+            }
+          }
+        }
+      });
+    }
+  }
+
+  /*
+   * Compares counting and listing the remaining trains, which are kept apart from the departed
+   * trains, with filtering the whole register with the predicate the station used to hide departed
+   * trains. The station clock is set so that roughly a tenth of the train departures remain.
+   */
+  private static void remainingTrainsBenchmark() {
+    System.out.println("== Remaining trains ==");
+    for (int size : REGISTER_SIZES) {
+      TrainStation station = populate(new TrainStation(), size);
+      station.setStationClock("21:36");
+      LocalTime clock = station.getStationClock();
+
+      measure("count remaining trains, n=" + size, 100_000, () -> {
+        for (int i = 0; i < 100_000; i++) {
+          blackHole += station.getNumberOfTrains();
+        }
+      });
+      measure("remaining trains, n=" + size, 1_000, () -> {
+        for (int i = 0; i < 1_000; i++) {
+          blackHole += station.hideDepartedTrains().hasNext() ? 1 : 0;
+        }
+      });
+      measure("register filter, n=" + size, 100, () -> {
+        for (int i = 0; i < 100; i++) {
+          Iterator<TrainDeparture> iterator = station.getTrainRegister();
+          while (iterator.hasNext()) {
+            TrainDeparture train = iterator.next();
+            if ((train.getDepartureTime().isBefore(train.getRealDepartureTime())
+                || train.getDepartureTime().equals(train.getRealDepartureTime()))
+                && train.getRealDepartureTime().isAfter(clock)
+                || train.getDepartureTime().isAfter(train.getRealDepartureTime())) {
+              blackHole++;
+            }
+          }
+        }
+      });
+    }
+  }
+
+  /*
+   * Compares the predicate the station used to hide departed trains, built on LocalTime objects,
+   * with the same test on the real departure time in minutes. Every train departure is delayed, so
+   * the real departure time has to be computed.
+   */
+  private static void departedPredicateBenchmark() {
+    System.out.println("== Departed train predicate ==");
+    int size = REGISTER_SIZES[REGISTER_SIZES.length - 1];
+    TrainDeparture[] trains = new TrainDeparture[size];
+    for (int i = 0; i < size; i++) {
+      trains[i] = new TrainDeparture(time(1 + i % 1439), i + 1, "L1", "Oslo");
+      trains[i].setDelay(i % 90);
+    }
+    LocalTime clock = LocalTime.parse("12:00");
+    int clockMinutes = 12 * 60;
+    int rounds = 20;
+
+    measure("LocalTime predicate", size * rounds, () -> {
+      for (int round = 0; round < rounds; round++) {
+        for (TrainDeparture train : trains) {
+          if ((train.getDepartureTime().isBefore(train.getRealDepartureTime())
+              || train.getDepartureTime().equals(train.getRealDepartureTime()))
+              && train.getRealDepartureTime().isAfter(clock)
+              || train.getDepartureTime().isAfter(train.getRealDepartureTime())) {
+            blackHole++;
+          }
+        }
+      }
+    });
+    measure("minute predicate", size * rounds, () -> {
+      for (int round = 0; round < rounds; round++) {
+        for (TrainDeparture train : trains) {
+          if (train.getRealDepartureMinutes() > clockMinutes) {
+            blackHole++;
+          }
+        }
+      }
+    });
+  }
+
+  /*
+   * Measures the cost of a delay change, which publishes a new snapshot of the register, and
+   * compares it with copying the whole register, which is what publishing a snapshot would cost
+   * without structural sharing. Also measures reading the whole current snapshot.
+   */
+  private static void snapshotBenchmark() {
+    System.out.println("== Register snapshots ==");
+    for (int size : REGISTER_SIZES) {
+      TrainStation station = populate(new TrainStation(), size);
+      int[] keys = new Random(size).ints(10_000, 1, size + 1).toArray();
+
+      measure("delay change + snapshot, n=" + size, keys.length, () -> {
+        for (int key : keys) {
+          station.setNewDelay(key, key % 60);
+        }
+      });
+      measure("full register copy, n=" + size, 100, () -> {
+        for (int i = 0; i < 100; i++) {
+          Iterator<TrainDeparture> iterator = station.getTrainRegister();
+          List<TrainDeparture> copy = new ArrayList<>(size);
+          while (iterator.hasNext()) {
+            copy.add(new TrainDeparture(iterator.next()));
+          }
+          blackHole += copy.size();
+        }
+      });
+      measure("iterate snapshot, n=" + size, 100, () -> {
+        for (int i = 0; i < 100; i++) {
+          for (TrainDeparture train : station.getSnapshot()) {
+            blackHole += train.getTrackNumber();
+          }
+        }
+      });
+    }
+  }
+
+  /*
+   * Compares loading a timetable one train departure at a time with the bulk load, for a timetable
+   * that is already sorted by departure time and one in random order. Every run loads an empty
+   * station.
+   */
+  private static void bulkLoadBenchmark() {
+    System.out.println("== Bulk load ==");
+    for (int size : REGISTER_SIZES) {
+      List<TrainDeparture> sorted = new ArrayList<>(size);
+      for (int trainNumber = 1; trainNumber <= size; trainNumber++) {
+        sorted.add(new TrainDeparture(time(1 + trainNumber % 1439), trainNumber,
+            TRAIN_LINES[trainNumber % TRAIN_LINES.length],
+            DESTINATIONS[trainNumber % DESTINATIONS.length]));
+      }
+      sorted.sort(TrainStation.DEPARTURE_ORDER);
+      List<TrainDeparture> shuffled = new ArrayList<>(sorted);
+      Collections.shuffle(shuffled, new Random(size));
+
+      measure("add one by one, sorted, n=" + size, size, () -> {
+        TrainStation station = new TrainStation();
+        for (TrainDeparture train : sorted) {
+          station.addTrainDeparture(train);
+        }
+        blackHole += station.getNumberOfTrains();
+      });
+      measure("bulk load, sorted, n=" + size, size,
+          () -> blackHole += new TrainStation().addTrainDepartures(sorted).getAccepted());
+      measure("bulk load, shuffled, n=" + size, size,
+          () -> blackHole += new TrainStation().addTrainDepartures(shuffled).getAccepted());
+    }
+  }
+
+  /*
+   * Compares applying bursts of delay and track changes one call at a time with the batch
+   * methods, on the TrainStation and the ConcurrentTrainStation. Every burst has 500 changes.
+   */
+  private static void batchUpdateBenchmark() {
+    System.out.println("== Batch updates, bursts of 500 ==");
+    for (int size : REGISTER_SIZES) {
+      TrainStation station = populate(new TrainStation(), size);
+      ConcurrentTrainStation concurrent = new ConcurrentTrainStation();
+      for (int trainNumber = 1; trainNumber <= size; trainNumber++) {
+        concurrent.addTrainDeparture(time(1 + trainNumber % 1439), trainNumber, "L1", "Oslo");
+      }
+      Random random = new Random(size);
+      List<Map<Integer, Integer>> bursts = new ArrayList<>();
+      for (int burst = 0; burst < 20; burst++) {
+        Map<Integer, Integer> changes = new HashMap<>();
+        while (changes.size() < 500) {
+          changes.put(1 + random.nextInt(size), random.nextInt(60));
+        }
+        bursts.add(changes);
+      }
+      int operations = bursts.size() * 500;
+
+      measure("delays one by one, n=" + size, operations, () -> {
+        for (Map<Integer, Integer> burst : bursts) {
+          burst.forEach(station::setNewDelay);
+        }
+      });
+      measure("delays batch, n=" + size, operations, () -> {
+        for (Map<Integer, Integer> burst : bursts) {
+          blackHole += station.setNewDelays(burst);
+        }
+      });
+      measure("tracks one by one, n=" + size, operations, () -> {
+        for (Map<Integer, Integer> burst : bursts) {
+          burst.forEach(station::setNewTrackNumber);
+        }
+      });
+      measure("tracks batch, n=" + size, operations, () -> {
+        for (Map<Integer, Integer> burst : bursts) {
+          blackHole += station.setNewTrackNumbers(burst);
+        }
+      });
+      measure("concurrent delays one by one, n=" + size, operations, () -> {
+        for (Map<Integer, Integer> burst : bursts) {
+          burst.forEach(concurrent::setNewDelay);
+        }
+      });
+      measure("concurrent delays batch, n=" + size, operations, () -> {
+        for (Map<Integer, Integer> burst : bursts) {
+          blackHole += concurrent.setNewDelays(burst);
+        }
+      });
+    }
+  }
+
+  /*
+   * Compares checking whether there are remaining trains or train departures to a destination
+   * through the copying iterators with the lazy streams, which stop at the first train departure.
+   */
+  private static void existenceCheckBenchmark() {
+    System.out.println("== Existence checks ==");
+    for (int size : REGISTER_SIZES) {
+      TrainStation station = populate(new TrainStation(), size);
+      station.setStationClock("06:00");
+      int checks = 1_000;
+
+      measure("remaining, iterator hasNext, n=" + size, checks, () -> {
+        for (int i = 0; i < checks; i++) {
+          blackHole += station.hideDepartedTrains().hasNext() ? 1 : 0;
+        }
+      });
+      measure("remaining, stream findAny, n=" + size, checks, () -> {
+        for (int i = 0; i < checks; i++) {
+          blackHole += station.streamRemainingTrains().findAny().isPresent() ? 1 : 0;
+        }
+      });
+      measure("destination, first 5 by iterator, n=" + size, checks, () -> {
+        for (int i = 0; i < checks; i++) {
+          Iterator<TrainDeparture> trains = station.searchByDestination("Oslo");
+          for (int j = 0; j < 5 && trains.hasNext(); j++) {
+            blackHole += trains.next().getTrainNumber();
+          }
+        }
+      });
+      measure("destination, first 5 by stream, n=" + size, checks, () -> {
+        for (int i = 0; i < checks; i++) {
+          blackHole += station.streamByDestination("Oslo").limit(5)
+              .mapToInt(TrainDeparture::getTrainNumber).sum();
+        }
+      });
+    }
+  }
+
+  /*
+   * Compares the time window queries with fetching the whole register and filtering it, which is
+   * what a caller had to do before. The window is 14:00 to 15:30, and the next 20 minutes after a
+   * station clock of 14:00.
+   */
+  private static void timeWindowBenchmark() {
+    System.out.println("== Time windows ==");
+    LocalTime from = LocalTime.of(14, 0);
+    LocalTime to = LocalTime.of(15, 30);
+    for (int size : REGISTER_SIZES) {
+      TrainStation station = populate(new TrainStation(), size);
+      station.setStationClock("14:00");
+      int queries = 200;
+
+      measure("14:00-15:30 by filter, n=" + size, queries, () -> {
+        for (int i = 0; i < queries; i++) {
+          Iterator<TrainDeparture> trains = station.getTrainRegister();
+          while (trains.hasNext()) {
+            LocalTime time = trains.next().getDepartureTime();
+            blackHole += !time.isBefore(from) && !time.isAfter(to) ? 1 : 0;
+          }
+        }
+      });
+      measure("14:00-15:30 by range query, n=" + size, queries, () -> {
+        for (int i = 0; i < queries; i++) {
+          Iterator<TrainDeparture> trains = station.searchByDepartureTime(from, true, to, true);
+          while (trains.hasNext()) {
+            blackHole += trains.next().getTrainNumber();
+          }
+        }
+      });
+      measure("next 20 minutes by filter, n=" + size, queries, () -> {
+        for (int i = 0; i < queries; i++) {
+          Iterator<TrainDeparture> trains = station.hideDepartedTrains();
+          while (trains.hasNext()) {
+            blackHole += trains.next().getRealDepartureMinutes() <= 860 ? 1 : 0;
+          }
+        }
+      });
+      measure("next 20 minutes by range query, n=" + size, queries, () -> {
+        for (int i = 0; i < queries; i++) {
+          Iterator<TrainDeparture> trains = station.searchDeparturesWithin(20);
+          while (trains.hasNext()) {
+            blackHole += trains.next().getTrainNumber();
+          }
+        }
+      });
+    }
+  }
+
+  /*
+   * Compares refreshing a departure board of 10 rows from all the remaining train departures with
+   * fetching only the next 10. The station clock is 06:00, so most of the day remains.
+   */
+  private static void departureBoardBenchmark() {
+    System.out.println("== Departure board, 10 rows ==");
+    for (int size : REGISTER_SIZES) {
+      TrainStation station = populate(new TrainStation(), size);
+      station.setStationClock("06:00");
+      int refreshes = 1_000;
+
+      measure("all remaining, n=" + size, refreshes, () -> {
+        for (int i = 0; i < refreshes; i++) {
+          Iterator<TrainDeparture> trains = station.hideDepartedTrains();
+          for (int row = 0; row < 10 && trains.hasNext(); row++) {
+            blackHole += trains.next().getTrainNumber();
+          }
+        }
+      });
+      measure("nextDepartures(10), n=" + size, refreshes, () -> {
+        for (int i = 0; i < refreshes; i++) {
+          Iterator<TrainDeparture> trains = station.nextDepartures(10);
+          while (trains.hasNext()) {
+            blackHole += trains.next().getTrainNumber();
+          }
+        }
+      });
+    }
+  }
+
+  /*
+   * Compares completing a destination with the prefix index against scanning the remaining train
+   * departures and counting the destinations that start with the prefix. The train departures are
+   * spread over 2000 destinations, and the prefix matches 10 of them.
+   */
+  private static void prefixSearchBenchmark() {
+    System.out.println("== Destination prefix search, 2000 destinations ==");
+    for (int size : REGISTER_SIZES) {
+      TrainStation station = new TrainStation();
+      for (int trainNumber = 1; trainNumber <= size; trainNumber++) {
+        station.addTrainDeparture(time(1 + trainNumber % 1439), trainNumber, "L1",
+            String.format("Stop%04d", trainNumber % 2000));
+      }
+      int queries = 1_000;
+
+      measure("scan remaining trains, n=" + size, queries, () -> {
+        for (int i = 0; i < queries; i++) {
+          Map<String, Integer> counts = new HashMap<>();
+          Iterator<TrainDeparture> trains = station.hideDepartedTrains();
+          while (trains.hasNext()) {
+            String destination = trains.next().getDestination();
+            if (destination.toLowerCase().startsWith("stop012")) {
+              counts.merge(destination, 1, Integer::sum);
+            }
+          }
+          blackHole += counts.size();
+        }
+      });
+      measure("prefix index, n=" + size, queries, () -> {
+        for (int i = 0; i < queries; i++) {
+          blackHole += station.searchDestinationsByPrefix("stop012", 5).size();
+        }
+      });
+    }
+  }
+
+  /*
+   * Compares finding the destinations within 2 edits of a misspelled search with the spelling index
+   * against computing the edit distance to every destination. The destinations are 5000 random
+   * names of 6 to 10 letters, and every search is one of them with a letter replaced.
+   */
+  private static void spellingSearchBenchmark() {
+    System.out.println("== Destination spelling search, 5000 destinations ==");
+    Random random = new Random(7);
+    List<String> destinations = new ArrayList<>();
+    TrainStation station = new TrainStation();
+    for (int trainNumber = 1; trainNumber <= 5_000; trainNumber++) {
+      StringBuilder name = new StringBuilder();
+      int length = 6 + random.nextInt(5);
+      for (int i = 0; i < length; i++) {
+        name.append((char) ('a' + random.nextInt(26)));
+      }
+      destinations.add(name.toString());
+      station.addTrainDeparture(time(1 + trainNumber % 1439), trainNumber, "L1", name.toString());
+    }
+    String[] searches = new String[1_000];
+    for (int i = 0; i < searches.length; i++) {
+      char[] letters = destinations.get(random.nextInt(destinations.size())).toCharArray();
+      letters[random.nextInt(letters.length)] = (char) ('a' + random.nextInt(26));
+      searches[i] = new String(letters);
+    }
+    int queries = searches.length;
+
+    measure("edit distance to every destination", queries, () -> {
+      for (String search : searches) {
+        List<String> matches = new ArrayList<>();
+        for (String destination : destinations) {
+          if (DestinationBkTree.distance(search, destination) <= 2) {
+            matches.add(destination);
+          }
+        }
+        blackHole += matches.size();
+      }
+    });
+    measure("spelling index", queries, () -> {
+      for (String search : searches) {
+        blackHole += station.searchDestinationsBySpelling(search, 2, 5).size();
+      }
+    });
+    measure("spelling index, 1 edit", queries, () -> {
+      for (String search : searches) {
+        blackHole += station.searchDestinationsBySpelling(search, 1, 5).size();
+      }
+    });
+  }
+
+  /*
+   * Compares listing the train departures on one train line with the line index against scanning
+   * the train register. The train departures are spread over 50 train lines.
+   */
+  private static void lineSearchBenchmark() {
+    System.out.println("== Train line search, 50 train lines ==");
+    for (int size : REGISTER_SIZES) {
+      TrainStation station = new TrainStation();
+      for (int trainNumber = 1; trainNumber <= size; trainNumber++) {
+        station.addTrainDeparture(time(1 + trainNumber % 1439), trainNumber,
+            "F" + trainNumber % 50, "Oslo");
+      }
+      int queries = 1_000;
+
+      measure("scan train register, n=" + size, queries, () -> {
+        for (int i = 0; i < queries; i++) {
+          List<TrainDeparture> trains = new ArrayList<>();
+          Iterator<TrainDeparture> register = station.getTrainRegister();
+          while (register.hasNext()) {
+            TrainDeparture train = register.next();
+            if (train.getTrainLine().equalsIgnoreCase("F2")) {
+              trains.add(train);
+            }
+          }
+          blackHole += trains.size();
+        }
+      });
+      measure("line index, n=" + size, queries, () -> {
+        for (int i = 0; i < queries; i++) {
+          Iterator<TrainDeparture> trains = station.searchByTrainLine("F2");
+          blackHole += trains.next().getTrainNumber();
+        }
+      });
+    }
+  }
+
+  /*
+   * Compares a query for a destination, a train line, a window of one hour and a delay with
+   * scanning the train register and checking every criterion. The train departures are spread over
+   * 200 destinations, 50 train lines and 20 tracks, and every fourth train departure is delayed.
+   */
+  private static void queryBenchmark() {
+    System.out.println("== Query with four criteria ==");
+    for (int size : REGISTER_SIZES) {
+      TrainStation station = new TrainStation();
+      Map<Integer, Integer> delays = new HashMap<>();
+      Map<Integer, Integer> tracks = new HashMap<>();
+      for (int trainNumber = 1; trainNumber <= size; trainNumber++) {
+        station.addTrainDeparture(time(1 + trainNumber % 1439), trainNumber,
+            "L" + trainNumber % 50, "Stop" + trainNumber % 200);
+        delays.put(trainNumber, trainNumber % 4 == 0 ? 10 : 0);
+        tracks.put(trainNumber, 1 + trainNumber % 20);
+      }
+      station.setNewDelays(delays);
+      station.setNewTrackNumbers(tracks);
+      DepartureQuery query = new DepartureQuery().withDestination("Stop4").withTrainLine("L4")
+          .departingBetween(LocalTime.of(12, 0), LocalTime.of(13, 0)).delayedMoreThan(5);
+      int queries = 1_000;
+
+      measure("scan train register, n=" + size, queries, () -> {
+        for (int i = 0; i < queries; i++) {
+          blackHole += station.streamTrainRegister()
+              .filter(train -> train.getDestination().equalsIgnoreCase("Stop4"))
+              .filter(train -> train.getTrainLine().equalsIgnoreCase("L4"))
+              .filter(train -> !train.getDepartureTime().isBefore(LocalTime.of(12, 0))
+                  && !train.getDepartureTime().isAfter(LocalTime.of(13, 0)))
+              .filter(train -> train.getMinutesDelay() > 5)
+              .count();
+        }
+      });
+      measure("query, n=" + size, queries, () -> {
+        for (int i = 0; i < queries; i++) {
+          blackHole += station.search(query).getTrains().size();
+        }
+      });
+      System.out.println("  plan: " + station.search(query));
+    }
+  }
+
+  /*
+   * Compares a query on two destinations, two train lines, one track and the delayed train
+   * departures with stream filtering on a register of 100 000 train departures. The train
+   * departures are spread over 100 destinations, 20 train lines and 12 tracks, and every third
+   * train departure is delayed, so no single criterion is selective on its own.
+   */
+  private static void bitmapQueryBenchmark() {
+    System.out.println("== Bitmap query, n=100000 ==");
+    int size = 100_000;
+    TrainStation station = new TrainStation();
+    Map<Integer, Integer> delays = new HashMap<>();
+    Map<Integer, Integer> tracks = new HashMap<>();
+    for (int trainNumber = 1; trainNumber <= size; trainNumber++) {
+      station.addTrainDeparture(time(1 + trainNumber % 1439), trainNumber,
+          "L" + trainNumber % 20, "Stop" + trainNumber % 100);
+      delays.put(trainNumber, trainNumber % 3 == 0 ? 5 : 0);
+      tracks.put(trainNumber, 1 + trainNumber % 12);
+    }
+    station.setNewDelays(delays);
+    station.setNewTrackNumbers(tracks);
+    DepartureQuery query = new DepartureQuery().withDestination("Stop4").withDestination("Stop9")
+        .withTrainLine("L4").withTrainLine("L9").withTrackNumber(10).delayedMoreThan(0);
+    int stop4 = SymbolTable.DESTINATIONS.find("Stop4");
+    int stop9 = SymbolTable.DESTINATIONS.find("Stop9");
+    int l4 = SymbolTable.TRAIN_LINES.find("L4");
+    int l9 = SymbolTable.TRAIN_LINES.find("L9");
+    int queries = 200;
+
+    measure("stream filter by name", queries, () -> {
+      for (int i = 0; i < queries; i++) {
+        blackHole += station.streamTrainRegister()
+            .filter(train -> train.getDestination().equalsIgnoreCase("Stop4")
+                || train.getDestination().equalsIgnoreCase("Stop9"))
+            .filter(train -> train.getTrainLine().equalsIgnoreCase("L4")
+                || train.getTrainLine().equalsIgnoreCase("L9"))
+            .filter(train -> train.getTrackNumber() == 10)
+            .filter(train -> train.getMinutesDelay() > 0)
+            .count();
+      }
+    });
+    measure("stream filter by id", queries, () -> {
+      for (int i = 0; i < queries; i++) {
+        blackHole += station.streamTrainRegister()
+            .filter(train -> train.getDestinationId() == stop4 || train.getDestinationId() == stop9)
+            .filter(train -> train.getTrainLineId() == l4 || train.getTrainLineId() == l9)
+            .filter(train -> train.getTrackNumber() == 10)
+            .filter(train -> train.getMinutesDelay() > 0)
+            .count();
+      }
+    });
+    measure("bitmap query", queries, () -> {
+      for (int i = 0; i < queries; i++) {
+        blackHole += station.search(query).getTrains().size();
+      }
+    });
+    System.out.println("  plan: " + station.search(query));
+  }
+}
@@ -3,6 +3,20 @@ package edu.ntnu.stud.transport;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -14,6 +28,7 @@ import org.junit.jupiter.api.Test;
 
 class TrainStationTest {
 
+  private static final int TRACKS = 9;
   private TrainStation trainStationTest;
 
   /*
@@ -44,6 +59,43 @@ class TrainStationTest {
         "The search by destination did not work");
   }
 
+  /*
+   * Positive test for the searchByDestination method. Checks if the search ignores case and returns
+   * the train departures sorted by departure time.
+   */
+  @Test
+  void searchByDestinationIgnoreCasePositiveTest() {
+    trainStationTest.addTrainDeparture("10:30", 7, "L1", "Oslo");
+    Iterator<TrainDeparture> trains = trainStationTest.searchByDestination("oSLO");
+    assertEquals(7, trains.next().getTrainNumber(), "The first train to Oslo was wrong");
+    assertEquals(13, trains.next().getTrainNumber(), "The second train to Oslo was wrong");
+    assertFalse(trains.hasNext(), "The search returned too many train departures");
+  }
+
+  /*
+   * Positive test for the setNewDestination method. Checks if the train departure is moved from the
+   * old destination to the new destination in the search.
+   */
+  @Test
+  void setNewDestinationPositiveTest() {
+    trainStationTest.setNewDestination(13, "Bergen");
+    assertFalse(trainStationTest.searchByDestination("Oslo").hasNext(),
+        "The train departure was still found under the old destination");
+    assertEquals(13, trainStationTest.searchByDestination("Bergen").next().getTrainNumber(),
+        "The train departure was not found under the new destination");
+  }
+
+  /*
+   * Negative test for the searchByDestination method. Checks if a removed train departure is no
+   * longer found by its destination.
+   */
+  @Test
+  void searchByDestinationNegativeTest() {
+    trainStationTest.removeTrainDeparture(424);
+    assertFalse(trainStationTest.searchByDestination("Trondheim").hasNext(),
+        "The removed train departure was found by its destination");
+  }
+
   /*
    * Positive test for the setNewTrainNumber method. Checks if the train number of the train
    * departure is changed.
@@ -55,6 +107,19 @@ class TrainStationTest {
         "The train number was not changed to 40");
   }
 
+  /*
+   * Positive test for the setNewTrainNumber method. Checks if the old train number is released and
+   * can be used by a new train departure.
+   */
+  @Test
+  void setNewTrainNumberReleasesOldNumberPositiveTest() {
+    trainStationTest.setNewTrainNumber(13, 40);
+    assertTrue(trainStationTest.isTrainNumberUnique(13),
+        "The old train number 13 was not released");
+    assertFalse(trainStationTest.isTrainNumberUnique(40),
+        "The new train number 40 was not registered");
+  }
+
   /*
    * Negative test for the setNewTrainNumber method. Checks if the train number of the train
    * departure is changed to an invalid value.
@@ -78,6 +143,250 @@ class TrainStationTest {
         "The departure time was changed to before the current time");
   }
 
+  /*
+   * Positive test for the setNewDepartureTime method. Checks if the train departure is moved to its
+   * new position in the train register and can still be removed.
+   */
+  @Test
+  void setNewDepartureTimePositiveTest() {
+    trainStationTest.setNewDepartureTime(13, "15:00");
+    Iterator<TrainDeparture> trains = trainStationTest.getTrainRegister();
+    assertEquals(424, trains.next().getTrainNumber(), "The first train departure was wrong");
+    assertEquals(65, trains.next().getTrainNumber(), "The second train departure was wrong");
+    assertEquals(13, trains.next().getTrainNumber(), "The moved train departure was wrong");
+    trainStationTest.removeTrainDeparture(13);
+    assertEquals(2, trainStationTest.getNumberOfTrains(),
+        "The moved train departure was not removed");
+  }
+
+  /*
+   * Stress test for the methods that change the departure time, delay, destination, train line,
+   * track and train number of a train departure, mixed with changes to the station clock. Applies a
+   * million random edits and checks that the register, the indexes and the bitmaps are sorted and
+   * agree with each other and with a scan of the register.
+   */
+  @Test
+  void randomEditsKeepRegisterSortedTest() {
+    String[] destinations = {"Oslo", "Bergen", "Trondheim", "Bodø", "Ås"};
+    String[] trainLines = {"L1", "L2", "F3"};
+    Map<Integer, String> expected = new HashMap<>();
+    Random random = new Random(2023);
+    TrainStation station = new TrainStation();
+    for (int trainNumber = 1; trainNumber <= 300; trainNumber++) {
+      String destination = destinations[random.nextInt(destinations.length)];
+      station.addTrainDeparture(randomTime(random), trainNumber, "L1", destination);
+      expected.put(trainNumber, destination);
+    }
+    for (int edit = 1; edit <= 1_000_000; edit++) {
+      int trainNumber = 1 + random.nextInt(600);
+      switch (random.nextInt(8)) {
+        case 0 -> station.setNewDepartureTime(trainNumber, randomTime(random));
+        case 1 -> station.setNewDelay(trainNumber, random.nextInt(1440));
+        case 2 -> {
+          String destination = destinations[random.nextInt(destinations.length)];
+          station.setNewDestination(trainNumber, destination);
+          expected.computeIfPresent(trainNumber, (number, old) -> destination);
+        }
+        case 3 -> {
+          int newTrainNumber = 1 + random.nextInt(600);
+          if (expected.containsKey(trainNumber) && !expected.containsKey(newTrainNumber)) {
+            expected.put(newTrainNumber, expected.remove(trainNumber));
+          }
+          station.setNewTrainNumber(trainNumber, newTrainNumber);
+        }
+        case 4 -> station.setNewTrainLine(trainNumber,
+            trainLines[random.nextInt(trainLines.length)]);
+        case 5 -> station.setNewTrackNumber(trainNumber, random.nextInt(TRACKS + 1));
+        case 6 -> {
+          int clock = station.getStationClock().getHour() * 60
+              + station.getStationClock().getMinute() + random.nextInt(4);
+          if (clock >= 1200) {
+            station.resetClock();
+          } else {
+            station.setStationClock(String.format("%02d:%02d", clock / 60, clock % 60));
+          }
+        }
+        default -> {
+          if (expected.remove(trainNumber) != null) {
+            station.removeTrainDeparture(trainNumber);
+          } else {
+            String destination = destinations[random.nextInt(destinations.length)];
+            String departureTime = randomTime(random);
+            station.addTrainDeparture(departureTime, trainNumber, "L1", destination);
+            if (LocalTime.parse(departureTime).isAfter(station.getStationClock())) {
+              expected.put(trainNumber, destination);
+            }
+          }
+        }
+      }
+      if (edit % 50_000 == 0) {
+        assertRegisterConsistent(station, expected, destinations, trainLines, 600);
+      }
+    }
+  }
+
+  /*
+   * Returns a random departure time after 00:00 in the format (HH:mm).
+   */
+  private static String randomTime(Random random) {
+    int minuteOfDay = 1 + random.nextInt(1439);
+    return String.format("%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+  }
+
+  /*
+   * Returns the train numbers of the train departures, in the order of the iterator.
+   */
+  private static List<Integer> trainNumbersOf(Iterator<TrainDeparture> trains) {
+    List<Integer> trainNumbers = new ArrayList<>();
+    trains.forEachRemaining(train -> trainNumbers.add(train.getTrainNumber()));
+    return trainNumbers;
+  }
+
+  /*
+   * Checks that the register is sorted by departure time and train number, that every train
+   * departure can be found by its train number, destination, train line and track, and that the
+   * remaining and departed train departures are sorted by real departure time and split at the
+   * station clock. The train station only hands out read-only copies of its train departures, so
+   * every train departure found is compared field by field with the one in the train number index,
+   * and each index is compared with a scan of the register. The bitmaps are
+   * checked with queries on a destination, a train line and the delay, and the ordinals of the
+   * train departures must be distinct and below the largest number of train departures the train
+   * station has had at once.
+   */
+  private static void assertRegisterConsistent(TrainStation station,
+      Map<Integer, String> expected, String[] destinations, String[] trainLines, int peakTrains) {
+    int size = 0;
+    TrainDeparture previous = null;
+    List<TrainDeparture> scanned = new ArrayList<>();
+    Iterator<TrainDeparture> register = station.getTrainRegister();
+    while (register.hasNext()) {
+      TrainDeparture train = register.next();
+      scanned.add(train);
+      if (previous != null) {
+        int order = previous.getDepartureTime().compareTo(train.getDepartureTime());
+        assertTrue(order < 0 || order == 0
+                && previous.getTrainNumber() < train.getTrainNumber(),
+            "The register was not sorted at train number " + train.getTrainNumber());
+      }
+      assertSameDeparture(station.searchByTrainNumber(train.getTrainNumber()).next(), train,
+          "The train number index did not match the register");
+      assertEquals(expected.get(train.getTrainNumber()), train.getDestination(),
+          "The train departure had the wrong destination");
+      previous = train;
+      size++;
+    }
+    assertEquals(expected.size(), size, "The register had the wrong number of train departures");
+
+    int indexed = 0;
+    for (String destination : destinations) {
+      Iterator<TrainDeparture> trains = station.searchByDestination(destination);
+      while (trains.hasNext()) {
+        TrainDeparture train = trains.next();
+        assertEquals(destination, train.getDestination(),
+            "The destination index returned the wrong destination");
+        assertSameDeparture(station.searchByTrainNumber(train.getTrainNumber()).next(), train,
+            "The destination index did not hold the train departure of the train number index");
+        indexed++;
+      }
+    }
+    assertEquals(size, indexed, "The destination index had the wrong number of train departures");
+
+    for (String trainLine : trainLines) {
+      List<TrainDeparture> trains = new ArrayList<>();
+      station.searchByTrainLine(trainLine).forEachRemaining(trains::add);
+      for (TrainDeparture train : trains) {
+        assertSameDeparture(station.searchByTrainNumber(train.getTrainNumber()).next(), train,
+            "The line index did not hold the train departure of the train number index");
+      }
+      assertEquals(trainNumbersOf(scanned.stream()
+              .filter(train -> train.getTrainLine().equals(trainLine)).iterator()),
+          trainNumbersOf(trains.iterator()), "The line index did not match the register");
+    }
+
+    for (int track = 1; track <= TRACKS; track++) {
+      int trackNumber = track;
+      List<Integer> scannedTrack = trainNumbersOf(scanned.stream()
+          .filter(train -> train.getTrackNumber() == trackNumber).iterator());
+      QueryResult result = station.search(new DepartureQuery().withTrackNumber(track));
+      if (size > 0) {
+        assertEquals(QueryResult.Index.TRACK, result.getIndex(), "The track index was not used");
+      }
+      assertEquals(scannedTrack.size(), result.getCandidates().get(QueryResult.Index.TRACK),
+          "The track index had the wrong number of train departures");
+      assertEquals(scannedTrack, trainNumbersOf(result.getTrains().iterator()),
+          "The track index did not match the register");
+    }
+
+    for (String destination : destinations) {
+      for (String trainLine : trainLines) {
+        for (boolean delayed : new boolean[] {true, false}) {
+          DepartureQuery query = new DepartureQuery().withDestination(destination)
+              .withTrainLine(trainLine);
+          List<Integer> scannedBitmap = trainNumbersOf(scanned.stream()
+              .filter(train -> train.getDestination().equals(destination)
+                  && train.getTrainLine().equals(trainLine)
+                  && train.getMinutesDelay() > 0 == delayed).iterator());
+          QueryResult result = station.search(delayed ? query.delayedMoreThan(0)
+              : query.notDelayed());
+          assertEquals(scannedBitmap.size(), result.getCandidates().get(QueryResult.Index.BITMAP),
+              "The bitmap index had the wrong number of train departures");
+          assertEquals(scannedBitmap, trainNumbersOf(result.getTrains().iterator()),
+              "The bitmap index did not match the register");
+        }
+      }
+    }
+
+    boolean[] ordinals = new boolean[peakTrains];
+    for (TrainDeparture train : scanned) {
+      int ordinal = station.getOrdinal(train.getTrainNumber());
+      assertTrue(ordinal >= 0 && ordinal < peakTrains,
+          "The ordinal " + ordinal + " was not reused from a removed train departure");
+      assertFalse(ordinals[ordinal], "The ordinal " + ordinal + " was given out twice");
+      ordinals[ordinal] = true;
+    }
+
+    int clock = station.getStationClock().getHour() * 60 + station.getStationClock().getMinute();
+    List<Integer> remaining = trainNumbersOf(station.hideDepartedTrains());
+    List<Integer> departed = trainNumbersOf(station.getDepartedTrains());
+    assertSortedByRealDeparture(station, remaining);
+    assertSortedByRealDeparture(station, departed);
+    assertEquals(scanned.stream().filter(train -> train.getRealDepartureMinutes() > clock)
+            .map(TrainDeparture::getTrainNumber).sorted().toList(),
+        remaining.stream().sorted().toList(), "The remaining trains did not match the clock");
+    assertEquals(scanned.stream().filter(train -> train.getRealDepartureMinutes() <= clock)
+            .map(TrainDeparture::getTrainNumber).sorted().toList(),
+        departed.stream().sorted().toList(), "The departed trains did not match the clock");
+    assertEquals(remaining.size(), station.getNumberOfTrains(), "The number of trains was wrong");
+  }
+
+  /*
+   * Checks that the train departures with the train numbers are sorted by real departure time.
+   */
+  private static void assertSortedByRealDeparture(TrainStation station,
+      List<Integer> trainNumbers) {
+    int previousMinutes = -1;
+    for (int trainNumber : trainNumbers) {
+      int minutes = station.searchByTrainNumber(trainNumber).next().getRealDepartureMinutes();
+      assertTrue(previousMinutes <= minutes, "The trains were not sorted by real departure time");
+      previousMinutes = minutes;
+    }
+  }
+
+  /*
+   * Checks that two train departures have the same departure time, delay, train number,
+   * destination, train line and track.
+   */
+  private static void assertSameDeparture(TrainDeparture expected, TrainDeparture actual,
+      String message) {
+    assertEquals(expected.getDepartureMinutes(), actual.getDepartureMinutes(), message);
+    assertEquals(expected.getMinutesDelay(), actual.getMinutesDelay(), message);
+    assertEquals(expected.getRealDepartureMinutes(), actual.getRealDepartureMinutes(), message);
+    assertEquals(expected.getTrainNumber(), actual.getTrainNumber(), message);
+    assertEquals(expected.getDestinationId(), actual.getDestinationId(), message);
+    assertEquals(expected.getTrainLineId(), actual.getTrainLineId(), message);
+    assertEquals(expected.getTrackNumber(), actual.getTrackNumber(), message);
+  }
+
   /*
    * Positive test for the hideDepartedTrains method. Checks if the trains that have departed are
    * hidden.
@@ -91,6 +400,970 @@ class TrainStationTest {
         "The number of trains was not changed");
   }
 
+  /*
+   * Positive test for the removeTrainDeparture method. Checks if the train departure is removed and
+   * the train number can no longer be found.
+   */
+  @Test
+  void removeTrainDeparturePositiveTest() {
+    trainStationTest.removeTrainDeparture(424);
+    assertFalse(trainStationTest.searchByTrainNumber(424).hasNext(),
+        "The train departure was not removed");
+    assertTrue(trainStationTest.isTrainNumberUnique(424),
+        "The train number 424 was not released");
+  }
+
+  /*
+   * Negative test for the searchByTrainNumber method. Checks if an unknown train number returns an
+   * empty iterator.
+   */
+  @Test
+  void searchByTrainNumberNegativeTest() {
+    assertFalse(trainStationTest.searchByTrainNumber(1).hasNext(),
+        "The search returned a train departure for an unknown train number");
+  }
+
+  /*
+   * Positive test for the hideDepartedTrains method. Checks if a delayed train departure is shown
+   * until its real departure time, and if the remaining trains are sorted by real departure time.
+   */
+  @Test
+  void hideDepartedTrainsDelayPositiveTest() {
+    trainStationTest.setNewDelay(13, 120);
+    trainStationTest.setStationClock("12:00");
+    Iterator<TrainDeparture> trains = trainStationTest.hideDepartedTrains();
+    assertEquals(424, trains.next().getTrainNumber(), "The first remaining train was wrong");
+    assertEquals(13, trains.next().getTrainNumber(), "The delayed train was hidden");
+    assertEquals(65, trains.next().getTrainNumber(), "The last remaining train was wrong");
+    assertEquals(3, trainStationTest.getNumberOfTrains(), "The number of trains was wrong");
+  }
+
+  /*
+   * Positive test for the hideDepartedTrains method. Checks if a train departure delayed past
+   * midnight is not hidden.
+   */
+  @Test
+  void hideDepartedTrainsPastMidnightPositiveTest() {
+    trainStationTest.setNewDelay(65, 660);
+    trainStationTest.setStationClock("23:00");
+    assertEquals(65, trainStationTest.hideDepartedTrains().next().getTrainNumber(),
+        "The train delayed past midnight was hidden");
+    assertEquals(1, trainStationTest.getNumberOfTrains(), "The number of trains was wrong");
+  }
+
+  /*
+   * Positive test for the getNumberOfTrains method. Checks if the number of remaining trains is
+   * counted when the clock moves forward and when departures are delayed, added and removed.
+   */
+  @Test
+  void getNumberOfTrainsPositiveTest() {
+    trainStationTest.setStationClock("12:30");
+    assertEquals(1, trainStationTest.getNumberOfTrains(), "The departed trains were counted");
+    trainStationTest.setNewDelay(424, 30);
+    assertEquals(2, trainStationTest.getNumberOfTrains(), "The delayed train was not counted");
+    trainStationTest.addTrainDeparture("13:00", 7, "L1", "Oslo");
+    assertEquals(3, trainStationTest.getNumberOfTrains(), "The new train was not counted");
+    trainStationTest.removeTrainDeparture(65);
+    assertEquals(2, trainStationTest.getNumberOfTrains(), "The removed train was counted");
+    trainStationTest.removeTrainDeparture(13);
+    assertEquals(2, trainStationTest.getNumberOfTrains(), "The departed train was subtracted");
+  }
+
+  /*
+   * Positive test for the getDepartedTrains method. Checks if the departed trains are moved to the
+   * train history when the clock moves forward, and if the full register is still available.
+   */
+  @Test
+  void getDepartedTrainsPositiveTest() {
+    trainStationTest.setStationClock("13:00");
+    Iterator<TrainDeparture> departed = trainStationTest.getDepartedTrains();
+    assertEquals(13, departed.next().getTrainNumber(), "The first departed train was wrong");
+    assertEquals(424, departed.next().getTrainNumber(), "The second departed train was wrong");
+    assertFalse(departed.hasNext(), "A remaining train was moved to the departed trains");
+    Iterator<TrainDeparture> register = trainStationTest.getTrainRegister();
+    register.next();
+    register.next();
+    assertEquals(65, register.next().getTrainNumber(), "The register did not keep all trains");
+  }
+
+  /*
+   * Negative test for the getDepartedTrains method. Checks if a departed train that is delayed
+   * past the station clock is moved back to the remaining trains.
+   */
+  @Test
+  void getDepartedTrainsNegativeTest() {
+    trainStationTest.setStationClock("13:00");
+    trainStationTest.setNewDelay(424, 60);
+    assertEquals(13, trainStationTest.getDepartedTrains().next().getTrainNumber(),
+        "The delayed train was still departed");
+    assertEquals(424, trainStationTest.hideDepartedTrains().next().getTrainNumber(),
+        "The delayed train was not moved back to the remaining trains");
+  }
+
+  /*
+   * Negative test for the train departures of a snapshot. Checks if a train departure read from a
+   * snapshot can not be changed, and if a copy of it can be changed without changing the snapshot
+   * or the train station.
+   */
+  @Test
+  void snapshotTrainsReadOnlyNegativeTest() {
+    RegisterSnapshot snapshot = trainStationTest.getSnapshot();
+    TrainDeparture train = snapshot.iterator().next();
+    assertThrows(UnsupportedOperationException.class, () -> train.setDelay(30),
+        "A train departure of the snapshot was delayed");
+    assertThrows(UnsupportedOperationException.class, () -> train.setTrackNumber(2),
+        "A train departure of the snapshot was given a track");
+    assertThrows(UnsupportedOperationException.class,
+        () -> trainStationTest.getTrainRegister().next().setDestination("Voss"),
+        "A train departure of the train register was given a destination");
+    TrainDeparture copy = new TrainDeparture(train);
+    copy.setDelay(30);
+    assertEquals(0, snapshot.iterator().next().getMinutesDelay(), "The copy changed the snapshot");
+    assertEquals(0, trainStationTest.searchByTrainNumber(train.getTrainNumber()).next()
+        .getMinutesDelay(), "The copy changed the train station");
+  }
+
+  /*
+   * Negative test for the train departures handed to and from a train station. Checks if the train
+   * departures found by the search methods can not be changed, if changing an added train
+   * departure does not change the train station, and if a read-only train departure taken from
+   * another train station can be added and then edited.
+   */
+  @Test
+  void searchedTrainsReadOnlyNegativeTest() {
+    assertThrows(UnsupportedOperationException.class,
+        () -> trainStationTest.searchByTrainNumber(13).next().setDelay(30),
+        "A train departure found by train number was delayed");
+    assertThrows(UnsupportedOperationException.class,
+        () -> trainStationTest.hideDepartedTrains().next().setDepartureTime("23:00"),
+        "A remaining train departure was given a new departure time");
+    assertThrows(UnsupportedOperationException.class,
+        () -> trainStationTest.search(new DepartureQuery().withDestination("Oslo")).getTrains()
+            .get(0).setTrackNumber(2),
+        "A train departure found by a query was given a track");
+
+    TrainDeparture added = new TrainDeparture("12:00", 7, "L1", "Oslo");
+    trainStationTest.addTrainDeparture(added);
+    added.setDelay(600);
+    added.setTrackNumber(4);
+    assertEquals(0, trainStationTest.searchByTrainNumber(7).next().getMinutesDelay(),
+        "Changing the added train departure changed the train station");
+    assertFalse(trainStationTest.search(new DepartureQuery().withTrackNumber(4)).getTrains()
+        .iterator().hasNext(), "Changing the added train departure changed the track index");
+
+    TrainStation other = new TrainStation();
+    other.addTrainDeparture(trainStationTest.getTrainRegister().next());
+    other.setNewDelay(13, 15);
+    other.setNewDestination(13, "Bergen");
+    assertEquals(15, other.searchByTrainNumber(13).next().getMinutesDelay(),
+        "The added read-only train departure could not be delayed");
+    assertEquals(1, other.getNumberOfTrains(), "The edited train departure was lost");
+  }
+
+  /*
+   * Positive test for the getSnapshot method. Checks if a snapshot is left unchanged by later
+   * changes to the train station, and if the next snapshot has a higher version.
+   */
+  @Test
+  void getSnapshotPositiveTest() {
+    RegisterSnapshot before = trainStationTest.getSnapshot();
+    trainStationTest.setNewTrackNumber(13, 4);
+    trainStationTest.removeTrainDeparture(424);
+    RegisterSnapshot after = trainStationTest.getSnapshot();
+    assertTrue(after.getVersion() > before.getVersion(), "The version did not increase");
+    assertEquals(3, before.size(), "The old snapshot was changed");
+    assertEquals(-1, before.iterator().next().getTrackNumber(), "The old snapshot was changed");
+    assertEquals(2, after.size(), "The new snapshot did not contain the change");
+    assertEquals(4, after.iterator().next().getTrackNumber(),
+        "The new snapshot did not contain the new track");
+  }
+
+  /*
+   * Negative test for the getSnapshot method. Checks if a change that is rejected does not publish
+   * a new snapshot.
+   */
+  @Test
+  void getSnapshotNegativeTest() {
+    RegisterSnapshot before = trainStationTest.getSnapshot();
+    trainStationTest.addTrainDeparture("09:00", 5, "L1", "Oslo");
+    trainStationTest.setNewDelay(1, 10);
+    assertSame(before, trainStationTest.getSnapshot(), "A rejected change published a snapshot");
+  }
+
+  /*
+   * Positive test for reading the snapshots from another thread. A reader iterates the current
+   * snapshot over and over while the train station is changed, and must always see a sorted
+   * register with the right number of train departures.
+   */
+  @Test
+  void getSnapshotConcurrentReaderPositiveTest() throws Exception {
+    TrainStation station = new TrainStation();
+    for (int trainNumber = 1; trainNumber <= 200; trainNumber++) {
+      station.addTrainDeparture(randomTime(new Random(trainNumber)), trainNumber, "L1", "Oslo");
+    }
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    AtomicBoolean running = new AtomicBoolean(true);
+    Future<Integer> reader = executor.submit(() -> {
+      int reads = 0;
+      while (running.get() || reads == 0) {
+        RegisterSnapshot snapshot = station.getSnapshot();
+        int count = 0;
+        TrainDeparture previous = null;
+        for (TrainDeparture train : snapshot) {
+          assertTrue(previous == null
+                  || TrainStation.DEPARTURE_ORDER.compare(previous, train) < 0,
+              "A snapshot was not sorted");
+          previous = train;
+          count++;
+        }
+        assertEquals(snapshot.size(), count, "A snapshot had the wrong size");
+        reads++;
+      }
+      return reads;
+    });
+    Random random = new Random(11);
+    for (int edit = 0; edit < 50_000; edit++) {
+      int trainNumber = 1 + random.nextInt(200);
+      station.setNewDepartureTime(trainNumber, randomTime(random));
+      station.setNewDelay(trainNumber, random.nextInt(60));
+    }
+    running.set(false);
+    assertTrue(reader.get() > 0, "The reader did not read any snapshots");
+    executor.shutdown();
+    assertEquals(200, station.getSnapshot().size(), "The last snapshot had the wrong size");
+  }
+
+  /*
+   * Negative test for the network index. Checks if a train number used by one train station can
+   * not be used by another train station in the same network.
+   */
+  @Test
+  void networkTrainNumberNegativeTest() {
+    TrainNumberIndex network = new TrainNumberIndex(100);
+    TrainStation first = new TrainStation(network);
+    TrainStation second = new TrainStation(network);
+    first.addTrainDeparture("12:00", 13, "L1", "Oslo");
+    second.addTrainDeparture("12:00", 13, "L1", "Oslo");
+    second.addTrainDeparture("13:00", 14, "L1", "Oslo");
+    first.setNewTrainNumber(13, 14);
+    assertFalse(second.isTrainNumberUnique(13), "The train number was not unique in the network");
+    assertFalse(second.searchByTrainNumber(13).hasNext(), "The train number was used twice");
+    assertTrue(first.searchByTrainNumber(13).hasNext(),
+        "The train was renumbered to a used number");
+  }
+
+  /*
+   * Negative test for the network index. Checks if a train number that is not above 0 is rejected
+   * before it is claimed in the network.
+   */
+  @Test
+  void networkInvalidTrainNumberNegativeTest() {
+    TrainNumberIndex network = new TrainNumberIndex(100);
+    TrainStation station = new TrainStation(network);
+    station.addTrainDeparture("12:00", 0, "L1", "Oslo");
+    station.addTrainDeparture("12:30", -5, "L1", "Oslo");
+    assertEquals(0, network.size(), "An invalid train number was claimed in the network");
+    assertEquals(0, station.getNumberOfTrains(), "A train with an invalid number was added");
+  }
+
+  /*
+   * Negative test for the network index. Checks if a train departure object with an invalid train
+   * number, or departing before the station clock, is rejected before its train number is claimed
+   * in the network, so another train station can still be given such a train departure.
+   */
+  @Test
+  void networkInvalidTrainDepartureNegativeTest() {
+    TrainNumberIndex network = new TrainNumberIndex(100);
+    TrainStation first = new TrainStation(network);
+    TrainStation second = new TrainStation(network);
+    first.setStationClock("12:00");
+    first.addTrainDeparture(new TrainDeparture("13:00", 0, "L1", "Oslo"));
+    first.addTrainDeparture(new TrainDeparture("11:00", 9, "L1", "Oslo"));
+    assertEquals(0, network.size(), "A rejected train departure claimed its train number");
+    assertEquals(0, first.getNumberOfTrains() + first.streamDepartedTrains().count(),
+        "A rejected train departure was added");
+    second.addTrainDeparture(new TrainDeparture("11:00", 9, "L1", "Oslo"));
+    assertTrue(second.searchByTrainNumber(9).hasNext(),
+        "The train number of a rejected train departure was blocked in the network");
+  }
+
+  /*
+   * Positive test for the network index. Checks if removing and renumbering a train departure
+   * releases its train number for the other train stations in the network.
+   */
+  @Test
+  void networkTrainNumberPositiveTest() {
+    TrainNumberIndex network = new TrainNumberIndex();
+    TrainStation first = new TrainStation(network);
+    TrainStation second = new TrainStation(network);
+    first.addTrainDeparture("12:00", 13, "L1", "Oslo");
+    first.addTrainDeparture("12:30", 20, "L1", "Oslo");
+    first.setNewTrainNumber(13, 14);
+    first.removeTrainDeparture(20);
+    second.addTrainDeparture("13:00", 13, "L1", "Bergen");
+    second.addTrainDeparture("13:30", 20, "L1", "Bergen");
+    assertEquals(2, second.getNumberOfTrains(), "The released train numbers were not reused");
+    assertEquals(3, network.size(), "The network index had the wrong train numbers");
+    first.emptyTrainRegister();
+    assertEquals(2, network.size(), "The emptied register did not release its train numbers");
+  }
+
+  /*
+   * Positive test for the nextDepartures method. Checks if only the specified number of the next
+   * train departures are returned, sorted by real departure time.
+   */
+  @Test
+  void nextDeparturesPositiveTest() {
+    trainStationTest.setNewDelay(13, 120);
+    Iterator<TrainDeparture> trains = trainStationTest.nextDepartures(2);
+    assertEquals(424, trains.next().getTrainNumber(), "The first departure was wrong");
+    assertEquals(13, trains.next().getTrainNumber(), "The delayed train was not sorted");
+    assertFalse(trains.hasNext(), "Too many train departures were returned");
+    trains = trainStationTest.nextDepartures(10);
+    int count = 0;
+    while (trains.hasNext()) {
+      trains.next();
+      count++;
+    }
+    assertEquals(3, count, "Not every remaining train departure was returned");
+  }
+
+  /*
+   * Negative test for the nextDepartures method. Checks if departed trains are not returned, and
+   * if asking for no train departures returns an empty iterator.
+   */
+  @Test
+  void nextDeparturesNegativeTest() {
+    trainStationTest.setStationClock("13:00");
+    Iterator<TrainDeparture> trains = trainStationTest.nextDepartures(5);
+    assertEquals(65, trains.next().getTrainNumber(), "A departed train was returned");
+    assertFalse(trains.hasNext(), "A departed train was returned");
+    assertFalse(trainStationTest.nextDepartures(0).hasNext(), "A train departure was returned");
+    assertFalse(trainStationTest.nextDepartures(-1).hasNext(), "A train departure was returned");
+  }
+
+  /*
+   * Positive test for the searchByDepartureTime method. Checks if inclusive and exclusive bounds
+   * return the train departures in the window, sorted by departure time and train number.
+   */
+  @Test
+  void searchByDepartureTimePositiveTest() {
+    trainStationTest.addTrainDeparture("12:30", 7, "L1", "Oslo");
+    trainStationTest.setNewDelay(424, 120);
+    LocalTime from = LocalTime.of(11, 0);
+    LocalTime to = LocalTime.of(12, 30);
+    Iterator<TrainDeparture> trains = trainStationTest.searchByDepartureTime(from, true, to, true);
+    assertEquals(13, trains.next().getTrainNumber(), "The inclusive start was not found");
+    assertEquals(7, trains.next().getTrainNumber(), "The window was not sorted by train number");
+    assertEquals(424, trains.next().getTrainNumber(), "The delayed train was not found");
+    assertFalse(trains.hasNext(), "The window returned too many train departures");
+    trains = trainStationTest.searchByDepartureTime(from, false, to, false);
+    assertFalse(trains.hasNext(), "The exclusive bounds returned train departures");
+    trains = trainStationTest.searchByDepartureTime(from, true, to, false);
+    assertEquals(13, trains.next().getTrainNumber(), "The half-open window was wrong");
+    assertFalse(trains.hasNext(), "The exclusive end returned train departures");
+  }
+
+  /*
+   * Negative test for the searchByDepartureTime method. Checks if a window that ends before it
+   * starts returns an empty iterator.
+   */
+  @Test
+  void searchByDepartureTimeNegativeTest() {
+    assertFalse(trainStationTest.searchByDepartureTime(LocalTime.of(14, 0), true,
+        LocalTime.of(11, 0), true).hasNext(), "A reversed window returned train departures");
+    assertFalse(trainStationTest.searchByDepartureTime(LocalTime.of(11, 0), false,
+        LocalTime.of(11, 0), true).hasNext(), "An empty window returned train departures");
+  }
+
+  /*
+   * Positive test for the searchByRealDepartureTime method. Checks if departed and remaining train
+   * departures are both found by their real departure time.
+   */
+  @Test
+  void searchByRealDepartureTimePositiveTest() {
+    trainStationTest.setNewDelay(13, 60);
+    trainStationTest.setNewDelay(65, 30);
+    trainStationTest.setStationClock("12:15");
+    Iterator<TrainDeparture> trains = trainStationTest.searchByRealDepartureTime(
+        LocalTime.of(11, 30), true, LocalTime.of(14, 0), true);
+    assertEquals(13, trains.next().getTrainNumber(), "The departed train was not found");
+    assertEquals(424, trains.next().getTrainNumber(), "The remaining train was not found");
+    assertFalse(trains.hasNext(), "The train delayed out of the window was found");
+  }
+
+  /*
+   * Positive test for the searchDeparturesWithin method. Checks if the remaining train departures
+   * within the minutes are found, including a train departure delayed past midnight.
+   */
+  @Test
+  void searchDeparturesWithinPositiveTest() {
+    Iterator<TrainDeparture> trains = trainStationTest.searchDeparturesWithin(150);
+    assertEquals(13, trains.next().getTrainNumber(), "The first train was not found");
+    assertEquals(424, trains.next().getTrainNumber(), "The train at the end was not found");
+    assertFalse(trains.hasNext(), "A train after the window was found");
+    trainStationTest.addTrainDeparture("22:00", 7, "L1", "Oslo");
+    trainStationTest.setNewDelay(7, 180);
+    trainStationTest.setStationClock("23:00");
+    assertEquals(7, trainStationTest.searchDeparturesWithin(120).next().getTrainNumber(),
+        "The train delayed past midnight was not found");
+    assertFalse(trainStationTest.searchDeparturesWithin(0).hasNext(),
+        "A window of 0 minutes returned train departures");
+  }
+
+  /*
+   * Positive test for the searchDeparturesWithin method with a destination. Checks if only the
+   * remaining train departures to the destination within the minutes are found, by their real
+   * departure time.
+   */
+  @Test
+  void searchDeparturesWithinDestinationPositiveTest() {
+    trainStationTest.addTrainDeparture("10:50", 7, "L1", "bergen");
+    trainStationTest.setNewDelay(7, 20);
+    assertEquals(List.of(7, 65), trainNumbersOf(trainStationTest.searchDeparturesWithin("BERGEN",
+        250)), "The train departures to Bergen were not found by real departure time");
+    assertEquals(List.of(7), trainNumbersOf(trainStationTest.searchDeparturesWithin("Bergen", 70)),
+        "The train departure at the end of the window was not found");
+    assertEquals(List.of(), trainNumbersOf(trainStationTest.searchDeparturesWithin("Bergen", 59)),
+        "A train departure outside the window was found");
+    assertFalse(trainStationTest.searchDeparturesWithin("Voss", 1440).hasNext(),
+        "An unknown destination returned train departures");
+  }
+
+  /*
+   * Positive test for the searchByTrainLine method. Checks if the search ignores case and returns
+   * the train departures on the train line sorted by departure time, also after the train line or
+   * departure time of a train departure is changed.
+   */
+  @Test
+  void searchByTrainLinePositiveTest() {
+    trainStationTest.addTrainDeparture("10:30", 7, "f3", "Bodø");
+    assertEquals(List.of(7, 424), trainNumbersOf(trainStationTest.searchByTrainLine("F3")),
+        "The train departures on the train line were not found in order");
+    trainStationTest.setNewTrainLine(13, "F3");
+    trainStationTest.setNewDepartureTime(7, "13:00");
+    assertEquals(List.of(13, 424, 7), trainNumbersOf(trainStationTest.searchByTrainLine("f3")),
+        "The changed train departures were not found in order");
+    assertEquals(List.of(13, 424, 7), trainStationTest.streamByTrainLine("F3")
+        .map(TrainDeparture::getTrainNumber).toList(), "The stream was not sorted");
+  }
+
+  /*
+   * Negative test for the searchByTrainLine method. Checks if a train line without train departures
+   * returns nothing, also after its train departures are moved to another train line, removed or
+   * the train register is emptied.
+   */
+  @Test
+  void searchByTrainLineNegativeTest() {
+    trainStationTest.setNewTrainLine(13, "F3");
+    assertFalse(trainStationTest.searchByTrainLine("L2").hasNext(),
+        "A train departure was found on its old train line");
+    trainStationTest.removeTrainDeparture(65);
+    assertFalse(trainStationTest.searchByTrainLine("RE11").hasNext(),
+        "A removed train departure was found on its train line");
+    assertFalse(trainStationTest.searchByTrainLine("R99").hasNext(),
+        "A train line that does not exist returned train departures");
+    trainStationTest.emptyTrainRegister();
+    assertEquals(0, trainStationTest.streamByTrainLine("F3").count(),
+        "An emptied train register returned train departures");
+  }
+
+  /*
+   * Positive test for the search method. Checks if a query with several criteria finds the matching
+   * train departures from the most selective index, and reports the other criteria as filters. The
+   * destination, train line and delay criteria are combined in the bitmap index.
+   */
+  @Test
+  void searchPositiveTest() {
+    trainStationTest.addTrainDeparture("11:30", 7, "L2", "Oslo");
+    trainStationTest.addTrainDeparture("12:15", 8, "L4", "Oslo");
+    trainStationTest.addTrainDeparture("12:45", 9, "L4", "Oslo");
+    trainStationTest.addTrainDeparture("12:20", 10, "L4", "Bergen");
+    trainStationTest.setNewDelays(Map.of(8, 10, 9, 3, 10, 20));
+    DepartureQuery query = new DepartureQuery().withDestination("oslo").withTrainLine("l4")
+        .departingBetween(LocalTime.of(12, 0), LocalTime.of(13, 0)).delayedMoreThan(5);
+
+    QueryResult result = trainStationTest.search(query);
+    assertEquals(List.of(8), result.getTrains().stream().map(TrainDeparture::getTrainNumber)
+        .toList(), "The query found the wrong train departures");
+    assertEquals(QueryResult.Index.BITMAP, result.getIndex(), "The wrong index was chosen");
+    assertEquals(4, result.getCandidates().get(QueryResult.Index.DESTINATION),
+        "The destination index had the wrong number of candidates");
+    assertEquals(3, result.getCandidates().get(QueryResult.Index.TRAIN_LINE),
+        "The line index had the wrong number of candidates");
+    assertEquals(2, result.getCandidates().get(QueryResult.Index.BITMAP),
+        "The bitmap index had the wrong number of candidates");
+    assertEquals(List.of("departure 12:00-13:00", "delay > 5 min"),
+        result.getFilters(), "The wrong criteria were checked on the candidates");
+
+    trainStationTest.setNewTrackNumber(8, 2);
+    result = trainStationTest.search(query.withTrackNumber(2));
+    assertEquals(QueryResult.Index.TRACK, result.getIndex(), "The track index was not chosen");
+    assertEquals(1, result.getTrains().size(), "The track index did not find the train departure");
+    assertEquals(QueryResult.Index.TRAIN_NUMBER,
+        trainStationTest.search(query.withTrainNumber(8)).getIndex(),
+        "The train number index was not chosen");
+  }
+
+  /*
+   * Positive test for the search method. Checks if a narrow window of departure times is chosen
+   * over a larger index, and if a query without criteria returns the whole train register.
+   */
+  @Test
+  void searchDepartureTimePositiveTest() {
+    QueryResult result = trainStationTest.search(new DepartureQuery().withTrainLine("L2")
+        .departingBetween(LocalTime.of(12, 0), LocalTime.of(13, 0)));
+    assertEquals(QueryResult.Index.TRAIN_LINE, result.getIndex(), "The smaller index was not used");
+    trainStationTest.addTrainDeparture("11:30", 7, "L2", "Oslo");
+    result = trainStationTest.search(new DepartureQuery().withTrainLine("L2")
+        .departingBetween(LocalTime.of(11, 15), LocalTime.of(11, 30)));
+    assertEquals(QueryResult.Index.DEPARTURE_TIME, result.getIndex(), "The window was not used");
+    assertEquals(7, result.getTrains().get(0).getTrainNumber(), "The window found the wrong train");
+
+    result = trainStationTest.search(new DepartureQuery());
+    assertEquals(QueryResult.Index.TRAIN_REGISTER, result.getIndex(), "The register was not used");
+    assertEquals(List.of(13, 7, 424, 65), result.getTrains().stream()
+        .map(TrainDeparture::getTrainNumber).toList(), "The register was not sorted");
+  }
+
+  /*
+   * Positive test for the search method with the bitmap index. Checks if several destinations and
+   * tracks are combined with OR, the criteria with AND, and if the bitmap index follows changes to
+   * the train departures and reuses the ordinals of removed train departures.
+   */
+  @Test
+  void searchBitmapPositiveTest() {
+    trainStationTest.addTrainDeparture("12:00", 7, "F3", "Oslo");
+    trainStationTest.setNewTrackNumbers(Map.of(13, 1, 424, 2, 65, 3, 7, 4));
+    trainStationTest.setNewDelay(65, 15);
+    DepartureQuery query = new DepartureQuery().withDestination("Oslo").withDestination("Bergen")
+        .withTrackNumber(1).withTrackNumber(3).withTrackNumber(4).notDelayed();
+
+    QueryResult result = trainStationTest.search(query);
+    assertEquals(QueryResult.Index.BITMAP, result.getIndex(), "The bitmap index was not used");
+    assertEquals(List.of(13, 7), result.getTrains().stream().map(TrainDeparture::getTrainNumber)
+        .toList(), "The bitmaps were not combined correctly");
+
+    trainStationTest.removeTrainDeparture(13);
+    trainStationTest.addTrainDeparture("13:00", 8, "L2", "Bergen");
+    trainStationTest.setNewTrackNumber(8, 1);
+    trainStationTest.setNewTrainLine(7, "L2");
+    result = trainStationTest.search(new DepartureQuery().withTrainLine("L2").withTrackNumber(1));
+    assertEquals(List.of(8), result.getTrains().stream().map(TrainDeparture::getTrainNumber)
+        .toList(), "The reused ordinal kept the old train departure");
+    assertEquals(List.of(65), trainStationTest.search(new DepartureQuery().withDestination("Bergen")
+        .delayedMoreThan(0)).getTrains().stream().map(TrainDeparture::getTrainNumber).toList(),
+        "The delayed bitmap was not used");
+  }
+
+  /*
+   * Negative test for the bitmap index. Checks if a train departure added to two train stations
+   * keeps its own ordinal in each of them, so removing it from one train station does not leave
+   * its bits behind or clear the bits of the other train station.
+   */
+  @Test
+  void searchBitmapSharedDepartureNegativeTest() {
+    TrainDeparture shared = new TrainDeparture("12:00", 7, "L1", "Oslo");
+    TrainStation first = new TrainStation();
+    TrainStation second = new TrainStation();
+    first.addTrainDeparture("11:00", 5, "L1", "Oslo");
+    first.addTrainDeparture(shared);
+    second.addTrainDeparture(shared);
+    first.removeTrainDeparture(7);
+    DepartureQuery query = new DepartureQuery().withDestination("Oslo").withTrainLine("L1");
+    QueryResult result = first.search(query);
+    assertEquals(1, result.getCandidates().get(QueryResult.Index.BITMAP),
+        "The removed train departure was left in the bitmaps");
+    assertEquals(List.of(5), result.getTrains().stream().map(TrainDeparture::getTrainNumber)
+        .toList(), "The bitmaps found the removed train departure");
+    assertEquals(List.of(7), second.search(query).getTrains().stream()
+        .map(TrainDeparture::getTrainNumber).toList(),
+        "The bitmaps of the other train station were changed");
+  }
+
+  /*
+   * Negative test for the search method. Checks if a destination, train line or track that is
+   * added to a query twice, or in another case, is only looked up and reported once.
+   */
+  @Test
+  void searchDuplicateValuesNegativeTest() {
+    trainStationTest.setNewTrackNumbers(Map.of(13, 1, 65, 3));
+    QueryResult result = trainStationTest.search(new DepartureQuery().withDestination("Oslo")
+        .withDestination("oSLO").withDestination("Oslo"));
+    assertEquals(List.of(13), result.getTrains().stream().map(TrainDeparture::getTrainNumber)
+        .toList(), "A repeated destination found the train departure twice");
+    assertEquals(1, result.getCandidates().get(QueryResult.Index.DESTINATION),
+        "A repeated destination was counted twice");
+
+    result = trainStationTest.search(new DepartureQuery().withTrainLine("L2").withTrainLine("l2"));
+    assertEquals(List.of(13), result.getTrains().stream().map(TrainDeparture::getTrainNumber)
+        .toList(), "A repeated train line found the train departure twice");
+    assertEquals(1, result.getCandidates().get(QueryResult.Index.TRAIN_LINE),
+        "A repeated train line was counted twice");
+
+    result = trainStationTest.search(new DepartureQuery().withTrackNumber(3).withTrackNumber(3));
+    assertEquals(List.of(65), result.getTrains().stream().map(TrainDeparture::getTrainNumber)
+        .toList(), "A repeated track found the train departure twice");
+    assertEquals(1, result.getCandidates().get(QueryResult.Index.TRACK),
+        "A repeated track was counted twice");
+
+    result = trainStationTest.search(new DepartureQuery().withDestination("Oslo")
+        .withDestination("OSLO").withTrackNumber(1).withTrackNumber(1));
+    assertEquals(QueryResult.Index.DESTINATION, result.getIndex(), "The wrong index was chosen");
+    assertEquals(List.of("track = 1"), result.getFilters(), "A repeated track was reported twice");
+  }
+
+  /*
+   * Negative test for the search method. Checks if a query for a destination or track without
+   * train departures finds nothing, and if invalid criteria are rejected.
+   */
+  @Test
+  void searchNegativeTest() {
+    QueryResult result = trainStationTest.search(new DepartureQuery().withDestination("Bodø")
+        .withTrainLine("L2"));
+    assertTrue(result.getTrains().isEmpty(), "A destination without train departures was found");
+    assertEquals(QueryResult.Index.DESTINATION, result.getIndex(), "The empty index was not used");
+    trainStationTest.setNewTrackNumbers(Map.of(13, 1));
+    trainStationTest.setNewTrackNumbers(Map.of(13, 2));
+    assertTrue(trainStationTest.search(new DepartureQuery().withTrackNumber(1)).getTrains()
+        .isEmpty(), "A train departure was found on its old track");
+    DepartureQuery query = new DepartureQuery();
+    assertThrows(IllegalArgumentException.class,
+        () -> query.departingBetween(LocalTime.of(13, 0), LocalTime.of(12, 0)),
+        "A window ending before it starts was accepted");
+    assertThrows(IllegalArgumentException.class, () -> query.withTrackNumber(0),
+        "A track number of 0 was accepted");
+    assertThrows(IllegalArgumentException.class, () -> query.withDestination(" "),
+        "An empty destination was accepted");
+  }
+
+  /*
+   * Positive test for the streamByDestination method. Checks if the stream reports its order and
+   * size, and returns the train departures sorted by departure time.
+   */
+  @Test
+  void streamByDestinationPositiveTest() {
+    trainStationTest.addTrainDeparture("10:30", 7, "L1", "Oslo");
+    Spliterator<TrainDeparture> trains = trainStationTest.streamByDestination("oslo").spliterator();
+    assertTrue(trains.hasCharacteristics(
+            Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.SIZED),
+        "The stream did not report that it is sorted, distinct and sized");
+    assertSame(TrainStation.DEPARTURE_ORDER, trains.getComparator(), "The order was wrong");
+    assertEquals(2, trains.estimateSize(), "The stream had the wrong size");
+    assertEquals(List.of(7, 13), trainStationTest.streamByDestination("Oslo")
+        .map(TrainDeparture::getTrainNumber).toList(), "The stream was not sorted");
+  }
+
+  /*
+   * Negative test for the streamByDestination and streamByTrainNumber methods. Checks if searching
+   * for a destination or train number that does not exist returns an empty stream.
+   */
+  @Test
+  void streamByDestinationNegativeTest() {
+    assertEquals(0, trainStationTest.streamByDestination("Bodø").count(),
+        "A destination without train departures returned train departures");
+    assertFalse(trainStationTest.streamByTrainNumber(1).findAny().isPresent(),
+        "A train number that does not exist was found");
+  }
+
+  /*
+   * Positive test for the streamTrainRegister and streamRemainingTrains methods. Checks if the
+   * streams short-circuit on a limit, and if the register stream reads the snapshot.
+   */
+  @Test
+  void streamTrainRegisterPositiveTest() {
+    Stream<TrainDeparture> register = trainStationTest.streamTrainRegister();
+    trainStationTest.removeTrainDeparture(424);
+    Spliterator<TrainDeparture> trains = register.spliterator();
+    assertTrue(trains.hasCharacteristics(Spliterator.SORTED | Spliterator.SIZED
+        | Spliterator.IMMUTABLE), "The register stream did not report its characteristics");
+    assertEquals(3, trains.estimateSize(), "The register stream did not read the snapshot");
+    List<Integer> trainNumbers = new ArrayList<>();
+    trains.forEachRemaining(train -> trainNumbers.add(train.getTrainNumber()));
+    assertEquals(List.of(13, 424, 65), trainNumbers, "The register stream was not sorted");
+    assertEquals(0, trains.estimateSize(), "The size was not updated while streaming");
+    assertEquals(List.of(13), trainStationTest.streamRemainingTrains().limit(1)
+        .map(TrainDeparture::getTrainNumber).toList(), "The limit was not applied");
+    assertEquals(65, trainStationTest.streamByTrainNumber(65).findFirst().orElseThrow()
+        .getTrainNumber(), "The train number was not found");
+  }
+
+  /*
+   * Positive test for the searchDestinationsByPrefix method. Checks if the matching destinations
+   * are ranked by upcoming train departures, and if the ranking follows the station clock and the
+   * changes to the train departures.
+   */
+  @Test
+  void searchDestinationsByPrefixPositiveTest() {
+    trainStationTest.addTrainDeparture("10:30", 7, "L1", "Berkåk");
+    trainStationTest.addTrainDeparture("10:45", 8, "L1", "Berkåk");
+    assertEquals(List.of("Berkåk", "Bergen"),
+        trainStationTest.searchDestinationsByPrefix("ber", 5),
+        "The destinations were not ranked by upcoming train departures");
+    trainStationTest.setStationClock("10:50");
+    assertEquals(List.of("Bergen", "Berkåk"),
+        trainStationTest.searchDestinationsByPrefix("BER", 5),
+        "The departed trains were still counted");
+    trainStationTest.removeTrainDeparture(7);
+    trainStationTest.setNewDestination(8, "Oslo");
+    assertEquals(List.of("Bergen"), trainStationTest.searchDestinationsByPrefix("ber", 5),
+        "A destination without train departures was found");
+  }
+
+  /*
+   * Negative test for the searchDestinationsByPrefix method. Checks if a prefix without matching
+   * destinations, or an emptied register, returns no destinations.
+   */
+  @Test
+  void searchDestinationsByPrefixNegativeTest() {
+    assertTrue(trainStationTest.searchDestinationsByPrefix("Stav", 5).isEmpty(),
+        "A destination without train departures was found");
+    trainStationTest.emptyTrainRegister();
+    assertTrue(trainStationTest.searchDestinationsByPrefix("", 5).isEmpty(),
+        "The emptied register still had destinations");
+  }
+
+  /*
+   * Positive test for the searchDestinationsBySpelling method. Checks if misspelled destinations
+   * find the destinations of the train station.
+   */
+  @Test
+  void searchDestinationsBySpellingPositiveTest() {
+    assertEquals(List.of("Bergen"), trainStationTest.searchDestinationsBySpelling("Bergn", 2, 5),
+        "The misspelled destination was not found");
+    assertEquals(List.of("Trondheim"),
+        trainStationTest.searchDestinationsBySpelling("trondhiem", 2, 5),
+        "The destination with swapped letters was not found");
+  }
+
+  /*
+   * Negative test for the searchDestinationsBySpelling method. Checks if a destination without
+   * train departures is not found, even if it had train departures earlier.
+   */
+  @Test
+  void searchDestinationsBySpellingNegativeTest() {
+    trainStationTest.removeTrainDeparture(13);
+    assertTrue(trainStationTest.searchDestinationsBySpelling("Olso", 2, 5).isEmpty(),
+        "A destination without train departures was found");
+    assertTrue(trainStationTest.searchDestinationsBySpelling("Stavanger", 2, 5).isEmpty(),
+        "A destination too far away was found");
+  }
+
+  /*
+   * Negative test for the emptyTrainRegister method. Checks if the destinations of the emptied
+   * train register are no longer found by their spelling, and if a destination added again is
+   * found.
+   */
+  @Test
+  void emptyTrainRegisterSpellingNegativeTest() {
+    trainStationTest.emptyTrainRegister();
+    assertTrue(trainStationTest.searchDestinationsBySpelling("Bergn", 2, 5).isEmpty(),
+        "A destination of the emptied train register was found");
+    trainStationTest.addTrainDeparture("15:00", 7, "L1", "Bergen");
+    assertEquals(List.of("Bergen"), trainStationTest.searchDestinationsBySpelling("Bergn", 2, 5),
+        "A destination added again was not found");
+  }
+
+  /*
+   * Positive test for the setNewDelays method. Checks if the delays of a batch are applied, the
+   * remaining trains are sorted by the new real departure times, and one snapshot is published.
+   */
+  @Test
+  void setNewDelaysPositiveTest() {
+    long version = trainStationTest.getSnapshot().getVersion();
+    assertEquals(2, trainStationTest.setNewDelays(Map.of(13, 150, 65, 30, 999, 5)),
+        "The wrong number of train departures was delayed");
+    Iterator<TrainDeparture> remaining = trainStationTest.hideDepartedTrains();
+    assertEquals(424, remaining.next().getTrainNumber(), "The first remaining train was wrong");
+    assertEquals(13, remaining.next().getTrainNumber(), "The delayed train was not moved");
+    assertEquals(65, remaining.next().getTrainNumber(), "The last remaining train was wrong");
+    assertEquals(version + 1, trainStationTest.getSnapshot().getVersion(),
+        "The batch did not publish exactly one snapshot");
+    assertEquals(150, trainStationTest.getSnapshot().iterator().next().getMinutesDelay(),
+        "The snapshot did not contain the new delay");
+  }
+
+  /*
+   * Negative test for the setNewDelays method. Checks if a batch of train numbers that do not exist
+   * changes nothing and publishes no snapshot.
+   */
+  @Test
+  void setNewDelaysNegativeTest() {
+    RegisterSnapshot before = trainStationTest.getSnapshot();
+    assertEquals(0, trainStationTest.setNewDelays(Map.of(1, 10, 2, 20)),
+        "A train departure that does not exist was delayed");
+    assertSame(before, trainStationTest.getSnapshot(), "An empty batch published a snapshot");
+  }
+
+  /*
+   * Positive test for the setNewDelay and setNewDelays methods. Checks if delays set one by one and
+   * the same delays set in a batch leave two train stations with the same remaining and departed
+   * train departures, and if the delayed train departures are still in the bitmap index.
+   */
+  @Test
+  void setNewDelayAgreesWithSetNewDelaysPositiveTest() {
+    TrainStation batched = new TrainStation();
+    batched.setStationClock("10:00");
+    batched.addTrainDeparture("11:00", 13, "L2", "Oslo");
+    batched.addTrainDeparture("12:30", 424, "F3", "Trondheim");
+    batched.addTrainDeparture("14:00", 65, "RE11", "Bergen");
+    trainStationTest.setNewDelay(13, 150);
+    trainStationTest.setNewDelay(424, 20);
+    batched.setNewDelays(Map.of(13, 150, 424, 20));
+    trainStationTest.setStationClock("12:45");
+    batched.setStationClock("12:45");
+    assertEquals(trainNumbersOf(batched.hideDepartedTrains()),
+        trainNumbersOf(trainStationTest.hideDepartedTrains()),
+        "The remaining trains did not agree");
+    assertEquals(trainNumbersOf(batched.getDepartedTrains()),
+        trainNumbersOf(trainStationTest.getDepartedTrains()), "The departed trains did not agree");
+    for (int trainNumber : new int[] {13, 424, 65}) {
+      assertTrue(trainStationTest.getOrdinal(trainNumber) >= 0,
+          "The delayed train departure was not put back in the bitmap index");
+    }
+    assertEquals(150, trainStationTest.getSnapshot().iterator().next().getMinutesDelay(),
+        "The snapshot did not contain the new delay");
+  }
+
+  /*
+   * Positive test for the setNewTrackNumbers method. Checks if the tracks of a batch are assigned
+   * in the register and the snapshot.
+   */
+  @Test
+  void setNewTrackNumbersPositiveTest() {
+    assertEquals(2, trainStationTest.setNewTrackNumbers(Map.of(13, 4, 424, 2, 999, 1)),
+        "The wrong number of train departures was assigned a track");
+    assertEquals(4, trainStationTest.searchByTrainNumber(13).next().getTrackNumber(),
+        "The track of train 13 was not assigned");
+    assertEquals(2, trainStationTest.searchByTrainNumber(424).next().getTrackNumber(),
+        "The track of train 424 was not assigned");
+    Iterator<TrainDeparture> snapshot = trainStationTest.getSnapshot().iterator();
+    assertEquals(4, snapshot.next().getTrackNumber(), "The snapshot did not contain the track");
+  }
+
+  /*
+   * Positive test for the addTrainDepartures method. Loads unsorted train departures into a station
+   * with train departures, then sorted train departures into an empty station, and checks the
+   * register, the indexes and the snapshot of both.
+   */
+  @Test
+  void addTrainDeparturesPositiveTest() {
+    Random random = new Random(7);
+    String[] destinations = {"Oslo", "Trondheim", "Bergen"};
+    Map<Integer, String> expected = new HashMap<>();
+    expected.put(13, "Oslo");
+    expected.put(424, "Trondheim");
+    expected.put(65, "Bergen");
+    List<TrainDeparture> trains = new ArrayList<>();
+    for (int trainNumber = 1000; trainNumber < 1500; trainNumber++) {
+      String destination = destinations[random.nextInt(destinations.length)];
+      int minuteOfDay = 601 + random.nextInt(839);
+      trains.add(new TrainDeparture(String.format("%02d:%02d", minuteOfDay / 60,
+          minuteOfDay % 60), trainNumber, "L1", destination));
+      expected.put(trainNumber, destination);
+    }
+    BulkLoadReport report = trainStationTest.addTrainDepartures(trains);
+    assertEquals(500, report.getAccepted(), "Not every train departure was added");
+    assertTrue(report.getRejections().isEmpty(), "A valid train departure was rejected");
+    assertRegisterConsistent(trainStationTest, expected, destinations,
+        new String[] {"L1", "L2", "F3", "RE11"}, 503);
+    assertEquals(503, trainStationTest.getSnapshot().size(), "The snapshot had the wrong size");
+
+    trains.sort(TrainStation.DEPARTURE_ORDER);
+    TrainStation empty = new TrainStation();
+    empty.addTrainDepartures(trains);
+    expected.remove(13);
+    expected.remove(424);
+    expected.remove(65);
+    assertRegisterConsistent(empty, expected, destinations, new String[] {"L1"}, 500);
+    Iterator<TrainDeparture> snapshot = empty.getSnapshot().iterator();
+    for (TrainDeparture train : trains) {
+      assertEquals(train.getTrainNumber(), snapshot.next().getTrainNumber(),
+          "The snapshot was not sorted");
+    }
+    assertEquals(1, empty.getSnapshot().getVersion(), "The load published more than one snapshot");
+  }
+
+  /*
+   * Negative test for the addTrainDepartures method. Checks if every invalid train departure is
+   * rejected with its row and reason, and that the valid train departures are still added.
+   */
+  @Test
+  void addTrainDeparturesNegativeTest() {
+    TrainNumberIndex network = new TrainNumberIndex();
+    TrainStation other = new TrainStation(network);
+    other.addTrainDeparture("12:00", 99, "L1", "Oslo");
+    TrainStation station = new TrainStation(network);
+    station.setStationClock("10:00");
+    station.addTrainDeparture("11:00", 13, "L2", "Oslo");
+    BulkLoadReport report = station.addTrainDepartures(Arrays.asList(
+        new TrainDeparture("12:00", 1, "L1", "Oslo"),
+        null,
+        new TrainDeparture("12:00", 0, "L1", "Oslo"),
+        new TrainDeparture("09:00", 2, "L1", "Oslo"),
+        new TrainDeparture("13:00", 1, "L1", "Oslo"),
+        new TrainDeparture("13:00", 13, "L1", "Oslo"),
+        new TrainDeparture("13:00", 99, "L1", "Oslo")));
+    BulkLoadReport.Reason[] reasons = {
+        BulkLoadReport.Reason.MISSING_DEPARTURE, BulkLoadReport.Reason.INVALID_TRAIN_NUMBER,
+        BulkLoadReport.Reason.ALREADY_DEPARTED, BulkLoadReport.Reason.DUPLICATE_TRAIN_NUMBER,
+        BulkLoadReport.Reason.TRAIN_NUMBER_IN_USE, BulkLoadReport.Reason.TRAIN_NUMBER_IN_USE};
+    assertEquals(1, report.getAccepted(), "The wrong number of train departures was added");
+    assertEquals(reasons.length, report.getRejections().size(), "The wrong rows were rejected");
+    for (int i = 0; i < reasons.length; i++) {
+      BulkLoadReport.Rejection rejection = report.getRejections().get(i);
+      assertEquals(i + 1, rejection.getRow(), "The rejection had the wrong row");
+      assertEquals(reasons[i], rejection.getReason(), "Row " + (i + 1) + " had the wrong reason");
+    }
+    assertEquals(2, station.getNumberOfTrains(), "Rejected train departures were added");
+    assertEquals("12:00", station.searchByTrainNumber(1).next().getDepartureTime().toString(),
+        "The first row with a duplicate train number was not kept");
+    assertEquals(3, network.size(), "The network index claimed the wrong train numbers");
+  }
+  /*
+   * Positive test for the sorted list view used to rebuild the sorted sets. Checks if the subsets
+   * are found by their bounds, including bounds that are not in the view, and if a train
+   * departure is found by a binary search.
+   */
+  @Test
+  void sortedListViewPositiveTest() {
+    List<TrainDeparture> sorted = new ArrayList<>();
+    for (int trainNumber = 1; trainNumber <= 5; trainNumber++) {
+      sorted.add(new TrainDeparture(TrainStationBenchmark.time(trainNumber * 60), trainNumber,
+          "L1", "Oslo"));
+    }
+    TrainStation.SortedListView view =
+        new TrainStation.SortedListView(sorted, TrainStation.DEPARTURE_ORDER);
+    TrainDeparture between = new TrainDeparture("03:30", 9, "L1", "Oslo");
+    assertEquals(sorted.subList(1, 3), List.copyOf(view.subSet(sorted.get(1), between)),
+        "The subset was wrong");
+    assertEquals(sorted.subList(0, 3), List.copyOf(view.headSet(between)),
+        "The head set was wrong");
+    assertEquals(sorted.subList(3, 5), List.copyOf(view.tailSet(between)),
+        "The tail set was wrong");
+    assertEquals(sorted.get(3), view.tailSet(between).headSet(sorted.get(4)).first(),
+        "The subset of a subset was wrong");
+    assertTrue(view.contains(sorted.get(3)), "A train departure in the view was not found");
+    assertFalse(view.contains(between), "A train departure not in the view was found");
+  }
+
+  /*
+   * Negative test for the sorted list view. Checks if reversed bounds are rejected, and if an empty
+   * subset has no first train departure.
+   */
+  @Test
+  void sortedListViewNegativeTest() {
+    List<TrainDeparture> sorted = List.of(new TrainDeparture("01:00", 1, "L1", "Oslo"),
+        new TrainDeparture("02:00", 2, "L1", "Oslo"));
+    TrainStation.SortedListView view =
+        new TrainStation.SortedListView(sorted, TrainStation.DEPARTURE_ORDER);
+    assertThrows(IllegalArgumentException.class, () -> view.subSet(sorted.get(1), sorted.get(0)),
+        "Reversed bounds were accepted");
+    assertThrows(NoSuchElementException.class, () -> view.headSet(sorted.get(0)).first(),
+        "An empty subset had a first train departure");
+  }
+
+
   /*
    * Positive test for the isTrainNumberUnique method. Checks if the train number is unique.
    */